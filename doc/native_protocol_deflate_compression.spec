@@ -0,0 +1,21 @@
+
+                  CQL BINARY PROTOCOL: DEFLATE FRAME COMPRESSION
+
+
+  This document describes the "deflate" frame compression, an extension to the
+  compressions of section 5 of the native protocol specification. It is not part
+  of the (frozen) v4 specification: a server supporting it advertises it in the
+  COMPRESSION option of its SUPPORTED message, and clients should only select it
+  in their STARTUP message when it is advertised.
+
+  deflate (https://tools.ietf.org/html/rfc1951)
+
+  Contrarily to the other compressions, frames are not compressed
+  independently: all the compressed frames sent in one direction of a
+  connection form a single raw deflate stream, each frame body being the bytes
+  produced by compressing the frame and then performing a sync flush. Frames
+  must thus be decompressed in the order they are received, with one
+  decompression context per connection.
+
+  As for lz4, the first four bytes of the body will be the uncompressed length
+  (followed by the compressed bytes).
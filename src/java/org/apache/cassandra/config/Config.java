@@ -103,11 +103,18 @@ public class Config
 
     public boolean cross_node_timeout = false;
 
+    public boolean multi_partition_read_batching_enabled = false;
+
+    public boolean unlogged_batch_write_coalescing_enabled = false;
+
+    public boolean paxos_fast_path_enabled = false;
+
     public volatile Double phi_convict_threshold = 8.0;
 
     public Integer concurrent_reads = 32;
     public Integer concurrent_writes = 32;
     public Integer concurrent_counter_writes = 32;
+    public boolean counter_write_accumulator_enabled = false;
     public Integer concurrent_materialized_view_writes = 32;
 
     @Deprecated
@@ -152,6 +159,10 @@ public class Config
     public Integer native_transport_max_frame_size_in_mb = 256;
     public volatile Long native_transport_max_concurrent_connections = -1L;
     public volatile Long native_transport_max_concurrent_connections_per_ip = -1L;
+    public volatile long native_transport_max_concurrent_requests_in_bytes = -1L;
+    public volatile long native_transport_max_concurrent_requests_in_bytes_per_ip = -1L;
+    public boolean native_transport_throw_on_overload = false;
+    public boolean native_transport_flush_in_batches_legacy = false;
 
     @Deprecated
     public Integer thrift_max_message_length_in_mb = 16;
@@ -213,6 +224,9 @@ public class Config
     public Integer dynamic_snitch_reset_interval_in_ms = 600000;
     public Double dynamic_snitch_badness_threshold = 0.1;
 
+    public int speculative_retry_max_replicas = 1;
+    public double speculative_retry_budget_ratio = 0.1;
+
     public String request_scheduler;
     public RequestSchedulerId request_scheduler_id;
     public RequestSchedulerOptions request_scheduler_options;
@@ -228,6 +242,9 @@ public class Config
     public Integer index_interval = null;
 
     public int hinted_handoff_throttle_in_kb = 1024;
+    public int hinted_handoff_max_throttle_in_kb = 0;
+    public int hints_delivery_batch_size_in_kb = 0;
+    public boolean hints_file_transfer_enabled = false;
     public int batchlog_replay_throttle_in_kb = 1024;
     public int max_hints_delivery_threads = 2;
     public int hints_flush_period_in_ms = 10000;
@@ -252,6 +269,8 @@ public class Config
     public volatile int counter_cache_save_period = 7200;
     public volatile int counter_cache_keys_to_save = Integer.MAX_VALUE;
 
+    public long paxos_state_cache_size_in_mb = 0;
+
     private static boolean isClientMode = false;
 
     public Integer file_cache_size_in_mb;
@@ -679,6 +679,11 @@ public class DatabaseDescriptor
         if (conf.memtable_cleanup_threshold < 0.1f)
             logger.warn("memtable_cleanup_threshold is set very low [{}], which may cause performance degradation", conf.memtable_cleanup_threshold);
 
+        if (conf.speculative_retry_max_replicas < 1)
+            throw new ConfigurationException("speculative_retry_max_replicas must be at least 1, but was " + conf.speculative_retry_max_replicas, false);
+        if (conf.speculative_retry_budget_ratio < 0)
+            throw new ConfigurationException("speculative_retry_budget_ratio must be >= 0, but was " + conf.speculative_retry_budget_ratio, false);
+
         if (conf.concurrent_compactors == null)
             conf.concurrent_compactors = Math.min(8, Math.max(2, Math.min(FBUtilities.getAvailableProcessors(), conf.data_file_directories.length)));
 
@@ -1294,6 +1299,7 @@ public class DatabaseDescriptor
         switch (verb)
         {
             case READ:
+            case READ_BATCH:
                 return getReadRpcTimeout();
             case RANGE_SLICE:
             case PAGED_RANGE:
@@ -1302,10 +1308,14 @@ public class DatabaseDescriptor
                 return getTruncateRpcTimeout();
             case READ_REPAIR:
             case MUTATION:
+            case MUTATION_BATCH:
             case PAXOS_COMMIT:
             case PAXOS_PREPARE:
+            case PAXOS_PREPARE_AND_READ:
             case PAXOS_PROPOSE:
             case HINT:
+            case HINT_BATCH:
+            case HINTS_FILE_PAGE:
             case BATCH_STORE:
             case BATCH_REMOVE:
                 return getWriteRpcTimeout();
@@ -1354,6 +1364,17 @@ public class DatabaseDescriptor
         return conf.concurrent_counter_writes;
     }
 
+    public static boolean isCounterWriteAccumulatorEnabled()
+    {
+        return conf.counter_write_accumulator_enabled;
+    }
+
+    @VisibleForTesting
+    public static void setCounterWriteAccumulatorEnabled(boolean enabled)
+    {
+        conf.counter_write_accumulator_enabled = enabled;
+    }
+
     public static int getConcurrentViewWriters()
     {
         return conf.concurrent_materialized_view_writes;
@@ -1631,6 +1652,46 @@ public class DatabaseDescriptor
         conf.native_transport_max_concurrent_connections_per_ip = native_transport_max_concurrent_connections_per_ip;
     }
 
+    public static long getNativeTransportMaxConcurrentRequestsInBytes()
+    {
+        return conf.native_transport_max_concurrent_requests_in_bytes;
+    }
+
+    public static void setNativeTransportMaxConcurrentRequestsInBytes(long maxConcurrentRequestsInBytes)
+    {
+        conf.native_transport_max_concurrent_requests_in_bytes = maxConcurrentRequestsInBytes;
+    }
+
+    public static long getNativeTransportMaxConcurrentRequestsInBytesPerIp()
+    {
+        return conf.native_transport_max_concurrent_requests_in_bytes_per_ip;
+    }
+
+    public static void setNativeTransportMaxConcurrentRequestsInBytesPerIp(long maxConcurrentRequestsInBytesPerIp)
+    {
+        conf.native_transport_max_concurrent_requests_in_bytes_per_ip = maxConcurrentRequestsInBytesPerIp;
+    }
+
+    public static boolean getNativeTransportThrowOnOverload()
+    {
+        return conf.native_transport_throw_on_overload;
+    }
+
+    public static void setNativeTransportThrowOnOverload(boolean throwOnOverload)
+    {
+        conf.native_transport_throw_on_overload = throwOnOverload;
+    }
+
+    public static boolean getNativeTransportFlushInBatchesLegacy()
+    {
+        return conf.native_transport_flush_in_batches_legacy;
+    }
+
+    public static void setNativeTransportFlushInBatchesLegacy(boolean flushInBatchesLegacy)
+    {
+        conf.native_transport_flush_in_batches_legacy = flushInBatchesLegacy;
+    }
+
     public static double getCommitLogSyncBatchWindow()
     {
         return conf.commitlog_sync_batch_window_in_ms;
@@ -1805,6 +1866,51 @@ public class DatabaseDescriptor
         conf.dynamic_snitch_badness_threshold = dynamicBadnessThreshold;
     }
 
+    public static boolean isMultiPartitionReadBatchingEnabled()
+    {
+        return conf.multi_partition_read_batching_enabled;
+    }
+
+    public static void setMultiPartitionReadBatchingEnabled(boolean enabled)
+    {
+        conf.multi_partition_read_batching_enabled = enabled;
+    }
+
+    public static boolean isUnloggedBatchWriteCoalescingEnabled()
+    {
+        return conf.unlogged_batch_write_coalescing_enabled;
+    }
+
+    public static void setUnloggedBatchWriteCoalescingEnabled(boolean enabled)
+    {
+        conf.unlogged_batch_write_coalescing_enabled = enabled;
+    }
+
+    public static boolean isPaxosFastPathEnabled()
+    {
+        return conf.paxos_fast_path_enabled;
+    }
+
+    public static void setPaxosFastPathEnabled(boolean enabled)
+    {
+        conf.paxos_fast_path_enabled = enabled;
+    }
+
+    public static int getSpeculativeRetryMaxReplicas()
+    {
+        return conf.speculative_retry_max_replicas;
+    }
+
+    public static void setSpeculativeRetryMaxReplicas(int maxReplicas)
+    {
+        conf.speculative_retry_max_replicas = maxReplicas;
+    }
+
+    public static double getSpeculativeRetryBudgetRatio()
+    {
+        return conf.speculative_retry_budget_ratio;
+    }
+
     public static ServerEncryptionOptions getServerEncryptionOptions()
     {
         return conf.server_encryption_options;
@@ -1830,6 +1936,33 @@ public class DatabaseDescriptor
         conf.hinted_handoff_throttle_in_kb = throttleInKB;
     }
 
+    public static int getHintedHandoffMaxThrottleInKB()
+    {
+        return conf.hinted_handoff_max_throttle_in_kb;
+    }
+
+    public static int getHintsDeliveryBatchSizeInKB()
+    {
+        return conf.hints_delivery_batch_size_in_kb;
+    }
+
+    @VisibleForTesting
+    public static void setHintsDeliveryBatchSizeInKB(int batchSizeInKB)
+    {
+        conf.hints_delivery_batch_size_in_kb = batchSizeInKB;
+    }
+
+    public static boolean isHintsFileTransferEnabled()
+    {
+        return conf.hints_file_transfer_enabled;
+    }
+
+    @VisibleForTesting
+    public static void setHintsFileTransferEnabled(boolean enabled)
+    {
+        conf.hints_file_transfer_enabled = enabled;
+    }
+
     public static int getMaxHintsDeliveryThreads()
     {
         return conf.max_hints_delivery_threads;
@@ -1962,6 +2095,11 @@ public class DatabaseDescriptor
         conf.row_cache_size_in_mb = val;
     }
 
+    public static long getPaxosStateCacheSizeInMB()
+    {
+        return conf.paxos_state_cache_size_in_mb;
+    }
+
     public static int getRowCacheSavePeriod()
     {
         return conf.row_cache_save_period;
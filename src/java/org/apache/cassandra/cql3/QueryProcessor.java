@@ -21,6 +21,7 @@ import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -29,11 +30,15 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import org.antlr.runtime.*;
+import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
 import org.apache.cassandra.concurrent.ScheduledExecutors;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.Schema;
@@ -47,6 +52,7 @@ import org.apache.cassandra.db.partitions.PartitionIterators;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.exceptions.*;
 import org.apache.cassandra.metrics.CQLMetrics;
+import org.apache.cassandra.metrics.KeyspaceMetrics;
 import org.apache.cassandra.service.*;
 import org.apache.cassandra.service.pager.QueryPager;
 import org.apache.cassandra.thrift.ThriftClientState;
@@ -63,8 +69,8 @@ public class QueryProcessor implements QueryHandler
 
     private static final Logger logger = LoggerFactory.getLogger(QueryProcessor.class);
 
-    private static final ConcurrentLinkedHashMap<MD5Digest, ParsedStatement.Prepared> preparedStatements;
-    private static final ConcurrentLinkedHashMap<Integer, ParsedStatement.Prepared> thriftPreparedStatements;
+    private static final Cache<MD5Digest, ParsedStatement.Prepared> preparedStatements;
+    private static final Cache<Integer, ParsedStatement.Prepared> thriftPreparedStatements;
 
     // A map for prepared statements used internally (which we don't want to mix with user statement, in particular we don't
     // bother with expiration on those.
@@ -79,20 +85,29 @@ public class QueryProcessor implements QueryHandler
 
     static
     {
-        preparedStatements = new ConcurrentLinkedHashMap.Builder<MD5Digest, ParsedStatement.Prepared>()
-                             .maximumWeightedCapacity(capacityToBytes(DatabaseDescriptor.getPreparedStatementsCacheSizeMB()))
-                             .weigher(QueryProcessor::measure)
-                             .listener((md5Digest, prepared) -> {
-                                 metrics.preparedStatementsEvicted.inc();
-                                 lastMinuteEvictionsCount.incrementAndGet();
-                             }).build();
-
-        thriftPreparedStatements = new ConcurrentLinkedHashMap.Builder<Integer, ParsedStatement.Prepared>()
-                                   .maximumWeightedCapacity(capacityToBytes(DatabaseDescriptor.getThriftPreparedStatementsCacheSizeMB()))
-                                   .weigher(QueryProcessor::measure)
-                                   .listener((integer, prepared) -> {
-                                       metrics.preparedStatementsEvicted.inc();
-                                       thriftLastMinuteEvictionsCount.incrementAndGet();
+        preparedStatements = Caffeine.newBuilder()
+                             .executor(MoreExecutors.directExecutor())
+                             .maximumWeight(capacityToBytes(DatabaseDescriptor.getPreparedStatementsCacheSizeMB()))
+                             .weigher(QueryProcessor::weigh)
+                             .removalListener((MD5Digest md5Digest, ParsedStatement.Prepared prepared, RemovalCause cause) -> {
+                                 if (cause.wasEvicted())
+                                 {
+                                     metrics.preparedStatementsEvicted.inc();
+                                     lastMinuteEvictionsCount.incrementAndGet();
+                                 }
+                             })
+                             .build();
+
+        thriftPreparedStatements = Caffeine.newBuilder()
+                                   .executor(MoreExecutors.directExecutor())
+                                   .maximumWeight(capacityToBytes(DatabaseDescriptor.getThriftPreparedStatementsCacheSizeMB()))
+                                   .weigher(QueryProcessor::weigh)
+                                   .removalListener((Integer integer, ParsedStatement.Prepared prepared, RemovalCause cause) -> {
+                                       if (cause.wasEvicted())
+                                       {
+                                           metrics.preparedStatementsEvicted.inc();
+                                           thriftLastMinuteEvictionsCount.incrementAndGet();
+                                       }
                                    })
                                    .build();
 
@@ -121,7 +136,7 @@ public class QueryProcessor implements QueryHandler
 
     public static int preparedStatementsCount()
     {
-        return preparedStatements.size() + thriftPreparedStatements.size();
+        return Ints.checkedCast(preparedStatements.estimatedSize() + thriftPreparedStatements.estimatedSize());
     }
 
     // Work around initialization dependency
@@ -139,31 +154,49 @@ public class QueryProcessor implements QueryHandler
         }
     }
 
+    /**
+     * Re-prepares the statements persisted in {@code system.prepared_statements}. Parsing and preparing are CPU bound
+     * and independent from each other, so statements are prepared in parallel to not hold back the startup of
+     * the native transport when there are many of them.
+     */
     public static void preloadPreparedStatement()
     {
-        ClientState clientState = ClientState.forInternalCalls();
-        int count = 0;
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = DebuggableThreadPoolExecutor.createWithFixedPoolSize("PreparedStatementsPreload", FBUtilities.getAvailableProcessors());
         for (Pair<String, String> useKeyspaceAndCQL : SystemKeyspace.loadPreparedStatements())
         {
-            try
-            {
-                clientState.setKeyspace(useKeyspaceAndCQL.left);
-                prepare(useKeyspaceAndCQL.right, clientState, false);
-                count++;
-            }
-            catch (RequestValidationException e)
-            {
-                logger.warn("prepared statement recreation error: {}", useKeyspaceAndCQL.right, e);
-            }
+            executor.submit(() -> {
+                try
+                {
+                    ClientState clientState = ClientState.forInternalCalls();
+                    clientState.setKeyspace(useKeyspaceAndCQL.left);
+                    prepare(useKeyspaceAndCQL.right, clientState, false);
+                    count.incrementAndGet();
+                }
+                catch (RequestValidationException e)
+                {
+                    logger.warn("prepared statement recreation error: {}", useKeyspaceAndCQL.right, e);
+                }
+            });
         }
-        logger.info("Preloaded {} prepared statements", count);
+
+        executor.shutdown();
+        try
+        {
+            executor.awaitTermination(7, TimeUnit.DAYS);
+        }
+        catch (InterruptedException e)
+        {
+            throw new AssertionError(e);
+        }
+        logger.info("Preloaded {} prepared statements", count.get());
     }
 
     @VisibleForTesting
     public static void clearPrepraredStatements()
     {
-        preparedStatements.clear();
-        thriftPreparedStatements.clear();
+        preparedStatements.invalidateAll();
+        thriftPreparedStatements.invalidateAll();
     }
 
     private static QueryState internalQueryState()
@@ -178,12 +211,35 @@ public class QueryProcessor implements QueryHandler
 
     public ParsedStatement.Prepared getPrepared(MD5Digest id)
     {
-        return preparedStatements.get(id);
+        return recordLookup(preparedStatements.getIfPresent(id));
     }
 
     public ParsedStatement.Prepared getPreparedForThrift(Integer id)
     {
-        return thriftPreparedStatements.get(id);
+        return recordLookup(thriftPreparedStatements.getIfPresent(id));
+    }
+
+    private static ParsedStatement.Prepared recordLookup(ParsedStatement.Prepared prepared)
+    {
+        if (prepared == null)
+        {
+            // the keyspace of an unknown statement can't be known, so misses are only tracked globally
+            metrics.preparedStatementsMissed.inc();
+            return null;
+        }
+
+        KeyspaceMetrics keyspaceMetrics = keyspaceMetrics(prepared);
+        if (keyspaceMetrics != null)
+            keyspaceMetrics.preparedStatementsHits.inc();
+        return prepared;
+    }
+
+    private static KeyspaceMetrics keyspaceMetrics(ParsedStatement.Prepared prepared)
+    {
+        if (prepared.keyspace == null)
+            return null;
+        Keyspace keyspace = Schema.instance.getKeyspaceInstance(prepared.keyspace);
+        return keyspace == null ? null : keyspace.metric;
     }
 
     public static void validateKey(ByteBuffer key) throws InvalidRequestException
@@ -408,6 +464,7 @@ public class QueryProcessor implements QueryHandler
 
         ParsedStatement.Prepared prepared = getStatement(queryString, clientState);
         prepared.rawCQLStatement = queryString;
+        prepared.keyspace = statementKeyspace(prepared.statement);
         int boundTerms = prepared.statement.getBoundTerms();
         if (boundTerms > FBUtilities.MAX_UNSIGNED_SHORT)
             throw new InvalidRequestException(String.format("Too many markers(?). %d markers exceed the allowed maximum of %d", boundTerms, FBUtilities.MAX_UNSIGNED_SHORT));
@@ -416,6 +473,15 @@ public class QueryProcessor implements QueryHandler
         return storePreparedStatement(queryString, clientState.getRawKeyspace(), prepared, forThrift);
     }
 
+    private static String statementKeyspace(CQLStatement statement)
+    {
+        if (statement instanceof SelectStatement)
+            return ((SelectStatement) statement).keyspace();
+        if (statement instanceof ModificationStatement)
+            return ((ModificationStatement) statement).keyspace();
+        return null;
+    }
+
     private static MD5Digest computeId(String queryString, String keyspace)
     {
         String toHash = keyspace == null ? queryString : keyspace + queryString;
@@ -434,23 +500,40 @@ public class QueryProcessor implements QueryHandler
         if (forThrift)
         {
             Integer thriftStatementId = computeThriftId(queryString, keyspace);
-            ParsedStatement.Prepared existing = thriftPreparedStatements.get(thriftStatementId);
-            return existing == null ? null : ResultMessage.Prepared.forThrift(thriftStatementId, existing.boundNames);
+            ParsedStatement.Prepared existing = thriftPreparedStatements.getIfPresent(thriftStatementId);
+            if (existing == null)
+                return null;
+            recordReprepare(existing);
+            return ResultMessage.Prepared.forThrift(thriftStatementId, existing.boundNames);
         }
         else
         {
             MD5Digest statementId = computeId(queryString, keyspace);
-            ParsedStatement.Prepared existing = preparedStatements.get(statementId);
-            return existing == null ? null : new ResultMessage.Prepared(statementId, existing);
+            ParsedStatement.Prepared existing = preparedStatements.getIfPresent(statementId);
+            if (existing == null)
+                return null;
+            recordReprepare(existing);
+            return new ResultMessage.Prepared(statementId, existing);
         }
     }
 
+    // clients preparing a statement that is already cached, typically on every new connection
+    private static void recordReprepare(ParsedStatement.Prepared existing)
+    {
+        metrics.preparedStatementsReprepared.inc();
+        KeyspaceMetrics keyspaceMetrics = keyspaceMetrics(existing);
+        if (keyspaceMetrics != null)
+            keyspaceMetrics.preparedStatementsReprepared.inc();
+    }
+
     private static ResultMessage.Prepared storePreparedStatement(String queryString, String keyspace, ParsedStatement.Prepared prepared, boolean forThrift)
     throws InvalidRequestException
     {
         // Concatenate the current keyspace so we don't mix prepared statements between keyspace (#5352).
         // (if the keyspace is null, queryString has to have a fully-qualified keyspace so it's fine.
-        long statementSize = ObjectSizes.measureDeep(prepared.statement);
+        // weigh the statement once and for all, the caches only read the precomputed weight
+        prepared.cacheWeight = measure(prepared);
+        long statementSize = prepared.cacheWeight;
         // don't execute the statement if it's bigger than the allowed threshold
         if (forThrift)
         {
@@ -566,9 +649,18 @@ public class QueryProcessor implements QueryHandler
         }
     }
 
-    private static int measure(Object key, ParsedStatement.Prepared value)
+    // the keys are of a fixed size, but the statements need to be measured
+    private static final long MD5_DIGEST_SIZE = ObjectSizes.measureDeep(MD5Digest.compute(new byte[0]));
+    private static final long THRIFT_ID_SIZE = ObjectSizes.measureDeep(Integer.MAX_VALUE);
+
+    private static int measure(ParsedStatement.Prepared value)
+    {
+        return Ints.checkedCast(Math.max(MD5_DIGEST_SIZE, THRIFT_ID_SIZE) + ObjectSizes.measureDeep(value));
+    }
+
+    private static int weigh(Object key, ParsedStatement.Prepared value)
     {
-        return Ints.checkedCast(ObjectSizes.measureDeep(key) + ObjectSizes.measureDeep(value));
+        return value.cacheWeight;
     }
 
     /**
@@ -585,15 +677,15 @@ public class QueryProcessor implements QueryHandler
         private static void removeInvalidPreparedStatements(String ksName, String cfName)
         {
             removeInvalidPreparedStatements(internalStatements.values().iterator(), ksName, cfName);
-            removeInvalidPersistentPreparedStatements(preparedStatements.entrySet().iterator(), ksName, cfName);
-            removeInvalidPreparedStatements(thriftPreparedStatements.values().iterator(), ksName, cfName);
+            removeInvalidPersistentPreparedStatements(preparedStatements.asMap().entrySet().iterator(), ksName, cfName);
+            removeInvalidPreparedStatements(thriftPreparedStatements.asMap().values().iterator(), ksName, cfName);
         }
 
         private static void removeInvalidPreparedStatementsForFunction(String ksName, String functionName)
         {
             Predicate<Function> matchesFunction = f -> ksName.equals(f.name().keyspace) && functionName.equals(f.name().name);
 
-            for (Iterator<Map.Entry<MD5Digest, ParsedStatement.Prepared>> iter = preparedStatements.entrySet().iterator();
+            for (Iterator<Map.Entry<MD5Digest, ParsedStatement.Prepared>> iter = preparedStatements.asMap().entrySet().iterator();
                  iter.hasNext();)
             {
                 Map.Entry<MD5Digest, ParsedStatement.Prepared> pstmt = iter.next();
@@ -608,7 +700,7 @@ public class QueryProcessor implements QueryHandler
             Iterators.removeIf(internalStatements.values().iterator(),
                                statement -> Iterables.any(statement.statement.getFunctions(), matchesFunction));
 
-            Iterators.removeIf(thriftPreparedStatements.values().iterator(),
+            Iterators.removeIf(thriftPreparedStatements.asMap().values().iterator(),
                                statement -> Iterables.any(statement.statement.getFunctions(), matchesFunction));
         }
 
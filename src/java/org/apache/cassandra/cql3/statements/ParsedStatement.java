@@ -56,6 +56,18 @@ public abstract class ParsedStatement
          */
         public String rawCQLStatement;
 
+        /**
+         * The keyspace the statement applies to, if it is bound to a single one, so that the prepared statement
+         * cache activity can be attributed to it.
+         */
+        public String keyspace;
+
+        /**
+         * The memory footprint of the statement as weighed by the prepared statement caches, computed once when the
+         * statement is first cached rather than every time the caches need it.
+         */
+        public int cacheWeight;
+
         public final CQLStatement statement;
         public final List<ColumnSpecification> boundNames;
         public final short[] partitionKeyBindIndexes;
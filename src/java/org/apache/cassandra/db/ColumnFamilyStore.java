@@ -73,6 +73,7 @@ import org.apache.cassandra.metrics.TableMetrics.Sampler;
 import org.apache.cassandra.schema.*;
 import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.service.paxos.PaxosStateCache;
 import org.apache.cassandra.utils.*;
 import org.apache.cassandra.utils.TopKSampler.SamplerResult;
 import org.apache.cassandra.utils.concurrent.OpOrder;
@@ -189,6 +190,9 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
     public static final String SNAPSHOT_TRUNCATE_PREFIX = "truncated";
     public static final String SNAPSHOT_DROP_PREFIX = "dropped";
 
+    // the number of sub-ranges large range reads are split into to be scanned concurrently, 1 to scan them as a whole
+    public static final int DEFAULT_RANGE_READ_PARALLELISM = Integer.getInteger("cassandra.range_read_parallelism", 1);
+
     static
     {
         try
@@ -239,6 +243,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
     private volatile DefaultValue<Integer> minCompactionThreshold;
     private volatile DefaultValue<Integer> maxCompactionThreshold;
     private volatile DefaultValue<Double> crcCheckChance;
+    private volatile int rangeReadParallelism = DEFAULT_RANGE_READ_PARALLELISM;
 
     private final CompactionStrategyManager compactionStrategyManager;
 
@@ -470,6 +475,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
                     switch (retryPolicy.kind())
                     {
                         case PERCENTILE:
+                        case ADAPTIVE: // used for replicas we have no latency samples for
                             // get percentile in nanos
                             sampleLatencyNanos = (long) (metric.coordinatorReadLatency.getSnapshot().getValue(retryPolicy.threshold()) * 1000d);
                             break;
@@ -1103,6 +1109,10 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
 
             metric.memtableSwitchCount.inc();
 
+            // the counters written to the memtables are now readable from them, no need to keep them in memory
+            if (metadata.isCounter())
+                CounterAccumulator.instance.flush(metadata.ksAndCFName);
+
             try
             {
                 for (Memtable memtable : memtables)
@@ -1744,6 +1754,15 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
                 if (key.ksAndCFName.equals(metadata.ksAndCFName) && !Range.isInRanges(dk.getToken(), ranges))
                     CacheService.instance.counterCache.remove(key);
             }
+
+            for (Iterator<CounterCacheKey> keyIter = CounterAccumulator.instance.keyIterator();
+                 keyIter.hasNext(); )
+            {
+                CounterCacheKey key = keyIter.next();
+                DecoratedKey dk = decorateKey(ByteBuffer.wrap(key.partitionKey));
+                if (key.ksAndCFName.equals(metadata.ksAndCFName) && !Range.isInRanges(dk.getToken(), ranges))
+                    CounterAccumulator.instance.invalidate(key);
+            }
         }
     }
 
@@ -1967,6 +1986,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
         CacheService.instance.invalidateRowCacheForCf(metadata.ksAndCFName);
         if (metadata.isCounter())
             CacheService.instance.invalidateCounterCacheForCf(metadata.ksAndCFName);
+        PaxosStateCache.instance.invalidate(metadata);
     }
 
     public int invalidateRowCache(Collection<Bounds<Token>> boundsToInvalidate)
@@ -2000,6 +2020,15 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
                 invalidatedKeys++;
             }
         }
+
+        for (Iterator<CounterCacheKey> keyIter = CounterAccumulator.instance.keyIterator();
+             keyIter.hasNext(); )
+        {
+            CounterCacheKey key = keyIter.next();
+            DecoratedKey dk = decorateKey(ByteBuffer.wrap(key.partitionKey));
+            if (key.ksAndCFName.equals(metadata.ksAndCFName) && Bounds.isInBounds(dk.getToken(), boundsToInvalidate))
+                CounterAccumulator.instance.invalidate(key);
+        }
         return invalidatedKeys;
     }
 
@@ -2337,6 +2366,18 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
         return crcCheckChance.value();
     }
 
+    public int getRangeReadParallelism()
+    {
+        return rangeReadParallelism;
+    }
+
+    public void setRangeReadParallelism(int parallelism)
+    {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The range read parallelism must be strictly positive, got " + parallelism);
+        rangeReadParallelism = parallelism;
+    }
+
     public void setCompactionThresholds(int minThreshold, int maxThreshold)
     {
         validateCompactionThresholds(minThreshold, maxThreshold);
@@ -44,6 +44,17 @@ public interface ColumnFamilyStoreMBean
      */
     public void forceMajorCompaction(boolean splitOutput) throws ExecutionException, InterruptedException;
 
+    /**
+     * Gets the number of sub-ranges the large range reads of this table are split into to be scanned concurrently
+     */
+    public int getRangeReadParallelism();
+
+    /**
+     * Sets the number of sub-ranges the large range reads of this table are split into to be scanned concurrently,
+     * 1 to scan them as a whole
+     */
+    public void setRangeReadParallelism(int parallelism);
+
     /**
      * Gets the minimum number of sstables in queue before compaction kicks off
      */
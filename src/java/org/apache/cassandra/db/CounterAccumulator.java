@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.cache.CounterCacheKey;
+import org.apache.cassandra.service.CacheService;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Pair;
+
+/**
+ * The authoritative local shard of the counter cells being written to, so that counter mutations can compute their
+ * new values without taking the counter locks or reading the current values (see CounterMutation).
+ *
+ * An entry is loaded once, under the counter lock of its cell (keyed by its CounterCacheKey), from the counter cache
+ * or the table. It is then updated with a compare-and-set for every increment, each one resulting in a new
+ * (clock, count) global shard for the local counter id, exactly like the ones written under the locks: as those are
+ * reconciled by clock, the writes can be applied in any order. Writers register on the entry until their mutation is applied, so that an entry is only
+ * dropped once its last value can be read back from the table, which is what a writer missing it will then do.
+ *
+ * Idle entries of a table are dropped when its memtable is flushed, their value being put in the counter cache, or
+ * when the counter cache of the table is invalidated. Entries are only dropped under the counter lock of their cell,
+ * so that a writer missing them cannot read the counter cache before it is updated.
+ */
+public class CounterAccumulator
+{
+    public static final CounterAccumulator instance = new CounterAccumulator();
+
+    private final ConcurrentMap<CounterCacheKey, Entry> entries = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    CounterAccumulator()
+    {
+    }
+
+    /**
+     * @return the entry for the given cell, registering the caller as one of its writers, or null if it isn't loaded.
+     */
+    public Entry acquire(CounterCacheKey key)
+    {
+        Entry entry = entries.get(key);
+        return entry != null && entry.acquire() ? entry : null;
+    }
+
+    /**
+     * Loads the entry of the given cell with its current local shard, registering the caller as one of its writers.
+     * This must be called while holding the counter lock of the cell, after {@link #acquire(CounterCacheKey)} found
+     * no entry for it while holding it.
+     */
+    public Entry load(CounterCacheKey key, ClockAndCount current)
+    {
+        Entry entry = new Entry(current);
+        Entry previous = entries.put(key, entry);
+        assert previous == null || previous.isDropped() : "Counter " + key + " loaded twice";
+        return entry;
+    }
+
+    /**
+     * Drops the idle entries of the given table, putting their values in the counter cache. Entries whose counter
+     * lock is taken are skipped, as they are in use anyway.
+     */
+    public void flush(Pair<String, String> ksAndCFName)
+    {
+        boolean cache = CacheService.instance.counterCache.getCapacity() != 0;
+        for (CounterCacheKey key : entries.keySet())
+        {
+            if (!key.ksAndCFName.equals(ksAndCFName))
+                continue;
+
+            Lock lock = CounterMutation.LOCKS.get(key);
+            if (!lock.tryLock())
+                continue;
+
+            try
+            {
+                Entry entry = entries.get(key);
+                if (entry != null && entry.drop())
+                {
+                    if (cache)
+                        CacheService.instance.counterCache.put(key, entry.current());
+                    entries.remove(key, entry);
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    public Iterator<CounterCacheKey> keyIterator()
+    {
+        return entries.keySet().iterator();
+    }
+
+    /**
+     * Drops the entry of the given cell, unless a mutation is being applied to it. The counter cache entry of the
+     * cell must have been invalidated beforehand.
+     */
+    public void invalidate(CounterCacheKey key)
+    {
+        Lock lock = CounterMutation.LOCKS.get(key);
+        lock.lock();
+        try
+        {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.drop())
+                entries.remove(key, entry);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(Pair<String, String> ksAndCFName)
+    {
+        for (CounterCacheKey key : entries.keySet())
+        {
+            if (key.ksAndCFName.equals(ksAndCFName))
+                invalidate(key);
+        }
+    }
+
+    @VisibleForTesting
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public static class Entry
+    {
+        private static final int DROPPED = -1;
+
+        private final AtomicReference<State> state;
+
+        private Entry(ClockAndCount current)
+        {
+            this.state = new AtomicReference<>(new State(current.clock, current.count, 1));
+        }
+
+        /**
+         * Adds the given delta to the local shard.
+         *
+         * @return the new local shard, to be written as a global shard of the local counter id.
+         */
+        public ClockAndCount add(long delta)
+        {
+            while (true)
+            {
+                State current = state.get();
+                assert current.writers > 0;
+                State next = new State(Math.max(FBUtilities.timestampMicros(), current.clock + 1L), current.count + delta, current.writers);
+                if (state.compareAndSet(current, next))
+                    return ClockAndCount.create(next.clock, next.count);
+            }
+        }
+
+        /**
+         * Unregisters the caller, whose mutation has been applied (or failed).
+         */
+        public void release()
+        {
+            while (true)
+            {
+                State current = state.get();
+                assert current.writers > 0;
+                if (state.compareAndSet(current, new State(current.clock, current.count, current.writers - 1)))
+                    return;
+            }
+        }
+
+        private boolean acquire()
+        {
+            while (true)
+            {
+                State current = state.get();
+                if (current.writers == DROPPED)
+                    return false;
+                if (state.compareAndSet(current, new State(current.clock, current.count, current.writers + 1)))
+                    return true;
+            }
+        }
+
+        private boolean drop()
+        {
+            while (true)
+            {
+                State current = state.get();
+                if (current.writers != 0)
+                    return false;
+                if (state.compareAndSet(current, new State(current.clock, current.count, DROPPED)))
+                    return true;
+            }
+        }
+
+        private boolean isDropped()
+        {
+            return state.get().writers == DROPPED;
+        }
+
+        private ClockAndCount current()
+        {
+            State current = state.get();
+            return ClockAndCount.create(current.clock, current.count);
+        }
+    }
+
+    private static final class State
+    {
+        final long clock;
+        final long count;
+        final int writers;
+
+        State(long clock, long count, int writers)
+        {
+            this.clock = clock;
+            this.count = count;
+            this.writers = writers;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.PeekingIterator;
 import com.google.common.util.concurrent.Striped;
 
+import org.apache.cassandra.cache.CounterCacheKey;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.db.filter.*;
@@ -49,7 +50,7 @@ public class CounterMutation implements IMutation
 {
     public static final CounterMutationSerializer serializer = new CounterMutationSerializer();
 
-    private static final Striped<Lock> LOCKS = Striped.lazyWeakLock(DatabaseDescriptor.getConcurrentCounterWriters() * 1024);
+    static final Striped<Lock> LOCKS = Striped.lazyWeakLock(DatabaseDescriptor.getConcurrentCounterWriters() * 1024);
 
     private final Mutation mutation;
     private final ConsistencyLevel consistency;
@@ -111,6 +112,9 @@ public class CounterMutation implements IMutation
      */
     public Mutation applyCounterMutation() throws WriteTimeoutException
     {
+        if (DatabaseDescriptor.isCounterWriteAccumulatorEnabled())
+            return applyAccumulatedCounterMutation();
+
         Mutation result = new Mutation(getKeyspaceName(), key());
         Keyspace keyspace = Keyspace.open(getKeyspaceName());
 
@@ -118,7 +122,7 @@ public class CounterMutation implements IMutation
         Tracing.trace("Acquiring counter locks");
         try
         {
-            grabCounterLocks(keyspace, locks);
+            grabCounterLocks(keyspace, getCounterLockKeys(), locks);
             for (PartitionUpdate upd : getPartitionUpdates())
                 result.add(processModifications(upd));
             result.apply();
@@ -131,16 +135,101 @@ public class CounterMutation implements IMutation
         }
     }
 
+    /**
+     * Applies the counter mutation using the local shards kept by the {@link CounterAccumulator}:
+     *
+     * 1. Registers on the entries of the counters-to-be-modified which are in the accumulator
+     * 2. Grabs the striped cell-level locks of the other counters, in the proper order
+     * 3. Loads them in the accumulator from the counter cache or the CF
+     * 4. Adds the deltas to the entries, computing the updated counter values
+     * 5. Writes the updated counter values, taking the deltas back from the entries if that fails
+     * 6. Releases the accumulator entries and the lock(s)
+     *
+     * Once loaded, hot counters are thus updated without any lock nor read.
+     *
+     * @return the applied resulting Mutation
+     */
+    private Mutation applyAccumulatedCounterMutation() throws WriteTimeoutException
+    {
+        Mutation result = new Mutation(getKeyspaceName(), key());
+        Keyspace keyspace = Keyspace.open(getKeyspaceName());
+
+        List<Pair<PartitionUpdate.CounterMark, CounterAccumulator.Entry>> acquired = new ArrayList<>();
+        List<Lock> locks = new ArrayList<>();
+        try
+        {
+            Map<ColumnFamilyStore, List<PartitionUpdate.CounterMark>> misses = new HashMap<>();
+            List<CounterCacheKey> missedKeys = new ArrayList<>();
+            for (PartitionUpdate upd : getPartitionUpdates())
+            {
+                ColumnFamilyStore cfs = keyspace.getColumnFamilyStore(upd.metadata().cfId);
+                List<PartitionUpdate.CounterMark> marks = upd.collectCounterMarks();
+                acquireAccumulated(marks, cfs, acquired);
+                if (!marks.isEmpty())
+                {
+                    misses.put(cfs, marks);
+                    for (PartitionUpdate.CounterMark mark : marks)
+                        missedKeys.add(counterCacheKey(mark, cfs));
+                }
+                result.add(upd);
+            }
+
+            if (!misses.isEmpty())
+            {
+                Tracing.trace("Acquiring {} counter locks", missedKeys.size());
+                grabCounterLocks(keyspace, missedKeys, locks);
+                for (Map.Entry<ColumnFamilyStore, List<PartitionUpdate.CounterMark>> e : misses.entrySet())
+                {
+                    // a concurrent mutation may have loaded some of them while we were waiting for the locks
+                    acquireAccumulated(e.getValue(), e.getKey(), acquired);
+                    updateWithCurrentValues(e.getValue(), e.getKey(), acquired);
+                }
+            }
+
+            // nothing is added to the entries before they are all acquired, so there is nothing to undo if the locks
+            // time out; once added, the deltas are part of the values concurrent mutations write, and must be taken
+            // back if our own write fails, lest a retry counts them twice
+            long[] deltas = new long[acquired.size()];
+            int added = 0;
+            try
+            {
+                for (; added < deltas.length; added++)
+                {
+                    PartitionUpdate.CounterMark mark = acquired.get(added).left;
+                    deltas[added] = CounterContext.instance().total(mark.value());
+                    ClockAndCount updated = acquired.get(added).right.add(deltas[added]);
+                    mark.setValue(CounterContext.instance().createGlobal(CounterId.getLocalId(), updated.clock, updated.count));
+                }
+
+                result.apply();
+                return result;
+            }
+            catch (Throwable t)
+            {
+                for (int i = 0; i < added; i++)
+                    acquired.get(i).right.add(-deltas[i]);
+                throw t;
+            }
+        }
+        finally
+        {
+            for (Pair<PartitionUpdate.CounterMark, CounterAccumulator.Entry> pair : acquired)
+                pair.right.release();
+            for (Lock lock : locks)
+                lock.unlock();
+        }
+    }
+
     public void apply()
     {
         applyCounterMutation();
     }
 
-    private void grabCounterLocks(Keyspace keyspace, List<Lock> locks) throws WriteTimeoutException
+    private void grabCounterLocks(Keyspace keyspace, Iterable<?> lockKeys, List<Lock> locks) throws WriteTimeoutException
     {
         long startTime = System.nanoTime();
 
-        for (Lock lock : LOCKS.bulkGet(getCounterLockKeys()))
+        for (Lock lock : LOCKS.bulkGet(lockKeys))
         {
             long timeout = TimeUnit.MILLISECONDS.toNanos(getTimeout()) - (System.nanoTime() - startTime);
             try
@@ -188,28 +277,61 @@ public class CounterMutation implements IMutation
     {
         ColumnFamilyStore cfs = Keyspace.open(getKeyspaceName()).getColumnFamilyStore(changes.metadata().cfId);
 
-        List<PartitionUpdate.CounterMark> marks = changes.collectCounterMarks();
+        updateWithCurrentValues(changes.collectCounterMarks(), cfs, null);
+        return changes;
+    }
 
+    /**
+     * Updates the given counters with their current values or, if {@code acquired} isn't null, loads them in the
+     * accumulator with these values instead, collecting their entries in it.
+     */
+    private void updateWithCurrentValues(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs, List<Pair<PartitionUpdate.CounterMark, CounterAccumulator.Entry>> acquired)
+    {
         if (CacheService.instance.counterCache.getCapacity() != 0)
         {
             Tracing.trace("Fetching {} counter values from cache", marks.size());
-            updateWithCurrentValuesFromCache(marks, cfs);
+            updateWithCurrentValuesFromCache(marks, cfs, acquired);
             if (marks.isEmpty())
-                return changes;
+                return;
         }
 
         Tracing.trace("Reading {} counter values from the CF", marks.size());
-        updateWithCurrentValuesFromCFS(marks, cfs);
+        updateWithCurrentValuesFromCFS(marks, cfs, acquired);
 
         // What's remain is new counters
         for (PartitionUpdate.CounterMark mark : marks)
-            updateWithCurrentValue(mark, ClockAndCount.BLANK, cfs);
+            updateWithCurrentValue(mark, ClockAndCount.BLANK, cfs, acquired);
+    }
 
-        return changes;
+    // Registers on the entries of the counters which are in the accumulator, removing them from the marks.
+    private void acquireAccumulated(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs, List<Pair<PartitionUpdate.CounterMark, CounterAccumulator.Entry>> acquired)
+    {
+        Iterator<PartitionUpdate.CounterMark> iter = marks.iterator();
+        while (iter.hasNext())
+        {
+            PartitionUpdate.CounterMark mark = iter.next();
+            CounterAccumulator.Entry entry = CounterAccumulator.instance.acquire(counterCacheKey(mark, cfs));
+            if (entry != null)
+            {
+                acquired.add(Pair.create(mark, entry));
+                iter.remove();
+            }
+        }
     }
 
-    private void updateWithCurrentValue(PartitionUpdate.CounterMark mark, ClockAndCount currentValue, ColumnFamilyStore cfs)
+    private CounterCacheKey counterCacheKey(PartitionUpdate.CounterMark mark, ColumnFamilyStore cfs)
     {
+        return CounterCacheKey.create(cfs.metadata.ksAndCFName, key().getKey(), mark.clustering(), mark.column(), mark.path());
+    }
+
+    private void updateWithCurrentValue(PartitionUpdate.CounterMark mark, ClockAndCount currentValue, ColumnFamilyStore cfs, List<Pair<PartitionUpdate.CounterMark, CounterAccumulator.Entry>> acquired)
+    {
+        if (acquired != null)
+        {
+            acquired.add(Pair.create(mark, CounterAccumulator.instance.load(counterCacheKey(mark, cfs), currentValue)));
+            return;
+        }
+
         long clock = Math.max(FBUtilities.timestampMicros(), currentValue.clock + 1L);
         long count = currentValue.count + CounterContext.instance().total(mark.value());
 
@@ -220,7 +342,7 @@ public class CounterMutation implements IMutation
     }
 
     // Returns the count of cache misses.
-    private void updateWithCurrentValuesFromCache(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs)
+    private void updateWithCurrentValuesFromCache(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs, List<Pair<PartitionUpdate.CounterMark, CounterAccumulator.Entry>> acquired)
     {
         Iterator<PartitionUpdate.CounterMark> iter = marks.iterator();
         while (iter.hasNext())
@@ -229,14 +351,14 @@ public class CounterMutation implements IMutation
             ClockAndCount cached = cfs.getCachedCounter(key().getKey(), mark.clustering(), mark.column(), mark.path());
             if (cached != null)
             {
-                updateWithCurrentValue(mark, cached, cfs);
+                updateWithCurrentValue(mark, cached, cfs, acquired);
                 iter.remove();
             }
         }
     }
 
     // Reads the missing current values from the CFS.
-    private void updateWithCurrentValuesFromCFS(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs)
+    private void updateWithCurrentValuesFromCFS(List<PartitionUpdate.CounterMark> marks, ColumnFamilyStore cfs, List<Pair<PartitionUpdate.CounterMark, CounterAccumulator.Entry>> acquired)
     {
         ColumnFilter.Builder builder = ColumnFilter.selectionBuilder();
         BTreeSet.Builder<Clustering> names = BTreeSet.builder(cfs.metadata.comparator);
@@ -256,14 +378,14 @@ public class CounterMutation implements IMutation
         try (ReadExecutionController controller = cmd.executionController();
              RowIterator partition = UnfilteredRowIterators.filter(cmd.queryMemtableAndDisk(cfs, controller), nowInSec))
         {
-            updateForRow(markIter, partition.staticRow(), cfs);
+            updateForRow(markIter, partition.staticRow(), cfs, acquired);
 
             while (partition.hasNext())
             {
                 if (!markIter.hasNext())
                     return;
 
-                updateForRow(markIter, partition.next(), cfs);
+                updateForRow(markIter, partition.next(), cfs, acquired);
             }
         }
     }
@@ -278,7 +400,7 @@ public class CounterMutation implements IMutation
         return cfs.getComparator().compare(c1, c2);
     }
 
-    private void updateForRow(PeekingIterator<PartitionUpdate.CounterMark> markIter, Row row, ColumnFamilyStore cfs)
+    private void updateForRow(PeekingIterator<PartitionUpdate.CounterMark> markIter, Row row, ColumnFamilyStore cfs, List<Pair<PartitionUpdate.CounterMark, CounterAccumulator.Entry>> acquired)
     {
         int cmp = 0;
         // If the mark is before the row, we have no value for this mark, just consume it
@@ -294,7 +416,7 @@ public class CounterMutation implements IMutation
             Cell cell = mark.path() == null ? row.getCell(mark.column()) : row.getCell(mark.column(), mark.path());
             if (cell != null)
             {
-                updateWithCurrentValue(mark, CounterContext.instance().getLocalClockAndCount(cell.value()), cfs);
+                updateWithCurrentValue(mark, CounterContext.instance().getLocalClockAndCount(cell.value()), cfs, acquired);
                 markIter.remove();
             }
             if (!markIter.hasNext())
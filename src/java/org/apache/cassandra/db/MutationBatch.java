@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+
+/**
+ * The mutations of a single unlogged batch that a coordinator sends to the same replica, coalesced into one
+ * message. The replica answers, once all of them have been applied or have failed, with one flag per mutation
+ * (in the same order) telling whether it was applied.
+ */
+public class MutationBatch
+{
+    public static final IVersionedSerializer<MutationBatch> serializer = new Serializer();
+    public static final IVersionedSerializer<List<Boolean>> responseSerializer = new ResponseSerializer();
+
+    public final List<Mutation> mutations;
+
+    public MutationBatch(List<Mutation> mutations)
+    {
+        this.mutations = mutations;
+    }
+
+    public MessageOut<MutationBatch> createMessage()
+    {
+        return new MessageOut<>(MessagingService.Verb.MUTATION_BATCH, this, serializer);
+    }
+
+    public String toString()
+    {
+        return "MutationBatch(" + mutations + ')';
+    }
+
+    private static class Serializer implements IVersionedSerializer<MutationBatch>
+    {
+        public void serialize(MutationBatch batch, DataOutputPlus out, int version) throws IOException
+        {
+            out.writeUnsignedVInt(batch.mutations.size());
+            for (Mutation mutation : batch.mutations)
+                Mutation.serializer.serialize(mutation, out, version);
+        }
+
+        public MutationBatch deserialize(DataInputPlus in, int version) throws IOException
+        {
+            int size = (int) in.readUnsignedVInt();
+            List<Mutation> mutations = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                mutations.add(Mutation.serializer.deserialize(in, version));
+            return new MutationBatch(mutations);
+        }
+
+        public long serializedSize(MutationBatch batch, int version)
+        {
+            long size = TypeSizes.sizeofUnsignedVInt(batch.mutations.size());
+            for (Mutation mutation : batch.mutations)
+                size += Mutation.serializer.serializedSize(mutation, version);
+            return size;
+        }
+    }
+
+    private static class ResponseSerializer implements IVersionedSerializer<List<Boolean>>
+    {
+        public void serialize(List<Boolean> applied, DataOutputPlus out, int version) throws IOException
+        {
+            out.writeUnsignedVInt(applied.size());
+            for (boolean b : applied)
+                out.writeBoolean(b);
+        }
+
+        public List<Boolean> deserialize(DataInputPlus in, int version) throws IOException
+        {
+            int size = (int) in.readUnsignedVInt();
+            List<Boolean> applied = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                applied.add(in.readBoolean());
+            return applied;
+        }
+
+        public long serializedSize(List<Boolean> applied, int version)
+        {
+            return TypeSizes.sizeofUnsignedVInt(applied.size()) + applied.size() * TypeSizes.sizeof(true);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.cassandra.exceptions.WriteTimeoutException;
+import org.apache.cassandra.net.IVerbHandler;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.tracing.Tracing;
+
+public class MutationBatchVerbHandler implements IVerbHandler<MutationBatch>
+{
+    public void doVerb(MessageIn<MutationBatch> message, int id)
+    {
+        List<Mutation> mutations = message.payload.mutations;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[mutations.size()];
+        for (int i = 0; i < mutations.size(); i++)
+        {
+            try
+            {
+                futures[i] = mutations.get(i).applyFuture();
+            }
+            catch (WriteTimeoutException wto)
+            {
+                CompletableFuture<?> failed = new CompletableFuture<>();
+                failed.completeExceptionally(wto);
+                futures[i] = failed;
+            }
+        }
+
+        CompletableFuture.allOf(futures).whenComplete((ignored, failure) -> {
+            List<Boolean> applied = new ArrayList<>(futures.length);
+            for (CompletableFuture<?> future : futures)
+                applied.add(!future.isCompletedExceptionally());
+
+            if (failure != null)
+                Tracing.trace("Payload application resulted in WriteTimeout for some of the mutations");
+            Tracing.trace("Enqueuing response to {}", message.from);
+            MessageOut<List<Boolean>> reply = new MessageOut<>(MessagingService.Verb.REQUEST_RESPONSE, applied, MutationBatch.responseSerializer);
+            MessagingService.instance().sendReply(reply, id, message.from);
+        });
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import org.apache.cassandra.concurrent.JMXEnabledThreadPoolExecutor;
+import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.filter.ColumnFilter;
+import org.apache.cassandra.db.filter.DataLimits;
+import org.apache.cassandra.db.partitions.AbstractUnfilteredPartitionIterator;
+import org.apache.cassandra.db.partitions.ImmutableBTreePartition;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+
+import static org.apache.cassandra.utils.Throwables.maybeFail;
+import static org.apache.cassandra.utils.Throwables.merge;
+
+/**
+ * Scans the consecutive sub-ranges of a partition range read concurrently, and returns their partitions in token order.
+ * <p>
+ * Each sub-range is read on the scan executor into memory, up to the limits of the read: whatever the rows returned by
+ * the sub-ranges preceding it, a sub-range never contributes more than that to the result. The limits themselves are
+ * still applied to the concatenated sub-ranges by the read command.
+ * <p>
+ * The last sub-range can also be the rest of the range, past the part expected to hold the rows of the limits: it is
+ * then only read by the calling thread once the other sub-ranges have been returned, as far as the limits require.
+ * <p>
+ * The sub-range iterators are expected to be created by the calling thread, within its read execution controller, and
+ * this iterator to be closed before that controller: closing it cancels the scans not started yet and waits for the
+ * running ones to stop.
+ */
+class ParallelRangeScan extends AbstractUnfilteredPartitionIterator
+{
+    private static final ExecutorService executor = new JMXEnabledThreadPoolExecutor(Integer.getInteger("cassandra.range_read_parallel_threads",
+                                                                                                        DatabaseDescriptor.getConcurrentReaders()),
+                                                                                     StageManager.KEEPALIVE,
+                                                                                     TimeUnit.SECONDS,
+                                                                                     new LinkedBlockingQueue<>(),
+                                                                                     new NamedThreadFactory("RangeScan"),
+                                                                                     "internal");
+
+    private final CFMetaData metadata;
+    private final boolean isForThrift;
+    private final ColumnFilter selection;
+    private final boolean reversed;
+
+    private final List<UnfilteredPartitionIterator> subRanges;
+    private final UnfilteredPartitionIterator rest;
+    private final List<Future<List<ImmutableBTreePartition>>> scans;
+    private volatile boolean closed;
+
+    private int next;
+    private Iterator<ImmutableBTreePartition> partitions = Collections.emptyIterator();
+
+    /**
+     * @param subRanges the iterators over the consecutive sub-ranges of the read, in token order
+     * @param hasRest whether the last sub-range is the rest of the range, to be read only if needed
+     * @param selection the columns selected by the read
+     * @param reversed whether the rows of the partitions are read in reverse clustering order
+     * @param limits the limits of the read
+     * @param nowInSec the time of the read
+     */
+    ParallelRangeScan(List<UnfilteredPartitionIterator> subRanges, boolean hasRest, ColumnFilter selection, boolean reversed, DataLimits limits, int nowInSec)
+    {
+        assert !subRanges.isEmpty();
+        this.metadata = subRanges.get(0).metadata();
+        this.isForThrift = subRanges.get(0).isForThrift();
+        this.selection = selection;
+        this.reversed = reversed;
+        this.subRanges = hasRest ? subRanges.subList(0, subRanges.size() - 1) : subRanges;
+        this.rest = hasRest ? subRanges.get(subRanges.size() - 1) : null;
+        this.scans = new ArrayList<>(this.subRanges.size());
+        for (UnfilteredPartitionIterator subRange : this.subRanges)
+            scans.add(executor.submit(() -> scan(limits.filter(subRange, nowInSec))));
+    }
+
+    private List<ImmutableBTreePartition> scan(UnfilteredPartitionIterator subRange)
+    {
+        try (UnfilteredPartitionIterator iter = subRange)
+        {
+            List<ImmutableBTreePartition> partitions = new ArrayList<>();
+            while (!closed && iter.hasNext())
+            {
+                try (UnfilteredRowIterator partition = iter.next())
+                {
+                    partitions.add(ImmutableBTreePartition.create(partition));
+                }
+            }
+            return partitions;
+        }
+    }
+
+    public boolean isForThrift()
+    {
+        return isForThrift;
+    }
+
+    public CFMetaData metadata()
+    {
+        return metadata;
+    }
+
+    public boolean hasNext()
+    {
+        while (!partitions.hasNext())
+        {
+            if (next == scans.size())
+                return rest != null && rest.hasNext();
+
+            try
+            {
+                partitions = Uninterruptibles.getUninterruptibly(scans.get(next)).iterator();
+            }
+            catch (ExecutionException e)
+            {
+                throw Throwables.propagate(e.getCause());
+            }
+            // don't keep the partitions of the sub-range once returned
+            scans.set(next++, null);
+        }
+        return true;
+    }
+
+    public UnfilteredRowIterator next()
+    {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        return partitions.hasNext() ? partitions.next().unfilteredIterator(selection, Slices.ALL, reversed) : rest.next();
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        Throwable failure = null;
+        for (int i = next; i < scans.size(); i++)
+        {
+            Future<List<ImmutableBTreePartition>> scan = scans.get(i);
+            if (scan.cancel(false))
+            {
+                // never started, so the sub-range iterator is ours to close
+                try
+                {
+                    subRanges.get(i).close();
+                }
+                catch (Throwable t)
+                {
+                    failure = merge(failure, t);
+                }
+                continue;
+            }
+
+            try
+            {
+                // wait for the scan to stop, as it reads data only valid until the read execution controller is closed
+                Uninterruptibles.getUninterruptibly(scan);
+            }
+            catch (ExecutionException e)
+            {
+                // the result is not needed anymore
+            }
+        }
+
+        if (rest != null)
+        {
+            try
+            {
+                rest.close();
+            }
+            catch (Throwable t)
+            {
+                failure = merge(failure, t);
+            }
+        }
+        maybeFail(failure);
+    }
+}
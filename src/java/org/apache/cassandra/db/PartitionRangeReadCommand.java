@@ -19,9 +19,12 @@ package org.apache.cassandra.db;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Iterables;
 
 import org.apache.cassandra.config.CFMetaData;
@@ -32,6 +35,8 @@ import org.apache.cassandra.db.partitions.*;
 import org.apache.cassandra.db.rows.BaseRowIterator;
 import org.apache.cassandra.db.transform.Transformation;
 import org.apache.cassandra.dht.AbstractBounds;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.exceptions.RequestExecutionException;
 import org.apache.cassandra.index.Index;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
@@ -47,6 +52,7 @@ import org.apache.cassandra.service.pager.*;
 import org.apache.cassandra.thrift.ThriftResultsMerger;
 import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Pair;
 
 /**
  * A read command that selects a (part of a) range of partitions.
@@ -55,6 +61,13 @@ public class PartitionRangeReadCommand extends ReadCommand
 {
     protected static final SelectionDeserializer selectionDeserializer = new Deserializer();
 
+    // the expected amount of data read from an sstable from which it is scanned sequentially, in large reads that
+    // bypass the chunk cache
+    private static final long SEQUENTIAL_SCAN_MIN_SIZE = Long.getLong("cassandra.sequential_scan_min_size_in_mb", 32) << 20;
+
+    // the minimum number of index summary samples per sub-range for a range to be split and scanned in parallel
+    private static final int PARALLEL_SCAN_MIN_SAMPLES = 4;
+
     private final DataRange dataRange;
     private int oldestUnrepairedTombstone = Integer.MAX_VALUE;
 
@@ -177,6 +190,137 @@ public class PartitionRangeReadCommand extends ReadCommand
         ColumnFamilyStore.ViewFragment view = cfs.select(View.selectLive(dataRange().keyRange()));
         Tracing.trace("Executing seq scan across {} sstables for {}", view.sstables.size(), dataRange().keyRange().getString(metadata().getKeyValidator()));
 
+        Pair<List<AbstractBounds<PartitionPosition>>, AbstractBounds<PartitionPosition>> split = splitForParallelScan(view, cfs.getRangeReadParallelism());
+        List<AbstractBounds<PartitionPosition>> subRanges = split.left;
+        if (subRanges.size() == 1 && split.right == null)
+            return queryStorage(cfs, view, dataRange());
+
+        Tracing.trace("Scanning {} sub-ranges in parallel", subRanges.size());
+        List<UnfilteredPartitionIterator> iterators = new ArrayList<>(subRanges.size() + 1);
+        try
+        {
+            for (AbstractBounds<PartitionPosition> subRange : subRanges)
+                iterators.add(queryStorage(cfs, cfs.select(View.selectLive(subRange)), dataRange().forSubRange(subRange)));
+            if (split.right != null)
+                iterators.add(queryStorage(cfs, cfs.select(View.selectLive(split.right)), dataRange().forSubRange(split.right)));
+            return new ParallelRangeScan(iterators, split.right != null, columnFilter(), dataRange().clusteringIndexFilter.isReversed(), limits(), nowInSec());
+        }
+        catch (RuntimeException | Error e)
+        {
+            try
+            {
+                FBUtilities.closeAll(iterators);
+            }
+            catch (Exception suppressed)
+            {
+                e.addSuppressed(suppressed);
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Splits the range of this command into up to {@code parallelism} consecutive sub-ranges to scan in parallel,
+     * holding about as many rows, followed by the rest of the range. This is based on the key samples of the index
+     * summaries of the sstables of the range, each standing for the rows of its sstable up to its next sample.
+     * <p>
+     * Each sub-range is scanned up to the limit of the command, so only the part of the range expected to hold that
+     * many rows is split: the sub-ranges then read about as many rows as the limit between them, and the rest of the
+     * range is only read if they return less.
+     * <p>
+     * The range is left whole if it isn't large enough to be worth splitting, or if the command doesn't have a bounded
+     * number of rows to return per sub-range: it has no limit, or its limit applies after filtering rows.
+     *
+     * @return the sub-ranges to scan in parallel, and the rest of the range or null if there is none
+     */
+    @VisibleForTesting
+    Pair<List<AbstractBounds<PartitionPosition>>, AbstractBounds<PartitionPosition>> splitForParallelScan(ColumnFamilyStore.ViewFragment view, int parallelism)
+    {
+        AbstractBounds<PartitionPosition> keyRange = dataRange().keyRange();
+        Pair<List<AbstractBounds<PartitionPosition>>, AbstractBounds<PartitionPosition>> whole = Pair.create(Collections.singletonList(keyRange), null);
+        if (parallelism <= 1 || limits().count() == DataLimits.NO_LIMIT || !rowFilter().isEmpty())
+            return whole;
+
+        Token left = keyRange.left.getToken(), right = keyRange.right.getToken();
+        if (AbstractBounds.strictlyWrapsAround(keyRange.left, keyRange.right) || (left.equals(right) && !left.isMinimum()))
+            return whole;
+
+        List<Pair<DecoratedKey, Double>> samples = new ArrayList<>();
+        for (SSTableReader sstable : view.sstables)
+        {
+            double rowsPerSample = estimatedRowsCounted(sstable) / Math.max(1, sstable.getIndexSummarySize());
+            for (DecoratedKey key : sstable.getKeySamples(new Range<>(left, right)))
+            {
+                if (keyRange.contains(key))
+                    samples.add(Pair.create(key, rowsPerSample));
+            }
+        }
+        samples.sort(Comparator.comparing(sample -> sample.left));
+
+        // the samples expected to hold the rows of the limit
+        int count = 0;
+        double rows = 0;
+        while (count < samples.size() && rows < limits().count())
+            rows += samples.get(count++).right;
+
+        if (count < parallelism * PARALLEL_SCAN_MIN_SAMPLES)
+            return whole;
+
+        List<AbstractBounds<PartitionPosition>> subRanges = new ArrayList<>(parallelism);
+        AbstractBounds<PartitionPosition> remainder = keyRange;
+        for (int i = 1; i < parallelism; i++)
+        {
+            Pair<AbstractBounds<PartitionPosition>, AbstractBounds<PartitionPosition>> split = remainder.split(samples.get(i * count / parallelism).left);
+            if (split == null)
+                continue;
+            subRanges.add(split.left);
+            remainder = split.right;
+        }
+
+        Pair<AbstractBounds<PartitionPosition>, AbstractBounds<PartitionPosition>> rest = count < samples.size() ? remainder.split(samples.get(count).left) : null;
+        if (rest == null)
+        {
+            subRanges.add(remainder);
+            return Pair.create(subRanges, null);
+        }
+        subRanges.add(rest.left);
+        return Pair.create(subRanges, rest.right);
+    }
+
+    /**
+     * The estimated number of rows of {@code sstable} counted by the limits of this command.
+     */
+    private double estimatedRowsCounted(SSTableReader sstable)
+    {
+        long partitions = sstable.estimatedKeys();
+        if (limits().isDistinct() || limits().kind() == DataLimits.Kind.THRIFT_LIMIT || limits().kind() == DataLimits.Kind.SUPER_COLUMN_COUNTING_LIMIT)
+            return partitions;
+
+        long rows = sstable.getTotalRows() < 0 ? partitions : sstable.getTotalRows();
+        return Math.min(rows, (double) partitions * limits().perPartitionCount());
+    }
+
+    /**
+     * Whether the scan of {@code sstable} for {@code keyRange} is expected to read enough of it to read it sequentially,
+     * based on the number of partitions of the range estimated from its index summary. Unless the rows are filtered,
+     * the scan reads at most as many partitions as the row limit of the command.
+     */
+    private boolean isSequentialScan(SSTableReader sstable, AbstractBounds<PartitionPosition> keyRange)
+    {
+        Token left = keyRange.left.getToken(), right = keyRange.right.getToken();
+        if (left.equals(right) && !left.isMinimum())
+            return false;
+
+        long partitions = sstable.estimatedKeysForRanges(Collections.singleton(new Range<>(left, right)));
+        if (rowFilter().isEmpty())
+            partitions = Math.min(partitions, limits().count());
+        double partitionSize = (double) sstable.onDiskLength() / Math.max(1, sstable.estimatedKeys());
+        return partitions * partitionSize >= SEQUENTIAL_SCAN_MIN_SIZE;
+    }
+
+    private UnfilteredPartitionIterator queryStorage(ColumnFamilyStore cfs, ColumnFamilyStore.ViewFragment view, DataRange dataRange)
+    {
         // fetch data from current memtable, historical memtables, and SSTables in the correct order.
         final List<UnfilteredPartitionIterator> iterators = new ArrayList<>(Iterables.size(view.memtables) + view.sstables.size());
 
@@ -185,7 +329,7 @@ public class PartitionRangeReadCommand extends ReadCommand
             for (Memtable memtable : view.memtables)
             {
                 @SuppressWarnings("resource") // We close on exception and on closing the result returned by this method
-                Memtable.MemtableUnfilteredPartitionIterator iter = memtable.makePartitionIterator(columnFilter(), dataRange(), isForThrift());
+                Memtable.MemtableUnfilteredPartitionIterator iter = memtable.makePartitionIterator(columnFilter(), dataRange, isForThrift());
                 oldestUnrepairedTombstone = Math.min(oldestUnrepairedTombstone, iter.getMinLocalDeletionTime());
                 iterators.add(isForThrift() ? ThriftResultsMerger.maybeWrap(iter, metadata(), nowInSec()) : iter);
             }
@@ -193,7 +337,7 @@ public class PartitionRangeReadCommand extends ReadCommand
             for (SSTableReader sstable : view.sstables)
             {
                 @SuppressWarnings("resource") // We close on exception and on closing the result returned by this method
-                UnfilteredPartitionIterator iter = sstable.getScanner(columnFilter(), dataRange(), isForThrift());
+                UnfilteredPartitionIterator iter = sstable.getScanner(columnFilter(), dataRange, isForThrift(), isSequentialScan(sstable, dataRange.keyRange()));
                 iterators.add(isForThrift() ? ThriftResultsMerger.maybeWrap(iter, metadata(), nowInSec()) : iter);
                 if (!sstable.isRepaired())
                     oldestUnrepairedTombstone = Math.min(oldestUnrepairedTombstone, sstable.getMinLocalDeletionTime());
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+
+/**
+ * The single partition reads (data or digest) a coordinator sends to the same replica on behalf of a
+ * single multi-partition query, coalesced into one message. The replica answers with one {@link ReadResponse}
+ * per command, in the same order.
+ */
+public class ReadCommandBatch
+{
+    public static final IVersionedSerializer<ReadCommandBatch> serializer = new Serializer();
+    public static final IVersionedSerializer<List<ReadResponse>> responseSerializer = new ResponseSerializer();
+
+    public final List<ReadCommand> commands;
+
+    public ReadCommandBatch(List<ReadCommand> commands)
+    {
+        this.commands = commands;
+    }
+
+    public MessageOut<ReadCommandBatch> createMessage()
+    {
+        return new MessageOut<>(MessagingService.Verb.READ_BATCH, this, serializer);
+    }
+
+    public String toString()
+    {
+        return "ReadCommandBatch(" + commands + ')';
+    }
+
+    private static class Serializer implements IVersionedSerializer<ReadCommandBatch>
+    {
+        public void serialize(ReadCommandBatch batch, DataOutputPlus out, int version) throws IOException
+        {
+            out.writeUnsignedVInt(batch.commands.size());
+            for (ReadCommand command : batch.commands)
+                ReadCommand.serializer.serialize(command, out, version);
+        }
+
+        public ReadCommandBatch deserialize(DataInputPlus in, int version) throws IOException
+        {
+            int size = (int) in.readUnsignedVInt();
+            List<ReadCommand> commands = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                commands.add(ReadCommand.serializer.deserialize(in, version));
+            return new ReadCommandBatch(commands);
+        }
+
+        public long serializedSize(ReadCommandBatch batch, int version)
+        {
+            long size = TypeSizes.sizeofUnsignedVInt(batch.commands.size());
+            for (ReadCommand command : batch.commands)
+                size += ReadCommand.serializer.serializedSize(command, version);
+            return size;
+        }
+    }
+
+    private static class ResponseSerializer implements IVersionedSerializer<List<ReadResponse>>
+    {
+        public void serialize(List<ReadResponse> responses, DataOutputPlus out, int version) throws IOException
+        {
+            out.writeUnsignedVInt(responses.size());
+            for (ReadResponse response : responses)
+                ReadResponse.serializer.serialize(response, out, version);
+        }
+
+        public List<ReadResponse> deserialize(DataInputPlus in, int version) throws IOException
+        {
+            int size = (int) in.readUnsignedVInt();
+            List<ReadResponse> responses = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                responses.add(ReadResponse.serializer.deserialize(in, version));
+            return responses;
+        }
+
+        public long serializedSize(List<ReadResponse> responses, int version)
+        {
+            long size = TypeSizes.sizeofUnsignedVInt(responses.size());
+            for (ReadResponse response : responses)
+                size += ReadResponse.serializer.serializedSize(response, version);
+            return size;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
+import org.apache.cassandra.net.IVerbHandler;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.tracing.Tracing;
+
+public class ReadCommandBatchVerbHandler implements IVerbHandler<ReadCommandBatch>
+{
+    public void doVerb(MessageIn<ReadCommandBatch> message, int id)
+    {
+        if (StorageService.instance.isBootstrapMode())
+        {
+            throw new RuntimeException("Cannot service reads while bootstrapping!");
+        }
+
+        List<ReadResponse> responses = new ArrayList<>(message.payload.commands.size());
+        for (ReadCommand command : message.payload.commands)
+        {
+            command.setMonitoringTime(message.constructionTime, message.getTimeout());
+
+            try (ReadExecutionController executionController = command.executionController();
+                 UnfilteredPartitionIterator iterator = command.executeLocally(executionController))
+            {
+                responses.add(command.createResponse(iterator));
+            }
+
+            // the coordinator waits on every command of the batch, so there is no point going on with the others
+            if (!command.complete())
+            {
+                Tracing.trace("Discarding partial response to {} (timed out)", message.from);
+                MessagingService.instance().incrementDroppedMessages(message, System.currentTimeMillis() - message.constructionTime.timestamp);
+                return;
+            }
+        }
+
+        Tracing.trace("Enqueuing response to {}", message.from);
+        MessageOut<List<ReadResponse>> reply = new MessageOut<>(MessagingService.Verb.REQUEST_RESPONSE, responses, ReadCommandBatch.responseSerializer);
+        MessagingService.instance().sendReply(reply, id, message.from);
+    }
+}
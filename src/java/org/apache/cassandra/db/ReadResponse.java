@@ -92,6 +92,15 @@ public abstract class ReadResponse
 
     public abstract boolean isDigestResponse();
 
+    /**
+     * The size of the serialized data held by this response, or 0 if it isn't known (digests and responses of
+     * pre-3.0 nodes).
+     */
+    public long dataSize()
+    {
+        return 0;
+    }
+
     protected static ByteBuffer makeDigest(UnfilteredPartitionIterator iterator, ReadCommand command)
     {
         MessageDigest digest = FBUtilities.threadLocalMD5Digest();
@@ -208,6 +217,12 @@ public abstract class ReadResponse
         {
             return false;
         }
+
+        @Override
+        public long dataSize()
+        {
+            return data.remaining();
+        }
     }
 
     /**
@@ -550,6 +550,7 @@ public class SinglePartitionReadCommand extends ReadCommand
             Collections.sort(view.sstables, SSTableReader.maxTimestampComparator);
             long mostRecentPartitionTombstone = Long.MIN_VALUE;
             int nonIntersectingSSTables = 0;
+            int nonContainingSSTables = 0;
             List<SSTableReader> skippedSSTablesWithTombstones = null;
 
             for (SSTableReader sstable : view.sstables)
@@ -559,6 +560,13 @@ public class SinglePartitionReadCommand extends ReadCommand
                 if (sstable.getMaxTimestamp() < mostRecentPartitionTombstone)
                     break;
 
+                // the sstables whose bloom filter excludes the partition can't have anything for us, tombstones included
+                if (!sstable.mayContain(partitionKey()))
+                {
+                    nonContainingSSTables++;
+                    continue;
+                }
+
                 if (!shouldInclude(sstable))
                 {
                     nonIntersectingSSTables++;
@@ -580,8 +588,12 @@ public class SinglePartitionReadCommand extends ReadCommand
                     oldestUnrepairedTombstone = Math.min(oldestUnrepairedTombstone, sstable.getMinLocalDeletionTime());
 
                 iterators.add(iter);
-                mostRecentPartitionTombstone = Math.max(mostRecentPartitionTombstone,
-                                                        iter.partitionLevelDeletion().markedForDeleteAt());
+
+                // use the partition deletion of the cached index entry if we can, rather than reading it from the data file
+                DeletionTime partitionDeletion = sstable.getCachedPartitionDeletion(partitionKey());
+                if (partitionDeletion == null)
+                    partitionDeletion = iter.partitionLevelDeletion();
+                mostRecentPartitionTombstone = Math.max(mostRecentPartitionTombstone, partitionDeletion.markedForDeleteAt());
             }
 
             int includedDueToTombstones = 0;
@@ -604,14 +616,17 @@ public class SinglePartitionReadCommand extends ReadCommand
                 }
             }
             if (Tracing.isTracing())
-                Tracing.trace("Skipped {}/{} non-slice-intersecting sstables, included {} due to tombstones",
-                               nonIntersectingSSTables, view.sstables.size(), includedDueToTombstones);
+                Tracing.trace("Skipped {}/{} sstables not containing the partition and {} non-slice-intersecting sstables, included {} due to tombstones",
+                               nonContainingSSTables, view.sstables.size(), nonIntersectingSSTables, includedDueToTombstones);
 
             if (iterators.isEmpty())
+            {
+                cfs.metric.updateSSTableIterated(0, view.sstables.size());
                 return EmptyIterators.unfilteredRow(cfs.metadata, partitionKey(), filter.isReversed());
+            }
 
             StorageHook.instance.reportRead(cfs.metadata.cfId, partitionKey());
-            return withStateTracking(withSSTablesIterated(iterators, cfs.metric));
+            return withStateTracking(withSSTablesIterated(iterators, cfs.metric, view.sstables.size()));
         }
         catch (RuntimeException | Error e)
         {
@@ -652,12 +667,14 @@ public class SinglePartitionReadCommand extends ReadCommand
     }
 
     /**
-     * Return a wrapped iterator that when closed will update the sstables iterated and READ sample metrics.
+     * Return a wrapped iterator that when closed will update the sstables iterated (and skipped, out of the given
+     * number of sstables covering the partition) and READ sample metrics.
      * Note that we cannot use the Transformations framework because they greedily get the static row, which
      * would cause all iterators to be initialized and hence all sstables to be accessed.
      */
     private UnfilteredRowIterator withSSTablesIterated(List<UnfilteredRowIterator> iterators,
-                                                       TableMetrics metrics)
+                                                       TableMetrics metrics,
+                                                       int sstables)
     {
         @SuppressWarnings("resource") //  Closed through the closing of the result of the caller method.
         UnfilteredRowIterator merged = UnfilteredRowIterators.merge(iterators, nowInSec());
@@ -677,7 +694,7 @@ public class SinglePartitionReadCommand extends ReadCommand
                                                     .filter(it -> ((LazilyInitializedUnfilteredRowIterator)it).initialized())
                                                     .count();
 
-               metrics.updateSSTableIterated(sstablesIterated);
+               metrics.updateSSTableIterated(sstablesIterated, sstables - sstablesIterated);
                Tracing.trace("Merged data from memtables and {} sstables", sstablesIterated);
            }
         };
@@ -744,6 +761,10 @@ public class SinglePartitionReadCommand extends ReadCommand
             if (filter == null)
                 break;
 
+            // the bloom filter tells us without any disk access if the partition can be in the sstable at all
+            if (!sstable.mayContain(partitionKey()))
+                continue;
+
             if (!shouldInclude(sstable))
             {
                 // This mean that nothing queried by the filter can be in the sstable. One exception is the top-level partition deletion
@@ -753,11 +774,23 @@ public class SinglePartitionReadCommand extends ReadCommand
                 if (!sstable.hasTombstones())
                     continue; // no tombstone at all, we can skip that sstable
 
-                // We need to get the partition deletion and include it if it's live. In any case though, we're done with that sstable.
+                // The cached index entry of the partition may also give us the partition deletion without any seek
+                DeletionTime partitionDeletion = sstable.getCachedPartitionDeletion(partitionKey());
+                if (partitionDeletion != null)
+                {
+                    if (!partitionDeletion.isLive())
+                    {
+                        sstablesIterated++;
+                        result = add(UnfilteredRowIterators.noRowsIterator(metadata(), partitionKey(), Rows.EMPTY_STATIC_ROW, partitionDeletion, filter.isReversed()), result, filter, sstable.isRepaired());
+                    }
+                    continue;
+                }
+
+                // We need to get the partition deletion and include it if there is one. In any case though, we're done with that sstable.
                 sstable.incrementReadCount();
                 try (UnfilteredRowIterator iter = StorageHook.instance.makeRowIterator(cfs, sstable, partitionKey(), Slices.ALL, columnFilter(), filter.isReversed(), isForThrift()))
                 {
-                    if (iter.partitionLevelDeletion().isLive())
+                    if (!iter.partitionLevelDeletion().isLive())
                     {
                         sstablesIterated++;
                         result = add(UnfilteredRowIterators.noRowsIterator(iter.metadata(), iter.partitionKey(), Rows.EMPTY_STATIC_ROW, iter.partitionLevelDeletion(), filter.isReversed()), result, filter, sstable.isRepaired());
@@ -780,7 +813,7 @@ public class SinglePartitionReadCommand extends ReadCommand
             }
         }
 
-        cfs.metric.updateSSTableIterated(sstablesIterated);
+        cfs.metric.updateSSTableIterated(sstablesIterated, view.sstables.size() - sstablesIterated);
 
         if (result == null || result.isEmpty())
             return EmptyIterators.unfilteredRow(metadata(), partitionKey(), false);
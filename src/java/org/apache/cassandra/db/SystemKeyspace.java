@@ -1137,6 +1137,23 @@ public final class SystemKeyspace
         return new PaxosState(promised, accepted, mostRecent);
     }
 
+    /**
+     * Loads the paxos state of a partition for {@link org.apache.cassandra.service.paxos.PaxosStateCache}: unlike
+     * {@link #loadPaxosState}, this doesn't filter out expired values but returns the time at which each of them
+     * expires (the row is read "at time 0", so the remaining TTL is that time).
+     *
+     * @return the system.paxos row of the partition, or null if there is none.
+     */
+    public static UntypedResultSet.Row loadPaxosStateForCache(DecoratedKey key, CFMetaData metadata)
+    {
+        String req = "SELECT in_progress_ballot, TTL(in_progress_ballot) AS in_progress_ballot_expires_at, " +
+                     "proposal_ballot, proposal, proposal_version, TTL(proposal) AS proposal_expires_at, " +
+                     "most_recent_commit_at, most_recent_commit, most_recent_commit_version, TTL(most_recent_commit) AS most_recent_commit_expires_at " +
+                     "FROM system.%s WHERE row_key = ? AND cf_id = ?";
+        UntypedResultSet results = QueryProcessor.executeInternalWithNow(0, String.format(req, PAXOS), key.getKey(), metadata.cfId);
+        return results.isEmpty() ? null : results.one();
+    }
+
     public static void savePaxosPromise(Commit promise)
     {
         String req = "UPDATE system.%s USING TIMESTAMP ? AND TTL ? SET in_progress_ballot = ? WHERE row_key = ? AND cf_id = ?";
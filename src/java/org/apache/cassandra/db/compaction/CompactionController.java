@@ -32,7 +32,7 @@ import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.PartitionPosition;
 import org.apache.cassandra.utils.AlwaysPresentFilter;
 
-import org.apache.cassandra.utils.OverlapIterator;
+import org.apache.cassandra.utils.MinTimestampOverlapIterator;
 import org.apache.cassandra.utils.concurrent.Refs;
 
 import static org.apache.cassandra.db.lifecycle.SSTableIntervalTree.buildIntervals;
@@ -51,7 +51,7 @@ public class CompactionController implements AutoCloseable
     // good thing so that noone starts using them and thinks that if overlappingSSTables is empty, there
     // is no overlap.
     private Refs<SSTableReader> overlappingSSTables;
-    private OverlapIterator<PartitionPosition, SSTableReader> overlapIterator;
+    private MinTimestampOverlapIterator<PartitionPosition, SSTableReader> overlapIterator;
     private final Iterable<SSTableReader> compacting;
 
     public final int gcBefore;
@@ -103,7 +103,7 @@ public class CompactionController implements AutoCloseable
             overlappingSSTables = Refs.tryRef(Collections.<SSTableReader>emptyList());
         else
             overlappingSSTables = cfs.getAndReferenceOverlappingLiveSSTables(compacting);
-        this.overlapIterator = new OverlapIterator<>(buildIntervals(overlappingSSTables));
+        this.overlapIterator = new MinTimestampOverlapIterator<>(buildIntervals(overlappingSSTables), SSTableReader::getMinTimestamp);
     }
 
     public Set<SSTableReader> getFullyExpiredSSTables()
@@ -205,23 +205,25 @@ public class CompactionController implements AutoCloseable
             return Long.MIN_VALUE;
 
         long min = Long.MAX_VALUE;
-        overlapIterator.update(key);
-        for (SSTableReader sstable : overlapIterator.overlaps())
-        {
-            // if we don't have bloom filter(bf_fp_chance=1.0 or filter file is missing),
-            // we check index file instead.
-            if ((sstable.getBloomFilter() instanceof AlwaysPresentFilter && sstable.getPosition(key, SSTableReader.Operator.EQ, false) != null)
-                || sstable.getBloomFilter().isPresent(key))
-                min = Math.min(min, sstable.getMinTimestamp());
-        }
-
         for (Memtable memtable : cfs.getTracker().getView().getAllMemtables())
         {
             Partition partition = memtable.getPartition(key);
             if (partition != null)
                 min = Math.min(min, partition.stats().minTimestamp);
         }
-        return min;
+
+        // only the sstables older than what we have found so far need to be checked, oldest first, and
+        // the first one that may contain the partition is the one we are looking for
+        overlapIterator.update(key);
+        return overlapIterator.minTimestamp(key, CompactionController::mayContain, min);
+    }
+
+    private static boolean mayContain(SSTableReader sstable, DecoratedKey key)
+    {
+        // if we don't have bloom filter(bf_fp_chance=1.0 or filter file is missing),
+        // we check index file instead.
+        return (sstable.getBloomFilter() instanceof AlwaysPresentFilter && sstable.getPosition(key, SSTableReader.Operator.EQ, false) != null)
+               || sstable.getBloomFilter().isPresent(key);
     }
 
     public void close()
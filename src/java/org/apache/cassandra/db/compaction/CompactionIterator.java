@@ -31,6 +31,7 @@ import org.apache.cassandra.db.partitions.UnfilteredPartitionIterators;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.db.transform.Transformation;
 import org.apache.cassandra.index.transactions.CompactionTransaction;
+import org.apache.cassandra.io.sstable.CopyablePartition;
 import org.apache.cassandra.io.sstable.ISSTableScanner;
 import org.apache.cassandra.metrics.CompactionMetrics;
 
@@ -213,6 +214,26 @@ public class CompactionIterator extends CompactionInfo.Holder implements Unfilte
                 };
             }
 
+            public UnfilteredRowIterator getUnmergedVersion(DecoratedKey partitionKey, List<UnfilteredRowIterator> versions)
+            {
+                // A partition only present in one sstable that compaction leaves unchanged has nothing to merge nor
+                // to purge: we return it as is so that the writer can copy it instead of serializing it again.
+                UnfilteredRowIterator unmerged = null;
+                for (UnfilteredRowIterator iter : versions)
+                {
+                    if (iter == null)
+                        continue;
+
+                    if (unmerged != null || !(iter instanceof CopyablePartition))
+                        return null;
+
+                    unmerged = iter;
+                }
+
+                CompactionIterator.this.updateCounterFor(1);
+                return unmerged;
+            }
+
             public void close()
             {
             }
@@ -276,6 +297,20 @@ public class CompactionIterator extends CompactionInfo.Holder implements Unfilte
             this.controller = controller;
         }
 
+        @Override
+        public UnfilteredRowIterator applyToPartition(UnfilteredRowIterator partition)
+        {
+            // the partitions that weren't merged have nothing to purge (see getUnmergedVersion() above)
+            if (partition instanceof CopyablePartition)
+            {
+                if ((++compactedUnfiltered) % UNFILTERED_TO_UPDATE_PROGRESS == 0)
+                    updateBytesRead();
+                return partition;
+            }
+
+            return super.applyToPartition(partition);
+        }
+
         @Override
         protected void onEmptyPartitionPostPurge(DecoratedKey key)
         {
@@ -509,12 +509,13 @@ public class CompactionStrategyManager implements INotificationConsumer
         }
     }
 
-    private void handleDeletingNotification(SSTableReader deleted)
+    private void handleDeletingNotification(Iterable<SSTableReader> deleted)
     {
         readLock.lock();
         try
         {
-            getCompactionStrategyFor(deleted).removeSSTable(deleted);
+            for (SSTableReader sstable : deleted)
+                getCompactionStrategyFor(sstable).removeSSTable(sstable);
         }
         finally
         {
@@ -67,6 +67,26 @@ class Helpers
         return result;
     }
 
+    /**
+     * update the contents of an sstable map with the provided sets, with the same checks as above, but sharing
+     * the structure of the original map rather than copying it
+     * @return a new sstable map with the contents of the provided one modified
+     */
+    static SSTableMap replace(SSTableMap original, Set<SSTableReader> remove, Iterable<SSTableReader> add)
+    {
+        for (SSTableReader reader : remove)
+            assert original.get(reader) == reader;
+
+        assert !any(add, and(not(in(remove)), in(original.keySet()))) : String.format("original:%s remove:%s add:%s", original.keySet(), remove, add);
+
+        SSTableMap result = original.update(remove, add);
+
+        assert result.size() == original.size() - remove.size() + Iterables.size(add) :
+        String.format("Expecting new size of %d, got %d while replacing %s by %s in %s",
+                      original.size() - remove.size() + Iterables.size(add), result.size(), remove, add, original.keySet());
+        return result;
+    }
+
     /**
      * A convenience method for encapsulating this action over multiple SSTableReader with exception-safety
      * @return accumulate if not null (with any thrown exception attached), or any thrown exception otherwise
@@ -127,6 +147,7 @@ class Helpers
 
     static Throwable prepareForObsoletion(Iterable<SSTableReader> readers, LogTransaction txnLogs, List<LogTransaction.Obsoletion> obsoletions, Throwable accumulate)
     {
+        int start = obsoletions.size();
         for (SSTableReader reader : readers)
         {
             try
@@ -138,7 +159,8 @@ class Helpers
                 accumulate = Throwables.merge(accumulate, t);
             }
         }
-        return accumulate;
+        // notify the subscribers once for all the readers rather than once per reader
+        return txnLogs.notifyDeleting(obsoletions.subList(start, obsoletions.size()), accumulate);
     }
 
     static Throwable abortObsoletion(List<LogTransaction.Obsoletion> obsoletions, Throwable accumulate)
@@ -144,6 +144,7 @@ class LogTransaction extends Transactional.AbstractTransactional implements Tran
 
     /**
      * Schedule a reader for deletion as soon as it is fully unreferenced.
+     * The tracker isn't notified of the deletion, see {@link #notifyDeleting(List, Throwable)}.
      */
     SSTableTidier obsoleted(SSTableReader reader)
     {
@@ -157,12 +158,27 @@ class LogTransaction extends Transactional.AbstractTransactional implements Tran
 
         txnFile.add(Type.REMOVE, reader);
 
-        if (tracker != null)
-            tracker.notifyDeleting(reader);
-
         return new SSTableTidier(reader, false, this);
     }
 
+    /**
+     * Notifies the tracker subscribers, with a single notification, that the readers of the provided obsoletions
+     * that this transaction didn't create are about to be deleted.
+     */
+    Throwable notifyDeleting(List<Obsoletion> obsoletions, Throwable accumulate)
+    {
+        if (tracker == null)
+            return accumulate;
+
+        List<SSTableReader> deleting = new ArrayList<>(obsoletions.size());
+        for (Obsoletion obsoletion : obsoletions)
+        {
+            if (!obsoletion.tidier.wasNew)
+                deleting.add(obsoletion.reader);
+        }
+        return deleting.isEmpty() ? accumulate : tracker.notifyDeleting(deleting, accumulate);
+    }
+
     OperationType type()
     {
         return txnFile.type();
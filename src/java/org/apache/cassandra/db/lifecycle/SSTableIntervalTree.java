@@ -40,6 +40,11 @@ public class SSTableIntervalTree extends IntervalTree<PartitionPosition, SSTable
         super(intervals);
     }
 
+    private SSTableIntervalTree(SSTableIntervalTree tree, Collection<Interval<PartitionPosition, SSTableReader>> removals, Collection<Interval<PartitionPosition, SSTableReader>> additions)
+    {
+        super(tree, removals, additions);
+    }
+
     public static SSTableIntervalTree empty()
     {
         return EMPTY;
@@ -50,6 +55,21 @@ public class SSTableIntervalTree extends IntervalTree<PartitionPosition, SSTable
         return new SSTableIntervalTree(buildIntervals(sstables));
     }
 
+    /**
+     * @return the tree of the sstables of this tree minus {@code remove}, plus {@code add}, sharing with this tree
+     * the parts of it that the change doesn't touch
+     */
+    public SSTableIntervalTree update(Collection<SSTableReader> remove, Iterable<SSTableReader> add)
+    {
+        List<Interval<PartitionPosition, SSTableReader>> removals = buildIntervals(remove);
+        List<Interval<PartitionPosition, SSTableReader>> additions = buildIntervals(add);
+        if (removals.isEmpty() && additions.isEmpty())
+            return this;
+        if (removals.size() == intervalCount() && additions.isEmpty())
+            return EMPTY;
+        return new SSTableIntervalTree(this, removals, additions);
+    }
+
     public static List<Interval<PartitionPosition, SSTableReader>> buildIntervals(Iterable<SSTableReader> sstables)
     {
         List<Interval<PartitionPosition, SSTableReader>> intervals = new ArrayList<>(Iterables.size(sstables));
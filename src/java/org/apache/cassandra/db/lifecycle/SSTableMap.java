@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.lifecycle;
+
+import java.util.*;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.btree.BTree;
+import org.apache.cassandra.utils.btree.BTreeRemoval;
+import org.apache.cassandra.utils.btree.UpdateFunction;
+
+/**
+ * An immutable "identity map" of sstables (see {@link Helpers#identityMap}) backed by a BTree, so that a new version
+ * of the map with a few sstables removed or added shares most of its structure with the previous one, instead of
+ * being a full copy of it.
+ *
+ * The sstables are ordered by descriptor, which is what their equality is based on.
+ */
+final class SSTableMap extends AbstractMap<SSTableReader, SSTableReader>
+{
+    static final Comparator<SSTableReader> comparator = (r1, r2) ->
+    {
+        Descriptor d1 = r1.descriptor, d2 = r2.descriptor;
+        int c = Integer.compare(d1.generation, d2.generation);
+        if (c != 0)
+            return c;
+        c = d1.directory.compareTo(d2.directory);
+        if (c != 0)
+            return c;
+        c = d1.ksname.compareTo(d2.ksname);
+        if (c != 0)
+            return c;
+        c = d1.cfname.compareTo(d2.cfname);
+        if (c != 0)
+            return c;
+        return d1.formatType.compareTo(d2.formatType);
+    };
+
+    private static final SSTableMap EMPTY = new SSTableMap(BTree.empty());
+
+    private final Object[] tree;
+    private final Set<SSTableReader> keySet = new KeySet();
+    private Set<Entry<SSTableReader, SSTableReader>> entrySet;
+
+    private SSTableMap(Object[] tree)
+    {
+        this.tree = tree;
+    }
+
+    static SSTableMap empty()
+    {
+        return EMPTY;
+    }
+
+    static SSTableMap copyOf(Map<SSTableReader, SSTableReader> map)
+    {
+        if (map instanceof SSTableMap)
+            return (SSTableMap) map;
+        return EMPTY.update(Collections.emptySet(), map.values());
+    }
+
+    /**
+     * @return a map with the content of this one, minus {@code remove}, plus {@code add}
+     */
+    SSTableMap update(Set<SSTableReader> remove, Iterable<SSTableReader> add)
+    {
+        Object[] updated = tree;
+        for (SSTableReader reader : remove)
+            updated = BTreeRemoval.remove(updated, comparator, reader);
+
+        List<SSTableReader> sorted = new ArrayList<>();
+        Iterables.addAll(sorted, add);
+        if (!sorted.isEmpty())
+        {
+            sorted.sort(comparator);
+            updated = BTree.update(updated, comparator, sorted, UpdateFunction.noOp());
+        }
+        return updated == tree ? this : new SSTableMap(updated);
+    }
+
+    @Override
+    public SSTableReader get(Object key)
+    {
+        return key instanceof SSTableReader ? BTree.find(tree, comparator, (SSTableReader) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size()
+    {
+        return BTree.size(tree);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return BTree.isEmpty(tree);
+    }
+
+    @Override
+    public Set<SSTableReader> keySet()
+    {
+        return keySet;
+    }
+
+    @Override
+    public Collection<SSTableReader> values()
+    {
+        return keySet;
+    }
+
+    @Override
+    public Set<Entry<SSTableReader, SSTableReader>> entrySet()
+    {
+        if (entrySet == null)
+        {
+            entrySet = new AbstractSet<Entry<SSTableReader, SSTableReader>>()
+            {
+                public Iterator<Entry<SSTableReader, SSTableReader>> iterator()
+                {
+                    return Iterators.transform(keySet.iterator(), reader -> new SimpleImmutableEntry<>(reader, reader));
+                }
+
+                public int size()
+                {
+                    return SSTableMap.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private final class KeySet extends AbstractSet<SSTableReader>
+    {
+        public Iterator<SSTableReader> iterator()
+        {
+            return BTree.iterator(tree);
+        }
+
+        public int size()
+        {
+            return SSTableMap.this.size();
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return SSTableMap.this.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return containsKey(o);
+        }
+    }
+}
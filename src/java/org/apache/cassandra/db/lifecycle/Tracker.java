@@ -202,7 +202,7 @@ public class Tracker
                          !isDummy() ? ImmutableList.of(new Memtable(new AtomicReference<>(CommitLog.instance.getCurrentPosition()), cfstore))
                                     : ImmutableList.<Memtable>of(),
                          ImmutableList.<Memtable>of(),
-                         Collections.<SSTableReader, SSTableReader>emptyMap(),
+                         SSTableMap.empty(),
                          Collections.<SSTableReader, SSTableReader>emptyMap(),
                          Collections.<SSTableReader>emptySet(),
                          SSTableIntervalTree.empty()));
@@ -473,11 +473,26 @@ public class Tracker
             subscriber.handleNotification(notification, this);
     }
 
-    public void notifyDeleting(SSTableReader deleting)
+    Throwable notifyDeleting(Collection<SSTableReader> deleting, Throwable accumulate)
     {
         INotification notification = new SSTableDeletingNotification(deleting);
         for (INotificationConsumer subscriber : subscribers)
-            subscriber.handleNotification(notification, this);
+        {
+            try
+            {
+                subscriber.handleNotification(notification, this);
+            }
+            catch (Throwable t)
+            {
+                accumulate = merge(accumulate, t);
+            }
+        }
+        return accumulate;
+    }
+
+    public void notifyDeleting(Collection<SSTableReader> deleting)
+    {
+        maybeFail(notifyDeleting(deleting, null));
     }
 
     public void notifyTruncated(long truncatedAt)
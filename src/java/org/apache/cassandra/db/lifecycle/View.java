@@ -73,7 +73,8 @@ public class View
     // When marking compacting, we now  indicate if we expect the sstables to be present (by default we do),
     // and we then check that not only are they all present in the live set, but that the exact instance present is
     // the one we made our decision to compact against.
-    final Map<SSTableReader, SSTableReader> sstablesMap;
+    // The live sstables are kept in a persistent map, which a change doesn't have to copy entirely.
+    final SSTableMap sstablesMap;
     final Map<SSTableReader, SSTableReader> compactingMap;
 
     final SSTableIntervalTree intervalTree;
@@ -89,7 +90,7 @@ public class View
         this.liveMemtables = liveMemtables;
         this.flushingMemtables = flushingMemtables;
 
-        this.sstablesMap = sstables;
+        this.sstablesMap = SSTableMap.copyOf(sstables);
         this.sstables = sstablesMap.keySet();
         this.compactingMap = compacting;
         this.compacting = compactingMap.keySet();
@@ -284,9 +285,9 @@ public class View
         {
             public View apply(View view)
             {
-                Map<SSTableReader, SSTableReader> sstableMap = replace(view.sstablesMap, remove, add);
+                SSTableMap sstableMap = replace(view.sstablesMap, remove, add);
                 return new View(view.liveMemtables, view.flushingMemtables, sstableMap, view.compactingMap, view.premature,
-                                SSTableIntervalTree.build(sstableMap.keySet()));
+                                view.intervalTree.update(remove, add));
             }
         };
     }
@@ -338,11 +339,11 @@ public class View
                     return new View(view.liveMemtables, flushingMemtables, view.sstablesMap,
                                     view.compactingMap, view.premature, view.intervalTree);
 
-                Map<SSTableReader, SSTableReader> sstableMap = replace(view.sstablesMap, emptySet(), flushed);
+                SSTableMap sstableMap = replace(view.sstablesMap, emptySet(), flushed);
                 Map<SSTableReader, SSTableReader> compactingMap = replace(view.compactingMap, emptySet(), flushed);
                 Set<SSTableReader> premature = replace(view.premature, emptySet(), flushed);
                 return new View(view.liveMemtables, flushingMemtables, sstableMap, compactingMap, premature,
-                                SSTableIntervalTree.build(sstableMap.keySet()));
+                                view.intervalTree.update(emptySet(), flushed));
             }
         };
     }
@@ -44,6 +44,7 @@ import org.github.jamm.Unmetered;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.memory.AbstractAllocator;
 
 import static org.apache.cassandra.db.marshal.AbstractType.ComparisonType.CUSTOM;
 
@@ -412,11 +413,31 @@ public abstract class AbstractType<T> implements Comparator<ByteBuffer>, Assignm
     }
 
     public ByteBuffer readValue(DataInputPlus in, int maxValueSize) throws IOException
+    {
+        return ByteBufferUtil.read(in, readValueLength(in, maxValueSize));
+    }
+
+    /**
+     * Reads a value like {@link #readValue(DataInputPlus, int)}, but into a buffer obtained from the given (on-heap)
+     * allocator.
+     */
+    public ByteBuffer readValue(DataInputPlus in, int maxValueSize, AbstractAllocator allocator) throws IOException
+    {
+        int length = readValueLength(in, maxValueSize);
+        if (length == 0)
+            return ByteBufferUtil.EMPTY_BYTE_BUFFER;
+
+        ByteBuffer value = allocator.allocate(length);
+        in.readFully(value.array(), value.arrayOffset() + value.position(), length);
+        return value;
+    }
+
+    private int readValueLength(DataInputPlus in, int maxValueSize) throws IOException
     {
         int length = valueLengthIfFixed();
 
         if (length >= 0)
-            return ByteBufferUtil.read(in, length);
+            return length;
         else
         {
             int l = (int)in.readUnsignedVInt();
@@ -428,7 +449,7 @@ public abstract class AbstractType<T> implements Comparator<ByteBuffer>, Assignm
                                                     "which is set via max_value_size_in_mb in cassandra.yaml",
                                                     l, maxValueSize));
 
-            return ByteBufferUtil.read(in, l);
+            return l;
         }
     }
 
@@ -47,6 +47,19 @@ public abstract class UnfilteredPartitionIterators
     public interface MergeListener
     {
         public UnfilteredRowIterators.MergeListener getRowMergeListener(DecoratedKey partitionKey, List<UnfilteredRowIterator> versions);
+
+        /**
+         * Returns the version to use as is, instead of merging the versions of the partition, or {@code null} if they
+         * should be merged. {@link #getRowMergeListener} isn't called for the partitions that aren't merged.
+         *
+         * @param partitionKey the key of the partition.
+         * @param versions the versions of the partition, {@code null} for the iterators that don't have it.
+         */
+        public default UnfilteredRowIterator getUnmergedVersion(DecoratedKey partitionKey, List<UnfilteredRowIterator> versions)
+        {
+            return null;
+        }
+
         public void close();
     }
 
@@ -115,6 +128,10 @@ public abstract class UnfilteredPartitionIterators
 
             protected UnfilteredRowIterator getReduced()
             {
+                UnfilteredRowIterator unmerged = listener.getUnmergedVersion(partitionKey, toMerge);
+                if (unmerged != null)
+                    return unmerged;
+
                 UnfilteredRowIterators.MergeListener rowListener = listener.getRowMergeListener(partitionKey, toMerge);
 
                 // Replace nulls by empty iterators
@@ -242,7 +242,7 @@ public abstract class Cell extends ColumnData
                 {
                     boolean isCounter = localDeletionTime == NO_DELETION_TIME && column.type.isCounter();
 
-                    value = header.getType(column).readValue(in, DatabaseDescriptor.getMaxValueSize());
+                    value = header.getType(column).readValue(in, DatabaseDescriptor.getMaxValueSize(), helper.valueAllocator());
                     if (isCounter)
                         value = helper.maybeClearCounterValue(value);
                 }
@@ -25,6 +25,8 @@ import org.apache.cassandra.config.ColumnDefinition;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.context.CounterContext;
 import org.apache.cassandra.db.filter.ColumnFilter;
+import org.apache.cassandra.utils.memory.AbstractAllocator;
+import org.apache.cassandra.utils.memory.HeapAllocator;
 
 public class SerializationHelper
 {
@@ -53,13 +55,23 @@ public class SerializationHelper
     private final Map<ByteBuffer, CFMetaData.DroppedColumn> droppedColumns;
     private CFMetaData.DroppedColumn currentDroppedComplex;
 
+    private final AbstractAllocator valueAllocator;
 
     public SerializationHelper(CFMetaData metadata, int version, Flag flag, ColumnFilter columnsToFetch)
+    {
+        this(metadata, version, flag, columnsToFetch, HeapAllocator.instance);
+    }
+
+    /**
+     * @param valueAllocator the (on-heap) allocator for the values of the deserialized cells.
+     */
+    public SerializationHelper(CFMetaData metadata, int version, Flag flag, ColumnFilter columnsToFetch, AbstractAllocator valueAllocator)
     {
         this.flag = flag;
         this.version = version;
         this.columnsToFetch = columnsToFetch;
         this.droppedColumns = metadata.getDroppedColumns();
+        this.valueAllocator = valueAllocator;
     }
 
     public SerializationHelper(CFMetaData metadata, int version, Flag flag)
@@ -134,6 +146,11 @@ public class SerializationHelper
         return currentDroppedComplex != null && complexDeletion.markedForDeleteAt() <= currentDroppedComplex.droppedTime;
     }
 
+    public AbstractAllocator valueAllocator()
+    {
+        return valueAllocator;
+    }
+
     public ByteBuffer maybeClearCounterValue(ByteBuffer value)
     {
         return flag == Flag.FROM_REMOTE || (flag == Flag.LOCAL && CounterContext.instance().shouldClearLocal(value))
@@ -100,10 +100,53 @@ public final class Hint
      * @return calculates whether or not it is safe to apply the hint without risking to resurrect any deleted data
      */
     boolean isLive()
+    {
+        return expirationTime() > System.currentTimeMillis();
+    }
+
+    private long expirationTime()
     {
         int smallestGCGS = Math.min(gcgs, mutation.smallestGCGS());
-        long expirationTime = creationTime + TimeUnit.SECONDS.toMillis(smallestGCGS);
-        return expirationTime > System.currentTimeMillis();
+        return creationTime + TimeUnit.SECONDS.toMillis(smallestGCGS);
+    }
+
+    /**
+     * Merges hints for the same partition into one, as long as applying it is equivalent to applying each of them,
+     * which isn't the case if one of the tables involved has been truncated between their creations, or if the
+     * earliest of them (which the merged hint expires with) might expire before being applied.
+     *
+     * @param hints the hints to merge, which must all be for the same keyspace and partition key
+     * @param deliveryTimeMillis how long it may take for the merged hint to be applied
+     * @return the merged hint, or null if the hints can't be merged
+     */
+    static Hint merge(List<Hint> hints, long deliveryTimeMillis)
+    {
+        if (hints.size() == 1)
+            return hints.get(0);
+
+        long minCreationTime = Long.MAX_VALUE;
+        long maxCreationTime = Long.MIN_VALUE;
+        int minGCGS = Integer.MAX_VALUE;
+        List<Mutation> mutations = new ArrayList<>(hints.size());
+        Set<UUID> tables = new HashSet<>();
+        for (Hint hint : hints)
+        {
+            minCreationTime = Math.min(minCreationTime, hint.creationTime);
+            maxCreationTime = Math.max(maxCreationTime, hint.creationTime);
+            minGCGS = Math.min(minGCGS, hint.gcgs);
+            mutations.add(hint.mutation);
+            tables.addAll(hint.mutation.getColumnFamilyIds());
+        }
+
+        for (UUID id : tables)
+        {
+            long truncatedAt = SystemKeyspace.getTruncatedAt(id);
+            if (minCreationTime <= truncatedAt && truncatedAt < maxCreationTime)
+                return null;
+        }
+
+        Hint merged = new Hint(Mutation.merge(mutations), minCreationTime, minGCGS);
+        return merged.expirationTime() > System.currentTimeMillis() + deliveryTimeMillis ? merged : null;
     }
 
     static final class Serializer implements IVersionedSerializer<Hint>
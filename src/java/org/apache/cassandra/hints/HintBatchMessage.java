@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.google.common.primitives.Ints;
+
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.db.UnknownColumnFamilyException;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.io.util.TrackedDataInputPlus;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.UUIDSerializer;
+
+/**
+ * Several hints for the same host, dispatched in a single message.
+ *
+ * Every hint is handled exactly like if it had been sent in its own {@link HintMessage} (and the ones for dropped tables
+ * are skipped the same way), the receiver only answers once they all have been.
+ */
+public final class HintBatchMessage
+{
+    public static final IVersionedSerializer<HintBatchMessage> serializer = new Serializer();
+
+    final UUID hostId;
+    final List<HintMessage> hints;
+
+    private HintBatchMessage(UUID hostId, List<HintMessage> hints)
+    {
+        this.hostId = hostId;
+        this.hints = hints;
+    }
+
+    static HintBatchMessage create(UUID hostId, List<Hint> hints)
+    {
+        List<HintMessage> messages = new ArrayList<>(hints.size());
+        for (Hint hint : hints)
+            messages.add(new HintMessage(hostId, hint));
+        return new HintBatchMessage(hostId, messages);
+    }
+
+    public MessageOut<HintBatchMessage> createMessageOut()
+    {
+        return new MessageOut<>(MessagingService.Verb.HINT_BATCH, this, serializer);
+    }
+
+    private static class Serializer implements IVersionedSerializer<HintBatchMessage>
+    {
+        public long serializedSize(HintBatchMessage message, int version)
+        {
+            long size = UUIDSerializer.serializer.serializedSize(message.hostId, version);
+            size += TypeSizes.sizeofUnsignedVInt(message.hints.size());
+            for (HintMessage hint : message.hints)
+            {
+                long hintSize = Hint.serializer.serializedSize(hint.hint, version);
+                size += TypeSizes.sizeofUnsignedVInt(hintSize);
+                size += hintSize;
+            }
+            return size;
+        }
+
+        public void serialize(HintBatchMessage message, DataOutputPlus out, int version) throws IOException
+        {
+            UUIDSerializer.serializer.serialize(message.hostId, out, version);
+            out.writeUnsignedVInt(message.hints.size());
+            for (HintMessage hint : message.hints)
+            {
+                // the size allows skipping the hints of dropped tables, see HintMessage
+                out.writeUnsignedVInt(Hint.serializer.serializedSize(hint.hint, version));
+                Hint.serializer.serialize(hint.hint, out, version);
+            }
+        }
+
+        public HintBatchMessage deserialize(DataInputPlus in, int version) throws IOException
+        {
+            UUID hostId = UUIDSerializer.serializer.deserialize(in, version);
+            int count = (int) in.readUnsignedVInt();
+            List<HintMessage> hints = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+            {
+                long hintSize = in.readUnsignedVInt();
+                TrackedDataInputPlus countingIn = new TrackedDataInputPlus(in);
+                try
+                {
+                    hints.add(new HintMessage(hostId, Hint.serializer.deserialize(countingIn, version)));
+                }
+                catch (UnknownColumnFamilyException e)
+                {
+                    in.skipBytes(Ints.checkedCast(hintSize - countingIn.getBytesRead()));
+                    hints.add(new HintMessage(hostId, e.cfId));
+                }
+            }
+            return new HintBatchMessage(hostId, hints);
+        }
+    }
+}
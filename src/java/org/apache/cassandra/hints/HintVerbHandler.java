@@ -45,8 +45,17 @@ public final class HintVerbHandler implements IVerbHandler<HintMessage>
 
     public void doVerb(MessageIn<HintMessage> message, int id)
     {
-        UUID hostId = message.payload.hostId;
-        Hint hint = message.payload.hint;
+        handle(message.payload);
+        reply(id, message.from);
+    }
+
+    /**
+     * Stores, re-addresses or applies the hint of the message, depending on whom it is for.
+     */
+    static void handle(HintMessage message)
+    {
+        UUID hostId = message.hostId;
+        Hint hint = message.hint;
 
         // If we see an unknown table id, it means the table, or one of the tables in the mutation, had been dropped.
         // In that case there is nothing we can really do, or should do, other than log it go on.
@@ -56,8 +65,7 @@ public final class HintVerbHandler implements IVerbHandler<HintMessage>
         {
             logger.trace("Failed to decode and apply a hint for {} - table with id {} is unknown",
                          hostId,
-                         message.payload.unknownTableID);
-            reply(id, message.from);
+                         message.unknownTableID);
             return;
         }
 
@@ -69,7 +77,6 @@ public final class HintVerbHandler implements IVerbHandler<HintMessage>
         catch (MarshalException e)
         {
             logger.warn("Failed to validate a hint for {} - skipped", hostId);
-            reply(id, message.from);
             return;
         }
 
@@ -90,8 +97,6 @@ public final class HintVerbHandler implements IVerbHandler<HintMessage>
             // the common path - the node is both the destination and a valid replica for the hint.
             hint.apply();
         }
-
-        reply(id, message.from);
     }
 
     private static void reply(int id, InetAddress to)
@@ -27,6 +27,7 @@ import java.util.stream.Stream;
 import com.google.common.collect.ImmutableMap;
 
 import org.apache.cassandra.io.FSReadError;
+import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.utils.CLibrary;
 import org.apache.cassandra.utils.SyncUtil;
 
@@ -53,11 +54,17 @@ final class HintsCatalog
 
     /**
      * Loads hints stores from a given directory.
+     *
+     * Partially received hints files (see {@link HintsFilePageVerbHandler}) are deleted.
      */
     static HintsCatalog load(File hintsDirectory, ImmutableMap<String, Object> writerParams)
     {
         try
         {
+            Files.list(hintsDirectory.toPath())
+                 .filter(p -> p.getFileName().toString().endsWith(HintsFilePageVerbHandler.TMP_SUFFIX))
+                 .forEach(p -> FileUtils.deleteWithConfirm(p.toFile()));
+
             Map<UUID, List<HintsDescriptor>> stores =
                 Files.list(hintsDirectory.toPath())
                      .filter(HintsDescriptor::isHintFileName)
@@ -195,10 +195,20 @@ final class HintsDescriptor
 
     String fileName()
     {
-        return String.format("%s-%s-%s.hints", hostId, timestamp, version);
+        return fileName(hostId, timestamp, version);
     }
 
     String checksumFileName()
+    {
+        return checksumFileName(hostId, timestamp, version);
+    }
+
+    static String fileName(UUID hostId, long timestamp, int version)
+    {
+        return String.format("%s-%s-%s.hints", hostId, timestamp, version);
+    }
+
+    static String checksumFileName(UUID hostId, long timestamp, int version)
     {
         return String.format("%s-%s-%s.crc32", hostId, timestamp, version);
     }
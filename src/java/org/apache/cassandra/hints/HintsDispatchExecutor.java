@@ -25,8 +25,6 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
-import com.google.common.util.concurrent.RateLimiter;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -175,7 +173,7 @@ final class HintsDispatchExecutor
     {
         private final HintsStore store;
         private final UUID hostId;
-        private final RateLimiter rateLimiter;
+        private final HintsDispatchThrottle throttle;
 
         DispatchHintsTask(HintsStore store, UUID hostId)
         {
@@ -187,9 +185,11 @@ final class HintsDispatchExecutor
             // the goal is to bound maximum hints traffic going towards a particular node from the rest of the cluster,
             // not total outgoing hints traffic from this node - this is why the rate limiter is not shared between
             // all the dispatch tasks (as there will be at most one dispatch task for a particular host id at a time).
+            // if a maximum throttle is set, the rate is then adjusted, within those bounds, depending on how the target copes.
             int nodesCount = Math.max(1, StorageService.instance.getTokenMetadata().getAllEndpoints().size() - 1);
             int throttleInKB = DatabaseDescriptor.getHintedHandoffThrottleInKB() / nodesCount;
-            this.rateLimiter = RateLimiter.create(throttleInKB == 0 ? Double.MAX_VALUE : throttleInKB * 1024);
+            int maxThrottleInKB = DatabaseDescriptor.getHintedHandoffMaxThrottleInKB() / nodesCount;
+            this.throttle = HintsDispatchThrottle.create(throttleInKB, maxThrottleInKB);
         }
 
         public void run()
@@ -239,19 +239,43 @@ final class HintsDispatchExecutor
 
             InetAddress address = StorageService.instance.getEndpointForHostId(hostId);
             if (address != null)
+            {
+                // the hints of another node are being transferred to hostId, give it the file as a whole if we can
+                if (!hostId.equals(descriptor.hostId) && transfer(descriptor, address))
+                    return true;
                 return deliver(descriptor, address);
+            }
 
             // address == null means the target no longer exist; find new home for each hint entry.
             convert(descriptor);
             return true;
         }
 
+        private boolean transfer(HintsDescriptor descriptor, InetAddress address)
+        {
+            // Nodes don't know whether their peers support HINTS_FILE_PAGE: the transfer is only to be enabled once
+            // they all do
+            if (!DatabaseDescriptor.isHintsFileTransferEnabled() || store.getDispatchOffset(descriptor).isPresent())
+                return false;
+
+            if (!HintsFileSender.send(hintsDirectory, descriptor, address, isPaused::get))
+            {
+                logger.info("Failed to transfer hints file {} to endpoint {}, dispatching its hints instead", descriptor.fileName(), hostId);
+                return false;
+            }
+
+            store.delete(descriptor);
+            store.cleanUp(descriptor);
+            logger.info("Finished transfer of hints file {} to endpoint {}", descriptor.fileName(), hostId);
+            return true;
+        }
+
         private boolean deliver(HintsDescriptor descriptor, InetAddress address)
         {
             File file = new File(hintsDirectory, descriptor.fileName());
             Long offset = store.getDispatchOffset(descriptor).orElse(null);
 
-            try (HintsDispatcher dispatcher = HintsDispatcher.create(file, rateLimiter, address, descriptor.hostId, isPaused))
+            try (HintsDispatcher dispatcher = HintsDispatcher.create(file, throttle, address, descriptor.hostId, isPaused))
             {
                 if (offset != null)
                     dispatcher.seek(offset);
@@ -278,7 +302,7 @@ final class HintsDispatchExecutor
         {
             File file = new File(hintsDirectory, descriptor.fileName());
 
-            try (HintsReader reader = HintsReader.open(file, rateLimiter))
+            try (HintsReader reader = HintsReader.open(file, throttle.rateLimiter()))
             {
                 reader.forEach(page -> page.hintsIterator().forEachRemaining(HintsService.instance::writeForAllReplicas));
                 store.delete(descriptor);
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.RateLimiter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The rate limiter of the dispatch of hints to one host, optionally adjusted to how the host copes with them.
+ *
+ * When adaptive, the rate starts at the configured (per node) throttle and, every {@link #ADJUSTMENT_INTERVAL_NANOS},
+ * grows additively up to the maximum throttle as long as the host keeps up, and is cut multiplicatively when it doesn't:
+ * halved if some deliveries timed out or failed (the host dropped them, most likely because it is overloaded), and
+ * reduced by a quarter if the response latency went well above the lowest one we have seen from it.
+ *
+ * Not thread safe: a throttle is only ever used by the (single) dispatch task of its host.
+ */
+final class HintsDispatchThrottle
+{
+    private static final Logger logger = LoggerFactory.getLogger(HintsDispatchThrottle.class);
+
+    static final long ADJUSTMENT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // how much slower than the best latency seen the host may answer before we consider it is struggling
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    private final RateLimiter rateLimiter;
+    private final double baseRate;
+    private final double minRate;
+    private final double maxRate;
+
+    private long intervalStart;
+    private long intervalLatencyNanos;
+    private int intervalResponses;
+    private int intervalFailures;
+    private long bestLatencyNanos = Long.MAX_VALUE;
+
+    private HintsDispatchThrottle(double baseRate, double maxRate, long now)
+    {
+        this.rateLimiter = RateLimiter.create(baseRate);
+        this.baseRate = baseRate;
+        this.minRate = baseRate / 8;
+        this.maxRate = maxRate;
+        this.intervalStart = now;
+    }
+
+    /**
+     * @param throttleInKB the configured rate, in KB per second, 0 meaning unthrottled
+     * @param maxThrottleInKB the highest rate we may go up to, in KB per second; adaptive throttling is disabled if it
+     * isn't above {@code throttleInKB}
+     */
+    static HintsDispatchThrottle create(int throttleInKB, int maxThrottleInKB)
+    {
+        if (throttleInKB == 0)
+            return new HintsDispatchThrottle(Double.MAX_VALUE, Double.MAX_VALUE, System.nanoTime());
+        return new HintsDispatchThrottle(throttleInKB * 1024, Math.max(throttleInKB, maxThrottleInKB) * 1024, System.nanoTime());
+    }
+
+    @VisibleForTesting
+    static HintsDispatchThrottle create(double baseRate, double maxRate, long now)
+    {
+        return new HintsDispatchThrottle(baseRate, maxRate, now);
+    }
+
+    RateLimiter rateLimiter()
+    {
+        return rateLimiter;
+    }
+
+    boolean isAdaptive()
+    {
+        return maxRate > baseRate;
+    }
+
+    /**
+     * Records a successful delivery, answered after {@code latencyNanos}.
+     */
+    void onResponse(long latencyNanos)
+    {
+        onResponse(latencyNanos, System.nanoTime());
+    }
+
+    @VisibleForTesting
+    void onResponse(long latencyNanos, long now)
+    {
+        if (!isAdaptive())
+            return;
+
+        intervalLatencyNanos += latencyNanos;
+        intervalResponses++;
+        maybeAdjust(now);
+    }
+
+    /**
+     * Records a delivery that timed out or failed.
+     */
+    void onFailure()
+    {
+        onFailure(System.nanoTime());
+    }
+
+    @VisibleForTesting
+    void onFailure(long now)
+    {
+        if (!isAdaptive())
+            return;
+
+        intervalFailures++;
+        maybeAdjust(now);
+    }
+
+    private void maybeAdjust(long now)
+    {
+        if (now - intervalStart < ADJUSTMENT_INTERVAL_NANOS)
+            return;
+
+        double rate = rateLimiter.getRate();
+        double newRate = rate;
+        if (intervalFailures > 0)
+        {
+            newRate = Math.max(minRate, rate / 2);
+        }
+        else if (intervalResponses > 0)
+        {
+            long latency = intervalLatencyNanos / intervalResponses;
+            bestLatencyNanos = Math.min(bestLatencyNanos, latency);
+            newRate = latency > bestLatencyNanos * LATENCY_TOLERANCE
+                    ? Math.max(minRate, rate * 0.75)
+                    : Math.min(maxRate, rate + baseRate / 4);
+        }
+
+        if (newRate != rate)
+        {
+            logger.trace("Adjusting hints dispatch rate from {} to {} bytes/s ({} responses, {} failures)", (long) rate, (long) newRate, intervalResponses, intervalFailures);
+            rateLimiter.setRate(newRate);
+        }
+
+        intervalStart = now;
+        intervalLatencyNanos = 0;
+        intervalResponses = 0;
+        intervalFailures = 0;
+    }
+}
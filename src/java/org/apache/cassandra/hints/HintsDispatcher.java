@@ -25,13 +25,15 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
-import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.annotations.VisibleForTesting;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.gms.FailureDetector;
 import org.apache.cassandra.net.IAsyncCallbackWithFailure;
 import org.apache.cassandra.net.MessageIn;
 import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.concurrent.SimpleCondition;
 
 /**
@@ -39,12 +41,19 @@ import org.apache.cassandra.utils.concurrent.SimpleCondition;
  *
  * Uses either {@link EncodedHintMessage} - when dispatching hints into a node with the same messaging version as the hints file,
  * or {@link HintMessage}, when conversion is required.
+ *
+ * If hints_delivery_batch_size_in_kb is set, the hints are instead grouped (merging the ones for the same partition) into
+ * {@link HintBatchMessage}s of about that size, up to {@link #MAX_BATCHES_IN_FLIGHT} of which are awaiting a response
+ * at any time.
  */
 final class HintsDispatcher implements AutoCloseable
 {
     private enum Action { CONTINUE, ABORT, RETRY }
 
+    private static final int MAX_BATCHES_IN_FLIGHT = Integer.getInteger("cassandra.hints.max_batches_in_flight", 4);
+
     private final HintsReader reader;
+    private final HintsDispatchThrottle throttle;
     private final UUID hostId;
     private final InetAddress address;
     private final int messagingVersion;
@@ -52,21 +61,22 @@ final class HintsDispatcher implements AutoCloseable
 
     private long currentPageOffset;
 
-    private HintsDispatcher(HintsReader reader, UUID hostId, InetAddress address, int messagingVersion, AtomicBoolean isPaused)
+    private HintsDispatcher(HintsReader reader, HintsDispatchThrottle throttle, UUID hostId, InetAddress address, int messagingVersion, AtomicBoolean isPaused)
     {
         currentPageOffset = 0L;
 
         this.reader = reader;
+        this.throttle = throttle;
         this.hostId = hostId;
         this.address = address;
         this.messagingVersion = messagingVersion;
         this.isPaused = isPaused;
     }
 
-    static HintsDispatcher create(File file, RateLimiter rateLimiter, InetAddress address, UUID hostId, AtomicBoolean isPaused)
+    static HintsDispatcher create(File file, HintsDispatchThrottle throttle, InetAddress address, UUID hostId, AtomicBoolean isPaused)
     {
         int messagingVersion = MessagingService.instance().getVersion(address);
-        return new HintsDispatcher(HintsReader.open(file, rateLimiter), hostId, address, messagingVersion, isPaused);
+        return new HintsDispatcher(HintsReader.open(file, throttle.rateLimiter()), throttle, hostId, address, messagingVersion, isPaused);
     }
 
     public void close()
@@ -124,6 +134,10 @@ final class HintsDispatcher implements AutoCloseable
 
     private Action sendHintsAndAwait(HintsReader.Page page)
     {
+        // Nodes don't know whether their peers support HINT_BATCH: batching is only to be enabled once they all do
+        if (DatabaseDescriptor.getHintsDeliveryBatchSizeInKB() > 0)
+            return sendHintBatchesAndAwait(page);
+
         Collection<Callback> callbacks = new ArrayList<>();
 
         /*
@@ -141,12 +155,95 @@ final class HintsDispatcher implements AutoCloseable
             return action;
 
         for (Callback cb : callbacks)
-            if (cb.await() != Callback.Outcome.SUCCESS)
+            if (await(cb) != Callback.Outcome.SUCCESS)
+                return Action.RETRY;
+
+        return Action.CONTINUE;
+    }
+
+    private Callback.Outcome await(Callback callback)
+    {
+        Callback.Outcome outcome = callback.await();
+        if (outcome == Callback.Outcome.SUCCESS)
+            throttle.onResponse(callback.latencyNanos());
+        else
+            throttle.onFailure();
+        return outcome;
+    }
+
+    /*
+     * Sending hints in batches.
+     */
+
+    private Action sendHintBatchesAndAwait(HintsReader.Page page)
+    {
+        long maxBatchSize = DatabaseDescriptor.getHintsDeliveryBatchSizeInKB() * 1024L;
+        Deque<Callback> inFlight = new ArrayDeque<>();
+        List<Hint> batch = new ArrayList<>();
+        long batchSize = 0;
+
+        Iterator<Hint> hints = page.hintsIterator();
+        while (hints.hasNext())
+        {
+            if (!isHostAlive() || isPaused())
+                return Action.ABORT;
+
+            Hint hint = hints.next();
+            batch.add(hint);
+            batchSize += Hint.serializer.serializedSize(hint, messagingVersion);
+            if (batchSize < maxBatchSize && hints.hasNext())
+                continue;
+
+            if (inFlight.size() >= MAX_BATCHES_IN_FLIGHT && await(inFlight.poll()) != Callback.Outcome.SUCCESS)
+                return Action.RETRY;
+
+            inFlight.add(sendHintBatch(batch));
+            batch = new ArrayList<>();
+            batchSize = 0;
+        }
+
+        for (Callback cb : inFlight)
+            if (await(cb) != Callback.Outcome.SUCCESS)
                 return Action.RETRY;
 
         return Action.CONTINUE;
     }
 
+    private Callback sendHintBatch(List<Hint> hints)
+    {
+        Callback callback = new Callback();
+        HintBatchMessage message = HintBatchMessage.create(hostId, mergeSamePartition(hints));
+        MessagingService.instance().sendRRWithFailure(message.createMessageOut(), address, callback);
+        return callback;
+    }
+
+    /**
+     * Merges the hints for the same partition, when {@link Hint#merge} allows it, keeping the order of the first hint
+     * of every partition.
+     */
+    @VisibleForTesting
+    static List<Hint> mergeSamePartition(List<Hint> hints)
+    {
+        Map<Pair<String, DecoratedKey>, List<Hint>> byPartition = new LinkedHashMap<>();
+        for (Hint hint : hints)
+            byPartition.computeIfAbsent(Pair.create(hint.mutation.getKeyspaceName(), hint.mutation.key()), k -> new ArrayList<>(1)).add(hint);
+
+        if (byPartition.size() == hints.size())
+            return hints;
+
+        long deliveryTime = DatabaseDescriptor.getTimeout(MessagingService.Verb.HINT_BATCH);
+        List<Hint> merged = new ArrayList<>(byPartition.size());
+        for (List<Hint> partitionHints : byPartition.values())
+        {
+            Hint hint = Hint.merge(partitionHints, deliveryTime);
+            if (hint == null)
+                merged.addAll(partitionHints);
+            else
+                merged.add(hint);
+        }
+        return merged;
+    }
+
     /*
      * Sending hints in compatibility mode.
      */
@@ -182,13 +279,14 @@ final class HintsDispatcher implements AutoCloseable
         return callback;
     }
 
-    private static final class Callback implements IAsyncCallbackWithFailure
+    static final class Callback implements IAsyncCallbackWithFailure
     {
         enum Outcome { SUCCESS, TIMEOUT, FAILURE }
 
         private final long start = System.nanoTime();
         private final SimpleCondition condition = new SimpleCondition();
         private volatile Outcome outcome;
+        private volatile long latencyNanos;
 
         Outcome await()
         {
@@ -213,8 +311,14 @@ final class HintsDispatcher implements AutoCloseable
             condition.signalAll();
         }
 
+        long latencyNanos()
+        {
+            return latencyNanos;
+        }
+
         public void response(MessageIn msg)
         {
+            latencyNanos = System.nanoTime() - start;
             outcome = Outcome.SUCCESS;
             condition.signalAll();
         }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.UUIDSerializer;
+
+/**
+ * A chunk of the raw content of a hints file, as written by {@link HintsWriter}, sent to another node so that it
+ * takes over the dispatch of the whole file (see {@link HintsFileSender} and {@link HintsFilePageVerbHandler}).
+ *
+ * The pages of a file are sent in order, starting at offset 0; the last one also carries the content of the
+ * checksum file, if any.
+ */
+public final class HintsFilePage
+{
+    public static final IVersionedSerializer<HintsFilePage> serializer = new Serializer();
+
+    final UUID hostId;
+    final long timestamp;
+    final int version;
+
+    final long offset;
+    final ByteBuffer bytes;
+
+    final boolean isLast;
+    final ByteBuffer checksum;
+
+    HintsFilePage(UUID hostId, long timestamp, int version, long offset, ByteBuffer bytes, boolean isLast, ByteBuffer checksum)
+    {
+        this.hostId = hostId;
+        this.timestamp = timestamp;
+        this.version = version;
+        this.offset = offset;
+        this.bytes = bytes;
+        this.isLast = isLast;
+        this.checksum = checksum;
+    }
+
+    static HintsFilePage create(HintsDescriptor descriptor, long offset, ByteBuffer bytes)
+    {
+        return new HintsFilePage(descriptor.hostId, descriptor.timestamp, descriptor.version, offset, bytes, false, ByteBufferUtil.EMPTY_BYTE_BUFFER);
+    }
+
+    static HintsFilePage createLast(HintsDescriptor descriptor, long offset, ByteBuffer bytes, ByteBuffer checksum)
+    {
+        return new HintsFilePage(descriptor.hostId, descriptor.timestamp, descriptor.version, offset, bytes, true, checksum);
+    }
+
+    String fileName()
+    {
+        return HintsDescriptor.fileName(hostId, timestamp, version);
+    }
+
+    String checksumFileName()
+    {
+        return HintsDescriptor.checksumFileName(hostId, timestamp, version);
+    }
+
+    public MessageOut<HintsFilePage> createMessageOut()
+    {
+        return new MessageOut<>(MessagingService.Verb.HINTS_FILE_PAGE, this, serializer);
+    }
+
+    private static class Serializer implements IVersionedSerializer<HintsFilePage>
+    {
+        public long serializedSize(HintsFilePage page, int version)
+        {
+            long size = UUIDSerializer.serializer.serializedSize(page.hostId, version);
+            size += TypeSizes.sizeof(page.timestamp);
+            size += TypeSizes.sizeof(page.version);
+            size += TypeSizes.sizeofUnsignedVInt(page.offset);
+            size += ByteBufferUtil.serializedSizeWithVIntLength(page.bytes);
+            size += TypeSizes.sizeof(page.isLast);
+            if (page.isLast)
+                size += ByteBufferUtil.serializedSizeWithVIntLength(page.checksum);
+            return size;
+        }
+
+        public void serialize(HintsFilePage page, DataOutputPlus out, int version) throws IOException
+        {
+            UUIDSerializer.serializer.serialize(page.hostId, out, version);
+            out.writeLong(page.timestamp);
+            out.writeInt(page.version);
+            out.writeUnsignedVInt(page.offset);
+            ByteBufferUtil.writeWithVIntLength(page.bytes, out);
+            out.writeBoolean(page.isLast);
+            if (page.isLast)
+                ByteBufferUtil.writeWithVIntLength(page.checksum, out);
+        }
+
+        public HintsFilePage deserialize(DataInputPlus in, int version) throws IOException
+        {
+            UUID hostId = UUIDSerializer.serializer.deserialize(in, version);
+            long timestamp = in.readLong();
+            int hintsVersion = in.readInt();
+            long offset = in.readUnsignedVInt();
+            ByteBuffer bytes = ByteBufferUtil.readWithVIntLength(in);
+            boolean isLast = in.readBoolean();
+            ByteBuffer checksum = isLast ? ByteBufferUtil.readWithVIntLength(in) : ByteBufferUtil.EMPTY_BYTE_BUFFER;
+            return new HintsFilePage(hostId, timestamp, hintsVersion, offset, bytes, isLast, checksum);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.net.IVerbHandler;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessagingService;
+
+/**
+ * Verb handler for {@link HintsFilePage}: appends the page to a temporary file in the hints directory and, once the
+ * last page has been received, moves it in place and adds it to the dispatch queue of its host id.
+ *
+ * Pages are handled by the single threaded MISC stage, so the pages of a file are appended in the order they were sent;
+ * anything unexpected (a gap, a file we already have) fails the page and the sender falls back to dispatching the hints
+ * one by one. Temporary files left over by an interrupted transfer are deleted on the next start, see
+ * {@link HintsCatalog#load}.
+ */
+public final class HintsFilePageVerbHandler implements IVerbHandler<HintsFilePage>
+{
+    private static final Logger logger = LoggerFactory.getLogger(HintsFilePageVerbHandler.class);
+
+    static final String TMP_SUFFIX = ".tmp";
+
+    public void doVerb(MessageIn<HintsFilePage> message, int id) throws IOException
+    {
+        receive(DatabaseDescriptor.getHintsDirectory(), HintsService.instance.getCatalog(), message.payload);
+        MessagingService.instance().sendReply(HintResponse.message, id, message.from);
+    }
+
+    static void receive(File hintsDirectory, HintsCatalog catalog, HintsFilePage page) throws IOException
+    {
+        File file = new File(hintsDirectory, page.fileName());
+        if (file.exists())
+            throw new IOException(String.format("Hints file %s already exists", file));
+
+        File tmpFile = new File(hintsDirectory, page.fileName() + TMP_SUFFIX);
+        if (page.offset == 0)
+            Files.deleteIfExists(tmpFile.toPath());
+        else if (tmpFile.length() != page.offset)
+            throw new IOException(String.format("Expected hints file %s to be %d bytes long, but got %d", tmpFile, page.offset, tmpFile.length()));
+
+        try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+        {
+            while (page.bytes.hasRemaining())
+                channel.write(page.bytes);
+            if (page.isLast)
+                channel.force(true);
+        }
+
+        if (!page.isLast)
+            return;
+
+        HintsDescriptor descriptor = HintsDescriptor.readFromFile(tmpFile.toPath());
+        if (!descriptor.fileName().equals(page.fileName()))
+        {
+            Files.delete(tmpFile.toPath());
+            throw new IOException(String.format("Received hints file %s doesn't match its descriptor %s", page.fileName(), descriptor.fileName()));
+        }
+
+        if (page.checksum.hasRemaining())
+        {
+            try (FileChannel channel = FileChannel.open(new File(hintsDirectory, page.checksumFileName()).toPath(),
+                                                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                while (page.checksum.hasRemaining())
+                    channel.write(page.checksum);
+            }
+        }
+
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        catalog.fsyncDirectory();
+        catalog.get(descriptor.hostId).adopt(descriptor);
+        logger.info("Received hints file {}", file);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.BooleanSupplier;
+
+import org.apache.cassandra.io.FSReadError;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+/**
+ * Sends a whole hints file, as is, to another node which then takes over its dispatch.
+ *
+ * Used when transferring hints to another node (on decommission), instead of dispatching every hint of the file: the
+ * file is already compressed (or encrypted) and checksummed, so this avoids decoding and re-encoding every hint on
+ * both ends, and isn't subject to the hints throttle. The pages are pipelined, up to {@link #MAX_PAGES_IN_FLIGHT} of
+ * them awaiting a response at any time; the last one is only sent once all the others have been acknowledged.
+ */
+final class HintsFileSender
+{
+    static final int PAGE_SIZE = 1 << 20;
+    static final int MAX_PAGES_IN_FLIGHT = 4;
+
+    private HintsFileSender()
+    {
+    }
+
+    /**
+     * @return true if the file has been received by {@code address}, false if the transfer failed or has been aborted
+     */
+    static boolean send(File hintsDirectory, HintsDescriptor descriptor, InetAddress address, BooleanSupplier abortRequested)
+    {
+        File file = new File(hintsDirectory, descriptor.fileName());
+        ByteBuffer checksum = readChecksum(new File(hintsDirectory, descriptor.checksumFileName()));
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long length = channel.size();
+            Deque<HintsDispatcher.Callback> inFlight = new ArrayDeque<>();
+            long offset = 0;
+            while (true)
+            {
+                if (abortRequested.getAsBoolean())
+                    return false;
+
+                ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(PAGE_SIZE, length - offset));
+                while (bytes.hasRemaining())
+                    if (channel.read(bytes, offset + bytes.position()) < 0)
+                        throw new EOFException();
+                bytes.flip();
+
+                boolean isLast = offset + bytes.remaining() == length;
+                // the last page must not overtake the others, and will only be answered once the file has been adopted
+                while (!inFlight.isEmpty() && (isLast || inFlight.size() >= MAX_PAGES_IN_FLIGHT))
+                    if (inFlight.poll().await() != HintsDispatcher.Callback.Outcome.SUCCESS)
+                        return false;
+
+                HintsFilePage page = isLast
+                                   ? HintsFilePage.createLast(descriptor, offset, bytes, checksum)
+                                   : HintsFilePage.create(descriptor, offset, bytes);
+                offset += bytes.remaining();
+
+                HintsDispatcher.Callback callback = new HintsDispatcher.Callback();
+                MessagingService.instance().sendRRWithFailure(page.createMessageOut(), address, callback);
+                if (isLast)
+                    return callback.await() == HintsDispatcher.Callback.Outcome.SUCCESS;
+                inFlight.add(callback);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new FSReadError(e, file);
+        }
+    }
+
+    private static ByteBuffer readChecksum(File checksumFile)
+    {
+        if (!checksumFile.exists())
+            return ByteBufferUtil.EMPTY_BYTE_BUFFER;
+
+        try
+        {
+            return ByteBuffer.wrap(Files.readAllBytes(checksumFile.toPath()));
+        }
+        catch (IOException e)
+        {
+            throw new FSReadError(e, checksumFile);
+        }
+    }
+}
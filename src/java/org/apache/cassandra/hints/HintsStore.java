@@ -103,6 +103,16 @@ final class HintsStore
         dispatchDequeue.offerLast(descriptor);
     }
 
+    /**
+     * Queues for dispatch a hints file received from another node, see {@link HintsFilePageVerbHandler}.
+     */
+    void adopt(HintsDescriptor descriptor)
+    {
+        // the file has been created by another node, make sure our next writer doesn't pick the same name
+        lastUsedTimestamp = Math.max(lastUsedTimestamp, descriptor.timestamp);
+        offerLast(descriptor);
+    }
+
     void deleteAllHints()
     {
         HintsDescriptor descriptor;
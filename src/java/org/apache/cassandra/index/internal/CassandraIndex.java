@@ -23,16 +23,21 @@ package org.apache.cassandra.index.internal;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.config.ColumnDefinition;
 import org.apache.cassandra.cql3.Operator;
@@ -58,10 +63,12 @@ import org.apache.cassandra.index.transactions.UpdateTransaction;
 import org.apache.cassandra.io.sstable.ReducingKeyIterator;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.schema.IndexMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.concurrent.OpOrder;
 import org.apache.cassandra.utils.concurrent.Refs;
+import org.apache.cassandra.utils.memory.HeapAllocator;
 
 import static org.apache.cassandra.cql3.statements.RequestValidations.checkFalse;
 
@@ -73,6 +80,12 @@ public abstract class CassandraIndex implements Index
 {
     private static final Logger logger = LoggerFactory.getLogger(CassandraIndex.class);
 
+    // stale entries found by searchers are deleted in the background so that reads don't wait on those writes,
+    // unless too many deletions are already pending, in which case the searchers perform them inline
+    private static final int MAX_PENDING_STALE_ENTRY_DELETIONS = 1024;
+    private static final DebuggableThreadPoolExecutor staleEntryDeletionExecutor =
+        DebuggableThreadPoolExecutor.createWithFixedPoolSize("IndexStaleEntryDeletion", 1);
+
     public final ColumnFamilyStore baseCfs;
     protected IndexMetadata metadata;
     protected ColumnFamilyStore indexCfs;
@@ -514,6 +527,62 @@ public abstract class CassandraIndex implements Index
         logger.trace("Removed index entry for stale value {}", indexKey);
     }
 
+    /**
+     * Returns the deletion of a stale entry found by a searcher, to be performed
+     * through {@link #deleteStaleEntriesAsync}. The key and clustering of the entry
+     * are copied on heap, as they may point to the memory of a memtable, which can
+     * be reclaimed by the time the deletion is performed.
+     * @param indexKey the partition key in the index table
+     * @param indexClustering the clustering in the index table
+     * @param deletion deletion timestamp etc
+     */
+    public Consumer<OpOrder.Group> staleEntryDeletion(DecoratedKey indexKey,
+                                                      Clustering indexClustering,
+                                                      DeletionTime deletion)
+    {
+        DecoratedKey key = indexCfs.decorateKey(ByteBufferUtil.clone(indexKey.getKey()));
+        Clustering clustering = indexClustering.copy(HeapAllocator.instance);
+        return opGroup -> deleteStaleEntry(key, clustering, deletion, opGroup);
+    }
+
+    /**
+     * Performs the deletion of stale entries found by a searcher (typically through
+     * {@link #staleEntryDeletion}) in the background, under its own write operation.
+     * @param deletions the deletions to perform, given the operation under which to perform them
+     */
+    public void deleteStaleEntriesAsync(Consumer<OpOrder.Group> deletions)
+    {
+        Runnable task = () -> {
+            try (OpOrder.Group opGroup = Keyspace.writeOrder.start())
+            {
+                deletions.accept(opGroup);
+            }
+        };
+
+        if (staleEntryDeletionExecutor.getQueue().size() >= MAX_PENDING_STALE_ENTRY_DELETIONS)
+            task.run();
+        else
+            staleEntryDeletionExecutor.execute(task);
+    }
+
+    /**
+     * Waits for the stale entries deletions submitted so far to be performed.
+     */
+    @VisibleForTesting
+    public static void awaitStaleEntriesDeletion()
+    {
+        FBUtilities.waitOnFuture(staleEntryDeletionExecutor.submit(() -> {}));
+    }
+
+    /**
+     * Holds back the stale entries deletions submitted from now on until the given latch is counted down.
+     */
+    @VisibleForTesting
+    public static void pauseStaleEntriesDeletion(CountDownLatch resume)
+    {
+        staleEntryDeletionExecutor.execute(() -> Uninterruptibles.awaitUninterruptibly(resume));
+    }
+
     /**
      * Called when adding a new entry to the index
      */
@@ -19,7 +19,9 @@ package org.apache.cassandra.index.internal.composites;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.db.*;
@@ -39,6 +41,8 @@ import org.apache.cassandra.utils.concurrent.OpOrder;
 
 public class CompositesSearcher extends CassandraIndexSearcher
 {
+    private static final int MAX_HITS_PER_READ = 1000;
+
     public CompositesSearcher(ReadCommand command,
                               RowFilter.Expression expression,
                               CassandraIndex index)
@@ -63,12 +67,20 @@ public class CompositesSearcher extends CassandraIndexSearcher
     {
         assert indexHits.staticRow() == Rows.EMPTY_STATIC_ROW;
 
+        // The hits of a partition are read in batches of about as many rows as the query asks for, so that we neither
+        // materialize all the hits of a wide partition in memory, nor read many more rows than we return when the
+        // query has a small limit (or page size).
+        final int batchSize = Math.max(1, Math.min(MAX_HITS_PER_READ, Math.min(command.limits().count(), command.limits().perPartitionCount())));
+
         return new UnfilteredPartitionIterator()
         {
             private IndexEntry nextEntry;
 
             private UnfilteredRowIterator next;
 
+            // the last partition returned, whose remaining hits must be skipped if it hasn't been entirely consumed
+            private DecoratedKey lastPartitionKey;
+
             public boolean isForThrift()
             {
                 return command.isForThrift();
@@ -109,79 +121,148 @@ public class CompositesSearcher extends CassandraIndexSearcher
                         nextEntry = index.decodeEntry(indexKey, indexHits.next());
                     }
 
-                    SinglePartitionReadCommand dataCmd;
                     DecoratedKey partitionKey = index.baseCfs.decorateKey(nextEntry.indexedKey);
-                    List<IndexEntry> entries = new ArrayList<>();
+                    if (partitionKey.equals(lastPartitionKey))
+                    {
+                        nextEntry = null;
+                        continue;
+                    }
+
+                    @SuppressWarnings("resource") // We close right away if empty, and if it's assign to next it will be called either
+                    // by the next caller of next, or through closing this iterator is this come before.
+                    UnfilteredRowIterator dataIter;
                     if (isStaticColumn())
                     {
                         // If the index is on a static column, we just need to do a full read on the partition.
                         // Note that we want to re-use the command.columnFilter() in case of future change.
-                        dataCmd = SinglePartitionReadCommand.create(index.baseCfs.metadata,
-                                                                    command.nowInSec(),
-                                                                    command.columnFilter(),
-                                                                    RowFilter.NONE,
-                                                                    DataLimits.NONE,
-                                                                    partitionKey,
-                                                                    new ClusteringIndexSliceFilter(Slices.ALL, false));
-                        entries.add(nextEntry);
+                        SinglePartitionReadCommand dataCmd = SinglePartitionReadCommand.create(index.baseCfs.metadata,
+                                                                                               command.nowInSec(),
+                                                                                               command.columnFilter(),
+                                                                                               RowFilter.NONE,
+                                                                                               DataLimits.NONE,
+                                                                                               partitionKey,
+                                                                                               new ClusteringIndexSliceFilter(Slices.ALL, false));
+                        List<IndexEntry> entries = Collections.singletonList(nextEntry);
                         nextEntry = indexHits.hasNext() ? index.decodeEntry(indexKey, indexHits.next()) : null;
+                        dataIter = filterStaleEntries(dataCmd.queryMemtableAndDisk(index.baseCfs, executionController),
+                                                      indexKey.getKey(),
+                                                      entries,
+                                                      command.nowInSec());
                     }
                     else
                     {
-                        // Gather all index hits belonging to the same partition and query the data for those hits.
-                        // TODO: it's much more efficient to do 1 read for all hits to the same partition than doing
-                        // 1 read per index hit. However, this basically mean materializing all hits for a partition
-                        // in memory so we should consider adding some paging mechanism. However, index hits should
-                        // be relatively small so it's much better than the previous code that was materializing all
-                        // *data* for a given partition.
-                        BTreeSet.Builder<Clustering> clusterings = BTreeSet.builder(index.baseCfs.getComparator());
-                        while (nextEntry != null && partitionKey.getKey().equals(nextEntry.indexedKey))
+                        // Batches with no rows left once stale entries are filtered are skipped, as long as the
+                        // partition has more hits.
+                        dataIter = readNextBatch(partitionKey);
+                        while (dataIter != null && dataIter.isEmpty() && hasMoreHits(partitionKey))
                         {
-                            // We're queried a slice of the index, but some hits may not match some of the clustering column constraints
-                            if (isMatchingEntry(partitionKey, nextEntry, command))
-                            {
-                                clusterings.add(nextEntry.indexedEntryClustering);
-                                entries.add(nextEntry);
-                            }
-
-                            nextEntry = indexHits.hasNext() ? index.decodeEntry(indexKey, indexHits.next()) : null;
+                            dataIter.close();
+                            dataIter = readNextBatch(partitionKey);
                         }
 
-                        // Because we've eliminated entries that don't match the clustering columns, it's possible we added nothing
-                        if (clusterings.isEmpty())
+                        // Because we've eliminated entries that don't match the clustering columns, it's possible we read nothing
+                        if (dataIter == null)
                             continue;
-
-                        // Query the gathered index hits. We still need to filter stale hits from the resulting query.
-                        ClusteringIndexNamesFilter filter = new ClusteringIndexNamesFilter(clusterings.build(), false);
-                        dataCmd = SinglePartitionReadCommand.create(index.baseCfs.metadata,
-                                                                    command.nowInSec(),
-                                                                    command.columnFilter(),
-                                                                    command.rowFilter(),
-                                                                    DataLimits.NONE,
-                                                                    partitionKey,
-                                                                    filter);
                     }
 
-                    @SuppressWarnings("resource") // We close right away if empty, and if it's assign to next it will be called either
-                    // by the next caller of next, or through closing this iterator is this come before.
-                    UnfilteredRowIterator dataIter =
-                        filterStaleEntries(dataCmd.queryMemtableAndDisk(index.baseCfs, executionController),
-                                           indexKey.getKey(),
-                                           entries,
-                                           executionController.writeOpOrderGroup(),
-                                           command.nowInSec());
-
                     if (dataIter.isEmpty())
                     {
                         dataIter.close();
                         continue;
                     }
 
-                    next = dataIter;
+                    lastPartitionKey = partitionKey;
+                    next = hasMoreHits(partitionKey) ? new BatchedPartitionIterator(dataIter) : dataIter;
                     return true;
                 }
             }
 
+            private boolean hasMoreHits(DecoratedKey partitionKey)
+            {
+                return nextEntry != null && partitionKey.getKey().equals(nextEntry.indexedKey);
+            }
+
+            /**
+             * Queries the data for the next batch of hits of the given partition.
+             *
+             * @return the data for those hits, which still includes the rows of stale hits, or null if the partition
+             * has no more hits matching the clustering columns constraints of the query.
+             */
+            private UnfilteredRowIterator readNextBatch(DecoratedKey partitionKey)
+            {
+                BTreeSet.Builder<Clustering> clusterings = BTreeSet.builder(index.baseCfs.getComparator());
+                List<IndexEntry> entries = new ArrayList<>();
+                while (entries.size() < batchSize && hasMoreHits(partitionKey))
+                {
+                    // We're queried a slice of the index, but some hits may not match some of the clustering column constraints
+                    if (isMatchingEntry(partitionKey, nextEntry, command))
+                    {
+                        clusterings.add(nextEntry.indexedEntryClustering);
+                        entries.add(nextEntry);
+                    }
+
+                    nextEntry = indexHits.hasNext() ? index.decodeEntry(indexKey, indexHits.next()) : null;
+                }
+
+                if (entries.isEmpty())
+                    return null;
+
+                // Query the gathered index hits. We still need to filter stale hits from the resulting query.
+                ClusteringIndexNamesFilter filter = new ClusteringIndexNamesFilter(clusterings.build(), false);
+                SinglePartitionReadCommand dataCmd = SinglePartitionReadCommand.create(index.baseCfs.metadata,
+                                                                                       command.nowInSec(),
+                                                                                       command.columnFilter(),
+                                                                                       command.rowFilter(),
+                                                                                       DataLimits.NONE,
+                                                                                       partitionKey,
+                                                                                       filter);
+                return filterStaleEntries(dataCmd.queryMemtableAndDisk(index.baseCfs, executionController),
+                                          indexKey.getKey(),
+                                          entries,
+                                          command.nowInSec());
+            }
+
+            /**
+             * The rows of a partition having more hits than fit in a single batch: the following batches are only
+             * read once the previous ones have been consumed.
+             */
+            class BatchedPartitionIterator extends AbstractUnfilteredRowIterator
+            {
+                private UnfilteredRowIterator batch;
+
+                private BatchedPartitionIterator(UnfilteredRowIterator firstBatch)
+                {
+                    super(firstBatch.metadata(),
+                          firstBatch.partitionKey(),
+                          firstBatch.partitionLevelDeletion(),
+                          firstBatch.columns(),
+                          firstBatch.staticRow(),
+                          firstBatch.isReverseOrder(),
+                          firstBatch.stats());
+                    this.batch = firstBatch;
+                }
+
+                protected Unfiltered computeNext()
+                {
+                    while (batch != null)
+                    {
+                        if (batch.hasNext())
+                            return batch.next();
+
+                        batch.close();
+                        batch = readNextBatch(partitionKey);
+                    }
+                    return endOfData();
+                }
+
+                @Override
+                public void close()
+                {
+                    if (batch != null)
+                        batch.close();
+                }
+            }
+
             public void remove()
             {
                 throw new UnsupportedOperationException();
@@ -196,20 +277,23 @@ public class CompositesSearcher extends CassandraIndexSearcher
         };
     }
 
-    private void deleteAllEntries(final List<IndexEntry> entries, final OpOrder.Group writeOp, final int nowInSec)
+    private void deleteAllEntries(final List<IndexEntry> entries, final int nowInSec)
     {
-        entries.forEach(entry ->
-            index.deleteStaleEntry(entry.indexValue,
-                                   entry.indexClustering,
-                                   new DeletionTime(entry.timestamp, nowInSec),
-                                   writeOp));
+        if (entries.isEmpty())
+            return;
+
+        List<Consumer<OpOrder.Group>> deletions = new ArrayList<>(entries.size());
+        for (IndexEntry entry : entries)
+            deletions.add(index.staleEntryDeletion(entry.indexValue,
+                                                   entry.indexClustering,
+                                                   new DeletionTime(entry.timestamp, nowInSec)));
+        index.deleteStaleEntriesAsync(writeOp -> deletions.forEach(deletion -> deletion.accept(writeOp)));
     }
 
     // We assume all rows in dataIter belong to the same partition.
     private UnfilteredRowIterator filterStaleEntries(UnfilteredRowIterator dataIter,
                                                      final ByteBuffer indexValue,
                                                      final List<IndexEntry> entries,
-                                                     final OpOrder.Group writeOp,
                                                      final int nowInSec)
     {
         // collect stale index entries and delete them when we close this iterator
@@ -244,7 +328,7 @@ public class CompositesSearcher extends CassandraIndexSearcher
                                                                          dataIter.partitionLevelDeletion(),
                                                                          dataIter.isReverseOrder());
             }
-            deleteAllEntries(staleEntries, writeOp, nowInSec);
+            deleteAllEntries(staleEntries, nowInSec);
         }
         else
         {
@@ -289,7 +373,7 @@ public class CompositesSearcher extends CassandraIndexSearcher
                 @Override
                 public void onPartitionClose()
                 {
-                    deleteAllEntries(staleEntries, writeOp, nowInSec);
+                    deleteAllEntries(staleEntries, nowInSec);
                 }
             }
             iteratorToReturn = Transformation.apply(dataIter, new Transform());
@@ -33,7 +33,6 @@ import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.index.internal.CassandraIndex;
 import org.apache.cassandra.index.internal.CassandraIndexSearcher;
-import org.apache.cassandra.utils.concurrent.OpOrder;
 
 public class KeysSearcher extends CassandraIndexSearcher
 {
@@ -107,7 +106,6 @@ public class KeysSearcher extends CassandraIndexSearcher
                     UnfilteredRowIterator dataIter = filterIfStale(dataCmd.queryMemtableAndDisk(index.baseCfs, executionController),
                                                                    hit,
                                                                    indexKey.getKey(),
-                                                                   executionController.writeOpOrderGroup(),
                                                                    isForThrift(),
                                                                    command.nowInSec());
 
@@ -150,7 +148,6 @@ public class KeysSearcher extends CassandraIndexSearcher
     private UnfilteredRowIterator filterIfStale(UnfilteredRowIterator iterator,
                                                 Row indexHit,
                                                 ByteBuffer indexedValue,
-                                                OpOrder.Group writeOp,
                                                 boolean isForThrift,
                                                 int nowInSec)
     {
@@ -171,10 +168,10 @@ public class KeysSearcher extends CassandraIndexSearcher
             if (baseData == null || !baseData.isLive(nowInSec) || index.getIndexedColumn().type.compare(indexedValue, baseData.value()) != 0)
             {
                 // Index is stale, remove the index entry and ignore
-                index.deleteStaleEntry(index.getIndexCfs().decorateKey(indexedValue),
-                                         Clustering.make(index.getIndexedColumn().name.bytes),
-                                         new DeletionTime(indexHit.primaryKeyLivenessInfo().timestamp(), nowInSec),
-                                         writeOp);
+                DecoratedKey indexKey = index.getIndexCfs().decorateKey(indexedValue);
+                Clustering indexClustering = Clustering.make(index.getIndexedColumn().name.bytes);
+                DeletionTime deletion = new DeletionTime(indexHit.primaryKeyLivenessInfo().timestamp(), nowInSec);
+                index.deleteStaleEntriesAsync(index.staleEntryDeletion(indexKey, indexClustering, deletion));
                 return null;
             }
             else
@@ -200,10 +197,10 @@ public class KeysSearcher extends CassandraIndexSearcher
             if (index.isStale(data, indexedValue, nowInSec))
             {
                 // Index is stale, remove the index entry and ignore
-                index.deleteStaleEntry(index.getIndexCfs().decorateKey(indexedValue),
-                                         makeIndexClustering(iterator.partitionKey().getKey(), Clustering.EMPTY),
-                                         new DeletionTime(indexHit.primaryKeyLivenessInfo().timestamp(), nowInSec),
-                                         writeOp);
+                DecoratedKey indexKey = index.getIndexCfs().decorateKey(indexedValue);
+                Clustering indexClustering = makeIndexClustering(iterator.partitionKey().getKey(), Clustering.EMPTY);
+                DeletionTime deletion = new DeletionTime(indexHit.primaryKeyLivenessInfo().timestamp(), nowInSec);
+                index.deleteStaleEntriesAsync(index.staleEntryDeletion(indexKey, indexClustering, deletion));
                 iterator.close();
                 return null;
             }
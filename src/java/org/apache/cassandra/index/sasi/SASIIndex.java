@@ -100,7 +100,7 @@ public class SASIIndex implements Index, INotificationConsumer
         this.config = config;
 
         ColumnDefinition column = TargetParser.parse(baseCfs.metadata, config).left;
-        this.index = new ColumnIndex(baseCfs.metadata.getKeyValidator(), column, config);
+        this.index = new ColumnIndex(baseCfs.metadata.getKeyValidator(), column, config, baseCfs.readOrdering);
 
         Tracker tracker = baseCfs.getTracker();
         tracker.subscribe(this);
@@ -251,7 +251,7 @@ public class SASIIndex implements Index, INotificationConsumer
             public void insertRow(Row row)
             {
                 if (isNewData())
-                    adjustMemtableSize(index.index(key, row), opGroup);
+                    index.index(key, row, baseCfs.getTracker().getView().getCurrentMemtable().getAllocator(), opGroup);
             }
 
             public void updateRow(Row oldRow, Row newRow)
@@ -271,11 +271,6 @@ public class SASIIndex implements Index, INotificationConsumer
             {
                 return transactionType == IndexTransaction.Type.UPDATE;
             }
-
-            public void adjustMemtableSize(long additionalSpace, OpOrder.Group opGroup)
-            {
-                baseCfs.getTracker().getView().getCurrentMemtable().getAllocator().onHeap().allocate(additionalSpace, opGroup);
-            }
         };
     }
 
@@ -26,6 +26,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.index.sasi.conf.ColumnIndex;
+import org.apache.cassandra.index.sasi.disk.NumericBlockIndex;
 import org.apache.cassandra.index.sasi.disk.OnDiskIndex;
 import org.apache.cassandra.index.sasi.disk.OnDiskIndexBuilder;
 import org.apache.cassandra.index.sasi.disk.Token;
@@ -46,6 +47,7 @@ public class SSTableIndex
     private final Ref<SSTableReader> sstableRef;
     private final SSTableReader sstable;
     private final OnDiskIndex index;
+    private final NumericBlockIndex blockIndex;
     private final AtomicInteger references = new AtomicInteger(1);
     private final AtomicBoolean obsolete = new AtomicBoolean(false);
 
@@ -65,7 +67,14 @@ public class SSTableIndex
                 sstable.getFilename(),
                 columnIndex.getIndexName());
 
-        this.index = new OnDiskIndex(indexFile, validator, new DecoratedKeyFetcher(sstable));
+        DecoratedKeyFetcher keyFetcher = new DecoratedKeyFetcher(sstable);
+        this.index = new OnDiskIndex(indexFile, validator, keyFetcher);
+
+        // not there for the sstables written before it was introduced, or by a writer which ran out of memory for it
+        File blockIndexFile = new File(sstable.descriptor.filenameFor(columnIndex.getBlockIndexComponent()));
+        this.blockIndex = columnIndex.hasBlockIndex() && blockIndexFile.exists()
+                          ? new NumericBlockIndex(blockIndexFile, validator, keyFetcher)
+                          : null;
     }
 
     public OnDiskIndexBuilder.Mode mode()
@@ -100,7 +109,14 @@ public class SSTableIndex
 
     public RangeIterator<Long, Token> search(Expression expression)
     {
-        return index.search(expression);
+        return blockIndex != null && blockIndex.canSearch(expression)
+               ? blockIndex.search(expression)
+               : index.search(expression);
+    }
+
+    public long estimateTokenCount(Expression expression)
+    {
+        return index.estimateTokenCount(expression);
     }
 
     public SSTableReader getSSTable()
@@ -131,9 +147,14 @@ public class SSTableIndex
         if (n == 0)
         {
             FileUtils.closeQuietly(index);
+            FileUtils.closeQuietly(blockIndex);
             sstableRef.release();
             if (obsolete.get() || sstableRef.globalCount() == 0)
+            {
                 FileUtils.delete(index.getIndexPath());
+                if (blockIndex != null)
+                    FileUtils.delete(blockIndex.getIndexPath());
+            }
         }
     }
 
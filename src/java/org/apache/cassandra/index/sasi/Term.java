@@ -22,6 +22,11 @@ import java.nio.ByteBuffer;
 import org.apache.cassandra.index.sasi.disk.OnDiskIndexBuilder.TermSize;
 import org.apache.cassandra.index.sasi.utils.MappedBuffer;
 import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.FloatType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.TimestampType;
 
 import static org.apache.cassandra.index.sasi.disk.OnDiskIndexBuilder.IS_PARTIAL_BIT;
 
@@ -68,6 +73,24 @@ public class Term
     public int compareTo(AbstractType<?> comparator, ByteBuffer query, boolean checkFully)
     {
         long position = content.position();
+
+        // fixed size numeric terms are compared in place, as primitives, rather than through a slice of the page and
+        // the generic comparison of their type; the orders are the same, only the magnitude of the result differs
+        if (termSize.isConstant() && query.remaining() == termSize.size)
+        {
+            if (comparator instanceof Int32Type)
+                return Integer.compare(content.getInt(position), query.getInt(query.position()));
+
+            if (comparator instanceof LongType || comparator instanceof TimestampType)
+                return Long.compare(content.getLong(position), query.getLong(query.position()));
+
+            if (comparator instanceof FloatType)
+                return Float.compare(Float.intBitsToFloat(content.getInt(position)), query.getFloat(query.position()));
+
+            if (comparator instanceof DoubleType)
+                return Double.compare(Double.longBitsToDouble(content.getLong(position)), query.getDouble(query.position()));
+        }
+
         int padding = termSize.isConstant() ? 0 : 2;
         int len = termSize.isConstant() ? termSize.size : readLength(position);
 
@@ -39,6 +39,8 @@ import org.apache.cassandra.db.rows.Cell;
 import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.index.sasi.analyzer.AbstractAnalyzer;
 import org.apache.cassandra.index.sasi.conf.view.View;
+import org.apache.cassandra.index.sasi.disk.NumericBlockIndex;
+import org.apache.cassandra.index.sasi.disk.NumericBlockIndexBuilder;
 import org.apache.cassandra.index.sasi.disk.OnDiskIndexBuilder;
 import org.apache.cassandra.index.sasi.disk.Token;
 import org.apache.cassandra.index.sasi.memory.IndexMemtable;
@@ -50,10 +52,13 @@ import org.apache.cassandra.io.sstable.Component;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.memory.MemtableAllocator;
 
 public class ColumnIndex
 {
     private static final String FILE_NAME_FORMAT = "SI_%s.db";
+    private static final String BLOCK_INDEX_FILE_NAME_FORMAT = "SB_%s.db";
 
     private final AbstractType<?> keyValidator;
 
@@ -62,23 +67,37 @@ public class ColumnIndex
 
     private final AtomicReference<IndexMemtable> memtable;
     private final ConcurrentMap<Memtable, IndexMemtable> pendingFlush = new ConcurrentHashMap<>();
+    private final OpOrder readOrdering;
 
     private final IndexMode mode;
 
     private final Component component;
+    private final Component blockIndexComponent;
     private final DataTracker tracker;
 
     private final boolean isTokenized;
 
     public ColumnIndex(AbstractType<?> keyValidator, ColumnDefinition column, IndexMetadata metadata)
+    {
+        this(keyValidator, column, metadata, null);
+    }
+
+    /**
+     * @param readOrdering the read ordering of the indexed table, which guarantees that discarded memtable indexes
+     * are no longer read when their memory is freed. It can only be null if nothing ever searches this index
+     * concurrently with updates.
+     */
+    public ColumnIndex(AbstractType<?> keyValidator, ColumnDefinition column, IndexMetadata metadata, OpOrder readOrdering)
     {
         this.keyValidator = keyValidator;
+        this.readOrdering = readOrdering == null ? new OpOrder() : readOrdering;
         this.column = column;
         this.config = metadata == null ? Optional.empty() : Optional.of(metadata);
         this.mode = IndexMode.getMode(column, config);
-        this.memtable = new AtomicReference<>(new IndexMemtable(this));
+        this.memtable = new AtomicReference<>(new IndexMemtable(this, this.readOrdering));
         this.tracker = new DataTracker(keyValidator, this);
         this.component = new Component(Component.Type.SECONDARY_INDEX, String.format(FILE_NAME_FORMAT, getIndexName()));
+        this.blockIndexComponent = new Component(Component.Type.SECONDARY_INDEX, String.format(BLOCK_INDEX_FILE_NAME_FORMAT, getIndexName()));
         this.isTokenized = getAnalyzer().isTokenizing();
     }
 
@@ -99,25 +118,29 @@ public class ColumnIndex
         return keyValidator;
     }
 
-    public long index(DecoratedKey key, Row row)
+    public void index(DecoratedKey key, Row row, MemtableAllocator memory, OpOrder.Group opGroup)
     {
-        return getCurrentMemtable().index(key, getValueOf(column, row, FBUtilities.nowInSeconds()));
+        getCurrentMemtable().index(key, getValueOf(column, row, FBUtilities.nowInSeconds()), memory, opGroup);
     }
 
     public void switchMemtable()
     {
         // discard current memtable with all of it's data, useful on truncate
-        memtable.set(new IndexMemtable(this));
+        memtable.getAndSet(new IndexMemtable(this, readOrdering)).discard();
     }
 
     public void switchMemtable(Memtable parent)
     {
-        pendingFlush.putIfAbsent(parent, memtable.getAndSet(new IndexMemtable(this)));
+        IndexMemtable previous = memtable.getAndSet(new IndexMemtable(this, readOrdering));
+        if (pendingFlush.putIfAbsent(parent, previous) != null)
+            previous.discard();
     }
 
     public void discardMemtable(Memtable parent)
     {
-        pendingFlush.remove(parent);
+        IndexMemtable discarded = pendingFlush.remove(parent);
+        if (discarded != null)
+            discarded.discard();
     }
 
     @VisibleForTesting
@@ -142,6 +165,22 @@ public class ColumnIndex
         return builder.build();
     }
 
+    /**
+     * @return whether the memtables of the index, current and pending flush, have nothing indexed, which is much
+     * cheaper to find out than searching them.
+     */
+    public boolean isMemtableEmpty()
+    {
+        if (!getCurrentMemtable().isEmpty())
+            return false;
+        for (IndexMemtable memtable : getPendingMemtables())
+        {
+            if (!memtable.isEmpty())
+                return false;
+        }
+        return true;
+    }
+
     public void update(Collection<SSTableReader> oldSSTables, Collection<SSTableReader> newSSTables)
     {
         tracker.update(oldSSTables, newSSTables);
@@ -162,6 +201,21 @@ public class ColumnIndex
         return component;
     }
 
+    /**
+     * @return whether the sstables get a {@link NumericBlockIndex} next to their term index, to search ranges with.
+     * That is the case of the fixed size numeric columns indexed in SPARSE mode, the mode for high cardinality data,
+     * where a range spans many terms.
+     */
+    public boolean hasBlockIndex()
+    {
+        return mode.mode == OnDiskIndexBuilder.Mode.SPARSE && NumericBlockIndexBuilder.isSupported(getValidator());
+    }
+
+    public Component getBlockIndexComponent()
+    {
+        return blockIndexComponent;
+    }
+
     public IndexMode getMode()
     {
         return mode;
@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.index.sasi.disk;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.index.sasi.plan.Expression;
+import org.apache.cassandra.index.sasi.utils.CombinedValue;
+import org.apache.cassandra.index.sasi.utils.MappedBuffer;
+import org.apache.cassandra.index.sasi.utils.RangeIterator;
+import org.apache.cassandra.io.FSReadError;
+import org.apache.cassandra.io.util.ChannelProxy;
+import org.apache.cassandra.io.util.FileUtils;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongOpenHashSet;
+import com.carrotsearch.hppc.LongSet;
+import com.carrotsearch.hppc.cursors.LongCursor;
+import com.carrotsearch.hppc.sorting.IndirectComparator;
+import com.carrotsearch.hppc.sorting.IndirectSort;
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+
+/**
+ * The values of a fixed size numeric column in an sstable, written by {@link NumericBlockIndexBuilder}, which answers
+ * range searches without going through every term of the range: the blocks are found from their min and max values,
+ * the ones entirely within the range return all their keys without looking at their values, and only the first and
+ * last ones have their values checked.
+ */
+public class NumericBlockIndex implements Closeable
+{
+    // min, max value and position of each block
+    private static final int DIRECTORY_ENTRY_SIZE = 3 * 8;
+
+    private final AbstractType<?> validator;
+    private final Function<Long, DecoratedKey> keyFetcher;
+    private final String indexPath;
+
+    private final MappedBuffer indexFile;
+    private final int blockEntries;
+    private final long entryCount;
+    private final int blockCount;
+    private final long directoryPosition;
+
+    @SuppressWarnings("resource")
+    public NumericBlockIndex(File index, AbstractType<?> validator, Function<Long, DecoratedKey> keyFetcher)
+    {
+        assert NumericBlockIndexBuilder.isSupported(validator) : validator;
+
+        this.validator = validator;
+        this.keyFetcher = keyFetcher;
+        this.indexPath = index.getAbsolutePath();
+
+        RandomAccessFile backingFile = null;
+        try
+        {
+            backingFile = new RandomAccessFile(index, "r");
+
+            blockEntries = backingFile.readInt();
+            entryCount = backingFile.readLong();
+            blockCount = backingFile.readInt();
+
+            indexFile = new MappedBuffer(new ChannelProxy(indexPath, backingFile.getChannel()));
+            directoryPosition = indexFile.getLong(indexFile.capacity() - 8);
+        }
+        catch (IOException e)
+        {
+            throw new FSReadError(e, index);
+        }
+        finally
+        {
+            FileUtils.closeQuietly(backingFile);
+        }
+    }
+
+    public long entryCount()
+    {
+        return entryCount;
+    }
+
+    /**
+     * @return whether the given expression is a range this index can search, i.e. without exclusions, and with bounds
+     * of the size of the values of the column.
+     */
+    public boolean canSearch(Expression expression)
+    {
+        if (expression.getOp() != Expression.Op.RANGE || !expression.exclusions.isEmpty())
+            return false;
+
+        int size = NumericBlockIndexBuilder.fixedSize(validator);
+        return (expression.lower == null || expression.lower.value.remaining() == size)
+               && (expression.upper == null || expression.upper.value.remaining() == size);
+    }
+
+    public RangeIterator<Long, Token> search(Expression expression)
+    {
+        assert canSearch(expression) : expression;
+
+        long min = Long.MIN_VALUE, max = Long.MAX_VALUE;
+        if (expression.lower != null)
+        {
+            min = NumericBlockIndexBuilder.sortable(validator, expression.lower.value);
+            if (!expression.lower.inclusive)
+            {
+                if (min == Long.MAX_VALUE)
+                    return null;
+                min++;
+            }
+        }
+
+        if (expression.upper != null)
+        {
+            max = NumericBlockIndexBuilder.sortable(validator, expression.upper.value);
+            if (!expression.upper.inclusive)
+            {
+                if (max == Long.MIN_VALUE)
+                    return null;
+                max--;
+            }
+        }
+
+        if (min > max)
+            return null;
+
+        LongArrayList tokens = new LongArrayList(), offsets = new LongArrayList();
+        for (int block = firstBlock(min); block < blockCount && blockMin(block) <= max; block++)
+        {
+            long blockMin = blockMin(block);
+            boolean isWithin = blockMin >= min && blockMax(block) <= max;
+
+            long position = indexFile.getLong(directoryPosition + (long) block * DIRECTORY_ENTRY_SIZE + 16);
+            int count = (int) Math.min(blockEntries, entryCount - (long) block * blockEntries);
+            int valueBits = indexFile.get(position), offsetBits = indexFile.get(position + 1);
+            long minOffset = indexFile.getLong(position + 2);
+
+            long valuesPosition = position + 10;
+            long offsetsPosition = valuesPosition + NumericBlockIndexBuilder.packedLongs(count, valueBits) * 8L;
+            long tokensPosition = offsetsPosition + NumericBlockIndexBuilder.packedLongs(count, offsetBits) * 8L;
+
+            for (int i = 0; i < count; i++)
+            {
+                if (!isWithin)
+                {
+                    // values are sorted within a block, and so are all the values after the ones of this block
+                    long value = blockMin + unpack(valuesPosition, i, valueBits);
+                    if (value > max)
+                        break;
+                    if (value < min)
+                        continue;
+                }
+
+                tokens.add(indexFile.getLong(tokensPosition + i * 8L));
+                offsets.add(minOffset + unpack(offsetsPosition, i, offsetBits));
+            }
+        }
+
+        return tokens.isEmpty() ? null : BlockTokenIterator.sortedByToken(tokens, offsets, keyFetcher);
+    }
+
+    /**
+     * @return the first block whose maximum value is greater than or equal to the given one, or the block count.
+     */
+    private int firstBlock(long value)
+    {
+        int low = 0, high = blockCount;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (blockMax(mid) < value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private long blockMin(int block)
+    {
+        return indexFile.getLong(directoryPosition + (long) block * DIRECTORY_ENTRY_SIZE);
+    }
+
+    private long blockMax(int block)
+    {
+        return indexFile.getLong(directoryPosition + (long) block * DIRECTORY_ENTRY_SIZE + 8);
+    }
+
+    /**
+     * @return the value at the given index of the ones packed at the given position with {@code bits} bits each.
+     */
+    private long unpack(long position, int index, int bits)
+    {
+        if (bits == 0)
+            return 0;
+
+        long bitPosition = (long) index * bits;
+        long word = position + (bitPosition >>> 6) * 8;
+        int shift = (int) (bitPosition & 63);
+
+        long value = indexFile.getLong(word) >>> shift;
+        if (shift + bits > Long.SIZE)
+            value |= indexFile.getLong(word + 8) << (Long.SIZE - shift);
+
+        return bits == Long.SIZE ? value : value & ((1L << bits) - 1);
+    }
+
+    public String getIndexPath()
+    {
+        return indexPath;
+    }
+
+    public void close() throws IOException
+    {
+        FileUtils.closeQuietly(indexFile);
+    }
+
+    /**
+     * The keys matched by a search, in token order.
+     */
+    private static class BlockTokenIterator extends RangeIterator<Long, Token>
+    {
+        private final long[] tokens, offsets;
+        private final Function<Long, DecoratedKey> keyFetcher;
+        private int position;
+
+        private BlockTokenIterator(long[] tokens, long[] offsets, Function<Long, DecoratedKey> keyFetcher)
+        {
+            super(tokens[0], tokens[tokens.length - 1], tokens.length);
+            this.tokens = tokens;
+            this.offsets = offsets;
+            this.keyFetcher = keyFetcher;
+        }
+
+        private static BlockTokenIterator sortedByToken(LongArrayList tokens, LongArrayList offsets, Function<Long, DecoratedKey> keyFetcher)
+        {
+            final long[] unsortedTokens = tokens.buffer;
+            int[] order = IndirectSort.mergesort(0, tokens.size(), new IndirectComparator()
+            {
+                public int compare(int index1, int index2)
+                {
+                    return Long.compare(unsortedTokens[index1], unsortedTokens[index2]);
+                }
+            });
+
+            long[] sortedTokens = new long[order.length], sortedOffsets = new long[order.length];
+            for (int i = 0; i < order.length; i++)
+            {
+                sortedTokens[i] = unsortedTokens[order[i]];
+                sortedOffsets[i] = offsets.get(order[i]);
+            }
+            return new BlockTokenIterator(sortedTokens, sortedOffsets, keyFetcher);
+        }
+
+        protected Token computeNext()
+        {
+            if (position == tokens.length)
+                return endOfData();
+
+            BlockToken next = new BlockToken(tokens[position], keyFetcher);
+            do
+            {
+                next.offsets.add(offsets[position++]);
+            }
+            while (position < tokens.length && tokens[position] == next.get());
+
+            return next;
+        }
+
+        protected void performSkipTo(Long nextToken)
+        {
+            int low = position, high = tokens.length;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (tokens[mid] < nextToken)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            position = low;
+        }
+
+        public void close()
+        {}
+    }
+
+    private static class BlockToken extends Token
+    {
+        private final Function<Long, DecoratedKey> keyFetcher;
+        private final LongOpenHashSet offsets = new LongOpenHashSet(2);
+        private final SortedSet<DecoratedKey> loadedKeys = new TreeSet<>(DecoratedKey.comparator);
+
+        private BlockToken(long token, Function<Long, DecoratedKey> keyFetcher)
+        {
+            super(token);
+            this.keyFetcher = keyFetcher;
+        }
+
+        public LongSet getOffsets()
+        {
+            return offsets;
+        }
+
+        public void merge(CombinedValue<Long> other)
+        {
+            if (!(other instanceof Token))
+                return;
+
+            Token o = (Token) other;
+            if (token != o.token)
+                throw new IllegalArgumentException(String.format("%s != %s", token, o.token));
+
+            // offsets only make sense within the same sstable, keys from elsewhere are loaded right away
+            if (o instanceof BlockToken && ((BlockToken) o).keyFetcher.equals(keyFetcher))
+            {
+                offsets.addAll(((BlockToken) o).offsets);
+                loadedKeys.addAll(((BlockToken) o).loadedKeys);
+            }
+            else
+            {
+                Iterators.addAll(loadedKeys, o.iterator());
+            }
+        }
+
+        public Iterator<DecoratedKey> iterator()
+        {
+            SortedSet<DecoratedKey> keys = new TreeSet<>(loadedKeys);
+            for (LongCursor offset : offsets)
+                keys.add(keyFetcher.apply(offset.value));
+
+            return keys.iterator();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.index.sasi.disk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.FloatType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.TimestampType;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.io.util.SequentialWriter;
+import org.apache.cassandra.io.util.SequentialWriterOption;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.sorting.IndirectComparator;
+import com.carrotsearch.hppc.sorting.IndirectSort;
+
+/**
+ * Builds a {@link NumericBlockIndex}: the (value, token, key offset) entries of a fixed size numeric column in an
+ * sstable, sorted by value and cut into blocks of {@link #BLOCK_ENTRIES} entries.
+ *
+ * The file starts with a header of the block size, the entry count and the block count. Each block then holds the
+ * number of bits its values and key offsets are packed with and the base of the offsets, its values, as deltas from
+ * the block minimum, and its key offsets, both bit-packed, and the tokens of its keys. The file ends with the
+ * directory of the blocks, the minimum and maximum value and the position of each, followed by the position of the
+ * directory.
+ *
+ * Values are stored as longs ordered like the values of their type, see {@link #sortable(AbstractType, ByteBuffer)}.
+ * All the entries are kept in memory until the index is written, so the builder gives up once there are more than
+ * the given maximum of them, leaving the range searches of the sstable to its term index.
+ */
+public class NumericBlockIndexBuilder
+{
+    public static final int BLOCK_ENTRIES = 512;
+
+    // values, tokens and key offsets, plus their order when sorted
+    public static final int ENTRY_MEMORY = 3 * 8 + 4;
+
+    private static final SequentialWriterOption WRITER_OPTION = SequentialWriterOption.newBuilder()
+                                                                                      .bufferSize(OnDiskIndexBuilder.BLOCK_SIZE)
+                                                                                      .build();
+
+    private final AbstractType<?> validator;
+    private final long maxEntries;
+
+    private LongArrayList values = new LongArrayList();
+    private LongArrayList tokens = new LongArrayList();
+    private LongArrayList offsets = new LongArrayList();
+    private boolean isAbandoned;
+
+    public NumericBlockIndexBuilder(AbstractType<?> validator, long maxEntries)
+    {
+        assert isSupported(validator) : validator;
+        this.validator = validator;
+        this.maxEntries = maxEntries;
+    }
+
+    public static boolean isSupported(AbstractType<?> validator)
+    {
+        return fixedSize(validator) > 0;
+    }
+
+    /**
+     * @return the size of the values of the given type, or -1 if it is not supported.
+     */
+    static int fixedSize(AbstractType<?> validator)
+    {
+        if (validator instanceof Int32Type || validator instanceof FloatType)
+            return 4;
+
+        if (validator instanceof LongType || validator instanceof TimestampType || validator instanceof DoubleType)
+            return 8;
+
+        return -1;
+    }
+
+    /**
+     * @return the given value as a long, signed longs comparing like the values of the type do. Floating point values
+     * have the bits of their magnitude flipped when negative, which orders them like {@link Double#compare(double, double)}.
+     */
+    public static long sortable(AbstractType<?> validator, ByteBuffer value)
+    {
+        assert value.remaining() == fixedSize(validator) : value.remaining();
+        int position = value.position();
+
+        if (validator instanceof Int32Type)
+            return value.getInt(position);
+
+        if (validator instanceof FloatType)
+        {
+            int bits = value.getInt(position);
+            return bits ^ ((bits >> 31) & 0x7fffffff);
+        }
+
+        if (validator instanceof DoubleType)
+        {
+            long bits = value.getLong(position);
+            return bits ^ ((bits >> 63) & 0x7fffffffffffffffL);
+        }
+
+        return value.getLong(position);
+    }
+
+    public void add(ByteBuffer value, DecoratedKey key, long keyPosition)
+    {
+        if (isAbandoned)
+            return;
+
+        if (values.size() == maxEntries)
+        {
+            isAbandoned = true;
+            values = tokens = offsets = null;
+            return;
+        }
+
+        values.add(sortable(validator, value));
+        tokens.add((long) key.getToken().getTokenValue());
+        offsets.add(keyPosition);
+    }
+
+    public boolean isEmpty()
+    {
+        return isAbandoned || values.isEmpty();
+    }
+
+    /**
+     * Writes the index to the given file, unless it has been abandoned or is empty.
+     *
+     * @return whether the index has been written.
+     */
+    public boolean finish(File file) throws FSWriteError
+    {
+        if (isEmpty())
+            return false;
+
+        final long[] values = this.values.buffer, tokens = this.tokens.buffer, offsets = this.offsets.buffer;
+        int entryCount = this.values.size();
+        int blockCount = (entryCount + BLOCK_ENTRIES - 1) / BLOCK_ENTRIES;
+
+        int[] order = IndirectSort.mergesort(0, entryCount, new IndirectComparator()
+        {
+            public int compare(int index1, int index2)
+            {
+                int cmp = Long.compare(values[index1], values[index2]);
+                return cmp != 0 ? cmp : Long.compare(tokens[index1], tokens[index2]);
+            }
+        });
+
+        long[] blockMin = new long[blockCount], blockMax = new long[blockCount], blockPosition = new long[blockCount];
+        long[] buffer = new long[BLOCK_ENTRIES];
+
+        SequentialWriter out = null;
+        try
+        {
+            out = new SequentialWriter(file, WRITER_OPTION);
+
+            out.writeInt(BLOCK_ENTRIES);
+            out.writeLong(entryCount);
+            out.writeInt(blockCount);
+
+            for (int block = 0; block < blockCount; block++)
+            {
+                int from = block * BLOCK_ENTRIES, count = Math.min(BLOCK_ENTRIES, entryCount - from);
+
+                long minOffset = Long.MAX_VALUE, maxOffset = Long.MIN_VALUE;
+                for (int i = 0; i < count; i++)
+                {
+                    long offset = offsets[order[from + i]];
+                    minOffset = Math.min(minOffset, offset);
+                    maxOffset = Math.max(maxOffset, offset);
+                }
+
+                blockMin[block] = values[order[from]];
+                blockMax[block] = values[order[from + count - 1]];
+                blockPosition[block] = out.position();
+
+                int valueBits = bitsFor(blockMax[block] - blockMin[block]);
+                int offsetBits = bitsFor(maxOffset - minOffset);
+                out.writeByte(valueBits);
+                out.writeByte(offsetBits);
+                out.writeLong(minOffset);
+
+                for (int i = 0; i < count; i++)
+                    buffer[i] = values[order[from + i]] - blockMin[block];
+                writePacked(out, buffer, count, valueBits);
+
+                for (int i = 0; i < count; i++)
+                    buffer[i] = offsets[order[from + i]] - minOffset;
+                writePacked(out, buffer, count, offsetBits);
+
+                for (int i = 0; i < count; i++)
+                    out.writeLong(tokens[order[from + i]]);
+            }
+
+            long directoryPosition = out.position();
+            for (int block = 0; block < blockCount; block++)
+            {
+                out.writeLong(blockMin[block]);
+                out.writeLong(blockMax[block]);
+                out.writeLong(blockPosition[block]);
+            }
+            out.writeLong(directoryPosition);
+
+            // sync contents of the output and disk,
+            // since it's not done implicitly on close
+            out.sync();
+            return true;
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, file);
+        }
+        finally
+        {
+            FileUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * @return the number of bits needed to store the given delta, taken as unsigned.
+     */
+    private static int bitsFor(long delta)
+    {
+        return Long.SIZE - Long.numberOfLeadingZeros(delta);
+    }
+
+    /**
+     * Packs the given values, of {@code bits} bits each, into as many longs as needed, the first value taking the
+     * lowest bits of the first long, see {@link NumericBlockIndex#unpack(long, int, int)}.
+     */
+    private static void writePacked(SequentialWriter out, long[] values, int count, int bits) throws IOException
+    {
+        if (bits == 0)
+            return;
+
+        long[] words = new long[packedLongs(count, bits)];
+        for (int i = 0; i < count; i++)
+        {
+            long bitPosition = (long) i * bits;
+            int word = (int) (bitPosition >>> 6), shift = (int) (bitPosition & 63);
+
+            words[word] |= values[i] << shift;
+            if (shift + bits > Long.SIZE)
+                words[word + 1] |= values[i] >>> (Long.SIZE - shift);
+        }
+
+        for (long word : words)
+            out.writeLong(word);
+    }
+
+    static int packedLongs(int count, int bits)
+    {
+        return (int) (((long) count * bits + Long.SIZE - 1) / Long.SIZE);
+    }
+}
@@ -97,6 +97,9 @@ public class OnDiskIndex implements Iterable<OnDiskIndex.DataTerm>, Closeable
         }
     }
 
+    // the maximum number of data blocks read to estimate the tokens matched by a range, see estimateTokenCount
+    private static final int ESTIMATE_SAMPLE_BLOCKS = 8;
+
     public final Descriptor descriptor;
     protected final OnDiskIndexBuilder.Mode mode;
     protected final OnDiskIndexBuilder.TermSize termSize;
@@ -281,6 +284,52 @@ public class OnDiskIndex implements Iterable<OnDiskIndex.DataTerm>, Closeable
         return builder.build();
     }
 
+    /**
+     * Estimates the number of tokens matching the given expression from the token counts stored in the index, without
+     * reading any token: this is the exact count of the matching term for EQ. Otherwise, it is the count of all the
+     * terms of the first and last data blocks the expression spans, plus the one of the blocks in between extrapolated
+     * from a few of them.
+     *
+     * @param exp The expression to estimate the matches of, which can't be a NOT_EQ.
+     *
+     * @return The estimated number of tokens matching the expression.
+     */
+    public long estimateTokenCount(Expression exp)
+    {
+        assert exp.getOp() != Op.NOT_EQ;
+
+        if (exp.getOp() == Op.EQ)
+        {
+            DataTerm term = getTerm(exp.lower.value);
+            return term == null ? 0 : term.getTokenCount();
+        }
+
+        if (dataLevel.blockCount == 0)
+            return 0;
+
+        int lastBlock = dataLevel.blockCount - 1;
+        int lowerBlock = exp.lower == null ? 0 : Math.min(getDataBlock(exp.lower.value), lastBlock);
+        int upperBlock = exp.upper == null ? lastBlock : Math.min(getDataBlock(exp.upper.value), lastBlock);
+
+        long lowerCount = dataLevel.getBlock(lowerBlock).getTokenCount();
+        if (upperBlock <= lowerBlock)
+            return lowerCount;
+
+        long count = lowerCount + dataLevel.getBlock(upperBlock).getTokenCount();
+
+        // the blocks in between are all full, a few of them evenly spaced tell about how many tokens they hold
+        int middleBlocks = upperBlock - lowerBlock - 1;
+        if (middleBlocks == 0)
+            return count;
+
+        int samples = Math.min(middleBlocks, ESTIMATE_SAMPLE_BLOCKS);
+        long sampledCount = 0;
+        for (int i = 0; i < samples; i++)
+            sampledCount += dataLevel.getBlock(lowerBlock + 1 + (int) ((long) i * middleBlocks / samples)).getTokenCount();
+
+        return count + sampledCount * middleBlocks / samples;
+    }
+
     private RangeIterator<Long, Token> searchRange(Expression range)
     {
         Expression.Bound lower = range.lower;
@@ -571,6 +620,20 @@ public class OnDiskIndex implements Iterable<OnDiskIndex.DataTerm>, Closeable
             return new DataTerm(data, termSize, getBlockIndex());
         }
 
+        /**
+         * @return the number of tokens of all the terms of the block, which may share some
+         */
+        public long getTokenCount()
+        {
+            if (hasCombinedIndex)
+                return getBlockIndex().getCount();
+
+            long count = 0;
+            for (int i = 0; i < termCount(); i++)
+                count += getTerm(i).getTokenCount();
+            return count;
+        }
+
         public RangeIterator<Long, Token> getRange(int start, int end)
         {
             RangeUnionIterator.Builder<Long, Token> builder = RangeUnionIterator.builder();
@@ -633,13 +696,25 @@ public class OnDiskIndex implements Iterable<OnDiskIndex.DataTerm>, Closeable
 
         public RangeIterator<Long, Token> getTokens()
         {
-            final long blockEnd = FBUtilities.align(content.position(), OnDiskIndexBuilder.BLOCK_SIZE);
-
             if (isSparse())
                 return new PrefetchedTokensIterator(getSparseTokens());
 
+            return getTokenTree().iterator(keyFetcher);
+        }
+
+        /**
+         * @return the number of tokens of the term, read from the header of its token tree
+         */
+        public long getTokenCount()
+        {
+            return isSparse() ? content.get(getDataOffset()) : getTokenTree().getCount();
+        }
+
+        private TokenTree getTokenTree()
+        {
+            final long blockEnd = FBUtilities.align(content.position(), OnDiskIndexBuilder.BLOCK_SIZE);
             long offset = blockEnd + 4 + content.getInt(getDataOffset() + 1);
-            return new TokenTree(descriptor, indexFile.duplicate().position(offset)).iterator(keyFetcher);
+            return new TokenTree(descriptor, indexFile.duplicate().position(offset));
         }
 
         public boolean isSparse()
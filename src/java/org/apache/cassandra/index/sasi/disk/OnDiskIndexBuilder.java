@@ -176,7 +176,8 @@ public class OnDiskIndexBuilder
         TokenTreeBuilder tokens = terms.get(term);
         if (tokens == null)
         {
-            terms.put(term, (tokens = new DynamicTokenTreeBuilder()));
+            // copy the term, which may be a slice of a larger buffer shared with other values (e.g. when compacting)
+            terms.put(ByteBufferUtil.clone(term), (tokens = new DynamicTokenTreeBuilder()));
 
             // on-heap size estimates from jol
             // 64 bytes for TTB + 48 bytes for TreeMap in TTB + size bytes for the term (map key)
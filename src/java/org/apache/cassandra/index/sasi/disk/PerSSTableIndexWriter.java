@@ -176,6 +176,7 @@ public class PerSSTableIndexWriter implements SSTableFlushObserver
     {
         @VisibleForTesting
         protected final String outputFile;
+        private final String blockIndexFile;
 
         private final ColumnIndex columnIndex;
         private final AbstractAnalyzer analyzer;
@@ -186,15 +187,21 @@ public class PerSSTableIndexWriter implements SSTableFlushObserver
         private int segmentNumber = 0;
 
         private OnDiskIndexBuilder currentBuilder;
+        private final NumericBlockIndexBuilder blockIndexBuilder;
 
         public Index(ColumnIndex columnIndex)
         {
             this.columnIndex = columnIndex;
             this.outputFile = descriptor.filenameFor(columnIndex.getComponent());
+            this.blockIndexFile = descriptor.filenameFor(columnIndex.getBlockIndexComponent());
             this.analyzer = columnIndex.getAnalyzer();
             this.segments = new HashSet<>();
             this.maxMemorySize = maxMemorySize(columnIndex);
             this.currentBuilder = newIndexBuilder();
+            // unlike the term index, the block index is not flushed in segments, so it gets the same memory at most
+            this.blockIndexBuilder = columnIndex.hasBlockIndex()
+                                     ? new NumericBlockIndexBuilder(columnIndex.getValidator(), maxMemorySize / NumericBlockIndexBuilder.ENTRY_MEMORY)
+                                     : null;
         }
 
         public void add(ByteBuffer term, DecoratedKey key, long keyPosition)
@@ -236,6 +243,8 @@ public class PerSSTableIndexWriter implements SSTableFlushObserver
                 }
 
                 currentBuilder.add(token, key, keyPosition);
+                if (blockIndexBuilder != null)
+                    blockIndexBuilder.add(token, key, keyPosition);
                 isAdded = true;
             }
 
@@ -285,6 +294,10 @@ public class PerSSTableIndexWriter implements SSTableFlushObserver
 
                 try
                 {
+                    // don't leave the block index of a previous build of the index behind when abandoned
+                    if (blockIndexBuilder != null && !blockIndexBuilder.finish(new File(blockIndexFile)))
+                        FileUtils.delete(blockIndexFile);
+
                     // no parts present, build entire index from memory
                     if (segments.isEmpty())
                     {
@@ -323,6 +336,7 @@ public class PerSSTableIndexWriter implements SSTableFlushObserver
                 {
                     logger.error("Failed to flush index {}.", outputFile, e);
                     FileUtils.delete(outputFile);
+                    FileUtils.delete(blockIndexFile);
                 }
                 finally
                 {
@@ -18,8 +18,16 @@
 package org.apache.cassandra.index.sasi.memory;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.cassandra.concurrent.JMXEnabledThreadPoolExecutor;
+import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.apache.cassandra.concurrent.StageManager;
 import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.Memtable;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.index.sasi.conf.ColumnIndex;
 import org.apache.cassandra.index.sasi.disk.Token;
@@ -27,6 +35,9 @@ import org.apache.cassandra.index.sasi.plan.Expression;
 import org.apache.cassandra.index.sasi.utils.RangeIterator;
 import org.apache.cassandra.index.sasi.utils.TypeUtil;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.WrappedRunnable;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.memory.MemtableAllocator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,14 +46,42 @@ public class IndexMemtable
 {
     private static final Logger logger = LoggerFactory.getLogger(IndexMemtable.class);
 
+    private static final ExecutorService reclaimExecutor = new JMXEnabledThreadPoolExecutor(1,
+                                                                                            StageManager.KEEPALIVE,
+                                                                                            TimeUnit.SECONDS,
+                                                                                            new LinkedBlockingQueue<Runnable>(),
+                                                                                            new NamedThreadFactory("SASIMemtableReclaimMemory"),
+                                                                                            "internal");
+
+    private final OpOrder readOrdering;
+    private final NativeIndexAllocator allocator;
     private final MemIndex index;
+    private volatile boolean isEmpty = true;
+
+    /**
+     * @param readOrdering the read ordering of the indexed table, which guarantees that the memory of this index is no
+     * longer read when it is freed
+     */
+    public IndexMemtable(ColumnIndex columnIndex, OpOrder readOrdering)
+    {
+        this.readOrdering = readOrdering;
+        this.allocator = new NativeIndexAllocator(readOrdering);
+        this.index = MemIndex.forColumn(columnIndex.keyValidator(), columnIndex, allocator);
+    }
 
-    public IndexMemtable(ColumnIndex columnIndex)
+    /**
+     * Indexes the given value, accounting for the memory used by the index in the given memtable allocator.
+     */
+    public void index(DecoratedKey key, ByteBuffer value, MemtableAllocator memory, OpOrder.Group opGroup)
     {
-        this.index = MemIndex.forColumn(columnIndex.keyValidator(), columnIndex);
+        long onHeap = index(key, value);
+        memory.onHeap().allocate(onHeap, opGroup);
+        // on-heap memtables have no off-heap budget, and would wait forever for it, so the keys count against their heap
+        MemtableAllocator.SubAllocator nativeMemory = Memtable.MEMORY_POOL.offHeap.limit > 0 ? memory.offHeap() : memory.onHeap();
+        nativeMemory.adjust(allocator.takeUnaccounted(), opGroup);
     }
 
-    public long index(DecoratedKey key, ByteBuffer value)
+    private long index(DecoratedKey key, ByteBuffer value)
     {
         if (value == null || value.remaining() == 0)
             return 0;
@@ -62,6 +101,8 @@ public class IndexMemtable
             }
         }
 
+        if (isEmpty)
+            isEmpty = false;
         return index.add(key, value);
     }
 
@@ -69,4 +110,41 @@ public class IndexMemtable
     {
         return index == null ? null : index.search(expression);
     }
+
+    /**
+     * @return whether nothing has been indexed yet, in which case no search can match anything.
+     */
+    public boolean isEmpty()
+    {
+        return isEmpty;
+    }
+
+    /**
+     * @return the amount of memory used off-heap by this index.
+     */
+    public long offHeapSize()
+    {
+        return allocator.allocated();
+    }
+
+    /**
+     * Frees the memory used by this index, which must not be reachable by new operations anymore, once all the
+     * operations which may still be using it, i.e. the writes and the reads started before this call, have completed.
+     */
+    public void discard()
+    {
+        final OpOrder.Barrier writeBarrier = Keyspace.writeOrder.newBarrier();
+        final OpOrder.Barrier readBarrier = readOrdering.newBarrier();
+        writeBarrier.issue();
+        readBarrier.issue();
+        reclaimExecutor.execute(new WrappedRunnable()
+        {
+            public void runMayThrow()
+            {
+                writeBarrier.await();
+                readBarrier.await();
+                allocator.release();
+            }
+        });
+    }
 }
@@ -21,76 +21,53 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentSkipListSet;
 
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.index.sasi.disk.Token;
-import org.apache.cassandra.index.sasi.utils.AbstractIterator;
 import org.apache.cassandra.index.sasi.utils.CombinedValue;
 import org.apache.cassandra.index.sasi.utils.RangeIterator;
 
 import com.carrotsearch.hppc.LongOpenHashSet;
 import com.carrotsearch.hppc.LongSet;
-import com.google.common.collect.PeekingIterator;
 
 public class KeyRangeIterator extends RangeIterator<Long, Token>
 {
-    private final DKIterator iterator;
+    private final NativeKeySet.Cursor keys;
 
-    public KeyRangeIterator(ConcurrentSkipListSet<DecoratedKey> keys)
+    public KeyRangeIterator(NativeKeySet.Cursor keys)
     {
-        super((Long) keys.first().getToken().getTokenValue(), (Long) keys.last().getToken().getTokenValue(), keys.size());
-        this.iterator = new DKIterator(keys.iterator());
+        super(keys.minToken(), keys.maxToken(), keys.size());
+        this.keys = keys;
     }
 
     protected Token computeNext()
     {
-        return iterator.hasNext() ? new DKToken(iterator.next()) : endOfData();
+        if (!keys.hasNext())
+            return endOfData();
+
+        long token = keys.peekToken();
+        DKToken next = new DKToken(token);
+        while (keys.hasNext() && keys.peekToken() == token)
+            next.keys.add(keys.next());
+
+        return next;
     }
 
     protected void performSkipTo(Long nextToken)
     {
-        while (iterator.hasNext())
-        {
-            DecoratedKey key = iterator.peek();
-            if (Long.compare((long) key.getToken().getTokenValue(), nextToken) >= 0)
-                break;
-
-            // consume smaller key
-            iterator.next();
-        }
+        keys.skipTo(nextToken);
     }
 
     public void close() throws IOException
     {}
 
-    private static class DKIterator extends AbstractIterator<DecoratedKey> implements PeekingIterator<DecoratedKey>
-    {
-        private final Iterator<DecoratedKey> keys;
-
-        public DKIterator(Iterator<DecoratedKey> keys)
-        {
-            this.keys = keys;
-        }
-
-        protected DecoratedKey computeNext()
-        {
-            return keys.hasNext() ? keys.next() : endOfData();
-        }
-    }
-
     private static class DKToken extends Token
     {
-        private final SortedSet<DecoratedKey> keys;
+        private final SortedSet<DecoratedKey> keys = new TreeSet<>(DecoratedKey.comparator);
 
-        public DKToken(final DecoratedKey key)
+        public DKToken(long token)
         {
-            super((long) key.getToken().getTokenValue());
-
-            keys = new TreeSet<DecoratedKey>(DecoratedKey.comparator)
-            {{
-                add(key);
-            }};
+            super(token);
         }
 
         public LongSet getOffsets()
@@ -126,4 +103,4 @@ public class KeyRangeIterator extends RangeIterator<Long, Token>
             return keys.iterator();
         }
     }
-}
\ No newline at end of file
+}
@@ -30,20 +30,26 @@ public abstract class MemIndex
 {
     protected final AbstractType<?> keyValidator;
     protected final ColumnIndex columnIndex;
+    protected final NativeIndexAllocator allocator;
 
-    protected MemIndex(AbstractType<?> keyValidator, ColumnIndex columnIndex)
+    protected MemIndex(AbstractType<?> keyValidator, ColumnIndex columnIndex, NativeIndexAllocator allocator)
     {
         this.keyValidator = keyValidator;
         this.columnIndex = columnIndex;
+        this.allocator = allocator;
     }
 
+    /**
+     * @return the amount of heap memory used to index the value, the memory used off-heap being allocated from
+     * {@link #allocator}.
+     */
     public abstract long add(DecoratedKey key, ByteBuffer value);
     public abstract RangeIterator<Long, Token> search(Expression expression);
 
-    public static MemIndex forColumn(AbstractType<?> keyValidator, ColumnIndex columnIndex)
+    public static MemIndex forColumn(AbstractType<?> keyValidator, ColumnIndex columnIndex, NativeIndexAllocator allocator)
     {
         return columnIndex.isLiteral()
-                ? new TrieMemIndex(keyValidator, columnIndex)
-                : new SkipListMemIndex(keyValidator, columnIndex);
+                ? new TrieMemIndex(keyValidator, columnIndex, allocator)
+                : new SkipListMemIndex(keyValidator, columnIndex, allocator);
     }
 }
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.index.sasi.memory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.memory.MemoryUtil;
+
+/**
+ * Off-heap memory backing the in-memory index of a single memtable.
+ *
+ * Allocations are sliced out of regions which, like for {@link org.apache.cassandra.utils.memory.NativeAllocator},
+ * grow exponentially from 8kb to 1Mb, and are all released at once, when the memtable is discarded and no read can be
+ * using them anymore.
+ *
+ * Allocations which are no longer needed can also be {@link #free(long, int) freed} while the memtable is live, e.g.
+ * the blocks superseded by bigger ones. As reads may still be using them, they are only reclaimed once all the reads
+ * started before have completed: sliced ones are then reused by later allocations of the same size, and the ones big
+ * enough to have their own region are given back to the system.
+ */
+public class NativeIndexAllocator
+{
+    private static final int MIN_REGION_SIZE = 8 * 1024;
+    private static final int MAX_REGION_SIZE = 1024 * 1024;
+    private static final int MAX_SLICED_SIZE = 128 * 1024; // bigger than this get their own region
+
+    private final OpOrder readOrdering;
+
+    // all guarded by this
+    private final List<Long> regions = new ArrayList<>();
+    private long region;
+    private int regionSize;
+    private int regionOffset;
+
+    private long allocated;
+    private long unaccounted;
+    private boolean released;
+
+    // the allocations freed since the last barrier was issued, the ones waiting for that barrier, and the ones to reuse
+    private List<long[]> freed = new ArrayList<>();
+    private List<long[]> reclaiming = new ArrayList<>();
+    private OpOrder.Barrier reclaimBarrier;
+    private final Map<Integer, ArrayDeque<Long>> reusable = new HashMap<>();
+
+    /**
+     * @param readOrdering the ordering of the reads which may use the allocated memory
+     */
+    public NativeIndexAllocator(OpOrder readOrdering)
+    {
+        this.readOrdering = readOrdering;
+    }
+
+    /**
+     * @return the address of {@code size} bytes of memory, aligned on 8 bytes.
+     */
+    public synchronized long allocate(int size)
+    {
+        assert !released;
+        size = (size + 7) & ~7;
+        maybeReclaim();
+
+        if (size > MAX_SLICED_SIZE)
+            return allocateRegion(size);
+
+        ArrayDeque<Long> sameSize = reusable.get(size);
+        if (sameSize != null && !sameSize.isEmpty())
+            return sameSize.poll();
+
+        if (region == 0 || regionOffset + size > regionSize)
+        {
+            regionSize = region == 0 ? MIN_REGION_SIZE : Math.min(MAX_REGION_SIZE, regionSize * 2);
+            while (regionSize < size)
+                regionSize *= 2;
+
+            region = allocateRegion(regionSize);
+            regionOffset = 0;
+        }
+
+        long peer = region + regionOffset;
+        regionOffset += size;
+        return peer;
+    }
+
+    private long allocateRegion(int size)
+    {
+        long peer = MemoryUtil.allocate(size);
+        regions.add(peer);
+        allocated += size;
+        unaccounted += size;
+        return peer;
+    }
+
+    /**
+     * Hands back memory returned by {@link #allocate(int)}, which must not be reachable by new reads anymore. It is
+     * reclaimed once the reads started before this call have completed.
+     */
+    public synchronized void free(long peer, int size)
+    {
+        assert !released;
+        freed.add(new long[]{ peer, (size + 7) & ~7 });
+        maybeReclaim();
+    }
+
+    private void maybeReclaim()
+    {
+        if (reclaimBarrier != null)
+        {
+            if (!reclaimBarrier.allPriorOpsAreFinished())
+                return;
+
+            for (long[] allocation : reclaiming)
+                reclaim(allocation[0], (int) allocation[1]);
+            reclaiming.clear();
+            reclaimBarrier = null;
+        }
+
+        if (freed.isEmpty())
+            return;
+
+        // a single barrier at a time covers everything freed since the previous one was issued
+        List<long[]> next = reclaiming;
+        reclaiming = freed;
+        freed = next;
+        reclaimBarrier = readOrdering.newBarrier();
+        reclaimBarrier.issue();
+    }
+
+    private void reclaim(long peer, int size)
+    {
+        if (size > MAX_SLICED_SIZE)
+        {
+            MemoryUtil.free(peer);
+            regions.remove(Long.valueOf(peer));
+            allocated -= size;
+            unaccounted -= size;
+            return;
+        }
+
+        reusable.computeIfAbsent(size, k -> new ArrayDeque<>()).add(peer);
+    }
+
+    /**
+     * @return the amount of memory allocated, or if negative freed, since the last call, so that it can be accounted
+     * for by the memtable.
+     */
+    public synchronized long takeUnaccounted()
+    {
+        long size = unaccounted;
+        unaccounted = 0;
+        return size;
+    }
+
+    public synchronized long allocated()
+    {
+        return allocated;
+    }
+
+    /**
+     * Frees all the memory allocated so far. This must only be called once no one can be using that memory anymore.
+     */
+    public synchronized void release()
+    {
+        if (released)
+            return;
+
+        released = true;
+        for (long peer : regions)
+            MemoryUtil.free(peer);
+
+        regions.clear();
+        region = 0;
+        freed.clear();
+        reclaiming.clear();
+        reusable.clear();
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.index.sasi.memory;
+
+import java.nio.ByteBuffer;
+
+import org.apache.cassandra.db.BufferDecoratedKey;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.utils.FastByteOperations;
+import org.apache.cassandra.utils.ObjectSizes;
+import org.apache.cassandra.utils.memory.MemoryUtil;
+
+import com.carrotsearch.hppc.sorting.IndirectComparator;
+import com.carrotsearch.hppc.sorting.IndirectSort;
+
+/**
+ * The keys of the partitions containing a given term, stored off-heap as (token, key address) entries, each key
+ * being written once per indexed row by {@link #writeKey(NativeIndexAllocator, DecoratedKey)}.
+ *
+ * New entries are appended to the unsorted tail of the current block. Once the block is full, its tail is sorted
+ * and merged with its sorted run into a new block twice as big, dropping duplicate keys on the way, and the previous
+ * block is handed back to the allocator. As a block is never modified besides appending to its tail, a {@link Cursor}
+ * can iterate over it without holding any lock.
+ *
+ * The order of the tail is kept on heap, as the indexes of its entries sorted by token, and is shared by all the
+ * cursors created until more keys are added. It is then extended by sorting the new entries only and merging them in,
+ * so that the tail is never sorted again from scratch.
+ */
+public class NativeKeySet
+{
+    public static final long HEAP_SIZE = ObjectSizes.measure(new NativeKeySet(null));
+
+    private static final int ENTRY_SIZE = 16; // token + key address
+    private static final int MIN_CAPACITY = 4;
+    private static final int[] EMPTY_TAIL = new int[0];
+
+    private final NativeIndexAllocator allocator;
+
+    // all guarded by this
+    private long block;
+    private int capacity;
+    private int sorted;
+    private int size;
+    private int[] tail = EMPTY_TAIL; // the sorted indexes of the entries following the sorted run, up to some size
+
+    public NativeKeySet(NativeIndexAllocator allocator)
+    {
+        this.allocator = allocator;
+    }
+
+    /**
+     * Writes the bytes of the given key off-heap.
+     *
+     * @return the address to {@link #add(long, long)} the key with.
+     */
+    public static long writeKey(NativeIndexAllocator allocator, DecoratedKey key)
+    {
+        ByteBuffer bytes = key.getKey();
+        long address = allocator.allocate(4 + bytes.remaining());
+        MemoryUtil.setInt(address, bytes.remaining());
+        MemoryUtil.setBytes(address + 4, bytes);
+        return address;
+    }
+
+    public static long token(DecoratedKey key)
+    {
+        return (long) key.getToken().getTokenValue();
+    }
+
+    public synchronized void add(long token, long keyAddress)
+    {
+        // the same key is commonly indexed several times in a row, e.g. for the rows of a partition with the same value
+        if (size > 0 && compare(token(block, size - 1), key(block, size - 1), token, keyAddress) == 0)
+            return;
+
+        if (size == capacity)
+            grow();
+
+        long entry = block + (long) size * ENTRY_SIZE;
+        MemoryUtil.setLong(entry, token);
+        MemoryUtil.setLong(entry + 8, keyAddress);
+        size++;
+    }
+
+    private void grow()
+    {
+        int newCapacity = capacity == 0 ? MIN_CAPACITY : capacity * 2;
+        long newBlock = allocator.allocate(newCapacity * ENTRY_SIZE);
+
+        int newSize = 0;
+        Cursor entries = new Cursor(block, sorted, sortedTail());
+        while (entries.hasNext())
+        {
+            long token = entries.peekToken();
+            long key = entries.peekKey();
+            entries.advance();
+
+            if (newSize > 0 && compare(token(newBlock, newSize - 1), key(newBlock, newSize - 1), token, key) == 0)
+                continue;
+
+            long entry = newBlock + (long) newSize * ENTRY_SIZE;
+            MemoryUtil.setLong(entry, token);
+            MemoryUtil.setLong(entry + 8, key);
+            newSize++;
+        }
+
+        // cursors over the previous block may still be in use, the allocator only reuses it once they are not
+        if (block != 0)
+            allocator.free(block, capacity * ENTRY_SIZE);
+
+        block = newBlock;
+        capacity = newCapacity;
+        sorted = size = newSize;
+        tail = EMPTY_TAIL;
+    }
+
+    /**
+     * @return the sorted indexes of all the entries of the tail, merging the entries added since the last call in.
+     */
+    private int[] sortedTail()
+    {
+        int from = sorted + tail.length;
+        if (from == size)
+            return tail;
+
+        final long block = this.block;
+        IndirectComparator comparator = new IndirectComparator()
+        {
+            public int compare(int index1, int index2)
+            {
+                return NativeKeySet.compare(token(block, index1), key(block, index1), token(block, index2), key(block, index2));
+            }
+        };
+        int[] added = IndirectSort.mergesort(from, size - from, comparator);
+
+        int[] merged = new int[tail.length + added.length];
+        for (int i = 0, t = 0, a = 0; i < merged.length; i++)
+        {
+            merged[i] = a == added.length || (t < tail.length && comparator.compare(tail[t], added[a]) <= 0)
+                        ? tail[t++]
+                        : added[a++];
+        }
+
+        // the previous array is left untouched for the cursors using it
+        return tail = merged;
+    }
+
+    /**
+     * @return a cursor over the keys added so far, in token order. The keys added afterwards are not visible to it.
+     */
+    public Cursor cursor()
+    {
+        long block;
+        int sorted;
+        int[] tail;
+        synchronized (this)
+        {
+            block = this.block;
+            sorted = this.sorted;
+            tail = sortedTail();
+        }
+        return new Cursor(block, sorted, tail);
+    }
+
+    private static long token(long block, int index)
+    {
+        return MemoryUtil.getLong(block + (long) index * ENTRY_SIZE);
+    }
+
+    private static long key(long block, int index)
+    {
+        return MemoryUtil.getLong(block + (long) index * ENTRY_SIZE + 8);
+    }
+
+    private static int compare(long token1, long key1, long token2, long key2)
+    {
+        int cmp = Long.compare(token1, token2);
+        if (cmp != 0 || key1 == key2)
+            return cmp;
+
+        return FastByteOperations.UnsafeOperations.compareTo(null, key1 + 4, MemoryUtil.getInt(key1),
+                                                             null, key2 + 4, MemoryUtil.getInt(key2));
+    }
+
+    /**
+     * Merges the sorted run of a block with the sorted indexes of its tail. Keys present in both are returned twice.
+     */
+    public static class Cursor
+    {
+        private final long block;
+        private final int sorted;
+        private final int[] tail;
+
+        private int runPosition;
+        private int tailPosition;
+
+        private Cursor(long block, int sorted, int[] tail)
+        {
+            this.block = block;
+            this.sorted = sorted;
+            this.tail = tail;
+        }
+
+        public int size()
+        {
+            return sorted + tail.length;
+        }
+
+        public long minToken()
+        {
+            assert size() > 0;
+            if (sorted == 0)
+                return token(block, tail[0]);
+
+            return tail.length == 0 ? token(block, 0) : Math.min(token(block, 0), token(block, tail[0]));
+        }
+
+        public long maxToken()
+        {
+            assert size() > 0;
+            if (sorted == 0)
+                return token(block, tail[tail.length - 1]);
+
+            return tail.length == 0
+                   ? token(block, sorted - 1)
+                   : Math.max(token(block, sorted - 1), token(block, tail[tail.length - 1]));
+        }
+
+        public boolean hasNext()
+        {
+            return runPosition < sorted || tailPosition < tail.length;
+        }
+
+        public long peekToken()
+        {
+            return token(block, current());
+        }
+
+        public DecoratedKey next()
+        {
+            int index = current();
+            advance();
+
+            long address = key(block, index);
+            byte[] bytes = new byte[MemoryUtil.getInt(address)];
+            MemoryUtil.getBytes(address + 4, bytes, 0, bytes.length);
+            return new BufferDecoratedKey(new Murmur3Partitioner.LongToken(token(block, index)), ByteBuffer.wrap(bytes));
+        }
+
+        /**
+         * Moves to the first key whose token is greater or equal to the given one.
+         */
+        public void skipTo(long token)
+        {
+            runPosition = ceiling(runPosition, sorted, token, false);
+            tailPosition = ceiling(tailPosition, tail.length, token, true);
+        }
+
+        private long peekKey()
+        {
+            return key(block, current());
+        }
+
+        private void advance()
+        {
+            if (isRunCurrent())
+                runPosition++;
+            else
+                tailPosition++;
+        }
+
+        private int current()
+        {
+            return isRunCurrent() ? runPosition : tail[tailPosition];
+        }
+
+        private boolean isRunCurrent()
+        {
+            if (tailPosition == tail.length)
+                return true;
+            if (runPosition == sorted)
+                return false;
+
+            int runIndex = runPosition, tailIndex = tail[tailPosition];
+            return compare(token(block, runIndex), key(block, runIndex), token(block, tailIndex), key(block, tailIndex)) <= 0;
+        }
+
+        private int ceiling(int from, int to, long token, boolean inTail)
+        {
+            int low = from, high = to;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (token(block, inTail ? tail[mid] : mid) < token)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+    }
+}
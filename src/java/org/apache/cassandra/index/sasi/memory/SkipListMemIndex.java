@@ -20,7 +20,6 @@ package org.apache.cassandra.index.sasi.memory;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.ConcurrentSkipListSet;
 
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.index.sasi.conf.ColumnIndex;
@@ -34,31 +33,31 @@ public class SkipListMemIndex extends MemIndex
 {
     public static final int CSLM_OVERHEAD = 128; // average overhead of CSLM
 
-    private final ConcurrentSkipListMap<ByteBuffer, ConcurrentSkipListSet<DecoratedKey>> index;
+    private final ConcurrentSkipListMap<ByteBuffer, NativeKeySet> index;
 
-    public SkipListMemIndex(AbstractType<?> keyValidator, ColumnIndex columnIndex)
+    public SkipListMemIndex(AbstractType<?> keyValidator, ColumnIndex columnIndex, NativeIndexAllocator allocator)
     {
-        super(keyValidator, columnIndex);
+        super(keyValidator, columnIndex, allocator);
         index = new ConcurrentSkipListMap<>(columnIndex.getValidator());
     }
 
     public long add(DecoratedKey key, ByteBuffer value)
     {
-        long overhead = CSLM_OVERHEAD; // DKs are shared
-        ConcurrentSkipListSet<DecoratedKey> keys = index.get(value);
+        long overhead = 0; // keys are stored off-heap
+        NativeKeySet keys = index.get(value);
 
         if (keys == null)
         {
-            ConcurrentSkipListSet<DecoratedKey> newKeys = new ConcurrentSkipListSet<>(DecoratedKey.comparator);
+            NativeKeySet newKeys = new NativeKeySet(allocator);
             keys = index.putIfAbsent(value, newKeys);
             if (keys == null)
             {
-                overhead += CSLM_OVERHEAD + value.remaining();
+                overhead += CSLM_OVERHEAD + value.remaining() + NativeKeySet.HEAP_SIZE;
                 keys = newKeys;
             }
         }
 
-        keys.add(key);
+        keys.add(NativeKeySet.token(key), NativeKeySet.writeKey(allocator, key));
 
         return overhead;
     }
@@ -68,7 +67,7 @@ public class SkipListMemIndex extends MemIndex
         ByteBuffer min = expression.lower == null ? null : expression.lower.value;
         ByteBuffer max = expression.upper == null ? null : expression.upper.value;
 
-        SortedMap<ByteBuffer, ConcurrentSkipListSet<DecoratedKey>> search;
+        SortedMap<ByteBuffer, NativeKeySet> search;
 
         if (min == null && max == null)
         {
@@ -89,7 +88,8 @@ public class SkipListMemIndex extends MemIndex
 
         RangeUnionIterator.Builder<Long, Token> builder = RangeUnionIterator.builder();
         search.values().stream()
-                       .filter(keys -> !keys.isEmpty())
+                       .map(NativeKeySet::cursor)
+                       .filter(keys -> keys.size() > 0)
                        .forEach(keys -> builder.add(new KeyRangeIterator(keys)));
 
         return builder.build();
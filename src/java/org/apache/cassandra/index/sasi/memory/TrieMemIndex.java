@@ -20,7 +20,6 @@ package org.apache.cassandra.index.sasi.memory;
 import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ConcurrentSkipListSet;
 
 import org.apache.cassandra.config.ColumnDefinition;
 import org.apache.cassandra.db.DecoratedKey;
@@ -52,18 +51,18 @@ public class TrieMemIndex extends MemIndex
 
     private final ConcurrentTrie index;
 
-    public TrieMemIndex(AbstractType<?> keyValidator, ColumnIndex columnIndex)
+    public TrieMemIndex(AbstractType<?> keyValidator, ColumnIndex columnIndex, NativeIndexAllocator allocator)
     {
-        super(keyValidator, columnIndex);
+        super(keyValidator, columnIndex, allocator);
 
         switch (columnIndex.getMode().mode)
         {
             case CONTAINS:
-                index = new ConcurrentSuffixTrie(columnIndex.getDefinition());
+                index = new ConcurrentSuffixTrie(columnIndex.getDefinition(), allocator);
                 break;
 
             case PREFIX:
-                index = new ConcurrentPrefixTrie(columnIndex.getDefinition());
+                index = new ConcurrentPrefixTrie(columnIndex.getDefinition(), allocator);
                 break;
 
             default:
@@ -77,6 +76,7 @@ public class TrieMemIndex extends MemIndex
         analyzer.reset(value.duplicate());
 
         long size = 0;
+        long keyAddress = 0; // the key is only written once, and only if at least one of the terms is indexed
         while (analyzer.hasNext())
         {
             ByteBuffer term = analyzer.next();
@@ -91,7 +91,10 @@ public class TrieMemIndex extends MemIndex
                 continue;
             }
 
-            size += index.add(columnIndex.getValidator().getString(term), key);
+            if (keyAddress == 0)
+                keyAddress = NativeKeySet.writeKey(allocator, key);
+
+            size += index.add(columnIndex.getValidator().getString(term), NativeKeySet.token(key), keyAddress);
         }
 
         return size;
@@ -107,28 +110,30 @@ public class TrieMemIndex extends MemIndex
         public static final SizeEstimatingNodeFactory NODE_FACTORY = new SizeEstimatingNodeFactory();
 
         protected final ColumnDefinition definition;
+        protected final NativeIndexAllocator allocator;
 
-        public ConcurrentTrie(ColumnDefinition column)
+        public ConcurrentTrie(ColumnDefinition column, NativeIndexAllocator allocator)
         {
             definition = column;
+            this.allocator = allocator;
         }
 
-        public long add(String value, DecoratedKey key)
+        public long add(String value, long token, long keyAddress)
         {
-            long overhead = CSLM_OVERHEAD;
-            ConcurrentSkipListSet<DecoratedKey> keys = get(value);
+            long overhead = 0; // keys are stored off-heap
+            NativeKeySet keys = get(value);
             if (keys == null)
             {
-                ConcurrentSkipListSet<DecoratedKey> newKeys = new ConcurrentSkipListSet<>(DecoratedKey.comparator);
+                NativeKeySet newKeys = new NativeKeySet(allocator);
                 keys = putIfAbsent(value, newKeys);
                 if (keys == null)
                 {
-                    overhead += CSLM_OVERHEAD + value.length();
+                    overhead += CSLM_OVERHEAD + value.length() + NativeKeySet.HEAP_SIZE;
                     keys = newKeys;
                 }
             }
 
-            keys.add(key);
+            keys.add(token, keyAddress);
 
             // get and reset new memory size allocated by current thread
             overhead += NODE_FACTORY.currentUpdateSize();
@@ -141,50 +146,51 @@ public class TrieMemIndex extends MemIndex
         {
             ByteBuffer prefix = expression.lower == null ? null : expression.lower.value;
 
-            Iterable<ConcurrentSkipListSet<DecoratedKey>> search = search(expression.getOp(), definition.cellValueType().getString(prefix));
+            Iterable<NativeKeySet> search = search(expression.getOp(), definition.cellValueType().getString(prefix));
 
             RangeUnionIterator.Builder<Long, Token> builder = RangeUnionIterator.builder();
-            for (ConcurrentSkipListSet<DecoratedKey> keys : search)
+            for (NativeKeySet keys : search)
             {
-                if (!keys.isEmpty())
-                    builder.add(new KeyRangeIterator(keys));
+                NativeKeySet.Cursor cursor = keys.cursor();
+                if (cursor.size() > 0)
+                    builder.add(new KeyRangeIterator(cursor));
             }
 
             return builder.build();
         }
 
-        protected abstract ConcurrentSkipListSet<DecoratedKey> get(String value);
-        protected abstract Iterable<ConcurrentSkipListSet<DecoratedKey>> search(Op operator, String value);
-        protected abstract ConcurrentSkipListSet<DecoratedKey> putIfAbsent(String value, ConcurrentSkipListSet<DecoratedKey> key);
+        protected abstract NativeKeySet get(String value);
+        protected abstract Iterable<NativeKeySet> search(Op operator, String value);
+        protected abstract NativeKeySet putIfAbsent(String value, NativeKeySet key);
     }
 
     protected static class ConcurrentPrefixTrie extends ConcurrentTrie
     {
-        private final ConcurrentRadixTree<ConcurrentSkipListSet<DecoratedKey>> trie;
+        private final ConcurrentRadixTree<NativeKeySet> trie;
 
-        private ConcurrentPrefixTrie(ColumnDefinition column)
+        private ConcurrentPrefixTrie(ColumnDefinition column, NativeIndexAllocator allocator)
         {
-            super(column);
+            super(column, allocator);
             trie = new ConcurrentRadixTree<>(NODE_FACTORY);
         }
 
-        public ConcurrentSkipListSet<DecoratedKey> get(String value)
+        public NativeKeySet get(String value)
         {
             return trie.getValueForExactKey(value);
         }
 
-        public ConcurrentSkipListSet<DecoratedKey> putIfAbsent(String value, ConcurrentSkipListSet<DecoratedKey> newKeys)
+        public NativeKeySet putIfAbsent(String value, NativeKeySet newKeys)
         {
             return trie.putIfAbsent(value, newKeys);
         }
 
-        public Iterable<ConcurrentSkipListSet<DecoratedKey>> search(Op operator, String value)
+        public Iterable<NativeKeySet> search(Op operator, String value)
         {
             switch (operator)
             {
                 case EQ:
                 case MATCH:
-                    ConcurrentSkipListSet<DecoratedKey> keys = trie.getValueForExactKey(value);
+                    NativeKeySet keys = trie.getValueForExactKey(value);
                     return keys == null ? Collections.emptyList() : Collections.singletonList(keys);
 
                 case PREFIX:
@@ -198,31 +204,31 @@ public class TrieMemIndex extends MemIndex
 
     protected static class ConcurrentSuffixTrie extends ConcurrentTrie
     {
-        private final ConcurrentSuffixTree<ConcurrentSkipListSet<DecoratedKey>> trie;
+        private final ConcurrentSuffixTree<NativeKeySet> trie;
 
-        private ConcurrentSuffixTrie(ColumnDefinition column)
+        private ConcurrentSuffixTrie(ColumnDefinition column, NativeIndexAllocator allocator)
         {
-            super(column);
+            super(column, allocator);
             trie = new ConcurrentSuffixTree<>(NODE_FACTORY);
         }
 
-        public ConcurrentSkipListSet<DecoratedKey> get(String value)
+        public NativeKeySet get(String value)
         {
             return trie.getValueForExactKey(value);
         }
 
-        public ConcurrentSkipListSet<DecoratedKey> putIfAbsent(String value, ConcurrentSkipListSet<DecoratedKey> newKeys)
+        public NativeKeySet putIfAbsent(String value, NativeKeySet newKeys)
         {
             return trie.putIfAbsent(value, newKeys);
         }
 
-        public Iterable<ConcurrentSkipListSet<DecoratedKey>> search(Op operator, String value)
+        public Iterable<NativeKeySet> search(Op operator, String value)
         {
             switch (operator)
             {
                 case EQ:
                 case MATCH:
-                    ConcurrentSkipListSet<DecoratedKey> keys = trie.getValueForExactKey(value);
+                    NativeKeySet keys = trie.getValueForExactKey(value);
                     return keys == null ? Collections.emptyList() : Collections.singletonList(keys);
 
                 case SUFFIX:
@@ -184,6 +184,10 @@ public class QueryController
         // first let's determine the primary expression if op is AND
         Pair<Expression, Set<SSTableIndex>> primary = (op == OperationType.AND) ? calculatePrimary(expressions) : null;
 
+        // matches of the primary expression in memtables can be anywhere in the ring, in which case the other
+        // expressions can't be restricted to the sstables overlapping the ones of the primary expression
+        boolean restrictToPrimary = primary != null && primary.right.size() > 0 && primary.left.index.isMemtableEmpty();
+
         Map<Expression, Set<SSTableIndex>> indexes = new HashMap<>();
         for (Expression e : expressions)
         {
@@ -204,10 +208,18 @@ public class QueryController
                 continue;
 
             Set<SSTableIndex> readers = new HashSet<>();
-            if (primary != null && primary.right.size() > 0)
+            if (restrictToPrimary)
             {
+                // only the sstables overlapping the ones of the primary expression, both in key and term range
+                Set<SSTableIndex> termMatches = view.match(e);
                 for (SSTableIndex index : primary.right)
-                    readers.addAll(view.match(index.minKey(), index.maxKey()));
+                {
+                    for (SSTableIndex candidate : view.match(index.minKey(), index.maxKey()))
+                    {
+                        if (termMatches.contains(candidate))
+                            readers.add(candidate);
+                    }
+                }
             }
             else
             {
@@ -220,14 +232,20 @@ public class QueryController
         return indexes;
     }
 
+    /**
+     * Picks the expression of an AND which is expected to be the most selective, that is the one matching the fewest
+     * partitions in its sstables (matched in term and key range), so that the sstables searched for the other
+     * expressions can be restricted to the ones overlapping them.
+     */
     private Pair<Expression, Set<SSTableIndex>> calculatePrimary(Collection<Expression> expressions)
     {
         Expression expression = null;
         Set<SSTableIndex> primaryIndexes = Collections.emptySet();
+        long primaryCost = Long.MAX_VALUE;
 
         for (Expression e : expressions)
         {
-            if (!e.isIndexed())
+            if (!e.isIndexed() || e.getOp() == Expression.Op.NOT_EQ)
                 continue;
 
             View view = e.index.getView();
@@ -235,9 +253,11 @@ public class QueryController
                 continue;
 
             Set<SSTableIndex> indexes = applyScope(view.match(e));
-            if (primaryIndexes.size() > indexes.size())
+            long cost = estimateCost(e, indexes);
+            if (cost < primaryCost || (cost == primaryCost && indexes.size() < primaryIndexes.size()))
             {
                 primaryIndexes = indexes;
+                primaryCost = cost;
                 expression = e;
             }
         }
@@ -245,6 +265,30 @@ public class QueryController
         return expression == null ? null : Pair.create(expression, primaryIndexes);
     }
 
+    /**
+     * @return the number of partitions matching the expression in the given sstables, estimated from the token counts
+     * of their index, see {@link SSTableIndex#estimateTokenCount}.
+     */
+    private static long estimateCost(Expression e, Set<SSTableIndex> indexes)
+    {
+        long cost = 0;
+        for (SSTableIndex index : indexes)
+        {
+            if (!index.reference())
+                continue;
+
+            try
+            {
+                cost += index.estimateTokenCount(e);
+            }
+            finally
+            {
+                index.release();
+            }
+        }
+        return cost;
+    }
+
     private Set<SSTableIndex> applyScope(Set<SSTableIndex> indexes)
     {
         return Sets.filter(indexes, index -> {
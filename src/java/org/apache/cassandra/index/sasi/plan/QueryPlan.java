@@ -110,30 +110,32 @@ public class QueryPlan
                     if (!keyRange.right.isMinimum() && keyRange.right.compareTo(key) < 0)
                         return endOfData();
 
-                    try (UnfilteredRowIterator partition = controller.getPartition(key, executionController))
+                    PartitionIterator partition = new PartitionIterator(controller.getPartition(key, executionController), operationTree);
+                    try
                     {
-                        Row staticRow = partition.staticRow();
-                        List<Unfiltered> clusters = new ArrayList<>();
-
-                        while (partition.hasNext())
-                        {
-                            Unfiltered row = partition.next();
-                            if (operationTree.satisfiedBy(row, staticRow, true))
-                                clusters.add(row);
-                        }
-
-                        if (!clusters.isEmpty())
-                            return new PartitionIterator(partition, clusters);
+                        if (partition.hasNext())
+                            return partition;
                     }
+                    catch (Throwable t)
+                    {
+                        partition.close();
+                        throw t;
+                    }
+                    partition.close();
                 }
             }
         }
 
+        /**
+         * Filters the rows of a partition lazily, so that the rows following the ones needed to satisfy the limits
+         * of the query are neither read nor checked against the expressions.
+         */
         private static class PartitionIterator extends AbstractUnfilteredRowIterator
         {
-            private final Iterator<Unfiltered> rows;
+            private final UnfilteredRowIterator partition;
+            private final Operation operationTree;
 
-            public PartitionIterator(UnfilteredRowIterator partition, Collection<Unfiltered> content)
+            public PartitionIterator(UnfilteredRowIterator partition, Operation operationTree)
             {
                 super(partition.metadata(),
                       partition.partitionKey(),
@@ -143,13 +145,26 @@ public class QueryPlan
                       partition.isReverseOrder(),
                       partition.stats());
 
-                rows = content.iterator();
+                this.partition = partition;
+                this.operationTree = operationTree;
             }
 
             @Override
             protected Unfiltered computeNext()
             {
-                return rows.hasNext() ? rows.next() : endOfData();
+                while (partition.hasNext())
+                {
+                    Unfiltered row = partition.next();
+                    if (operationTree.satisfiedBy(row, staticRow, true))
+                        return row;
+                }
+                return endOfData();
+            }
+
+            @Override
+            public void close()
+            {
+                partition.close();
             }
         }
 
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.IOException;
+
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.format.Version;
+import org.apache.cassandra.io.util.DataOutputPlus;
+
+/**
+ * A partition read by a full scan of an sstable that compaction leaves unchanged, because the sstable has neither
+ * deletions nor expiring data (so nothing to purge), nor data of dropped columns (so nothing skipped when reading it).
+ * <p>
+ * When such a partition isn't merged with other versions of it, it can be written to the compacted sstable by copying
+ * its serialized form rather than by serializing its content again, provided both sstables serialize it the same way
+ * (see {@link #isCopyableTo}).
+ */
+public interface CopyablePartition extends UnfilteredRowIterator
+{
+    /**
+     * The sstable the partition is read from.
+     */
+    public SSTableReader sstable();
+
+    /**
+     * The size of the serialized partition in the data file of {@link #sstable()}, partition key included.
+     */
+    public long serializedSize();
+
+    /**
+     * Whether an sstable of the provided version and header would serialize the partition exactly the same way.
+     */
+    public boolean isCopyableTo(Version version, SerializationHeader header);
+
+    /**
+     * Copies the serialized partition, as is, to the provided output.
+     * <p>
+     * The partition content can't be iterated over anymore once copied.
+     */
+    public void copyTo(DataOutputPlus out) throws IOException;
+}
@@ -26,6 +26,8 @@ import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.utils.memory.AbstractAllocator;
+import org.apache.cassandra.utils.memory.HeapAllocator;
 
 public class SSTableIdentityIterator extends AbstractIterator<Unfiltered> implements Comparable<SSTableIdentityIterator>, UnfilteredRowIterator
 {
@@ -44,6 +46,20 @@ public class SSTableIdentityIterator extends AbstractIterator<Unfiltered> implem
      * @param key Key of this row.
      */
     public SSTableIdentityIterator(SSTableReader sstable, RandomAccessReader file, DecoratedKey key)
+    {
+        this(sstable, file, key, BTreeRow.sortedBuilder(), HeapAllocator.instance);
+    }
+
+    /**
+     * Used to iterate through the columns of a row, as part of a sequential scan of the sstable whose rows don't need
+     * to outlive the scan much, like a compaction.
+     * @param sstable SSTable we are reading from.
+     * @param file Reading using this file.
+     * @param key Key of this row.
+     * @param builder Sorted builder to build the rows with, shared by the partitions of the scan.
+     * @param valueAllocator Allocator for the cell values, shared by the partitions of the scan.
+     */
+    public SSTableIdentityIterator(SSTableReader sstable, RandomAccessReader file, DecoratedKey key, Row.Builder builder, AbstractAllocator valueAllocator)
     {
         this.sstable = sstable;
         this.filename = file.getPath();
@@ -52,8 +68,8 @@ public class SSTableIdentityIterator extends AbstractIterator<Unfiltered> implem
         try
         {
             this.partitionLevelDeletion = DeletionTime.serializer.deserialize(file);
-            SerializationHelper helper = new SerializationHelper(sstable.metadata, sstable.descriptor.version.correspondingMessagingVersion(), SerializationHelper.Flag.LOCAL);
-            this.iterator = SSTableSimpleIterator.create(sstable.metadata, file, sstable.header, helper, partitionLevelDeletion);
+            SerializationHelper helper = new SerializationHelper(sstable.metadata, sstable.descriptor.version.correspondingMessagingVersion(), SerializationHelper.Flag.LOCAL, null, valueAllocator);
+            this.iterator = SSTableSimpleIterator.create(sstable.metadata, file, sstable.header, helper, partitionLevelDeletion, builder);
             this.staticRow = iterator.readStaticRow();
         }
         catch (IOException e)
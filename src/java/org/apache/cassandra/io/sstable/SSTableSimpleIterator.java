@@ -52,11 +52,20 @@ public abstract class SSTableSimpleIterator extends AbstractIterator<Unfiltered>
     }
 
     public static SSTableSimpleIterator create(CFMetaData metadata, DataInputPlus in, SerializationHeader header, SerializationHelper helper, DeletionTime partitionDeletion)
+    {
+        return create(metadata, in, header, helper, partitionDeletion, BTreeRow.sortedBuilder());
+    }
+
+    /**
+     * Creates an iterator building its rows with the given (sorted) builder, which can be reused by the next iterator
+     * once this one is exhausted.
+     */
+    public static SSTableSimpleIterator create(CFMetaData metadata, DataInputPlus in, SerializationHeader header, SerializationHelper helper, DeletionTime partitionDeletion, Row.Builder builder)
     {
         if (helper.version < MessagingService.VERSION_30)
             return new OldFormatIterator(metadata, in, helper, partitionDeletion);
         else
-            return new CurrentFormatIterator(metadata, in, header, helper);
+            return new CurrentFormatIterator(metadata, in, header, helper, builder);
     }
 
     public abstract Row readStaticRow() throws IOException;
@@ -67,16 +76,16 @@ public abstract class SSTableSimpleIterator extends AbstractIterator<Unfiltered>
 
         private final Row.Builder builder;
 
-        private CurrentFormatIterator(CFMetaData metadata, DataInputPlus in, SerializationHeader header, SerializationHelper helper)
+        private CurrentFormatIterator(CFMetaData metadata, DataInputPlus in, SerializationHeader header, SerializationHelper helper, Row.Builder builder)
         {
             super(metadata, in, helper);
             this.header = header;
-            this.builder = BTreeRow.sortedBuilder();
+            this.builder = builder;
         }
 
         public Row readStaticRow() throws IOException
         {
-            return header.hasStatic() ? UnfilteredSerializer.serializer.deserializeStaticRow(in, header, helper) : Rows.EMPTY_STATIC_ROW;
+            return header.hasStatic() ? UnfilteredSerializer.serializer.deserializeStaticRow(in, header, helper, builder) : Rows.EMPTY_STATIC_ROW;
         }
 
         protected Unfiltered computeNext()
@@ -1273,6 +1273,27 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         return bf;
     }
 
+    /**
+     * @return false if the bloom filter tells that the given partition isn't in this sstable, true if it may be.
+     */
+    public boolean mayContain(DecoratedKey key)
+    {
+        return bf.isPresent(key);
+    }
+
+    /**
+     * @return the deletion time of the given partition if it can be known without reading the data file, i.e. if the
+     * partition index entry is cached and holds it, or null otherwise.
+     */
+    public DeletionTime getCachedPartitionDeletion(DecoratedKey key)
+    {
+        if (!hasTombstones())
+            return DeletionTime.LIVE;
+
+        RowIndexEntry<?> entry = getCachedPosition(key, false);
+        return entry != null && entry.isIndexed() ? entry.deletionTime() : null;
+    }
+
     public long getBloomFilterSerializedSize()
     {
         return bf.serializedSize();
@@ -1661,7 +1682,19 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
      */
     public ISSTableScanner getScanner(ColumnFilter columns, DataRange dataRange, boolean isForThrift)
     {
-        return getScanner(columns, dataRange, null, isForThrift);
+        return getScanner(columns, dataRange, null, isForThrift, false);
+    }
+
+    /**
+     * @param columns the columns to return.
+     * @param dataRange filter to use when reading the columns
+     * @param sequential whether the scan is expected to read a large part of the sstable, in which case it reads
+     * its files sequentially (see {@link FileHandle#createSequentialReader})
+     * @return A Scanner for seeking over the rows of the SSTable.
+     */
+    public ISSTableScanner getScanner(ColumnFilter columns, DataRange dataRange, boolean isForThrift, boolean sequential)
+    {
+        return getScanner(columns, dataRange, null, isForThrift, sequential);
     }
 
     /**
@@ -1703,9 +1736,10 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
     /**
      * @param columns the columns to return.
      * @param dataRange filter to use when reading the columns
+     * @param sequential whether the scan is expected to read a large part of the sstable
      * @return A Scanner for seeking over the rows of the SSTable.
      */
-    public abstract ISSTableScanner getScanner(ColumnFilter columns, DataRange dataRange, RateLimiter limiter, boolean isForThrift);
+    public abstract ISSTableScanner getScanner(ColumnFilter columns, DataRange dataRange, RateLimiter limiter, boolean isForThrift, boolean sequential);
 
     public FileDataInput getFileDataInput(long position)
     {
@@ -1931,6 +1965,15 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         return dfile.createReader();
     }
 
+    /**
+     * @param limiter RateLimiter to use for rate limiting reads, or null
+     * @return a reader of the data file for going through a large part of it, see {@link FileHandle#createSequentialReader}
+     */
+    public RandomAccessReader openSequentialDataReader(RateLimiter limiter)
+    {
+        return dfile.createSequentialReader(limiter);
+    }
+
     public RandomAccessReader openIndexReader()
     {
         if (ifile != null)
@@ -1938,6 +1981,16 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         return null;
     }
 
+    /**
+     * @return a reader of the index file for going through a large part of it, see {@link FileHandle#createSequentialReader}
+     */
+    public RandomAccessReader openSequentialIndexReader()
+    {
+        if (ifile != null)
+            return ifile.createSequentialReader(null);
+        return null;
+    }
+
     public ChannelProxy getDataChannel()
     {
         return dfile.channel;
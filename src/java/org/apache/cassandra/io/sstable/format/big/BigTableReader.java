@@ -77,11 +77,12 @@ public class BigTableReader extends SSTableReader
     /**
      * @param columns the columns to return.
      * @param dataRange filter to use when reading the columns
+     * @param sequential whether the scan is expected to read a large part of the sstable
      * @return A Scanner for seeking over the rows of the SSTable.
      */
-    public ISSTableScanner getScanner(ColumnFilter columns, DataRange dataRange, RateLimiter limiter, boolean isForThrift)
+    public ISSTableScanner getScanner(ColumnFilter columns, DataRange dataRange, RateLimiter limiter, boolean isForThrift, boolean sequential)
     {
-        return BigTableScanner.getScanner(this, columns, dataRange, limiter, isForThrift);
+        return BigTableScanner.getScanner(this, columns, dataRange, limiter, isForThrift, sequential);
     }
 
     /**
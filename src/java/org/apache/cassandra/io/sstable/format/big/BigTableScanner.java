@@ -26,6 +26,7 @@ import com.google.common.collect.Iterators;
 import com.google.common.util.concurrent.RateLimiter;
 
 import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.ColumnDefinition;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.db.filter.*;
@@ -35,14 +36,19 @@ import org.apache.cassandra.dht.AbstractBounds.Boundary;
 import org.apache.cassandra.dht.Bounds;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.CopyablePartition;
 import org.apache.cassandra.io.sstable.CorruptSSTableException;
 import org.apache.cassandra.io.sstable.ISSTableScanner;
 import org.apache.cassandra.io.sstable.SSTableIdentityIterator;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.format.Version;
+import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.io.util.RandomAccessReader;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.memory.AbstractAllocator;
+import org.apache.cassandra.utils.memory.HeapRegionAllocator;
 
 import static org.apache.cassandra.dht.AbstractBounds.isEmpty;
 import static org.apache.cassandra.dht.AbstractBounds.maxLeft;
@@ -50,6 +56,8 @@ import static org.apache.cassandra.dht.AbstractBounds.minRight;
 
 public class BigTableScanner implements ISSTableScanner
 {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
     protected final RandomAccessReader dfile;
     protected final RandomAccessReader ifile;
@@ -63,17 +71,25 @@ public class BigTableScanner implements ISSTableScanner
     private final RowIndexEntry.IndexSerializer rowIndexEntrySerializer;
     private final boolean isForThrift;
 
+    // shared by the partitions of full scans, whose rows are consumed (compacted, validated...) right away
+    private final Row.Builder builder = BTreeRow.sortedBuilder();
+    private final AbstractAllocator valueAllocator = new HeapRegionAllocator();
+
+    // whether the partitions are returned as CopyablePartition, and the buffer used to copy them
+    private final boolean hasCopyablePartitions;
+    private byte[] copyBuffer;
+
     protected Iterator<UnfilteredRowIterator> iterator;
 
     // Full scan of the sstables
     public static ISSTableScanner getScanner(SSTableReader sstable, RateLimiter limiter)
     {
-        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata), null, limiter, false, Iterators.singletonIterator(fullRange(sstable)));
+        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata), null, limiter, false, true, Iterators.singletonIterator(fullRange(sstable)));
     }
 
-    public static ISSTableScanner getScanner(SSTableReader sstable, ColumnFilter columns, DataRange dataRange, RateLimiter limiter, boolean isForThrift)
+    public static ISSTableScanner getScanner(SSTableReader sstable, ColumnFilter columns, DataRange dataRange, RateLimiter limiter, boolean isForThrift, boolean sequential)
     {
-        return new BigTableScanner(sstable, columns, dataRange, limiter, isForThrift, makeBounds(sstable, dataRange).iterator());
+        return new BigTableScanner(sstable, columns, dataRange, limiter, isForThrift, sequential, makeBounds(sstable, dataRange).iterator());
     }
 
     public static ISSTableScanner getScanner(SSTableReader sstable, Collection<Range<Token>> tokenRanges, RateLimiter limiter)
@@ -83,20 +99,33 @@ public class BigTableScanner implements ISSTableScanner
         if (positions.isEmpty())
             return new EmptySSTableScanner(sstable);
 
-        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata), null, limiter, false, makeBounds(sstable, tokenRanges).iterator());
+        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata), null, limiter, false, true, makeBounds(sstable, tokenRanges).iterator());
     }
 
     public static ISSTableScanner getScanner(SSTableReader sstable, Iterator<AbstractBounds<PartitionPosition>> rangeIterator)
     {
-        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata), null, null, false, rangeIterator);
+        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata), null, null, false, true, rangeIterator);
     }
 
-    private BigTableScanner(SSTableReader sstable, ColumnFilter columns, DataRange dataRange, RateLimiter limiter, boolean isForThrift, Iterator<AbstractBounds<PartitionPosition>> rangeIterator)
+    /**
+     * @param sequential whether the scan is expected to read a large part of the sstable, in which case its files are
+     * read sequentially, in large blocks and bypassing the chunk cache. This is always the case of the scans without
+     * data range, which are the ones of compaction, validation...
+     */
+    private BigTableScanner(SSTableReader sstable, ColumnFilter columns, DataRange dataRange, RateLimiter limiter, boolean isForThrift, boolean sequential, Iterator<AbstractBounds<PartitionPosition>> rangeIterator)
     {
         assert sstable != null;
 
-        this.dfile = limiter == null ? sstable.openDataReader() : sstable.openDataReader(limiter);
-        this.ifile = sstable.openIndexReader();
+        if (sequential)
+        {
+            this.dfile = sstable.openSequentialDataReader(limiter);
+            this.ifile = sstable.openSequentialIndexReader();
+        }
+        else
+        {
+            this.dfile = limiter == null ? sstable.openDataReader() : sstable.openDataReader(limiter);
+            this.ifile = sstable.openIndexReader();
+        }
         this.sstable = sstable;
         this.columns = columns;
         this.dataRange = dataRange;
@@ -105,6 +134,23 @@ public class BigTableScanner implements ISSTableScanner
                                                                                                         sstable.header);
         this.isForThrift = isForThrift;
         this.rangeIterator = rangeIterator;
+        this.hasCopyablePartitions = dataRange == null && isLeftUnchangedByCompaction(sstable);
+    }
+
+    /**
+     * Whether compacting the sstable can't change its partitions, see {@link CopyablePartition}.
+     */
+    private static boolean isLeftUnchangedByCompaction(SSTableReader sstable)
+    {
+        if (!sstable.descriptor.version.storeRows() || sstable.hasTombstones())
+            return false;
+
+        for (ColumnDefinition column : sstable.header.columns())
+        {
+            if (sstable.metadata.getDroppedColumns().containsKey(column.name.bytes))
+                return false;
+        }
+        return true;
     }
 
     private static List<AbstractBounds<PartitionPosition>> makeBounds(SSTableReader sstable, Collection<Range<Token>> tokenRanges)
@@ -298,6 +344,8 @@ public class BigTableScanner implements ISSTableScanner
                     currentEntry = nextEntry;
                 }
 
+                // the end of the current partition, which is the start of the next one if any
+                long currentEnd = dfile.length();
                 if (ifile.isEOF())
                 {
                     nextEntry = null;
@@ -308,6 +356,7 @@ public class BigTableScanner implements ISSTableScanner
                     // we need the position of the start of the next key, regardless of whether it falls in the current range
                     nextKey = sstable.decorateKey(ByteBufferUtil.readWithShortLength(ifile));
                     nextEntry = rowIndexEntrySerializer.deserialize(ifile, ifile.getFilePointer());
+                    currentEnd = nextEntry.position;
 
                     if (!currentRange.contains(nextKey))
                     {
@@ -316,6 +365,9 @@ public class BigTableScanner implements ISSTableScanner
                     }
                 }
 
+                if (hasCopyablePartitions)
+                    return new SSTableCopyablePartition(currentKey, currentEntry.position, currentEnd - currentEntry.position);
+
                 /*
                  * For a given partition key, we want to avoid hitting the data
                  * file unless we're explicitely asked to. This is important
@@ -328,11 +380,7 @@ public class BigTableScanner implements ISSTableScanner
                         try
                         {
                             if (dataRange == null)
-                            {
-                                dfile.seek(currentEntry.position);
-                                ByteBufferUtil.skipShortLength(dfile); // key
-                                return new SSTableIdentityIterator(sstable, dfile, partitionKey());
-                            }
+                                return openFullScanPartition(partitionKey(), currentEntry.position);
 
                             ClusteringIndexFilter filter = dataRange.clusteringIndexFilter(partitionKey());
                             return sstable.iterator(dfile, partitionKey(), currentEntry, filter.getSlices(BigTableScanner.this.metadata()), columns, filter.isReversed(), isForThrift);
@@ -353,6 +401,92 @@ public class BigTableScanner implements ISSTableScanner
         }
     }
 
+    private UnfilteredRowIterator openFullScanPartition(DecoratedKey key, long position) throws IOException
+    {
+        dfile.seek(position);
+        ByteBufferUtil.skipShortLength(dfile); // key
+        return new SSTableIdentityIterator(sstable, dfile, key, builder, valueAllocator);
+    }
+
+    /**
+     * A partition of a full scan of an sstable that compaction leaves unchanged.
+     */
+    private class SSTableCopyablePartition extends LazilyInitializedUnfilteredRowIterator implements CopyablePartition
+    {
+        private final long position;
+        private final long size;
+
+        private SSTableCopyablePartition(DecoratedKey key, long position, long size)
+        {
+            super(key);
+            this.position = position;
+            this.size = size;
+        }
+
+        protected UnfilteredRowIterator initializeIterator()
+        {
+            try
+            {
+                return openFullScanPartition(partitionKey(), position);
+            }
+            catch (CorruptSSTableException | IOException e)
+            {
+                sstable.markSuspect();
+                throw new CorruptSSTableException(e, sstable.getFilename());
+            }
+        }
+
+        public SSTableReader sstable()
+        {
+            return sstable;
+        }
+
+        public long serializedSize()
+        {
+            return size;
+        }
+
+        public boolean isCopyableTo(Version version, SerializationHeader header)
+        {
+            if (!sstable.descriptor.version.equals(version)
+                || !sstable.header.clusteringTypes().equals(header.clusteringTypes())
+                || !sstable.header.columns().equals(header.columns())
+                // live and non-expiring data only uses the min timestamp of the encoding stats
+                || sstable.header.stats().minTimestamp != header.stats().minTimestamp)
+                return false;
+
+            for (ColumnDefinition column : header.columns())
+            {
+                if (!sstable.header.getType(column).equals(header.getType(column)))
+                    return false;
+            }
+            return true;
+        }
+
+        public void copyTo(DataOutputPlus out) throws IOException
+        {
+            if (copyBuffer == null)
+                copyBuffer = new byte[COPY_BUFFER_SIZE];
+
+            dfile.seek(position);
+            for (long remaining = size; remaining > 0; )
+            {
+                int length = (int) Math.min(remaining, copyBuffer.length);
+                try
+                {
+                    dfile.readFully(copyBuffer, 0, length);
+                }
+                catch (CorruptSSTableException | IOException e)
+                {
+                    sstable.markSuspect();
+                    throw new CorruptSSTableException(e, sstable.getFilename());
+                }
+                out.write(copyBuffer, 0, length);
+                remaining -= length;
+            }
+        }
+    }
+
     @Override
     public String toString()
     {
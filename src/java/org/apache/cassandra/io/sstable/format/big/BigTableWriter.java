@@ -159,6 +159,9 @@ public class BigTableWriter extends SSTableWriter
             return null;
         }
 
+        if (iterator instanceof CopyablePartition && canCopy((CopyablePartition) iterator))
+            return copy((CopyablePartition) iterator);
+
         if (iterator.isEmpty())
             return null;
 
@@ -198,6 +201,38 @@ public class BigTableWriter extends SSTableWriter
         }
     }
 
+    /**
+     * Whether the partition can be copied as is. As copied partitions aren't read, they must be small enough not to
+     * need a row index, and there must be no observers to notify of their content.
+     */
+    private boolean canCopy(CopyablePartition partition)
+    {
+        return observers.isEmpty()
+               && partition.serializedSize() < DatabaseDescriptor.getColumnIndexSize()
+               && partition.isCopyableTo(descriptor.version, header);
+    }
+
+    private RowIndexEntry<IndexInfo> copy(CopyablePartition partition)
+    {
+        DecoratedKey key = partition.partitionKey();
+        long startPosition = beforeAppend(key);
+        try
+        {
+            partition.copyTo(dataFile);
+
+            RowIndexEntry<IndexInfo> entry = new RowIndexEntry<>(startPosition);
+            long endPosition = dataFile.position();
+            metadataCollector.addPartitionSizeInBytes(endPosition - startPosition);
+            metadataCollector.updateCopiedPartition(partition.sstable().getSSTableMetadata());
+            afterAppend(key, endPosition, entry, null);
+            return entry;
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, dataFile.getPath());
+        }
+    }
+
     private RowIndexEntry.IndexSerializer<IndexInfo> getRowIndexEntrySerializer()
     {
         return (RowIndexEntry.IndexSerializer<IndexInfo>) rowIndexEntrySerializer;
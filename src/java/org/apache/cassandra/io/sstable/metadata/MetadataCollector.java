@@ -101,6 +101,7 @@ public class MetadataCollector implements PartitionStatisticsCollector
     protected boolean hasLegacyCounterShards = false;
     protected long totalColumnsSet;
     protected long totalRows;
+    private StatsMetadata lastCopiedPartitionStats;
 
     /**
      * Default cardinality estimation method is to use HyperLogLog++.
@@ -248,11 +249,47 @@ public class MetadataCollector implements PartitionStatisticsCollector
     {
         int size = clustering.size();
         for (int i = 0; i < size; i++)
+            updateClusteringValue(i, clustering.get(i));
+        return this;
+    }
+
+    private void updateClusteringValue(int i, ByteBuffer newValue)
+    {
+        AbstractType<?> type = comparator.subtype(i);
+        minClusteringValues[i] = maybeMinimize(min(minClusteringValues[i], newValue, type));
+        maxClusteringValues[i] = maybeMinimize(max(maxClusteringValues[i], newValue, type));
+    }
+
+    /**
+     * Updates the stats with the ones of a partition copied as is, without being read, from an sstable with the
+     * provided stats: the bounds (of timestamps, deletion times, TTLs and clustering values) are widened to the ones of
+     * the whole sstable, and the counts are estimated from the averages of the sstable.
+     */
+    public MetadataCollector updateCopiedPartition(StatsMetadata stats)
+    {
+        // the bounds only change with the first partition copied from an sstable
+        if (stats != lastCopiedPartitionStats)
+        {
+            lastCopiedPartitionStats = stats;
+            updateTimestamp(stats.minTimestamp);
+            updateTimestamp(stats.maxTimestamp);
+            localDeletionTimeTracker.update(stats.minLocalDeletionTime);
+            localDeletionTimeTracker.update(stats.maxLocalDeletionTime);
+            updateTTL(stats.minTTL);
+            updateTTL(stats.maxTTL);
+            for (int i = 0; i < stats.minClusteringValues.size(); i++)
+                updateClusteringValue(i, stats.minClusteringValues.get(i));
+            for (int i = 0; i < stats.maxClusteringValues.size(); i++)
+                updateClusteringValue(i, stats.maxClusteringValues.get(i));
+            updateHasLegacyCounterShards(stats.hasLegacyCounterShards);
+        }
+
+        long partitions = stats.estimatedColumnCount.count();
+        if (partitions > 0)
         {
-            AbstractType<?> type = comparator.subtype(i);
-            ByteBuffer newValue = clustering.get(i);
-            minClusteringValues[i] = maybeMinimize(min(minClusteringValues[i], newValue, type));
-            maxClusteringValues[i] = maybeMinimize(max(maxClusteringValues[i], newValue, type));
+            addCellPerPartitionCount(stats.estimatedColumnCount.mean());
+            totalColumnsSet += Math.round((double) stats.totalColumnsSet / partitions);
+            totalRows += Math.round((double) stats.totalRows / partitions);
         }
         return this;
     }
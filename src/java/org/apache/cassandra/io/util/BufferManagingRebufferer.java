@@ -40,19 +40,33 @@ public abstract class BufferManagingRebufferer implements Rebufferer, Rebufferer
     abstract long alignedPosition(long position);
 
     protected BufferManagingRebufferer(ChunkReader wrapped)
+    {
+        this(wrapped, BufferPool.get(wrapped.chunkSize(), wrapped.preferredBufferType()));
+    }
+
+    /**
+     * @param buffer a buffer of at least {@code wrapped.chunkSize()} bytes, released by {@link #releaseBuffer} once
+     * the reader is closed
+     */
+    protected BufferManagingRebufferer(ChunkReader wrapped, ByteBuffer buffer)
     {
         this.source = wrapped;
-        buffer = BufferPool.get(wrapped.chunkSize(), wrapped.preferredBufferType()).order(ByteOrder.BIG_ENDIAN);
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
         buffer.limit(0);
     }
 
     @Override
     public void closeReader()
     {
-        BufferPool.put(buffer);
+        releaseBuffer(buffer);
         offset = -1;
     }
 
+    protected void releaseBuffer(ByteBuffer buffer)
+    {
+        BufferPool.put(buffer);
+    }
+
     @Override
     public void close()
     {
@@ -132,10 +146,16 @@ public abstract class BufferManagingRebufferer implements Rebufferer, Rebufferer
             assert Integer.bitCount(wrapped.chunkSize()) == 1;
         }
 
+        public Aligned(ChunkReader wrapped, ByteBuffer buffer)
+        {
+            super(wrapped, buffer);
+            assert Integer.bitCount(wrapped.chunkSize()) == 1;
+        }
+
         @Override
         long alignedPosition(long position)
         {
-            return position & -buffer.capacity();
+            return position & -source.chunkSize();
         }
     }
 }
@@ -48,4 +48,15 @@ public interface ChunkReader extends RebuffererFactory
      * This is not guaranteed to be fulfilled.
      */
     BufferType preferredBufferType();
+
+    /**
+     * A reader for a single {@link RandomAccessReader} going through (a large part of) the file sequentially, that
+     * reads the file in aligned blocks of about {@code readAheadSize} bytes rather than chunk by chunk, or this reader
+     * if it has no better way to read the file sequentially.
+     * Note: unlike the other implementations, the returned reader may not be thread-safe.
+     */
+    default ChunkReader forSequentialReads(int readAheadSize)
+    {
+        return this;
+    }
 }
\ No newline at end of file
@@ -29,6 +29,7 @@ import org.apache.cassandra.io.compress.BufferType;
 import org.apache.cassandra.io.compress.CompressionMetadata;
 import org.apache.cassandra.io.compress.CorruptBlockException;
 import org.apache.cassandra.io.sstable.CorruptSSTableException;
+import org.apache.cassandra.utils.memory.BufferPool;
 
 public abstract class CompressedChunkReader extends AbstractReaderFileProxy implements ChunkReader
 {
@@ -107,20 +108,10 @@ public abstract class CompressedChunkReader extends AbstractReaderFileProxy impl
                 assert position <= fileLength;
 
                 CompressionMetadata.Chunk chunk = metadata.chunkFor(position);
-                ByteBuffer compressed = compressedHolder.get();
-
-                if (compressed.capacity() < chunk.length)
-                {
-                    compressed = allocateBuffer(chunk.length);
-                    compressedHolder.set(compressed);
-                }
-                else
-                {
-                    compressed.clear();
-                }
+                ByteBuffer compressed = compressedBuffer(chunk.length);
 
                 compressed.limit(chunk.length);
-                if (channel.read(compressed, chunk.offset) != chunk.length)
+                if (read(compressed, chunk.offset) != chunk.length)
                     throw new CorruptBlockException(channel.filePath(), chunk);
 
                 compressed.flip();
@@ -145,7 +136,7 @@ public abstract class CompressedChunkReader extends AbstractReaderFileProxy impl
                     int checksum = (int) metadata.checksumType.of(compressed);
 
                     compressed.clear().limit(Integer.BYTES);
-                    if (channel.read(compressed, chunk.offset + chunk.length) != Integer.BYTES
+                    if (read(compressed, chunk.offset + chunk.length) != Integer.BYTES
                                 || compressed.getInt(0) != checksum)
                         throw new CorruptBlockException(channel.filePath(), chunk);
                 }
@@ -155,6 +146,140 @@ public abstract class CompressedChunkReader extends AbstractReaderFileProxy impl
                 throw new CorruptSSTableException(e, channel.filePath());
             }
         }
+
+        /**
+         * @return a cleared buffer to read the compressed bytes of a chunk of the given length into
+         */
+        protected ByteBuffer compressedBuffer(int length)
+        {
+            ByteBuffer compressed = compressedHolder.get();
+
+            if (compressed.capacity() < length)
+            {
+                compressed = allocateBuffer(length);
+                compressedHolder.set(compressed);
+            }
+            else
+            {
+                compressed.clear();
+            }
+            return compressed;
+        }
+
+        /**
+         * Reads the compressed bytes at the given position of the file into the remaining space of the buffer.
+         */
+        protected int read(ByteBuffer buffer, long position)
+        {
+            return channel.read(buffer, position);
+        }
+
+        @Override
+        public ChunkReader forSequentialReads(int readAheadSize)
+        {
+            return readAheadSize > chunkSize() ? new ReadAhead(channel, metadata, readAheadSize) : this;
+        }
+    }
+
+    /**
+     * A {@link Standard} reader for a single reader going through the file sequentially: the compressed chunks are
+     * read from a buffer, filled by reading the file {@code readAheadSize} bytes at a time at aligned positions,
+     * rather than from the file one by one.
+     * Not thread-safe.
+     */
+    static class ReadAhead extends Standard
+    {
+        private static final int ALIGNMENT = 4096;
+
+        private final int readAheadSize;
+        private ByteBuffer readAhead;
+        // the position in the file of the content of readAhead
+        private long readAheadPosition;
+        // the reader being single-threaded, it doesn't need the thread local buffers of Standard
+        private ByteBuffer compressed;
+
+        ReadAhead(ChannelProxy channel, CompressionMetadata metadata, int readAheadSize)
+        {
+            super(channel, metadata);
+            assert readAheadSize % ALIGNMENT == 0;
+            this.readAheadSize = readAheadSize;
+        }
+
+        @Override
+        protected ByteBuffer compressedBuffer(int length)
+        {
+            if (compressed == null || compressed.capacity() < length)
+            {
+                if (compressed != null)
+                    BufferPool.put(compressed);
+                compressed = BufferPool.get(Math.max(length, metadata.compressor().initialCompressedBufferLength(metadata.chunkLength())),
+                                            metadata.compressor().preferredBufferType());
+            }
+            else
+            {
+                compressed.clear();
+            }
+            return compressed;
+        }
+
+        @Override
+        protected int read(ByteBuffer buffer, long position)
+        {
+            int length = buffer.remaining();
+            if (readAhead == null || position < readAheadPosition || position + length > readAheadPosition + readAhead.limit())
+            {
+                long alignedPosition = position & -ALIGNMENT;
+                // the chunk wouldn't fit in the read-ahead buffer
+                if (position + length > alignedPosition + readAheadSize)
+                    return channel.read(buffer, position);
+
+                if (readAhead == null)
+                    readAhead = FileHandle.readAheadBuffers.createBuffer(BufferType.OFF_HEAP);
+                readAhead.clear().limit(readAheadSize);
+                readAheadPosition = alignedPosition;
+                channel.read(readAhead, readAheadPosition);
+                readAhead.flip();
+
+                // end of file (or short read): let the caller find out
+                if (position + length > readAheadPosition + readAhead.limit())
+                    return channel.read(buffer, position);
+            }
+
+            ByteBuffer source = readAhead.duplicate();
+            source.position(Ints.checkedCast(position - readAheadPosition));
+            source.limit(source.position() + length);
+            buffer.put(source);
+            return length;
+        }
+
+        @Override
+        public Rebufferer instantiateRebufferer()
+        {
+            return new BufferManagingRebufferer.Aligned(this)
+            {
+                @Override
+                public void closeReader()
+                {
+                    super.closeReader();
+                    if (readAhead != null)
+                    {
+                        FileHandle.readAheadBuffers.releaseBuffer(readAhead);
+                        readAhead = null;
+                    }
+                    if (compressed != null)
+                    {
+                        BufferPool.put(compressed);
+                        compressed = null;
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ChunkReader forSequentialReads(int readAheadSize)
+        {
+            return this;
+        }
     }
 
     public static class Mmap extends CompressedChunkReader
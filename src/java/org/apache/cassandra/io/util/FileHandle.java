@@ -19,12 +19,14 @@ package org.apache.cassandra.io.util;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Semaphore;
 
 import com.google.common.util.concurrent.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.db.commitlog.SimpleCachedBufferPool;
 import org.apache.cassandra.io.compress.BufferType;
 import org.apache.cassandra.io.compress.CompressionMetadata;
 import org.apache.cassandra.utils.CLibrary;
@@ -50,6 +52,26 @@ public class FileHandle extends SharedCloseableImpl
 {
     private static final Logger logger = LoggerFactory.getLogger(FileHandle.class);
 
+    /**
+     * The size of the reads of the readers created by {@link #createSequentialReader}, a power of two.
+     */
+    public static final int SEQUENTIAL_READ_AHEAD_SIZE = Integer.highestOneBit(Math.max(64, Integer.getInteger("cassandra.sequential_read_ahead_size_in_kb", 256))) << 10;
+
+    /**
+     * The maximum number of sequential readers reading ahead at any time, each using a buffer of
+     * {@link #SEQUENTIAL_READ_AHEAD_SIZE} bytes: the sequential readers created past it are regular readers.
+     */
+    public static final int MAX_READ_AHEAD_BUFFERS = Integer.getInteger("cassandra.sequential_read_ahead_buffers", 64);
+
+    /**
+     * The buffers of {@link #SEQUENTIAL_READ_AHEAD_SIZE} bytes the sequential readers read into, which are too large
+     * for {@link org.apache.cassandra.utils.memory.BufferPool} to pool them.
+     */
+    static final SimpleCachedBufferPool readAheadBuffers = new SimpleCachedBufferPool(MAX_READ_AHEAD_BUFFERS, SEQUENTIAL_READ_AHEAD_SIZE);
+
+    // taken by the sequential readers reading ahead until closed, bounding the memory used by the read-ahead buffers
+    private static final Semaphore readAheadPermits = new Semaphore(MAX_READ_AHEAD_BUFFERS);
+
     public final ChannelProxy channel;
 
     public final long onDiskLength;
@@ -59,6 +81,17 @@ public class FileHandle extends SharedCloseableImpl
      */
     private final RebuffererFactory rebuffererFactory;
 
+    /*
+     * The reader of the file that rebuffererFactory may wrap (in a chunk cache), or null if the file is read through
+     * mmapped regions only
+     */
+    private final ChunkReader chunkReader;
+
+    /*
+     * The sequential readers of the file currently open, shared with the copies of this handle
+     */
+    private final SequentialReaders sequentialReaders;
+
     /*
      * Optional CompressionMetadata when dealing with compressed file
      */
@@ -67,11 +100,14 @@ public class FileHandle extends SharedCloseableImpl
     private FileHandle(Cleanup cleanup,
                        ChannelProxy channel,
                        RebuffererFactory rebuffererFactory,
+                       ChunkReader chunkReader,
                        CompressionMetadata compressionMetadata,
                        long onDiskLength)
     {
         super(cleanup);
         this.rebuffererFactory = rebuffererFactory;
+        this.chunkReader = chunkReader;
+        this.sequentialReaders = new SequentialReaders();
         this.channel = channel;
         this.compressionMetadata = Optional.ofNullable(compressionMetadata);
         this.onDiskLength = onDiskLength;
@@ -82,6 +118,8 @@ public class FileHandle extends SharedCloseableImpl
         super(copy);
         channel = copy.channel;
         rebuffererFactory = copy.rebuffererFactory;
+        chunkReader = copy.chunkReader;
+        sequentialReaders = copy.sequentialReaders;
         compressionMetadata = copy.compressionMetadata;
         onDiskLength = copy.onDiskLength;
     }
@@ -144,6 +182,44 @@ public class FileHandle extends SharedCloseableImpl
         return new RandomAccessReader(instantiateRebufferer(limiter));
     }
 
+    /**
+     * Create {@link RandomAccessReader} for reading (a large part of) the file sequentially, like full scans do.
+     * Unlike the other readers, it doesn't go through the chunk cache, which the scan would evict everything else
+     * from, and it reads the file in large aligned blocks of {@link #SEQUENTIAL_READ_AHEAD_SIZE} bytes. The OS is
+     * also advised that the file is read sequentially, until the last sequential reader of the file is closed: the
+     * advice applies to the file descriptor shared by all the readers of the file, and would otherwise make the OS
+     * read ahead more than needed for the other ones.
+     * <p>
+     * At most {@link #MAX_READ_AHEAD_BUFFERS} readers read ahead at any time: past it, this returns a regular reader.
+     *
+     * @param limiter RateLimiter to use for rate limiting read, or null
+     * @return RandomAccessReader for the file
+     */
+    public RandomAccessReader createSequentialReader(RateLimiter limiter)
+    {
+        if (chunkReader == null)
+            return new SequentialReader(instantiateRebufferer(limiter), sequentialReaders, false);
+
+        // no need for buffers (much) larger than the file
+        int readAheadSize = (int) Math.min(SEQUENTIAL_READ_AHEAD_SIZE, Math.max(4096, Long.highestOneBit(Math.max(onDiskLength - 1, 1)) << 1));
+        ChunkReader sequentialChunkReader = chunkReader.forSequentialReads(readAheadSize);
+        if (sequentialChunkReader == chunkReader)
+            return new SequentialReader(instantiateRebufferer(chunkReader, limiter), sequentialReaders, false);
+
+        if (!readAheadPermits.tryAcquire())
+            return createReader(limiter);
+
+        try
+        {
+            return new SequentialReader(instantiateRebufferer(sequentialChunkReader, limiter), sequentialReaders, true);
+        }
+        catch (Throwable t)
+        {
+            readAheadPermits.release();
+            throw t;
+        }
+    }
+
     public FileDataInput createReader(long position)
     {
         RandomAccessReader reader = createReader();
@@ -168,6 +244,11 @@ public class FileHandle extends SharedCloseableImpl
     }
 
     private Rebufferer instantiateRebufferer(RateLimiter limiter)
+    {
+        return instantiateRebufferer(rebuffererFactory, limiter);
+    }
+
+    private static Rebufferer instantiateRebufferer(RebuffererFactory rebuffererFactory, RateLimiter limiter)
     {
         Rebufferer rebufferer = rebuffererFactory.instantiateRebufferer();
 
@@ -179,6 +260,62 @@ public class FileHandle extends SharedCloseableImpl
     /**
      * Perform clean up of all resources held by {@link FileHandle}.
      */
+    /**
+     * Counts the sequential readers open on a file, for the OS to be advised that the file is read sequentially as
+     * long as there is any.
+     */
+    private static class SequentialReaders
+    {
+        private int count;
+
+        synchronized void opened(ChannelProxy channel)
+        {
+            if (count++ == 0)
+                CLibrary.tryAdviseSequential(channel.getFileDescriptor(), channel.filePath());
+        }
+
+        synchronized void closed(ChannelProxy channel)
+        {
+            if (--count == 0)
+                CLibrary.tryAdviseNormal(channel.getFileDescriptor(), channel.filePath());
+        }
+    }
+
+    private static class SequentialReader extends RandomAccessReader
+    {
+        private final SequentialReaders readers;
+        private final boolean readsAhead;
+        private boolean closed;
+
+        SequentialReader(Rebufferer rebufferer, SequentialReaders readers, boolean readsAhead)
+        {
+            super(rebufferer);
+            this.readers = readers;
+            this.readsAhead = readsAhead;
+            readers.opened(rebufferer.channel());
+        }
+
+        @Override
+        public void close()
+        {
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                // close needs to be idempotent
+                if (!closed)
+                {
+                    closed = true;
+                    readers.closed(rebufferer.channel());
+                    if (readsAhead)
+                        readAheadPermits.release();
+                }
+            }
+        }
+    }
+
     private static class Cleanup implements RefCounted.Tidy
     {
         final ChannelProxy channel;
@@ -355,17 +492,19 @@ public class FileHandle extends SharedCloseableImpl
                 long length = overrideLength > 0 ? overrideLength : compressed ? compressionMetadata.compressedFileLength : channelCopy.size();
 
                 RebuffererFactory rebuffererFactory;
+                ChunkReader chunkReader;
                 if (mmapped)
                 {
                     if (compressed)
                     {
                         regions = MmappedRegions.map(channelCopy, compressionMetadata);
-                        rebuffererFactory = maybeCached(new CompressedChunkReader.Mmap(channelCopy, compressionMetadata,
-                                                                                       regions));
+                        chunkReader = new CompressedChunkReader.Mmap(channelCopy, compressionMetadata, regions);
+                        rebuffererFactory = maybeCached(chunkReader);
                     }
                     else
                     {
                         updateRegions(channelCopy, length);
+                        chunkReader = null;
                         rebuffererFactory = new MmapRebufferer(channelCopy, length, regions.sharedCopy());
                     }
                 }
@@ -374,15 +513,16 @@ public class FileHandle extends SharedCloseableImpl
                     regions = null;
                     if (compressed)
                     {
-                        rebuffererFactory = maybeCached(new CompressedChunkReader.Standard(channelCopy, compressionMetadata));
+                        chunkReader = new CompressedChunkReader.Standard(channelCopy, compressionMetadata);
                     }
                     else
                     {
-                        rebuffererFactory = maybeCached(new SimpleChunkReader(channelCopy, length, bufferType, bufferSize));
+                        chunkReader = new SimpleChunkReader(channelCopy, length, bufferType, bufferSize);
                     }
+                    rebuffererFactory = maybeCached(chunkReader);
                 }
                 Cleanup cleanup = new Cleanup(channelCopy, rebuffererFactory, compressionMetadata, chunkCache);
-                return new FileHandle(cleanup, channelCopy, rebuffererFactory, compressionMetadata, length);
+                return new FileHandle(cleanup, channelCopy, rebuffererFactory, chunkReader, compressionMetadata, length);
             }
             catch (Throwable t)
             {
@@ -26,18 +26,27 @@ class SimpleChunkReader extends AbstractReaderFileProxy implements ChunkReader
 {
     private final int bufferSize;
     private final BufferType bufferType;
+    private final boolean aligned;
 
     SimpleChunkReader(ChannelProxy channel, long fileLength, BufferType bufferType, int bufferSize)
+    {
+        this(channel, fileLength, bufferType, bufferSize, false);
+    }
+
+    private SimpleChunkReader(ChannelProxy channel, long fileLength, BufferType bufferType, int bufferSize, boolean aligned)
     {
         super(channel, fileLength);
         this.bufferSize = bufferSize;
         this.bufferType = bufferType;
+        this.aligned = aligned;
     }
 
     @Override
     public void readChunk(long position, ByteBuffer buffer)
     {
+        // the aligned readers' buffers may be larger than their chunks
         buffer.clear();
+        buffer.limit(bufferSize);
         channel.read(buffer, position);
         buffer.flip();
     }
@@ -57,7 +66,26 @@ class SimpleChunkReader extends AbstractReaderFileProxy implements ChunkReader
     @Override
     public Rebufferer instantiateRebufferer()
     {
-        return new BufferManagingRebufferer.Unaligned(this);
+        if (!aligned)
+            return new BufferManagingRebufferer.Unaligned(this);
+
+        return new BufferManagingRebufferer.Aligned(this, FileHandle.readAheadBuffers.createBuffer(BufferType.OFF_HEAP))
+        {
+            @Override
+            protected void releaseBuffer(ByteBuffer buffer)
+            {
+                FileHandle.readAheadBuffers.releaseBuffer(buffer);
+            }
+        };
+    }
+
+    @Override
+    public ChunkReader forSequentialReads(int readAheadSize)
+    {
+        assert Integer.bitCount(readAheadSize) == 1;
+        if (readAheadSize <= bufferSize)
+            return this;
+        return new SimpleChunkReader(channel, fileLength, bufferType, readAheadSize, true);
     }
 
     @Override
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.locator;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Snapshot;
+
+import org.apache.cassandra.concurrent.ScheduledExecutors;
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+/**
+ * Keeps a recent, exponentially decaying, sample of the response latency (in nanoseconds) of every replica
+ * we exchange requests with, so that callers can ask how long a given replica usually takes to answer.
+ *
+ * Unlike the dynamic snitch, which only needs relative scores, the samples are kept at nanosecond precision
+ * and expose actual percentiles. Snapshots are only recomputed every dynamic snitch update interval so that
+ * {@link #percentileNanos(InetAddress, double)} stays cheap enough to be called on the request path.
+ */
+public class ReplicaLatencyTracker
+{
+    public static final ReplicaLatencyTracker instance = new ReplicaLatencyTracker();
+
+    private static final double ALPHA = 0.75; // same bias towards recent values as the dynamic snitch
+    private static final int WINDOW_SIZE = 100;
+
+    private final ConcurrentHashMap<InetAddress, ExponentiallyDecayingReservoir> samples = new ConcurrentHashMap<>();
+    private volatile Map<InetAddress, Snapshot> snapshots = new HashMap<>();
+
+    private ReplicaLatencyTracker()
+    {
+        int updateInterval = DatabaseDescriptor.getDynamicUpdateInterval();
+        ScheduledExecutors.scheduledTasks.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                updateSnapshots();
+            }
+        }, updateInterval, updateInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void update(InetAddress host, long latencyNanos)
+    {
+        ExponentiallyDecayingReservoir sample = samples.get(host);
+        if (sample == null)
+        {
+            ExponentiallyDecayingReservoir maybeNewSample = new ExponentiallyDecayingReservoir(WINDOW_SIZE, ALPHA);
+            sample = samples.putIfAbsent(host, maybeNewSample);
+            if (sample == null)
+                sample = maybeNewSample;
+        }
+        sample.update(latencyNanos);
+    }
+
+    /**
+     * @param quantile the quantile, between 0 and 1
+     * @return the given quantile of the recent response latency of {@code host}, in nanoseconds, or -1 if we
+     * have not heard back from that host recently enough to tell.
+     */
+    public long percentileNanos(InetAddress host, double quantile)
+    {
+        Snapshot snapshot = snapshots.get(host);
+        if (snapshot == null || snapshot.size() == 0)
+            return -1;
+        return (long) snapshot.getValue(quantile);
+    }
+
+    private void updateSnapshots()
+    {
+        HashMap<InetAddress, Snapshot> newSnapshots = new HashMap<>(samples.size());
+        for (Map.Entry<InetAddress, ExponentiallyDecayingReservoir> entry : samples.entrySet())
+            newSnapshots.put(entry.getKey(), entry.getValue().getSnapshot());
+        snapshots = newSnapshots;
+    }
+
+    public void reset()
+    {
+        samples.clear();
+        snapshots = new HashMap<>();
+    }
+}
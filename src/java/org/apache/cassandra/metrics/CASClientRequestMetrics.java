@@ -32,11 +32,32 @@ public class CASClientRequestMetrics extends ClientRequestMetrics
 
     public final Counter unfinishedCommit;
 
+    /* Latency of the requests that did, or did not, have to retry because of contention */
+    public final LatencyMetrics uncontended;
+    public final LatencyMetrics contended;
+
+    /* Reads served by the prepare round, and reads that had to be done separately, with the paxos fast path */
+    public final Counter fastPathReads;
+    public final Counter fastPathReadFallbacks;
+
     public CASClientRequestMetrics(String scope) {
         super(scope);
         contention = Metrics.histogram(factory.createMetricName("ContentionHistogram"), false);
         conditionNotMet =  Metrics.counter(factory.createMetricName("ConditionNotMet"));
         unfinishedCommit =  Metrics.counter(factory.createMetricName("UnfinishedCommit"));
+        uncontended = new LatencyMetrics(factory, "Uncontended");
+        contended = new LatencyMetrics(factory, "Contended");
+        fastPathReads = Metrics.counter(factory.createMetricName("FastPathReads"));
+        fastPathReadFallbacks = Metrics.counter(factory.createMetricName("FastPathReadFallbacks"));
+    }
+
+    public void addNano(long nanos, int contentions)
+    {
+        addNano(nanos);
+        if (contentions > 0)
+            contended.addNano(nanos);
+        else
+            uncontended.addNano(nanos);
     }
 
     public void release()
@@ -45,5 +66,9 @@ public class CASClientRequestMetrics extends ClientRequestMetrics
         Metrics.remove(factory.createMetricName("ContentionHistogram"));
         Metrics.remove(factory.createMetricName("ConditionNotMet"));
         Metrics.remove(factory.createMetricName("UnfinishedCommit"));
+        uncontended.release();
+        contended.release();
+        Metrics.remove(factory.createMetricName("FastPathReads"));
+        Metrics.remove(factory.createMetricName("FastPathReadFallbacks"));
     }
 }
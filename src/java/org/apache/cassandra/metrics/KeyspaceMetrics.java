@@ -19,6 +19,7 @@ package org.apache.cassandra.metrics;
 
 import java.util.Set;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Timer;
@@ -75,6 +76,8 @@ public class KeyspaceMetrics
     public final LatencyMetrics writeLatency;
     /** Histogram of the number of sstable data files accessed per read */
     public final Histogram sstablesPerReadHistogram;
+    /** Histogram of the number of sstables covering the partition read but not accessed per read */
+    public final Histogram sstablesSkippedPerReadHistogram;
     /** Tombstones scanned in queries on this Keyspace */
     public final Histogram tombstoneScannedHistogram;
     /** Live cells scanned in queries on this Keyspace */
@@ -91,6 +94,10 @@ public class KeyspaceMetrics
     public final LatencyMetrics casPropose;
     /** CAS Commit metrics */
     public final LatencyMetrics casCommit;
+    /** Number of executions of a cached prepared statement of this keyspace */
+    public final Counter preparedStatementsHits;
+    /** Number of times a prepared statement of this keyspace was prepared again while still cached */
+    public final Counter preparedStatementsReprepared;
 
     public final MetricNameFactory factory;
     private Keyspace keyspace;
@@ -225,17 +232,22 @@ public class KeyspaceMetrics
         rangeLatency = new LatencyMetrics(factory, "Range");
         // create histograms for TableMetrics to replicate updates to
         sstablesPerReadHistogram = Metrics.histogram(factory.createMetricName("SSTablesPerReadHistogram"), true);
+        sstablesSkippedPerReadHistogram = Metrics.histogram(factory.createMetricName("SSTablesSkippedPerReadHistogram"), true);
         tombstoneScannedHistogram = Metrics.histogram(factory.createMetricName("TombstoneScannedHistogram"), false);
         liveScannedHistogram = Metrics.histogram(factory.createMetricName("LiveScannedHistogram"), false);
         colUpdateTimeDeltaHistogram = Metrics.histogram(factory.createMetricName("ColUpdateTimeDeltaHistogram"), false);
         viewLockAcquireTime =  Metrics.timer(factory.createMetricName("ViewLockAcquireTime"));
         viewReadTime = Metrics.timer(factory.createMetricName("ViewReadTime"));
         // add manually since histograms do not use createKeyspaceGauge method
-        allMetrics.addAll(Lists.newArrayList("SSTablesPerReadHistogram", "TombstoneScannedHistogram", "LiveScannedHistogram"));
+        allMetrics.addAll(Lists.newArrayList("SSTablesPerReadHistogram", "SSTablesSkippedPerReadHistogram", "TombstoneScannedHistogram", "LiveScannedHistogram"));
 
         casPrepare = new LatencyMetrics(factory, "CasPrepare");
         casPropose = new LatencyMetrics(factory, "CasPropose");
         casCommit = new LatencyMetrics(factory, "CasCommit");
+
+        preparedStatementsHits = Metrics.counter(factory.createMetricName("PreparedStatementsHits"));
+        preparedStatementsReprepared = Metrics.counter(factory.createMetricName("PreparedStatementsReprepared"));
+        allMetrics.addAll(Lists.newArrayList("PreparedStatementsHits", "PreparedStatementsReprepared"));
     }
 
     /**
@@ -75,6 +75,8 @@ public class TableMetrics
     public final Gauge<long[]> estimatedColumnCountHistogram;
     /** Histogram of the number of sstable data files accessed per read */
     public final TableHistogram sstablesPerReadHistogram;
+    /** Histogram of the number of sstables covering the partition read but not accessed per read */
+    public final TableHistogram sstablesSkippedPerReadHistogram;
     /** (Local) read metrics */
     public final LatencyMetrics readLatency;
     /** (Local) range slice metrics */
@@ -161,6 +163,10 @@ public class TableMetrics
     private static final MetricNameFactory globalAliasFactory = new AllTableMetricNameFactory("ColumnFamily");
 
     public final Counter speculativeRetries;
+    /** Rate at which speculative retries are sent for this table */
+    public final Meter speculativeRetryRate;
+    /** Number of adaptive speculative retries that were not sent because the retry budget was exhausted */
+    public final Counter speculativeInsufficientBudget;
 
     public final static LatencyMetrics globalReadLatency = new LatencyMetrics(globalFactory, globalAliasFactory, "Read");
     public final static LatencyMetrics globalWriteLatency = new LatencyMetrics(globalFactory, globalAliasFactory, "Write");
@@ -369,6 +375,7 @@ public class TableMetrics
             }
         });
         sstablesPerReadHistogram = createTableHistogram("SSTablesPerReadHistogram", cfs.keyspace.metric.sstablesPerReadHistogram, true);
+        sstablesSkippedPerReadHistogram = createTableHistogram("SSTablesSkippedPerReadHistogram", cfs.keyspace.metric.sstablesSkippedPerReadHistogram, true);
         compressionRatio = createTableGauge("CompressionRatio", new Gauge<Double>()
         {
             public Double getValue()
@@ -631,6 +638,8 @@ public class TableMetrics
             }
         });
         speculativeRetries = createTableCounter("SpeculativeRetries");
+        speculativeRetryRate = Metrics.meter(factory.createMetricName("SpeculativeRetryRate"), aliasFactory.createMetricName("SpeculativeRetryRate"));
+        speculativeInsufficientBudget = createTableCounter("SpeculativeInsufficientBudget");
         keyCacheHitRate = Metrics.register(factory.createMetricName("KeyCacheHitRate"),
                                            aliasFactory.createMetricName("KeyCacheHitRate"),
                                            new RatioGauge()
@@ -699,6 +708,12 @@ public class TableMetrics
         sstablesPerReadHistogram.update(count);
     }
 
+    public void updateSSTableIterated(int count, int skipped)
+    {
+        sstablesPerReadHistogram.update(count);
+        sstablesSkippedPerReadHistogram.update(skipped);
+    }
+
     /**
      * Release all associated metrics.
      */
@@ -721,6 +736,7 @@ public class TableMetrics
         Metrics.remove(factory.createMetricName("CoordinatorReadLatency"), aliasFactory.createMetricName("CoordinatorReadLatency"));
         Metrics.remove(factory.createMetricName("CoordinatorScanLatency"), aliasFactory.createMetricName("CoordinatorScanLatency"));
         Metrics.remove(factory.createMetricName("WaitingOnFreeMemtableSpace"), aliasFactory.createMetricName("WaitingOnFreeMemtableSpace"));
+        Metrics.remove(factory.createMetricName("SpeculativeRetryRate"), aliasFactory.createMetricName("SpeculativeRetryRate"));
     }
 
 
@@ -58,13 +58,16 @@ import org.apache.cassandra.gms.EchoMessage;
 import org.apache.cassandra.gms.GossipDigestAck;
 import org.apache.cassandra.gms.GossipDigestAck2;
 import org.apache.cassandra.gms.GossipDigestSyn;
+import org.apache.cassandra.hints.HintBatchMessage;
 import org.apache.cassandra.hints.HintMessage;
 import org.apache.cassandra.hints.HintResponse;
+import org.apache.cassandra.hints.HintsFilePage;
 import org.apache.cassandra.io.IVersionedSerializer;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.locator.ILatencySubscriber;
+import org.apache.cassandra.locator.ReplicaLatencyTracker;
 import org.apache.cassandra.metrics.ConnectionMetrics;
 import org.apache.cassandra.metrics.DroppedMessageMetrics;
 import org.apache.cassandra.metrics.MessagingMetrics;
@@ -72,6 +75,8 @@ import org.apache.cassandra.repair.messages.RepairMessage;
 import org.apache.cassandra.security.SSLFactory;
 import org.apache.cassandra.service.*;
 import org.apache.cassandra.service.paxos.Commit;
+import org.apache.cassandra.service.paxos.PrepareAndRead;
+import org.apache.cassandra.service.paxos.PrepareAndReadResponse;
 import org.apache.cassandra.service.paxos.PrepareResponse;
 import org.apache.cassandra.tracing.TraceState;
 import org.apache.cassandra.tracing.Tracing;
@@ -150,17 +155,27 @@ public final class MessagingService implements MessagingServiceMBean
         UNUSED_3,
         UNUSED_4,
         UNUSED_5,
+        READ_BATCH,
+        MUTATION_BATCH,
+        PAXOS_PREPARE_AND_READ,
+        HINT_BATCH,
+        HINTS_FILE_PAGE,
         ;
     }
 
     public static final EnumMap<MessagingService.Verb, Stage> verbStages = new EnumMap<MessagingService.Verb, Stage>(MessagingService.Verb.class)
     {{
         put(Verb.MUTATION, Stage.MUTATION);
+        put(Verb.MUTATION_BATCH, Stage.MUTATION);
         put(Verb.COUNTER_MUTATION, Stage.COUNTER_MUTATION);
         put(Verb.READ_REPAIR, Stage.MUTATION);
         put(Verb.HINT, Stage.MUTATION);
+        put(Verb.HINT_BATCH, Stage.MUTATION);
+        // single threaded, so that the pages of a file are appended in order
+        put(Verb.HINTS_FILE_PAGE, Stage.MISC);
         put(Verb.TRUNCATE, Stage.MUTATION);
         put(Verb.PAXOS_PREPARE, Stage.MUTATION);
+        put(Verb.PAXOS_PREPARE_AND_READ, Stage.MUTATION);
         put(Verb.PAXOS_PROPOSE, Stage.MUTATION);
         put(Verb.PAXOS_COMMIT, Stage.MUTATION);
         put(Verb.BATCH_STORE, Stage.MUTATION);
@@ -170,6 +185,7 @@ public final class MessagingService implements MessagingServiceMBean
         put(Verb.RANGE_SLICE, Stage.READ);
         put(Verb.INDEX_SCAN, Stage.READ);
         put(Verb.PAGED_RANGE, Stage.READ);
+        put(Verb.READ_BATCH, Stage.READ);
 
         put(Verb.REQUEST_RESPONSE, Stage.REQUEST_RESPONSE);
         put(Verb.INTERNAL_RESPONSE, Stage.INTERNAL_RESPONSE);
@@ -238,6 +254,11 @@ public final class MessagingService implements MessagingServiceMBean
         put(Verb.HINT, HintMessage.serializer);
         put(Verb.BATCH_STORE, Batch.serializer);
         put(Verb.BATCH_REMOVE, UUIDSerializer.serializer);
+        put(Verb.READ_BATCH, ReadCommandBatch.serializer);
+        put(Verb.MUTATION_BATCH, MutationBatch.serializer);
+        put(Verb.PAXOS_PREPARE_AND_READ, PrepareAndRead.serializer);
+        put(Verb.HINT_BATCH, HintBatchMessage.serializer);
+        put(Verb.HINTS_FILE_PAGE, HintsFilePage.serializer);
     }};
 
     /**
@@ -265,6 +286,12 @@ public final class MessagingService implements MessagingServiceMBean
 
         put(Verb.BATCH_STORE, WriteResponse.serializer);
         put(Verb.BATCH_REMOVE, WriteResponse.serializer);
+
+        put(Verb.READ_BATCH, ReadCommandBatch.responseSerializer);
+        put(Verb.MUTATION_BATCH, MutationBatch.responseSerializer);
+        put(Verb.PAXOS_PREPARE_AND_READ, PrepareAndReadResponse.serializer);
+        put(Verb.HINT_BATCH, HintResponse.serializer);
+        put(Verb.HINTS_FILE_PAGE, HintResponse.serializer);
     }};
 
     /* This records all the results mapped by message Id */
@@ -314,13 +341,16 @@ public final class MessagingService implements MessagingServiceMBean
                                                                    Verb.MUTATION,
                                                                    Verb.COUNTER_MUTATION,
                                                                    Verb.HINT,
+                                                                   Verb.HINT_BATCH,
                                                                    Verb.READ_REPAIR,
                                                                    Verb.READ,
                                                                    Verb.RANGE_SLICE,
                                                                    Verb.PAGED_RANGE,
                                                                    Verb.REQUEST_RESPONSE,
                                                                    Verb.BATCH_STORE,
-                                                                   Verb.BATCH_REMOVE);
+                                                                   Verb.BATCH_REMOVE,
+                                                                   Verb.READ_BATCH,
+                                                                   Verb.MUTATION_BATCH);
 
 
     private static final class DroppedMessages
@@ -407,7 +437,7 @@ public final class MessagingService implements MessagingServiceMBean
             public Object apply(Pair<Integer, ExpiringMap.CacheableObject<CallbackInfo>> pair)
             {
                 final CallbackInfo expiredCallbackInfo = pair.right.value;
-                maybeAddLatency(expiredCallbackInfo.callback, expiredCallbackInfo.target, pair.right.timeout);
+                maybeAddLatency(expiredCallbackInfo.callback, expiredCallbackInfo.target, TimeUnit.MILLISECONDS.toNanos(pair.right.timeout));
                 ConnectionMetrics.totalTimeouts.mark();
                 getConnectionPool(expiredCallbackInfo.target).incrementTimeout();
                 if (expiredCallbackInfo.isFailureCallback())
@@ -447,16 +477,19 @@ public final class MessagingService implements MessagingServiceMBean
     }
 
     /**
-     * Track latency information for the dynamic snitch
+     * Track latency information for the dynamic snitch and for adaptive speculative retries
      *
-     * @param cb      the callback associated with this message -- this lets us know if it's a message type we're interested in
-     * @param address the host that replied to the message
-     * @param latency
+     * @param cb           the callback associated with this message -- this lets us know if it's a message type we're interested in
+     * @param address      the host that replied to the message
+     * @param latencyNanos
      */
-    public void maybeAddLatency(IAsyncCallback cb, InetAddress address, long latency)
+    public void maybeAddLatency(IAsyncCallback cb, InetAddress address, long latencyNanos)
     {
         if (cb.isLatencyForSnitch())
-            addLatency(address, latency);
+        {
+            addLatency(address, TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+            ReplicaLatencyTracker.instance.update(address, latencyNanos);
+        }
     }
 
     public void addLatency(InetAddress address, long latency)
@@ -17,16 +17,18 @@
  */
 package org.apache.cassandra.notifications;
 
+import java.util.Collection;
+
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 
 /**
- * Fired right before removing an SSTable.
+ * Fired right before removing SSTables, once for all the SSTables obsoleted together.
  */
 public class SSTableDeletingNotification implements INotification
 {
-    public final SSTableReader deleting;
+    public final Collection<SSTableReader> deleting;
 
-    public SSTableDeletingNotification(SSTableReader deleting)
+    public SSTableDeletingNotification(Collection<SSTableReader> deleting)
     {
         this.deleting = deleting;
     }
@@ -30,7 +30,7 @@ public final class SpeculativeRetryParam
 {
     public enum Kind
     {
-        NONE, CUSTOM, PERCENTILE, ALWAYS
+        NONE, CUSTOM, PERCENTILE, ADAPTIVE, ALWAYS
     }
 
     public static final SpeculativeRetryParam NONE = none();
@@ -40,7 +40,7 @@ public final class SpeculativeRetryParam
     private final Kind kind;
     private final double value;
 
-    // pre-processed (divided by 100 for PERCENTILE), multiplied by 1M for CUSTOM (to nanos)
+    // pre-processed (divided by 100 for PERCENTILE and ADAPTIVE), multiplied by 1M for CUSTOM (to nanos)
     private final double threshold;
 
     private SpeculativeRetryParam(Kind kind, double value)
@@ -48,7 +48,7 @@ public final class SpeculativeRetryParam
         this.kind = kind;
         this.value = value;
 
-        if (kind == Kind.PERCENTILE)
+        if (kind == Kind.PERCENTILE || kind == Kind.ADAPTIVE)
             threshold = value / 100;
         else if (kind == Kind.CUSTOM)
             threshold = TimeUnit.MILLISECONDS.toNanos((long) value);
@@ -86,6 +86,16 @@ public final class SpeculativeRetryParam
         return new SpeculativeRetryParam(Kind.PERCENTILE, value);
     }
 
+    /**
+     * Like {@link #percentile(double)}, but the percentile is taken from the recent latencies of the replicas
+     * actually contacted rather than from the table's coordinator read latency, and the read may be retried
+     * against more than one extra replica (see {@code speculative_retry_max_replicas}).
+     */
+    public static SpeculativeRetryParam adaptive(double value)
+    {
+        return new SpeculativeRetryParam(Kind.ADAPTIVE, value);
+    }
+
     public static SpeculativeRetryParam fromString(String value)
     {
         if (value.toLowerCase().endsWith("ms"))
@@ -101,24 +111,10 @@ public final class SpeculativeRetryParam
         }
 
         if (value.toUpperCase().endsWith(Kind.PERCENTILE.toString()))
-        {
-            double threshold;
-            try
-            {
-                threshold = Double.parseDouble(value.substring(0, value.length() - Kind.PERCENTILE.toString().length()));
-            }
-            catch (IllegalArgumentException e)
-            {
-                throw new ConfigurationException(format("Invalid value %s for option '%s'", value, TableParams.Option.SPECULATIVE_RETRY));
-            }
+            return percentile(parsePercentile(value, Kind.PERCENTILE));
 
-            if (threshold >= 0.0 && threshold <= 100.0)
-                return percentile(threshold);
-
-            throw new ConfigurationException(format("Invalid value %s for PERCENTILE option '%s': must be between 0.0 and 100.0",
-                                                    value,
-                                                    TableParams.Option.SPECULATIVE_RETRY));
-        }
+        if (value.toUpperCase().endsWith(Kind.ADAPTIVE.toString()))
+            return adaptive(parsePercentile(value, Kind.ADAPTIVE));
 
         if (value.equals(Kind.NONE.toString()))
             return NONE;
@@ -129,6 +125,27 @@ public final class SpeculativeRetryParam
         throw new ConfigurationException(format("Invalid value %s for option '%s'", value, TableParams.Option.SPECULATIVE_RETRY));
     }
 
+    private static double parsePercentile(String value, Kind kind)
+    {
+        double threshold;
+        try
+        {
+            threshold = Double.parseDouble(value.substring(0, value.length() - kind.toString().length()));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ConfigurationException(format("Invalid value %s for option '%s'", value, TableParams.Option.SPECULATIVE_RETRY));
+        }
+
+        if (threshold >= 0.0 && threshold <= 100.0)
+            return threshold;
+
+        throw new ConfigurationException(format("Invalid value %s for %s option '%s': must be between 0.0 and 100.0",
+                                                value,
+                                                kind,
+                                                TableParams.Option.SPECULATIVE_RETRY));
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -152,7 +169,8 @@ public final class SpeculativeRetryParam
             case CUSTOM:
                 return format("%sms", value);
             case PERCENTILE:
-                return format("%sPERCENTILE", new DecimalFormat("#.#####").format(value));
+            case ADAPTIVE:
+                return format("%s%s", new DecimalFormat("#.#####").format(value), kind);
             default: // NONE and ALWAYS
                 return kind.toString();
         }
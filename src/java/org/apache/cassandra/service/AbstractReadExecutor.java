@@ -18,16 +18,18 @@
 package org.apache.cassandra.service;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
-import com.google.common.collect.Iterables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.concurrent.Stage;
 import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.ReadRepairDecision;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.ConsistencyLevel;
@@ -38,6 +40,7 @@ import org.apache.cassandra.db.partitions.PartitionIterator;
 import org.apache.cassandra.exceptions.ReadFailureException;
 import org.apache.cassandra.exceptions.ReadTimeoutException;
 import org.apache.cassandra.exceptions.UnavailableException;
+import org.apache.cassandra.locator.ReplicaLatencyTracker;
 import org.apache.cassandra.metrics.ReadRepairMetrics;
 import org.apache.cassandra.net.MessageOut;
 import org.apache.cassandra.net.MessagingService;
@@ -52,7 +55,9 @@ import org.apache.cassandra.tracing.Tracing;
  * Optionally, may perform additional requests to provide redundancy against replica failure:
  * AlwaysSpeculatingReadExecutor will always send a request to one extra replica, while
  * SpeculatingReadExecutor will wait until it looks like the original request is in danger
- * of timing out before performing extra reads.
+ * of timing out before performing extra reads. With an ADAPTIVE retry policy, the latter
+ * may try several extra replicas, one after the other, within the limits of the
+ * SpeculativeRetryBudget.
  */
 public abstract class AbstractReadExecutor
 {
@@ -63,6 +68,9 @@ public abstract class AbstractReadExecutor
     protected final ReadCallback handler;
     protected final TraceState traceState;
 
+    // set while sending the initial requests of a read that is part of a batched multi-partition read
+    private ReadRequestBatcher batcher;
+
     AbstractReadExecutor(Keyspace keyspace, ReadCommand command, ConsistencyLevel consistencyLevel, List<InetAddress> targetReplicas)
     {
         this.command = command;
@@ -106,6 +114,12 @@ public abstract class AbstractReadExecutor
             if (traceState != null)
                 traceState.trace("reading {} from {}", readCommand.isDigestQuery() ? "digest" : "data", endpoint);
             logger.trace("reading {} from {}", readCommand.isDigestQuery() ? "digest" : "data", endpoint);
+            if (batcher != null)
+            {
+                batcher.add(endpoint, readCommand, handler);
+                continue;
+            }
+
             MessageOut<ReadCommand> message = readCommand.createMessage(MessagingService.instance().getVersion(endpoint));
             MessagingService.instance().sendRRWithFailure(message, endpoint, handler);
         }
@@ -114,7 +128,10 @@ public abstract class AbstractReadExecutor
         if (hasLocalEndpoint)
         {
             logger.trace("reading {} locally", readCommand.isDigestQuery() ? "digest" : "data");
-            StageManager.getStage(Stage.READ).maybeExecuteImmediately(new LocalReadRunnable(command, handler));
+            if (batcher != null)
+                batcher.addLocal(new LocalReadRunnable(command, handler));
+            else
+                StageManager.getStage(Stage.READ).maybeExecuteImmediately(new LocalReadRunnable(command, handler));
         }
     }
 
@@ -136,6 +153,23 @@ public abstract class AbstractReadExecutor
      */
     public abstract void executeAsync();
 
+    /**
+     * queue the initial set of remote requests in {@code batcher}, so they can be sent along with the requests
+     * for the other partitions of the same query; local requests are executed right away.
+     */
+    public void executeAsync(ReadRequestBatcher batcher)
+    {
+        this.batcher = batcher;
+        try
+        {
+            executeAsync();
+        }
+        finally
+        {
+            this.batcher = null;
+        }
+    }
+
     /**
      * wait for an answer.  Blocks until success or timeout, so it is caller's
      * responsibility to call maybeTryAdditionalReplicas first.
@@ -194,12 +228,29 @@ public abstract class AbstractReadExecutor
                 }
             }
         }
-        targetReplicas.add(extraReplica);
 
         if (retry.equals(SpeculativeRetryParam.ALWAYS))
+        {
+            targetReplicas.add(extraReplica);
             return new AlwaysSpeculatingReadExecutor(keyspace, cfs, command, consistencyLevel, targetReplicas);
-        else // PERCENTILE or CUSTOM.
-            return new SpeculatingReadExecutor(keyspace, cfs, command, consistencyLevel, targetReplicas);
+        }
+
+        // PERCENTILE or CUSTOM speculate on a single replica, ADAPTIVE may go on with the next ones in snitch order.
+        int maxExtraReplicas = retry.kind() == SpeculativeRetryParam.Kind.ADAPTIVE
+                             ? DatabaseDescriptor.getSpeculativeRetryMaxReplicas()
+                             : 1;
+        List<InetAddress> extraReplicas = new ArrayList<>(maxExtraReplicas);
+        extraReplicas.add(extraReplica);
+        for (InetAddress address : allReplicas)
+        {
+            if (extraReplicas.size() >= maxExtraReplicas)
+                break;
+            if (!targetReplicas.contains(address) && !extraReplicas.contains(address))
+                extraReplicas.add(address);
+        }
+        targetReplicas.addAll(extraReplicas);
+
+        return new SpeculatingReadExecutor(keyspace, cfs, retry, command, consistencyLevel, targetReplicas, extraReplicas.size());
     }
 
     public static class NeverSpeculatingReadExecutor extends AbstractReadExecutor
@@ -230,23 +281,32 @@ public abstract class AbstractReadExecutor
     private static class SpeculatingReadExecutor extends AbstractReadExecutor
     {
         private final ColumnFamilyStore cfs;
-        private volatile boolean speculated = false;
+        private final SpeculativeRetryParam retry;
+        private final int initialReplicaCount;
+        private volatile int speculated = 0;
 
         public SpeculatingReadExecutor(Keyspace keyspace,
                                        ColumnFamilyStore cfs,
+                                       SpeculativeRetryParam retry,
                                        ReadCommand command,
                                        ConsistencyLevel consistencyLevel,
-                                       List<InetAddress> targetReplicas)
+                                       List<InetAddress> targetReplicas,
+                                       int extraReplicaCount)
         {
             super(keyspace, command, consistencyLevel, targetReplicas);
             this.cfs = cfs;
+            this.retry = retry;
+            this.initialReplicaCount = targetReplicas.size() - extraReplicaCount;
+
+            if (retry.kind() == SpeculativeRetryParam.Kind.ADAPTIVE)
+                SpeculativeRetryBudget.instance.deposit();
         }
 
         public void executeAsync()
         {
             // if CL + RR result in covering all replicas, getReadExecutor forces AlwaysSpeculating.  So we know
-            // that the last replica in our list is "extra."
-            List<InetAddress> initialReplicas = targetReplicas.subList(0, targetReplicas.size() - 1);
+            // that the last replicas in our list are "extra."
+            List<InetAddress> initialReplicas = targetReplicas.subList(0, initialReplicaCount);
 
             if (handler.blockfor < initialReplicas.size())
             {
@@ -269,34 +329,67 @@ public abstract class AbstractReadExecutor
 
         public void maybeTryAdditionalReplicas()
         {
-            // no latency information, or we're overloaded
-            if (cfs.sampleLatencyNanos > TimeUnit.MILLISECONDS.toNanos(command.getTimeout()))
-                return;
+            long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(command.getTimeout());
+            long speculateAtNanos = expectedLatencyNanos(targetReplicas.subList(0, initialReplicaCount));
 
-            if (!handler.await(cfs.sampleLatencyNanos, TimeUnit.NANOSECONDS))
+            for (int i = initialReplicaCount; i < targetReplicas.size(); i++)
             {
+                // no latency information, or we're overloaded
+                if (speculateAtNanos > timeoutNanos)
+                    return;
+
+                if (handler.await(speculateAtNanos, TimeUnit.NANOSECONDS))
+                    return;
+
+                if (retry.kind() == SpeculativeRetryParam.Kind.ADAPTIVE && !SpeculativeRetryBudget.instance.tryAcquire())
+                {
+                    cfs.metric.speculativeInsufficientBudget.inc();
+                    return;
+                }
+
                 // Could be waiting on the data, or on enough digests.
                 ReadCommand retryCommand = command;
                 if (handler.resolver.isDataPresent())
                     retryCommand = command.copy().setIsDigestQuery(true);
 
-                InetAddress extraReplica = Iterables.getLast(targetReplicas);
+                InetAddress extraReplica = targetReplicas.get(i);
                 if (traceState != null)
                     traceState.trace("speculating read retry on {}", extraReplica);
                 logger.trace("speculating read retry on {}", extraReplica);
                 int version = MessagingService.instance().getVersion(extraReplica);
                 MessagingService.instance().sendRRWithFailure(retryCommand.createMessage(version), extraReplica, handler);
-                speculated = true;
+                speculated++;
 
                 cfs.metric.speculativeRetries.inc();
+                cfs.metric.speculativeRetryRate.mark();
+
+                // give the replica we just tried a fair chance to answer before trying the next one
+                speculateAtNanos += expectedLatencyNanos(Collections.singletonList(extraReplica));
+            }
+        }
+
+        /**
+         * @return how long after the start of the read we expect all of {@code replicas} to have answered
+         */
+        private long expectedLatencyNanos(List<InetAddress> replicas)
+        {
+            if (retry.kind() != SpeculativeRetryParam.Kind.ADAPTIVE)
+                return cfs.sampleLatencyNanos;
+
+            long expected = 0;
+            for (InetAddress replica : replicas)
+            {
+                long latency = ReplicaLatencyTracker.instance.percentileNanos(replica, retry.threshold());
+                // local reads are not timed, and we may not have heard from a replica recently:
+                // fall back to the table-wide estimate for those
+                expected = Math.max(expected, latency < 0 ? cfs.sampleLatencyNanos : latency);
             }
+            return expected;
         }
 
         public Collection<InetAddress> getContactedReplicas()
         {
-            return speculated
-                 ? targetReplicas
-                 : targetReplicas.subList(0, targetReplicas.size() - 1);
+            return targetReplicas.subList(0, initialReplicaCount + speculated);
         }
     }
 
@@ -331,6 +424,7 @@ public abstract class AbstractReadExecutor
             if (targetReplicas.size() > 2)
                 makeDigestRequests(targetReplicas.subList(2, targetReplicas.size()));
             cfs.metric.speculativeRetries.inc();
+            cfs.metric.speculativeRetryRate.mark();
         }
     }
 }
@@ -303,6 +303,7 @@ public class CacheService implements CacheServiceMBean
             if (counterCacheKey.ksAndCFName.equals(ksAndCFName))
                 counterCacheIterator.remove();
         }
+        CounterAccumulator.instance.invalidate(ksAndCFName);
     }
 
     public void invalidateCounterCache()
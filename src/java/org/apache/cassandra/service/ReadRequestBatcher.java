@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.ReadCommandBatch;
+import org.apache.cassandra.db.ReadResponse;
+import org.apache.cassandra.net.IAsyncCallbackWithFailure;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.tracing.Tracing;
+
+/**
+ * Collects the remote requests of the single partition reads making up a multi-partition query, so that
+ * they can be sent as a single {@link ReadCommandBatch} per replica rather than one message per partition.
+ *
+ * Each read keeps its own {@link ReadCallback}: the batched response is split back and handed to them, so
+ * digest resolution, speculation and read repair work exactly as for individually sent reads.
+ */
+public class ReadRequestBatcher
+{
+    private final Map<InetAddress, Batch> batches = new HashMap<>();
+    private final List<Runnable> localReads = new ArrayList<>();
+
+    /**
+     * Queues a remote request until {@link #send()}.
+     *
+     * Batched reads are sent whatever the version of {@code endpoint}, so they must only be enabled once all the nodes
+     * of the cluster support them.
+     */
+    public void add(InetAddress endpoint, ReadCommand command, ReadCallback handler)
+    {
+        Batch batch = batches.get(endpoint);
+        if (batch == null)
+        {
+            batch = new Batch();
+            batches.put(endpoint, batch);
+        }
+        batch.commands.add(command);
+        batch.handlers.add(handler);
+    }
+
+    /**
+     * Delays a local read until {@link #send()}, so that it doesn't hold back the remote requests.
+     */
+    public void addLocal(Runnable localRead)
+    {
+        localReads.add(localRead);
+    }
+
+    /**
+     * Sends all the requests collected so far, then executes the local ones.
+     */
+    public void send()
+    {
+        for (Map.Entry<InetAddress, Batch> entry : batches.entrySet())
+        {
+            InetAddress endpoint = entry.getKey();
+            Batch batch = entry.getValue();
+            if (batch.commands.size() == 1)
+            {
+                ReadCommand command = batch.commands.get(0);
+                int version = MessagingService.instance().getVersion(endpoint);
+                MessagingService.instance().sendRRWithFailure(command.createMessage(version), endpoint, batch.handlers.get(0));
+            }
+            else
+            {
+                Tracing.trace("Sending {} batched reads to {}", batch.commands.size(), endpoint);
+                MessagingService.instance().sendRRWithFailure(new ReadCommandBatch(batch.commands).createMessage(), endpoint, new BatchCallback(batch.handlers));
+            }
+        }
+        batches.clear();
+
+        for (Runnable localRead : localReads)
+            StageManager.getStage(Stage.READ).maybeExecuteImmediately(localRead);
+        localReads.clear();
+    }
+
+    private static class Batch
+    {
+        private final List<ReadCommand> commands = new ArrayList<>();
+        private final List<ReadCallback> handlers = new ArrayList<>();
+    }
+
+    private static class BatchCallback implements IAsyncCallbackWithFailure<List<ReadResponse>>
+    {
+        private final List<ReadCallback> handlers;
+
+        private BatchCallback(List<ReadCallback> handlers)
+        {
+            this.handlers = handlers;
+        }
+
+        public void response(MessageIn<List<ReadResponse>> message)
+        {
+            List<ReadResponse> responses = message.payload;
+            assert responses.size() == handlers.size();
+            for (int i = 0; i < handlers.size(); i++)
+            {
+                handlers.get(i).response(MessageIn.create(message.from,
+                                                          responses.get(i),
+                                                          message.parameters,
+                                                          message.verb,
+                                                          message.version,
+                                                          message.constructionTime));
+            }
+        }
+
+        public void onFailure(InetAddress from)
+        {
+            for (ReadCallback handler : handlers)
+                handler.onFailure(from);
+        }
+
+        public boolean isLatencyForSnitch()
+        {
+            // the replica serves the reads of the batch one after the other, so the latency of the batch
+            // would penalize the replicas receiving the biggest batches
+            return false;
+        }
+    }
+}
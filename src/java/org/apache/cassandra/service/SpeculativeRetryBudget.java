@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+/**
+ * Caps adaptive speculative retries to a fraction of the reads that were eligible for them.
+ *
+ * Every eligible read deposits {@code speculative_retry_budget_ratio} of a retry into the budget and every
+ * speculative request withdraws a whole one, so that when a large part of the cluster slows down at once
+ * we stop speculating instead of multiplying the load on it. The balance is bounded so that a long quiet
+ * period cannot be followed by an unbounded burst of retries.
+ */
+public class SpeculativeRetryBudget
+{
+    public static final SpeculativeRetryBudget instance = new SpeculativeRetryBudget(DatabaseDescriptor.getSpeculativeRetryBudgetRatio());
+
+    // the balance is kept in thousandths of a retry so that fractional deposits don't need a floating point CAS loop
+    private static final long UNIT = 1000;
+    private static final long MAX_BALANCE = 100 * UNIT;
+
+    private final AtomicLong balance = new AtomicLong(0);
+    private final long deposit;
+
+    @VisibleForTesting
+    SpeculativeRetryBudget(double ratio)
+    {
+        this.deposit = (long) (ratio * UNIT);
+    }
+
+    /**
+     * Credit the budget for a read that may speculate.
+     */
+    public void deposit()
+    {
+        long current;
+        do
+        {
+            current = balance.get();
+            if (current >= MAX_BALANCE)
+                return;
+        }
+        while (!balance.compareAndSet(current, Math.min(MAX_BALANCE, current + deposit)));
+    }
+
+    /**
+     * @return true if a speculative retry may be sent, in which case it has been charged to the budget
+     */
+    public boolean tryAcquire()
+    {
+        long current;
+        do
+        {
+            current = balance.get();
+            if (current < UNIT)
+                return false;
+        }
+        while (!balance.compareAndSet(current, current - UNIT));
+        return true;
+    }
+}
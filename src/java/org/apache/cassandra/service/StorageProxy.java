@@ -28,6 +28,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
 import com.google.common.cache.CacheLoader;
 import com.google.common.collect.*;
@@ -65,6 +66,7 @@ import org.apache.cassandra.metrics.*;
 import org.apache.cassandra.net.*;
 import org.apache.cassandra.service.paxos.Commit;
 import org.apache.cassandra.service.paxos.PaxosState;
+import org.apache.cassandra.service.paxos.PrepareAndRead;
 import org.apache.cassandra.service.paxos.PrepareCallback;
 import org.apache.cassandra.service.paxos.ProposeCallback;
 import org.apache.cassandra.net.MessagingService.Verb;
@@ -102,6 +104,8 @@ public class StorageProxy implements StorageProxyMBean
     private static final ViewWriteMetrics viewWriteMetrics = new ViewWriteMetrics("ViewWrite");
 
     private static final double CONCURRENT_SUBREQUESTS_MARGIN = 0.10;
+    // the maximum size of the responses to the range requests of a range read expected in flight at once
+    private static final long MAX_CONCURRENT_RANGE_BYTES = Long.getLong("cassandra.max_concurrent_range_read_bytes", 64L << 20);
 
     private StorageProxy()
     {
@@ -235,19 +239,35 @@ public class StorageProxy implements StorageProxyMBean
                 List<InetAddress> liveEndpoints = p.left;
                 int requiredParticipants = p.right;
 
-                final Pair<UUID, Integer> pair = beginAndRepairPaxos(start, key, metadata, liveEndpoints, requiredParticipants, consistencyForPaxos, consistencyForCommit, true, state);
-                final UUID ballot = pair.left;
-                contentions += pair.right;
-
-                // read the current values and check they validate the conditions
-                Tracing.trace("Reading existing values for CAS precondition");
+                // with the fast path, the read of the current values is folded into the prepare round
                 SinglePartitionReadCommand readCommand = request.readCommand(FBUtilities.nowInSeconds());
-                ConsistencyLevel readConsistency = consistencyForPaxos == ConsistencyLevel.LOCAL_SERIAL ? ConsistencyLevel.LOCAL_QUORUM : ConsistencyLevel.QUORUM;
+                boolean fastPath = DatabaseDescriptor.isPaxosFastPathEnabled();
 
+                final PaxosBallotAndContention pair = beginAndRepairPaxos(start, key, metadata, liveEndpoints, requiredParticipants, consistencyForPaxos, consistencyForCommit, true, state, fastPath ? readCommand : null);
+                final UUID ballot = pair.ballot;
+                contentions += pair.contentions;
+
+                // read the current values and check they validate the conditions
                 FilteredPartition current;
-                try (RowIterator rowIter = readOne(readCommand, readConsistency))
+                if (pair.readResponse != null)
+                {
+                    Tracing.trace("Using the existing values read during prepare for CAS precondition");
+                    casWriteMetrics.fastPathReads.inc();
+                    try (RowIterator rowIter = PartitionIterators.getOnlyElement(UnfilteredPartitionIterators.filter(pair.readResponse.makeIterator(readCommand), readCommand.nowInSec()), readCommand))
+                    {
+                        current = FilteredPartition.create(rowIter);
+                    }
+                }
+                else
                 {
-                    current = FilteredPartition.create(rowIter);
+                    Tracing.trace("Reading existing values for CAS precondition");
+                    if (fastPath)
+                        casWriteMetrics.fastPathReadFallbacks.inc();
+                    ConsistencyLevel readConsistency = consistencyForPaxos == ConsistencyLevel.LOCAL_SERIAL ? ConsistencyLevel.LOCAL_QUORUM : ConsistencyLevel.QUORUM;
+                    try (RowIterator rowIter = readOne(readCommand, readConsistency))
+                    {
+                        current = FilteredPartition.create(rowIter);
+                    }
                 }
 
                 if (!request.appliesTo(current))
@@ -307,7 +327,7 @@ public class StorageProxy implements StorageProxyMBean
         {
             if(contentions > 0)
                 casWriteMetrics.contention.update(contentions);
-            casWriteMetrics.addNano(System.nanoTime() - start);
+            casWriteMetrics.addNano(System.nanoTime() - start, contentions);
         }
     }
 
@@ -354,27 +374,53 @@ public class StorageProxy implements StorageProxyMBean
         return Pair.create(liveEndpoints, requiredParticipants);
     }
 
+    /**
+     * The outcome of {@link #beginAndRepairPaxos}.
+     */
+    private static class PaxosBallotAndContention
+    {
+        final UUID ballot;
+        final int contentions;
+        // the result of the read folded into the prepare round, if any and if a quorum of replicas agreed on it
+        final ReadResponse readResponse;
+
+        PaxosBallotAndContention(UUID ballot, int contentions, ReadResponse readResponse)
+        {
+            this.ballot = ballot;
+            this.contentions = contentions;
+            this.readResponse = readResponse;
+        }
+    }
+
     /**
      * begin a Paxos session by sending a prepare request and completing any in-progress requests seen in the replies
      *
+     * If {@code readCommand} is provided (paxos fast path), the replicas perform it as part of the prepare round and
+     * the commits needed to complete a previous round are piggybacked on the following prepare, rather than being
+     * sent (and waited for) separately.
+     *
      * @return the Paxos ballot promised by the replicas if no in-progress requests were seen and a quorum of
      * nodes have seen the mostRecentCommit.  Otherwise, return null.
      */
-    private static Pair<UUID, Integer> beginAndRepairPaxos(long start,
-                                                           DecoratedKey key,
-                                                           CFMetaData metadata,
-                                                           List<InetAddress> liveEndpoints,
-                                                           int requiredParticipants,
-                                                           ConsistencyLevel consistencyForPaxos,
-                                                           ConsistencyLevel consistencyForCommit,
-                                                           final boolean isWrite,
-                                                           ClientState state)
+    private static PaxosBallotAndContention beginAndRepairPaxos(long start,
+                                                                DecoratedKey key,
+                                                                CFMetaData metadata,
+                                                                List<InetAddress> liveEndpoints,
+                                                                int requiredParticipants,
+                                                                ConsistencyLevel consistencyForPaxos,
+                                                                ConsistencyLevel consistencyForCommit,
+                                                                final boolean isWrite,
+                                                                ClientState state,
+                                                                SinglePartitionReadCommand readCommand)
     throws WriteTimeoutException, WriteFailureException
     {
         long timeout = TimeUnit.MILLISECONDS.toNanos(DatabaseDescriptor.getCasContentionTimeout());
 
         PrepareCallback summary = null;
         int contentions = 0;
+        // with the fast path, a commit to apply as part of the next prepare, and the replicas that need it
+        Commit toCommit = null;
+        Iterable<InetAddress> toCommitReplicas = Collections.emptyList();
         while (System.nanoTime() - start < timeout)
         {
             // We want a timestamp that is guaranteed to be unique for that node (so that the ballot is globally unique), but if we've got a prepare rejected
@@ -390,7 +436,16 @@ public class StorageProxy implements StorageProxyMBean
             // prepare
             Tracing.trace("Preparing {}", ballot);
             Commit toPrepare = Commit.newPrepare(key, metadata, ballot);
-            summary = preparePaxos(toPrepare, liveEndpoints, requiredParticipants, consistencyForPaxos);
+            if (readCommand == null)
+            {
+                summary = preparePaxos(toPrepare, liveEndpoints, requiredParticipants, consistencyForPaxos);
+            }
+            else
+            {
+                summary = prepareAndReadPaxos(toPrepare, readCommand, toCommit, toCommitReplicas, liveEndpoints, requiredParticipants, consistencyForPaxos);
+                toCommit = null;
+                toCommitReplicas = Collections.emptyList();
+            }
             if (!summary.promised)
             {
                 Tracing.trace("Some replicas have already promised a higher ballot than ours; aborting");
@@ -415,6 +470,17 @@ public class StorageProxy implements StorageProxyMBean
                 Commit refreshedInProgress = Commit.newProposal(ballot, inProgress.update);
                 if (proposePaxos(refreshedInProgress, liveEndpoints, requiredParticipants, false, consistencyForPaxos))
                 {
+                    if (readCommand != null)
+                    {
+                        // the participants will apply the commit before promising our next ballot, so we don't
+                        // need to wait for it; the other replicas (in remote DCs with LOCAL_SERIAL) just get it
+                        Tracing.trace("Piggybacking the commit of {} on the next prepare", refreshedInProgress);
+                        toCommit = refreshedInProgress;
+                        toCommitReplicas = liveEndpoints;
+                        sendCommit(refreshedInProgress, nonParticipants(refreshedInProgress, liveEndpoints));
+                        continue;
+                    }
+
                     try
                     {
                         commitPaxos(refreshedInProgress, consistencyForCommit, false);
@@ -444,6 +510,13 @@ public class StorageProxy implements StorageProxyMBean
             if (Iterables.size(missingMRC) > 0)
             {
                 Tracing.trace("Repairing replicas that missed the most recent commit");
+                if (readCommand != null)
+                {
+                    // they'll apply it before promising (and reading) on the next prepare
+                    toCommit = mostRecent;
+                    toCommitReplicas = ImmutableList.copyOf(missingMRC);
+                    continue;
+                }
                 sendCommit(mostRecent, missingMRC);
                 // TODO: provided commits don't invalid the prepare we just did above (which they don't), we could just wait
                 // for all the missingMRC to acknowledge this commit and then move on with proposing our value. But that means
@@ -452,7 +525,8 @@ public class StorageProxy implements StorageProxyMBean
                 continue;
             }
 
-            return Pair.create(ballot, contentions);
+            ReadResponse readResponse = readCommand == null ? null : summary.agreedReadResponse(readCommand, requiredParticipants);
+            return new PaxosBallotAndContention(ballot, contentions, readResponse);
         }
 
         throw new WriteTimeoutException(WriteType.CAS, consistencyForPaxos, 0, consistencyForPaxos.blockFor(Keyspace.open(metadata.ksName)));
@@ -479,6 +553,47 @@ public class StorageProxy implements StorageProxyMBean
         return callback;
     }
 
+    private static PrepareCallback prepareAndReadPaxos(Commit toPrepare,
+                                                       SinglePartitionReadCommand readCommand,
+                                                       Commit toCommit,
+                                                       Iterable<InetAddress> toCommitReplicas,
+                                                       List<InetAddress> endpoints,
+                                                       int requiredParticipants,
+                                                       ConsistencyLevel consistencyForPaxos)
+    throws WriteTimeoutException
+    {
+        PrepareCallback callback = new PrepareCallback(toPrepare.update.partitionKey(), toPrepare.update.metadata(), requiredParticipants, consistencyForPaxos);
+        MessageOut<PrepareAndRead> message = new PrepareAndRead(toPrepare, readCommand, null).createMessage();
+        MessageOut<PrepareAndRead> messageWithCommit = toCommit == null ? null : new PrepareAndRead(toPrepare, readCommand, toCommit).createMessage();
+        for (InetAddress target : endpoints)
+        {
+            if (messageWithCommit != null && Iterables.contains(toCommitReplicas, target))
+                MessagingService.instance().sendRR(messageWithCommit, target, callback);
+            else
+                MessagingService.instance().sendRR(message, target, callback);
+        }
+        callback.await();
+        return callback;
+    }
+
+    /**
+     * @return the live replicas of the partition of {@code commit} that are not paxos participants.
+     */
+    private static Iterable<InetAddress> nonParticipants(Commit commit, final List<InetAddress> participants)
+    {
+        String keyspaceName = commit.update.metadata().ksName;
+        Token tk = commit.update.partitionKey().getToken();
+        Iterable<InetAddress> replicas = Iterables.concat(StorageService.instance.getNaturalEndpoints(keyspaceName, tk),
+                                                          StorageService.instance.getTokenMetadata().pendingEndpointsFor(tk, keyspaceName));
+        return Iterables.filter(replicas, new Predicate<InetAddress>()
+        {
+            public boolean apply(InetAddress replica)
+            {
+                return !participants.contains(replica) && FailureDetector.instance.isAlive(replica);
+            }
+        });
+    }
+
     private static boolean proposePaxos(Commit proposal, List<InetAddress> endpoints, int requiredParticipants, boolean timeoutIfPartial, ConsistencyLevel consistencyLevel)
     throws WriteTimeoutException
     {
@@ -594,20 +709,37 @@ public class StorageProxy implements StorageProxyMBean
         long startTime = System.nanoTime();
         List<AbstractWriteResponseHandler<IMutation>> responseHandlers = new ArrayList<>(mutations.size());
 
+        // coalesce the writes going to the same replica, they are only sent once every mutation has been processed
+        final WriteRequestBatcher batcher = mutations.size() > 1 && DatabaseDescriptor.isUnloggedBatchWriteCoalescingEnabled()
+                                          ? new WriteRequestBatcher()
+                                          : null;
+        WritePerformer writePerformer = batcher == null
+                                      ? standardWritePerformer
+                                      : (mutation, targets, responseHandler, localDC, cl) -> sendToHintedEndpoints((Mutation) mutation, targets, responseHandler, localDC, Stage.MUTATION, batcher);
+
         try
         {
-            for (IMutation mutation : mutations)
+            try
             {
-                if (mutation instanceof CounterMutation)
+                for (IMutation mutation : mutations)
                 {
-                    responseHandlers.add(mutateCounter((CounterMutation)mutation, localDataCenter));
-                }
-                else
-                {
-                    WriteType wt = mutations.size() <= 1 ? WriteType.SIMPLE : WriteType.UNLOGGED_BATCH;
-                    responseHandlers.add(performWrite(mutation, consistency_level, localDataCenter, standardWritePerformer, null, wt));
+                    if (mutation instanceof CounterMutation)
+                    {
+                        responseHandlers.add(mutateCounter((CounterMutation)mutation, localDataCenter));
+                    }
+                    else
+                    {
+                        WriteType wt = mutations.size() <= 1 ? WriteType.SIMPLE : WriteType.UNLOGGED_BATCH;
+                        responseHandlers.add(performWrite(mutation, consistency_level, localDataCenter, writePerformer, null, wt));
+                    }
                 }
             }
+            finally
+            {
+                // the mutations preceding an unavailable one are sent regardless, as they would be without batching
+                if (batcher != null)
+                    batcher.send();
+            }
 
             // wait for writes.  throws TimeoutException if necessary
             for (AbstractWriteResponseHandler<IMutation> responseHandler : responseHandlers)
@@ -1185,6 +1317,22 @@ public class StorageProxy implements StorageProxyMBean
                                              String localDataCenter,
                                              Stage stage)
     throws OverloadedException
+    {
+        sendToHintedEndpoints(mutation, targets, responseHandler, localDataCenter, stage, null);
+    }
+
+    /**
+     * Same as {@link #sendToHintedEndpoints(Mutation, Iterable, AbstractWriteResponseHandler, String, Stage)}, but
+     * if {@code batcher} isn't null, writes to the local datacenter (including the local one) are handed to it
+     * instead of being performed right away.
+     */
+    private static void sendToHintedEndpoints(final Mutation mutation,
+                                              Iterable<InetAddress> targets,
+                                              AbstractWriteResponseHandler<IMutation> responseHandler,
+                                              String localDataCenter,
+                                              Stage stage,
+                                              WriteRequestBatcher batcher)
+    throws OverloadedException
     {
         // extra-datacenter replicas, grouped by dc
         Map<String, Collection<InetAddress>> dcGroups = null;
@@ -1214,7 +1362,10 @@ public class StorageProxy implements StorageProxyMBean
                     // (1.1 knows how to forward old-style String message IDs; updated to int in 2.0)
                     if (localDataCenter.equals(dc))
                     {
-                        MessagingService.instance().sendRR(message, destination, responseHandler, true);
+                        if (batcher == null)
+                            MessagingService.instance().sendRR(message, destination, responseHandler, true);
+                        else
+                            batcher.add(destination, mutation, responseHandler);
                     }
                     else
                     {
@@ -1245,7 +1396,12 @@ public class StorageProxy implements StorageProxyMBean
             submitHint(mutation, endpointsToHint, responseHandler);
 
         if (insertLocal)
-            performLocally(stage, Optional.of(mutation), mutation::apply, responseHandler);
+        {
+            if (batcher == null)
+                performLocally(stage, Optional.of(mutation), mutation::apply, responseHandler);
+            else
+                batcher.addLocal(() -> performLocally(stage, Optional.of(mutation), mutation::apply, responseHandler));
+        }
 
         if (dcGroups != null)
         {
@@ -1538,6 +1694,7 @@ public class StorageProxy implements StorageProxyMBean
         DecoratedKey key = command.partitionKey();
 
         PartitionIterator result = null;
+        int contentions = 0;
         try
         {
             // make sure any in-progress paxos writes are done (i.e., committed to a majority of replicas), before performing a quorum read
@@ -1550,11 +1707,14 @@ public class StorageProxy implements StorageProxyMBean
                                                                                    ? ConsistencyLevel.LOCAL_QUORUM
                                                                                    : ConsistencyLevel.QUORUM;
 
+            boolean fastPath = DatabaseDescriptor.isPaxosFastPathEnabled();
+            PaxosBallotAndContention pair;
             try
             {
-                final Pair<UUID, Integer> pair = beginAndRepairPaxos(start, key, metadata, liveEndpoints, requiredParticipants, consistencyLevel, consistencyForCommitOrFetch, false, state);
-                if (pair.right > 0)
-                    casReadMetrics.contention.update(pair.right);
+                pair = beginAndRepairPaxos(start, key, metadata, liveEndpoints, requiredParticipants, consistencyLevel, consistencyForCommitOrFetch, false, state, fastPath ? command : null);
+                contentions = pair.contentions;
+                if (pair.contentions > 0)
+                    casReadMetrics.contention.update(pair.contentions);
             }
             catch (WriteTimeoutException e)
             {
@@ -1565,7 +1725,17 @@ public class StorageProxy implements StorageProxyMBean
                 throw new ReadFailureException(consistencyLevel, e.received, e.failures, e.blockFor, false);
             }
 
-            result = fetchRows(group.commands, consistencyForCommitOrFetch);
+            if (pair.readResponse != null)
+            {
+                casReadMetrics.fastPathReads.inc();
+                result = UnfilteredPartitionIterators.filter(pair.readResponse.makeIterator(command), command.nowInSec());
+            }
+            else
+            {
+                if (fastPath)
+                    casReadMetrics.fastPathReadFallbacks.inc();
+                result = fetchRows(group.commands, consistencyForCommitOrFetch);
+            }
         }
         catch (UnavailableException e)
         {
@@ -1589,7 +1759,7 @@ public class StorageProxy implements StorageProxyMBean
         {
             long latency = System.nanoTime() - start;
             readMetrics.addNano(latency);
-            casReadMetrics.addNano(latency);
+            casReadMetrics.addNano(latency, contentions);
             Keyspace.open(metadata.ksName).getColumnFamilyStore(metadata.cfName).metric.coordinatorReadLatency.update(latency, TimeUnit.NANOSECONDS);
         }
 
@@ -1655,8 +1825,18 @@ public class StorageProxy implements StorageProxyMBean
         for (int i = 0; i < cmdCount; i++)
             reads[i] = new SinglePartitionReadLifecycle(commands.get(i), consistencyLevel);
 
-        for (int i = 0; i < cmdCount; i++)
-            reads[i].doInitialQueries();
+        if (cmdCount > 1 && DatabaseDescriptor.isMultiPartitionReadBatchingEnabled())
+        {
+            ReadRequestBatcher batcher = new ReadRequestBatcher();
+            for (int i = 0; i < cmdCount; i++)
+                reads[i].doInitialQueries(batcher);
+            batcher.send();
+        }
+        else
+        {
+            for (int i = 0; i < cmdCount; i++)
+                reads[i].doInitialQueries();
+        }
 
         for (int i = 0; i < cmdCount; i++)
             reads[i].maybeTryAdditionalReplicas();
@@ -1704,6 +1884,11 @@ public class StorageProxy implements StorageProxyMBean
             executor.executeAsync();
         }
 
+        void doInitialQueries(ReadRequestBatcher batcher)
+        {
+            executor.executeAsync(batcher);
+        }
+
         void maybeTryAdditionalReplicas()
         {
             executor.maybeTryAdditionalReplicas();
@@ -1996,6 +2181,17 @@ public class StorageProxy implements StorageProxyMBean
             }
         }
 
+        /**
+         * The size of the data of the responses received for the range, once waited for.
+         */
+        private long dataSize()
+        {
+            long size = 0;
+            for (MessageIn<ReadResponse> message : handler.resolver.getMessages())
+                size += message.payload.dataSize();
+            return size;
+        }
+
         protected RowIterator computeNext()
         {
             waitForResponse();
@@ -2009,6 +2205,14 @@ public class StorageProxy implements StorageProxyMBean
         }
     }
 
+    /**
+     * Queries the ranges of a range read in token order, with a window of concurrent range requests: the rows of each
+     * range are returned as soon as its responses are received, and new requests are sent whenever a range is done
+     * with, so the ranges queried concurrently never wait for the slowest of a batch.
+     * <p>
+     * The number of requests in flight is adapted after each range to the rows returned per range so far, so as to
+     * fetch the rows still missing to reach the limit of the command (see {@link #rangeConcurrencyFactor}).
+     */
     private static class RangeCommandIterator extends AbstractIterator<RowIterator> implements PartitionIterator
     {
         private final Iterator<RangeForQuery> ranges;
@@ -2018,14 +2222,17 @@ public class StorageProxy implements StorageProxyMBean
         private final ConsistencyLevel consistency;
 
         private final long startTime;
+        // the ranges queried and not returned yet, in token order
+        private final Deque<SingleRangeResponse> inFlight = new ArrayDeque<>();
+        private SingleRangeResponse current;
         private DataLimits.Counter counter;
-        private PartitionIterator sentQueryIterator;
+        private PartitionIterator currentIterator;
 
         private int concurrencyFactor;
-        // The two following "metric" are maintained to improve the concurrencyFactor
-        // when it was not good enough initially.
+        // The following "metric" are maintained to adapt the concurrencyFactor to what is actually returned
         private int liveReturned;
-        private int rangesQueried;
+        private long bytesReturned;
+        private int rangesReturned;
 
         public RangeCommandIterator(RangeIterator ranges, PartitionRangeReadCommand command, int concurrencyFactor, Keyspace keyspace, ConsistencyLevel consistency)
         {
@@ -2040,44 +2247,42 @@ public class StorageProxy implements StorageProxyMBean
 
         public RowIterator computeNext()
         {
-            while (sentQueryIterator == null || !sentQueryIterator.hasNext())
+            while (currentIterator == null || !currentIterator.hasNext())
             {
-                // If we don't have more range to handle, we're done
-                if (!ranges.hasNext())
-                    return endOfData();
-
-                // else, sends the next batch of concurrent queries (after having close the previous iterator)
-                if (sentQueryIterator != null)
+                // we're done with the current range, so we can use what it returned to improve our rows-per-range
+                // estimate and update the concurrency accordingly
+                if (currentIterator != null)
                 {
                     liveReturned += counter.counted();
-                    sentQueryIterator.close();
-
-                    // It's not the first batch of queries and we're not done, so we we can use what has been
-                    // returned so far to improve our rows-per-range estimate and update the concurrency accordingly
+                    bytesReturned += current.dataSize();
+                    ++rangesReturned;
+                    currentIterator.close();
+                    currentIterator = null;
                     updateConcurrencyFactor();
                 }
-                sentQueryIterator = sendNextRequests();
+
+                sendNextRequests();
+                // If we don't have more range to handle, we're done
+                if (inFlight.isEmpty())
+                    return endOfData();
+
+                current = inFlight.poll();
+                // We want to count the results for the sake of updating the concurrency factor (see updateConcurrencyFactor) but we don't want to
+                // enforce any particular limit at this point (this could break code than rely on postReconciliationProcessing), hence the DataLimits.NONE.
+                counter = DataLimits.NONE.newCounter(command.nowInSec(), true);
+                currentIterator = counter.applyTo(current);
             }
 
-            return sentQueryIterator.next();
+            return currentIterator.next();
         }
 
         private void updateConcurrencyFactor()
         {
-            if (liveReturned == 0)
-            {
-                // we haven't actually gotten any results, so query all remaining ranges at once
-                concurrencyFactor = totalRangeCount - rangesQueried;
-                return;
-            }
-
-            // Otherwise, compute how many rows per range we got on average and pick a concurrency factor
-            // that should allow us to fetch all remaining rows with the next batch of (concurrent) queries.
-            int remainingRows = command.limits().count() - liveReturned;
-            float rowsPerRange = (float)liveReturned / (float)rangesQueried;
-            concurrencyFactor = Math.max(1, Math.min(totalRangeCount - rangesQueried, Math.round(remainingRows / rowsPerRange)));
-            logger.trace("Didn't get enough response rows; actual rows per range: {}; remaining rows: {}, new concurrent requests: {}",
-                         rowsPerRange, (int) remainingRows, concurrencyFactor);
+            int previous = concurrencyFactor;
+            concurrencyFactor = rangeConcurrencyFactor(command.limits().count(), liveReturned, bytesReturned, rangesReturned, totalRangeCount - rangesReturned);
+            if (concurrencyFactor != previous)
+                logger.trace("Got {} rows and {} bytes in {} ranges; new concurrent requests: {}",
+                             liveReturned, bytesReturned, rangesReturned, concurrencyFactor);
         }
 
         private SingleRangeResponse query(RangeForQuery toQuery)
@@ -2110,28 +2315,27 @@ public class StorageProxy implements StorageProxyMBean
             return new SingleRangeResponse(handler);
         }
 
-        private PartitionIterator sendNextRequests()
+        private void sendNextRequests()
         {
-            List<PartitionIterator> concurrentQueries = new ArrayList<>(concurrencyFactor);
-            for (int i = 0; i < concurrencyFactor && ranges.hasNext(); i++)
+            int sent = 0;
+            while (inFlight.size() < concurrencyFactor && ranges.hasNext())
             {
-                concurrentQueries.add(query(ranges.next()));
-                ++rangesQueried;
+                inFlight.add(query(ranges.next()));
+                ++sent;
             }
 
-            Tracing.trace("Submitted {} concurrent range requests", concurrentQueries.size());
-            // We want to count the results for the sake of updating the concurrency factor (see updateConcurrencyFactor) but we don't want to
-            // enforce any particular limit at this point (this could break code than rely on postReconciliationProcessing), hence the DataLimits.NONE.
-            counter = DataLimits.NONE.newCounter(command.nowInSec(), true);
-            return counter.applyTo(PartitionIterators.concat(concurrentQueries));
+            if (sent > 0)
+                Tracing.trace("Submitted {} concurrent range requests ({} in flight)", sent, inFlight.size());
         }
 
         public void close()
         {
             try
             {
-                if (sentQueryIterator != null)
-                    sentQueryIterator.close();
+                if (currentIterator != null)
+                    currentIterator.close();
+                for (SingleRangeResponse response : inFlight)
+                    response.close();
             }
             finally
             {
@@ -2142,6 +2346,42 @@ public class StorageProxy implements StorageProxyMBean
         }
     }
 
+    /**
+     * Computes how many ranges of a range read should be queried concurrently, given what the ranges returned so far.
+     *
+     * @param limit the maximum number of rows to return
+     * @param liveReturned the number of rows returned so far
+     * @param bytesReturned the size of the data of the responses received so far
+     * @param rangesReturned the number of ranges returned so far, at least 1
+     * @param rangesRemaining the number of ranges not returned yet
+     * @return the number of ranges to query concurrently, including the ones already queried and not returned yet
+     */
+    @VisibleForTesting
+    static int rangeConcurrencyFactor(int limit, int liveReturned, long bytesReturned, int rangesReturned, int rangesRemaining)
+    {
+        assert rangesReturned > 0;
+        double concurrencyFactor;
+        if (liveReturned == 0)
+        {
+            // we haven't actually gotten any results, so query all remaining ranges at once
+            concurrencyFactor = rangesRemaining;
+        }
+        else
+        {
+            // Otherwise, compute how many rows per range we got on average and pick a concurrency factor
+            // that should allow us to fetch all remaining rows with the ranges queried concurrently.
+            double rowsPerRange = (double) liveReturned / rangesReturned;
+            concurrencyFactor = Math.ceil((limit - liveReturned) / rowsPerRange);
+        }
+
+        // without holding more than MAX_CONCURRENT_RANGE_BYTES of responses at once
+        long bytesPerRange = bytesReturned / rangesReturned;
+        if (bytesPerRange > 0)
+            concurrencyFactor = Math.min(concurrencyFactor, MAX_CONCURRENT_RANGE_BYTES / bytesPerRange);
+
+        return (int) Math.max(1, Math.min(rangesRemaining, concurrencyFactor));
+    }
+
     @SuppressWarnings("resource")
     public static PartitionIterator getRangeSlice(PartitionRangeReadCommand command, ConsistencyLevel consistencyLevel)
     throws UnavailableException, ReadFailureException, ReadTimeoutException
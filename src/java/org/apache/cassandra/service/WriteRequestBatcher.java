@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.IMutation;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.MutationBatch;
+import org.apache.cassandra.net.IAsyncCallbackWithFailure;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.tracing.Tracing;
+
+/**
+ * Collects the writes of an unlogged batch going to replicas of the local datacenter, so that they can be sent
+ * as a single {@link MutationBatch} per replica rather than one message per mutation.
+ *
+ * Each mutation keeps its own {@link AbstractWriteResponseHandler}: the batched response is split back and
+ * handed to them, and the mutations that didn't make it to the replica are hinted like individually sent
+ * writes would be on timeout.
+ */
+public class WriteRequestBatcher
+{
+    private final Map<InetAddress, Batch> batches = new HashMap<>();
+    private final List<Runnable> localWrites = new ArrayList<>();
+
+    /**
+     * Queues a remote write until {@link #send()}.
+     *
+     * Batched writes are sent whatever the version of {@code endpoint}, so they must only be enabled once all the
+     * nodes of the cluster support them.
+     */
+    public void add(InetAddress endpoint, Mutation mutation, AbstractWriteResponseHandler<IMutation> handler)
+    {
+        Batch batch = batches.get(endpoint);
+        if (batch == null)
+        {
+            batch = new Batch();
+            batches.put(endpoint, batch);
+        }
+        batch.mutations.add(mutation);
+        batch.handlers.add(handler);
+    }
+
+    /**
+     * Delays a local write until {@link #send()}, so that it doesn't hold back the remote ones.
+     */
+    public void addLocal(Runnable localWrite)
+    {
+        localWrites.add(localWrite);
+    }
+
+    /**
+     * Sends all the writes collected so far, then performs the local ones.
+     */
+    public void send()
+    {
+        for (Map.Entry<InetAddress, Batch> entry : batches.entrySet())
+        {
+            InetAddress endpoint = entry.getKey();
+            Batch batch = entry.getValue();
+            if (batch.mutations.size() == 1)
+            {
+                MessagingService.instance().sendRR(batch.mutations.get(0).createMessage(), endpoint, batch.handlers.get(0), true);
+            }
+            else
+            {
+                Tracing.trace("Sending {} batched mutations to {}", batch.mutations.size(), endpoint);
+                MessagingService.instance().sendRRWithFailure(new MutationBatch(batch.mutations).createMessage(), endpoint, new BatchCallback(batch));
+            }
+        }
+        batches.clear();
+
+        for (Runnable localWrite : localWrites)
+            localWrite.run();
+        localWrites.clear();
+    }
+
+    private static class Batch
+    {
+        private final List<Mutation> mutations = new ArrayList<>();
+        private final List<AbstractWriteResponseHandler<IMutation>> handlers = new ArrayList<>();
+    }
+
+    private static class BatchCallback implements IAsyncCallbackWithFailure<List<Boolean>>
+    {
+        private final Batch batch;
+
+        private BatchCallback(Batch batch)
+        {
+            this.batch = batch;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void response(MessageIn<List<Boolean>> message)
+        {
+            List<Boolean> applied = message.payload;
+            assert applied.size() == batch.handlers.size();
+            for (int i = 0; i < batch.handlers.size(); i++)
+            {
+                AbstractWriteResponseHandler<IMutation> handler = batch.handlers.get(i);
+                if (applied.get(i))
+                {
+                    handler.response(MessageIn.create(message.from,
+                                                      null,
+                                                      message.parameters,
+                                                      message.verb,
+                                                      message.version,
+                                                      message.constructionTime));
+                }
+                else
+                {
+                    failed(i, message.from);
+                }
+            }
+        }
+
+        public void onFailure(InetAddress from)
+        {
+            for (int i = 0; i < batch.handlers.size(); i++)
+                failed(i, from);
+        }
+
+        private void failed(int i, InetAddress from)
+        {
+            AbstractWriteResponseHandler<IMutation> handler = batch.handlers.get(i);
+            handler.onFailure(from);
+            if (handler.consistencyLevel != ConsistencyLevel.ANY && StorageProxy.shouldHint(from))
+                StorageProxy.submitHint(batch.mutations.get(i), from, null);
+        }
+
+        public boolean isLatencyForSnitch()
+        {
+            return false;
+        }
+    }
+}
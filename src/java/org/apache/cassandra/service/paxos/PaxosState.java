@@ -37,9 +37,9 @@ public class PaxosState
 {
     private static final Striped<Lock> LOCKS = Striped.lazyWeakLock(DatabaseDescriptor.getConcurrentWriters() * 1024);
 
-    private final Commit promised;
-    private final Commit accepted;
-    private final Commit mostRecentCommit;
+    final Commit promised;
+    final Commit accepted;
+    final Commit mostRecentCommit;
 
     public PaxosState(DecoratedKey key, CFMetaData metadata)
     {
@@ -71,11 +71,12 @@ public class PaxosState
                 // amount of re-submit will fix this (because the node on which the commit has expired will have a
                 // tombstone that hides any re-submit). See CASSANDRA-12043 for details.
                 int nowInSec = UUIDGen.unixTimestampInSec(toPrepare.ballot);
-                PaxosState state = SystemKeyspace.loadPaxosState(toPrepare.update.partitionKey(), toPrepare.update.metadata(), nowInSec);
+                PaxosState state = PaxosStateCache.instance.load(toPrepare.update.partitionKey(), toPrepare.update.metadata(), nowInSec);
                 if (toPrepare.isAfter(state.promised))
                 {
                     Tracing.trace("Promising ballot {}", toPrepare.ballot);
                     SystemKeyspace.savePaxosPromise(toPrepare);
+                    PaxosStateCache.instance.promised(toPrepare);
                     return new PrepareResponse(true, state.accepted, state.mostRecentCommit);
                 }
                 else
@@ -107,11 +108,12 @@ public class PaxosState
             try
             {
                 int nowInSec = UUIDGen.unixTimestampInSec(proposal.ballot);
-                PaxosState state = SystemKeyspace.loadPaxosState(proposal.update.partitionKey(), proposal.update.metadata(), nowInSec);
+                PaxosState state = PaxosStateCache.instance.load(proposal.update.partitionKey(), proposal.update.metadata(), nowInSec);
                 if (proposal.hasBallot(state.promised.ballot) || proposal.isAfter(state.promised))
                 {
                     Tracing.trace("Accepting proposal {}", proposal);
                     SystemKeyspace.savePaxosProposal(proposal);
+                    PaxosStateCache.instance.accepted(proposal);
                     return true;
                 }
                 else
@@ -162,6 +164,21 @@ public class PaxosState
             }
             // We don't need to lock, we're just blindly updating
             SystemKeyspace.savePaxosCommit(proposal);
+
+            // but the cache update is a read-modify-write, which must not interleave with the other paxos operations
+            if (PaxosStateCache.instance.isEnabled())
+            {
+                Lock lock = LOCKS.get(proposal.update.partitionKey());
+                lock.lock();
+                try
+                {
+                    PaxosStateCache.instance.committed(proposal);
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
         }
         finally
         {
@@ -0,0 +1,462 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service.paxos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.cache.InstrumentingCache;
+import org.apache.cassandra.cache.OHCProvider;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.SystemKeyspace;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputBufferFixed;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.metrics.CacheMetrics;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.UUIDGen;
+import org.caffinitas.ohc.CacheSerializer;
+import org.caffinitas.ohc.OHCacheBuilder;
+
+/**
+ * An off-heap, write-through cache of the content of system.paxos, so that the paxos rounds on hot partitions
+ * don't have to read it through the normal read path every time.
+ *
+ * An entry mirrors what is stored on disk for a partition: the ballot, serialized update and expiration time of the
+ * promise, the accepted proposal and the most recent commit, plus the timestamp of the deletion of the proposal by
+ * the last commit. Updates are reconciled the same way the cells are, by ballot timestamp, so that the outcome does
+ * not depend on the order they are applied in; on the rare timestamp tie between different ballots the entry is
+ * simply dropped and the state reloaded from disk. Expiration is evaluated against the {@code nowInSec} of the
+ * request, exactly like {@link SystemKeyspace#loadPaxosState} does.
+ *
+ * All the reads and updates of a given partition must be done while holding the paxos lock of that partition.
+ * Entries are only created when loading the state, updates of partitions not in the cache are ignored.
+ */
+public class PaxosStateCache
+{
+    public static final PaxosStateCache instance = new PaxosStateCache(DatabaseDescriptor.getPaxosStateCacheSizeInMB() * 1024 * 1024);
+
+    private final InstrumentingCache<Key, Entry> cache;
+    // bumped by invalidations, so that updates racing with them can tell they may have resurrected stale state
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @VisibleForTesting
+    PaxosStateCache(long capacity)
+    {
+        if (capacity <= 0)
+        {
+            cache = null;
+            return;
+        }
+
+        OHCacheBuilder<Key, Entry> builder = OHCacheBuilder.newBuilder();
+        builder.capacity(capacity)
+               .keySerializer(KeySerializer.instance)
+               .valueSerializer(EntrySerializer.instance)
+               .throwOOME(true);
+        cache = new InstrumentingCache<>("PaxosStateCache", new OHCProvider.OHCacheAdapter<>(builder.build()));
+    }
+
+    public boolean isEnabled()
+    {
+        return cache != null;
+    }
+
+    public PaxosState load(DecoratedKey key, CFMetaData metadata, int nowInSec)
+    {
+        if (cache == null)
+            return SystemKeyspace.loadPaxosState(key, metadata, nowInSec);
+
+        Key cacheKey = new Key(metadata.cfId, key.getKey());
+        Entry entry = cache.get(cacheKey);
+        if (entry == null)
+        {
+            long epoch = invalidations.get();
+            entry = Entry.create(SystemKeyspace.loadPaxosStateForCache(key, metadata));
+            put(cacheKey, entry, epoch);
+        }
+        return entry.toPaxosState(key, metadata, nowInSec);
+    }
+
+    /**
+     * Records a promise that has just been saved by {@link SystemKeyspace#savePaxosPromise}.
+     */
+    public void promised(Commit promise)
+    {
+        if (cache == null)
+            return;
+
+        Key cacheKey = keyOf(promise);
+        long epoch = invalidations.get();
+        Entry entry = cache.getInternal(cacheKey);
+        if (entry == null)
+            return;
+
+        Value value = Value.of(promise, null, expiresAt(promise));
+        int cmp = compare(value, entry.promised);
+        if (cmp == 0)
+            cache.remove(cacheKey);
+        else if (cmp > 0)
+            put(cacheKey, new Entry(value, entry.accepted, entry.acceptedDeletedAt, entry.committed), epoch);
+    }
+
+    /**
+     * Records a proposal that has just been saved by {@link SystemKeyspace#savePaxosProposal}.
+     */
+    public void accepted(Commit proposal)
+    {
+        if (cache == null)
+            return;
+
+        Key cacheKey = keyOf(proposal);
+        long epoch = invalidations.get();
+        Entry entry = cache.getInternal(cacheKey);
+        if (entry == null)
+            return;
+
+        // shadowed by the deletion of an equally recent or more recent commit
+        if (UUIDGen.microsTimestamp(proposal.ballot) <= entry.acceptedDeletedAt)
+            return;
+
+        Value value = Value.of(proposal, PartitionUpdate.toBytes(proposal.update, MessagingService.current_version), expiresAt(proposal));
+        int cmp = compare(value, entry.accepted);
+        if (cmp == 0)
+            cache.remove(cacheKey);
+        else if (cmp > 0)
+            put(cacheKey, new Entry(entry.promised, value, entry.acceptedDeletedAt, entry.committed), epoch);
+    }
+
+    /**
+     * Records a commit that has just been saved by {@link SystemKeyspace#savePaxosCommit}, which also deletes
+     * the accepted proposal if it isn't more recent than the commit.
+     */
+    public void committed(Commit commit)
+    {
+        if (cache == null)
+            return;
+
+        Key cacheKey = keyOf(commit);
+        long epoch = invalidations.get();
+        Entry entry = cache.getInternal(cacheKey);
+        if (entry == null)
+            return;
+
+        long timestamp = UUIDGen.microsTimestamp(commit.ballot);
+        Value accepted = entry.accepted != null && UUIDGen.microsTimestamp(entry.accepted.ballot) <= timestamp ? null : entry.accepted;
+        long acceptedDeletedAt = Math.max(entry.acceptedDeletedAt, timestamp);
+
+        Value value = Value.of(commit, PartitionUpdate.toBytes(commit.update, MessagingService.current_version), expiresAt(commit));
+        int cmp = compare(value, entry.committed);
+        if (cmp == 0)
+            cache.remove(cacheKey);
+        else
+            put(cacheKey, new Entry(entry.promised, accepted, acceptedDeletedAt, cmp > 0 ? value : entry.committed), epoch);
+    }
+
+    /**
+     * Drops the cached state of the partitions of the provided table, or everything if it is system.paxos itself.
+     */
+    public void invalidate(CFMetaData metadata)
+    {
+        if (cache == null)
+            return;
+
+        invalidations.incrementAndGet();
+        if (metadata.ksName.equals(SystemKeyspace.NAME) && metadata.cfName.equals(SystemKeyspace.PAXOS))
+        {
+            cache.clear();
+            return;
+        }
+
+        Iterator<Key> iter = cache.keyIterator();
+        while (iter.hasNext())
+        {
+            Key key = iter.next();
+            if (key.cfId.equals(metadata.cfId))
+                cache.remove(key);
+        }
+    }
+
+    public CacheMetrics getMetrics()
+    {
+        return cache == null ? null : cache.getMetrics();
+    }
+
+    private void put(Key key, Entry entry, long epoch)
+    {
+        cache.put(key, entry);
+        // an invalidation happened since we started, what we just put may predate it
+        if (invalidations.get() != epoch)
+            cache.remove(key);
+    }
+
+    private static Key keyOf(Commit commit)
+    {
+        return new Key(commit.update.metadata().cfId, commit.update.partitionKey().getKey());
+    }
+
+    private static int expiresAt(Commit commit)
+    {
+        // the write has just been done with the current time, so we can't expire it before it does on disk
+        return FBUtilities.nowInSeconds() + SystemKeyspace.paxosTtlSec(commit.update.metadata());
+    }
+
+    /**
+     * @return a positive value if {@code update} wins over {@code current}, a negative one if it loses, and 0 if
+     * they have the same timestamp but a different ballot, in which case we can't tell without comparing the
+     * serialized values like the cell reconciliation would do.
+     */
+    private static int compare(Value update, Value current)
+    {
+        if (current == null)
+            return 1;
+
+        int cmp = Long.compare(UUIDGen.microsTimestamp(update.ballot), UUIDGen.microsTimestamp(current.ballot));
+        if (cmp != 0)
+            return cmp;
+        // the same ballot being saved again (a replayed message), only the expiration time may have changed
+        return update.ballot.equals(current.ballot) ? 1 : 0;
+    }
+
+    private static class Key
+    {
+        private final UUID cfId;
+        private final ByteBuffer key;
+
+        private Key(UUID cfId, ByteBuffer key)
+        {
+            this.cfId = cfId;
+            this.key = key;
+        }
+    }
+
+    /**
+     * A column of the system.paxos row: a ballot with its (optional) serialized update, and the local time
+     * at which it expires.
+     */
+    private static class Value
+    {
+        private final UUID ballot;
+        private final ByteBuffer update;
+        private final int version;
+        private final int expiresAt;
+
+        private Value(UUID ballot, ByteBuffer update, int version, int expiresAt)
+        {
+            this.ballot = ballot;
+            this.update = update;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+
+        private static Value of(Commit commit, ByteBuffer update, int expiresAt)
+        {
+            return new Value(commit.ballot, update, MessagingService.current_version, expiresAt);
+        }
+
+        private boolean isLive(int nowInSec)
+        {
+            return nowInSec < expiresAt;
+        }
+    }
+
+    private static class Entry
+    {
+        private final Value promised;
+        private final Value accepted;
+        private final long acceptedDeletedAt;
+        private final Value committed;
+
+        private Entry(Value promised, Value accepted, long acceptedDeletedAt, Value committed)
+        {
+            this.promised = promised;
+            this.accepted = accepted;
+            this.acceptedDeletedAt = acceptedDeletedAt;
+            this.committed = committed;
+        }
+
+        private static Entry create(UntypedResultSet.Row row)
+        {
+            if (row == null)
+                return new Entry(null, null, Long.MIN_VALUE, null);
+
+            Value promised = row.has("in_progress_ballot")
+                           ? new Value(row.getUUID("in_progress_ballot"), null, MessagingService.current_version, expiresAt(row, "in_progress_ballot_expires_at"))
+                           : null;
+            Value accepted = row.has("proposal")
+                           ? new Value(row.getUUID("proposal_ballot"),
+                                       row.getBytes("proposal"),
+                                       row.has("proposal_version") ? row.getInt("proposal_version") : MessagingService.VERSION_21,
+                                       expiresAt(row, "proposal_expires_at"))
+                           : null;
+            Value committed = row.has("most_recent_commit")
+                            ? new Value(row.getUUID("most_recent_commit_at"),
+                                        row.getBytes("most_recent_commit"),
+                                        row.has("most_recent_commit_version") ? row.getInt("most_recent_commit_version") : MessagingService.VERSION_21,
+                                        expiresAt(row, "most_recent_commit_expires_at"))
+                            : null;
+            // every commit deletes the proposal with its own timestamp, the most recent of those deletions is the
+            // one of the most recent commit
+            long acceptedDeletedAt = committed == null ? Long.MIN_VALUE : UUIDGen.microsTimestamp(committed.ballot);
+            return new Entry(promised, accepted, acceptedDeletedAt, committed);
+        }
+
+        private static int expiresAt(UntypedResultSet.Row row, String column)
+        {
+            return row.has(column) ? row.getInt(column) : Integer.MAX_VALUE;
+        }
+
+        private PaxosState toPaxosState(DecoratedKey key, CFMetaData metadata, int nowInSec)
+        {
+            Commit promised = this.promised != null && this.promised.isLive(nowInSec)
+                            ? new Commit(this.promised.ballot, new PartitionUpdate(metadata, key, metadata.partitionColumns(), 1))
+                            : Commit.emptyCommit(key, metadata);
+            Commit accepted = this.accepted != null && this.accepted.isLive(nowInSec)
+                            ? new Commit(this.accepted.ballot, PartitionUpdate.fromBytes(this.accepted.update, this.accepted.version, key))
+                            : Commit.emptyCommit(key, metadata);
+            Commit committed = this.committed != null && this.committed.isLive(nowInSec)
+                             ? new Commit(this.committed.ballot, PartitionUpdate.fromBytes(this.committed.update, this.committed.version, key))
+                             : Commit.emptyCommit(key, metadata);
+            return new PaxosState(promised, accepted, committed);
+        }
+    }
+
+    private static class KeySerializer implements CacheSerializer<Key>
+    {
+        private static final KeySerializer instance = new KeySerializer();
+
+        public void serialize(Key key, ByteBuffer buf)
+        {
+            buf.putLong(key.cfId.getMostSignificantBits());
+            buf.putLong(key.cfId.getLeastSignificantBits());
+            buf.putInt(key.key.remaining());
+            buf.put(key.key.duplicate());
+        }
+
+        public Key deserialize(ByteBuffer buf)
+        {
+            UUID cfId = new UUID(buf.getLong(), buf.getLong());
+            byte[] key = new byte[buf.getInt()];
+            buf.get(key);
+            return new Key(cfId, ByteBuffer.wrap(key));
+        }
+
+        public int serializedSize(Key key)
+        {
+            return 16 + 4 + key.key.remaining();
+        }
+    }
+
+    private static class EntrySerializer implements CacheSerializer<Entry>
+    {
+        private static final EntrySerializer instance = new EntrySerializer();
+
+        public void serialize(Entry entry, ByteBuffer buf)
+        {
+            try (DataOutputBufferFixed out = new DataOutputBufferFixed(buf))
+            {
+                serialize(entry.promised, out);
+                serialize(entry.accepted, out);
+                out.writeLong(entry.acceptedDeletedAt);
+                serialize(entry.committed, out);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static void serialize(Value value, DataOutputPlus out) throws IOException
+        {
+            out.writeBoolean(value != null);
+            if (value == null)
+                return;
+
+            out.writeLong(value.ballot.getMostSignificantBits());
+            out.writeLong(value.ballot.getLeastSignificantBits());
+            out.writeInt(value.expiresAt);
+            out.writeBoolean(value.update != null);
+            if (value.update != null)
+            {
+                out.writeInt(value.version);
+                ByteBufferUtil.writeWithVIntLength(value.update, out);
+            }
+        }
+
+        @SuppressWarnings("resource")
+        public Entry deserialize(ByteBuffer buf)
+        {
+            try
+            {
+                DataInputBuffer in = new DataInputBuffer(buf, false);
+                Value promised = deserializeValue(in);
+                Value accepted = deserializeValue(in);
+                long acceptedDeletedAt = in.readLong();
+                Value committed = deserializeValue(in);
+                return new Entry(promised, accepted, acceptedDeletedAt, committed);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static Value deserializeValue(DataInputPlus in) throws IOException
+        {
+            if (!in.readBoolean())
+                return null;
+
+            UUID ballot = new UUID(in.readLong(), in.readLong());
+            int expiresAt = in.readInt();
+            if (!in.readBoolean())
+                return new Value(ballot, null, MessagingService.current_version, expiresAt);
+
+            int version = in.readInt();
+            return new Value(ballot, ByteBufferUtil.readWithVIntLength(in), version, expiresAt);
+        }
+
+        public int serializedSize(Entry entry)
+        {
+            return serializedSize(entry.promised) + serializedSize(entry.accepted) + TypeSizes.sizeof(entry.acceptedDeletedAt) + serializedSize(entry.committed);
+        }
+
+        private static int serializedSize(Value value)
+        {
+            if (value == null)
+                return 1;
+
+            int size = 1 + 16 + 4 + 1;
+            if (value.update != null)
+                size += 4 + ByteBufferUtil.serializedSizeWithVIntLength(value.update);
+            return size;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service.paxos;
+
+import java.io.IOException;
+
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.SinglePartitionReadCommand;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+
+/**
+ * A paxos prepare request that also asks the replica to read the partition once it has promised the ballot,
+ * so that a CAS can check its conditions without an additional round trip.
+ *
+ * It can also carry a commit the replica must apply before promising. This is used to complete a previous
+ * round (an in-progress proposal we just re-proposed, or a commit some replicas have missed) as part of the
+ * next prepare rather than with separate messages.
+ */
+public class PrepareAndRead
+{
+    public static final IVersionedSerializer<PrepareAndRead> serializer = new Serializer();
+
+    public final Commit toPrepare;
+    public final SinglePartitionReadCommand read;
+    public final Commit toCommit; // null if there is nothing to commit
+
+    public PrepareAndRead(Commit toPrepare, SinglePartitionReadCommand read, Commit toCommit)
+    {
+        this.toPrepare = toPrepare;
+        this.read = read;
+        this.toCommit = toCommit;
+    }
+
+    public MessageOut<PrepareAndRead> createMessage()
+    {
+        return new MessageOut<>(MessagingService.Verb.PAXOS_PREPARE_AND_READ, this, serializer);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("PrepareAndRead(%s, %s, %s)", toPrepare, read, toCommit);
+    }
+
+    private static class Serializer implements IVersionedSerializer<PrepareAndRead>
+    {
+        public void serialize(PrepareAndRead request, DataOutputPlus out, int version) throws IOException
+        {
+            Commit.serializer.serialize(request.toPrepare, out, version);
+            ReadCommand.serializer.serialize(request.read, out, version);
+            out.writeBoolean(request.toCommit != null);
+            if (request.toCommit != null)
+                Commit.serializer.serialize(request.toCommit, out, version);
+        }
+
+        public PrepareAndRead deserialize(DataInputPlus in, int version) throws IOException
+        {
+            Commit toPrepare = Commit.serializer.deserialize(in, version);
+            SinglePartitionReadCommand read = (SinglePartitionReadCommand) ReadCommand.serializer.deserialize(in, version);
+            Commit toCommit = in.readBoolean() ? Commit.serializer.deserialize(in, version) : null;
+            return new PrepareAndRead(toPrepare, read, toCommit);
+        }
+
+        public long serializedSize(PrepareAndRead request, int version)
+        {
+            long size = Commit.serializer.serializedSize(request.toPrepare, version)
+                      + ReadCommand.serializer.serializedSize(request.read, version)
+                      + TypeSizes.sizeof(request.toCommit != null);
+            if (request.toCommit != null)
+                size += Commit.serializer.serializedSize(request.toCommit, version);
+            return size;
+        }
+    }
+}
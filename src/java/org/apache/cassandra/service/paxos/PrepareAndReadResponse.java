@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service.paxos;
+
+import java.io.IOException;
+
+import org.apache.cassandra.db.ReadResponse;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+
+/**
+ * The response to a {@link PrepareAndRead}: a regular prepare response, plus the result of the read if the
+ * ballot has been promised (and the read completed in time).
+ */
+public class PrepareAndReadResponse extends PrepareResponse
+{
+    public static final IVersionedSerializer<PrepareAndReadResponse> serializer = new Serializer();
+
+    public final ReadResponse readResponse; // null if the ballot was not promised
+
+    public PrepareAndReadResponse(PrepareResponse response, ReadResponse readResponse)
+    {
+        super(response.promised, response.inProgressCommit, response.mostRecentCommit);
+        this.readResponse = readResponse;
+    }
+
+    private static class Serializer implements IVersionedSerializer<PrepareAndReadResponse>
+    {
+        public void serialize(PrepareAndReadResponse response, DataOutputPlus out, int version) throws IOException
+        {
+            PrepareResponse.serializer.serialize(response, out, version);
+            out.writeBoolean(response.readResponse != null);
+            if (response.readResponse != null)
+                ReadResponse.serializer.serialize(response.readResponse, out, version);
+        }
+
+        public PrepareAndReadResponse deserialize(DataInputPlus in, int version) throws IOException
+        {
+            PrepareResponse response = PrepareResponse.serializer.deserialize(in, version);
+            ReadResponse readResponse = in.readBoolean() ? ReadResponse.serializer.deserialize(in, version) : null;
+            return new PrepareAndReadResponse(response, readResponse);
+        }
+
+        public long serializedSize(PrepareAndReadResponse response, int version)
+        {
+            long size = PrepareResponse.serializer.serializedSize(response, version)
+                      + TypeSizes.sizeof(response.readResponse != null);
+            if (response.readResponse != null)
+                size += ReadResponse.serializer.serializedSize(response.readResponse, version);
+            return size;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service.paxos;
+
+import org.apache.cassandra.db.ReadExecutionController;
+import org.apache.cassandra.db.ReadResponse;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
+import org.apache.cassandra.net.IVerbHandler;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.tracing.Tracing;
+
+public class PrepareAndReadVerbHandler implements IVerbHandler<PrepareAndRead>
+{
+    public void doVerb(MessageIn<PrepareAndRead> message, int id)
+    {
+        PrepareAndRead request = message.payload;
+
+        if (request.toCommit != null)
+            PaxosState.commit(request.toCommit);
+
+        PrepareResponse response = PaxosState.prepare(request.toPrepare);
+
+        ReadResponse readResponse = null;
+        if (response.promised)
+        {
+            request.read.setMonitoringTime(message.constructionTime, message.getTimeout());
+            try (ReadExecutionController executionController = request.read.executionController();
+                 UnfilteredPartitionIterator iterator = request.read.executeLocally(executionController))
+            {
+                readResponse = request.read.createResponse(iterator);
+            }
+
+            // the prepare is still valid, the coordinator will just have to read separately
+            if (!request.read.complete())
+            {
+                Tracing.trace("Discarding partial read response to {} (timed out)", message.from);
+                readResponse = null;
+            }
+        }
+
+        MessageOut<PrepareAndReadResponse> reply = new MessageOut<>(MessagingService.Verb.REQUEST_RESPONSE,
+                                                                    new PrepareAndReadResponse(response, readResponse),
+                                                                    PrepareAndReadResponse.serializer);
+        MessagingService.instance().sendReply(reply, id, message.from);
+    }
+}
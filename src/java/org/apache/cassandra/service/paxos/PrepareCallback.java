@@ -22,6 +22,7 @@ package org.apache.cassandra.service.paxos;
 
 
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -30,6 +31,8 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import org.apache.cassandra.db.ConsistencyLevel;
 import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.ReadResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +51,8 @@ public class PrepareCallback extends AbstractPaxosCallback<PrepareResponse>
     public Commit mostRecentInProgressCommitWithUpdate;
 
     private final Map<InetAddress, Commit> commitsByReplica = new ConcurrentHashMap<InetAddress, Commit>();
+    // the responses to the read folded into the prepare, if it was sent as a PrepareAndRead
+    private final Map<InetAddress, ReadResponse> readsByReplica = new ConcurrentHashMap<InetAddress, ReadResponse>();
 
     public PrepareCallback(DecoratedKey key, CFMetaData metadata, int targets, ConsistencyLevel consistency)
     {
@@ -78,6 +83,8 @@ public class PrepareCallback extends AbstractPaxosCallback<PrepareResponse>
         }
 
         commitsByReplica.put(message.from, response.mostRecentCommit);
+        if (response instanceof PrepareAndReadResponse && ((PrepareAndReadResponse) response).readResponse != null)
+            readsByReplica.put(message.from, ((PrepareAndReadResponse) response).readResponse);
         if (response.mostRecentCommit.isAfter(mostRecentCommit))
             mostRecentCommit = response.mostRecentCommit;
 
@@ -89,6 +96,32 @@ public class PrepareCallback extends AbstractPaxosCallback<PrepareResponse>
         latch.countDown();
     }
 
+    /**
+     * @return the response to the read folded into this prepare if at least {@code requiredParticipants} replicas
+     * answered it and they all agree on the result, null otherwise (in which case the read must be done separately).
+     */
+    public ReadResponse agreedReadResponse(ReadCommand command, int requiredParticipants)
+    {
+        ReadResponse agreed = null;
+        ByteBuffer digest = null;
+        int count = 0;
+        for (ReadResponse response : readsByReplica.values())
+        {
+            ByteBuffer responseDigest = response.digest(command);
+            if (digest == null)
+            {
+                agreed = response;
+                digest = responseDigest;
+            }
+            else if (!digest.equals(responseDigest))
+            {
+                return null;
+            }
+            count++;
+        }
+        return count >= requiredParticipants ? agreed : null;
+    }
+
     public Iterable<InetAddress> replicasMissingMostRecentCommit(CFMetaData metadata, int nowInSec)
     {
         // In general, we need every replicas that have answered to the prepare (a quorum) to agree on the MRC (see
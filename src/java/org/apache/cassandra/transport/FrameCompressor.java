@@ -18,6 +18,10 @@
 package org.apache.cassandra.transport;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import io.netty.buffer.ByteBuf;
 import org.xerial.snappy.Snappy;
@@ -125,6 +129,9 @@ public interface FrameCompressor
      * is written in big-endian. The native protocol is entirely big-endian, so
      * it feels like putting little-endian here would be a annoying trap for
      * client writer.
+     *
+     * Frames are (de)compressed straight from and to (direct) ByteBufs, without
+     * going through intermediate arrays.
      */
     public static class LZ4Compressor implements FrameCompressor
     {
@@ -132,40 +139,37 @@ public interface FrameCompressor
 
         private static final int INTEGER_BYTES = 4;
         private final net.jpountz.lz4.LZ4Compressor compressor;
-        private final net.jpountz.lz4.LZ4Decompressor decompressor;
+        private final net.jpountz.lz4.LZ4FastDecompressor decompressor;
 
         private LZ4Compressor()
         {
             final LZ4Factory lz4Factory = LZ4Factory.fastestInstance();
             compressor = lz4Factory.fastCompressor();
-            decompressor = lz4Factory.decompressor();
+            decompressor = lz4Factory.fastDecompressor();
         }
 
         public Frame compress(Frame frame) throws IOException
         {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-
-            int maxCompressedLength = compressor.maxCompressedLength(input.length);
-            ByteBuf outputBuf = CBUtil.allocator.heapBuffer(INTEGER_BYTES + maxCompressedLength);
-
-            byte[] output = outputBuf.array();
-            int outputOffset = outputBuf.arrayOffset();
+            ByteBuf input = frame.body;
+            int length = input.readableBytes();
 
-            output[outputOffset + 0] = (byte) (input.length >>> 24);
-            output[outputOffset + 1] = (byte) (input.length >>> 16);
-            output[outputOffset + 2] = (byte) (input.length >>>  8);
-            output[outputOffset + 3] = (byte) (input.length);
+            int maxCompressedLength = compressor.maxCompressedLength(length);
+            ByteBuf output = CBUtil.allocator.buffer(INTEGER_BYTES + maxCompressedLength);
 
             try
             {
-                int written = compressor.compress(input, 0, input.length, output, outputOffset + INTEGER_BYTES, maxCompressedLength);
-                outputBuf.writerIndex(INTEGER_BYTES + written);
+                output.writeInt(length);
 
-                return frame.with(outputBuf);
+                ByteBuffer src = input.nioBuffer(input.readerIndex(), length);
+                ByteBuffer dest = output.nioBuffer(INTEGER_BYTES, maxCompressedLength);
+                int written = compressor.compress(src, src.position(), length, dest, dest.position(), maxCompressedLength);
+                output.writerIndex(INTEGER_BYTES + written);
+
+                return frame.with(output);
             }
             catch (final Throwable e)
             {
-                outputBuf.release();
+                output.release();
                 throw e;
             }
             finally
@@ -177,19 +181,17 @@ public interface FrameCompressor
 
         public Frame decompress(Frame frame) throws IOException
         {
-            byte[] input = CBUtil.readRawBytes(frame.body);
+            ByteBuf input = frame.body;
+            int uncompressedLength = input.readInt();
 
-            int uncompressedLength = ((input[0] & 0xFF) << 24)
-                                   | ((input[1] & 0xFF) << 16)
-                                   | ((input[2] & 0xFF) <<  8)
-                                   | ((input[3] & 0xFF));
-
-            ByteBuf output = CBUtil.allocator.heapBuffer(uncompressedLength);
+            ByteBuf output = CBUtil.allocator.buffer(uncompressedLength);
 
             try
             {
-                int read = decompressor.decompress(input, INTEGER_BYTES, output.array(), output.arrayOffset(), uncompressedLength);
-                if (read != input.length - INTEGER_BYTES)
+                ByteBuffer src = input.nioBuffer(input.readerIndex(), input.readableBytes());
+                ByteBuffer dest = output.nioBuffer(0, uncompressedLength);
+                int read = decompressor.decompress(src, src.position(), dest, dest.position(), uncompressedLength);
+                if (read != input.readableBytes())
                     throw new IOException("Compressed lengths mismatch");
 
                 output.writerIndex(uncompressedLength);
@@ -208,4 +210,139 @@ public interface FrameCompressor
             }
         }
     }
+
+    /**
+     * Deflate compression keeping a streaming context for the whole life of the connection: each frame is
+     * compressed as a sync-flushed block of a single deflate stream, so it can refer to everything the connection
+     * sent before it (within the 32KB deflate window). That makes the small and very repetitive frames of a
+     * typical CQL workload compress much better than they do when compressed independently.
+     *
+     * As both sides must see every frame, in order, an instance must be used by a single connection, and
+     * {@link #close()} must be called once it is closed to free the native zlib state. As with LZ4, the
+     * uncompressed length of each frame is written, in big-endian, before the compressed bytes.
+     */
+    public static class DeflateCompressor implements FrameCompressor
+    {
+        private static final int INTEGER_BYTES = 4;
+
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        private final Inflater inflater = new Inflater(true);
+        private boolean closed;
+
+        public synchronized Frame compress(Frame frame) throws IOException
+        {
+            if (closed)
+                throw new IOException("Compressor has been closed");
+
+            ByteBuf input = frame.body;
+            int length = input.readableBytes();
+
+            // incompressible data only grows by a few bytes per (at most 64KB) stored block
+            ByteBuf output = CBUtil.allocator.heapBuffer(INTEGER_BYTES + length + (length >>> 12) + 16);
+
+            try
+            {
+                output.writeInt(length);
+
+                if (input.hasArray())
+                {
+                    deflater.setInput(input.array(), input.arrayOffset() + input.readerIndex(), length);
+                }
+                else
+                {
+                    byte[] bytes = CBUtil.readRawBytes(input);
+                    deflater.setInput(bytes, 0, bytes.length);
+                }
+
+                while (true)
+                {
+                    int available = output.writableBytes();
+                    int written = deflater.deflate(output.array(), output.arrayOffset() + output.writerIndex(), available, Deflater.SYNC_FLUSH);
+                    output.writerIndex(output.writerIndex() + written);
+                    if (written < available)
+                        break;
+                    output.ensureWritable(Math.max(64, length >>> 4));
+                }
+
+                return frame.with(output);
+            }
+            catch (final Throwable e)
+            {
+                output.release();
+                throw e;
+            }
+            finally
+            {
+                //release the old frame
+                frame.release();
+            }
+        }
+
+        public synchronized Frame decompress(Frame frame) throws IOException
+        {
+            if (closed)
+                throw new IOException("Compressor has been closed");
+
+            ByteBuf input = frame.body;
+            int uncompressedLength = input.readInt();
+
+            // one more byte than expected so that we get to consume the empty block ending each flush
+            ByteBuf output = CBUtil.allocator.heapBuffer(uncompressedLength + 1);
+
+            try
+            {
+                if (input.hasArray())
+                {
+                    inflater.setInput(input.array(), input.arrayOffset() + input.readerIndex(), input.readableBytes());
+                }
+                else
+                {
+                    byte[] bytes = CBUtil.readRawBytes(input);
+                    inflater.setInput(bytes, 0, bytes.length);
+                }
+
+                while (!inflater.needsInput())
+                {
+                    int available = uncompressedLength + 1 - output.writerIndex();
+                    if (available == 0)
+                        throw new IOException("Compressed lengths mismatch");
+
+                    int read = inflater.inflate(output.array(), output.arrayOffset() + output.writerIndex(), available);
+                    output.writerIndex(output.writerIndex() + read);
+                    if (read == 0 && !inflater.needsInput())
+                        throw new IOException("Provided frame does not appear to be deflate compressed");
+                }
+
+                if (output.writerIndex() != uncompressedLength)
+                    throw new IOException("Compressed lengths mismatch");
+
+                return frame.with(output);
+            }
+            catch (final DataFormatException e)
+            {
+                output.release();
+                throw new IOException("Provided frame does not appear to be deflate compressed", e);
+            }
+            catch (final Throwable e)
+            {
+                output.release();
+                throw e;
+            }
+            finally
+            {
+                //release the old frame
+                frame.release();
+            }
+        }
+
+        public synchronized void close()
+        {
+            if (closed)
+                return;
+
+            closed = true;
+            deflater.end();
+            inflater.end();
+        }
+    }
 }
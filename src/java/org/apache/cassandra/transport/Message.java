@@ -36,12 +36,15 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.service.ClientWarn;
 import org.apache.cassandra.transport.messages.*;
 import org.apache.cassandra.service.QueryState;
@@ -414,6 +417,10 @@ public abstract class Message
             }
         }
 
+        /**
+         * Flushes the responses of all the channels of an event loop, polling for them from a task regularly
+         * scheduled on that event loop. Only used if {@code native_transport_flush_in_batches_legacy} is set.
+         */
         private static final class Flusher implements Runnable
         {
             final EventLoop eventLoop;
@@ -454,7 +461,10 @@ public abstract class Message
                     for (ChannelHandlerContext channel : channels)
                         channel.flush();
                     for (FlushItem item : flushed)
+                    {
+                        RequestPayloadLimitHandler.requestCompleted(item.ctx.channel(), item.sourceFrame);
                         item.sourceFrame.release();
+                    }
 
                     channels.clear();
                     flushed.clear();
@@ -480,7 +490,64 @@ public abstract class Message
             }
         }
 
+        /**
+         * Flushes the responses of a single channel. Responses are written directly on the event loop of the channel,
+         * and a single flush is issued for all the responses that were queued by the time it gets to run, so that
+         * writes are naturally coalesced when the channel is busy without delaying responses when it isn't.
+         *
+         * Reading from the channel is suspended while its outbound buffer is above the high water mark.
+         */
+        private static final class ChannelFlusher implements Runnable
+        {
+            final Channel channel;
+            final ConcurrentLinkedQueue<FlushItem> queued = new ConcurrentLinkedQueue<>();
+            final AtomicBoolean scheduled = new AtomicBoolean(false);
+            final List<FlushItem> flushed = new ArrayList<>();
+
+            private ChannelFlusher(Channel channel)
+            {
+                this.channel = channel;
+            }
+
+            void enqueue(FlushItem item)
+            {
+                queued.add(item);
+                if (!scheduled.get() && scheduled.compareAndSet(false, true))
+                    channel.eventLoop().execute(this);
+            }
+
+            public void run()
+            {
+                // reset before draining, so that items queued from now on are guaranteed to be picked by a later run
+                scheduled.set(false);
+
+                FlushItem flush;
+                while (null != (flush = queued.poll()))
+                {
+                    // write from the channel rather than from the dispatcher context, as the latter may be bound to
+                    // the request executor, which would add a thread hop before getting back to the encoders
+                    channel.write(flush.response, channel.voidPromise());
+                    flushed.add(flush);
+                }
+
+                if (flushed.isEmpty())
+                    return;
+
+                channel.flush();
+                for (FlushItem item : flushed)
+                {
+                    RequestPayloadLimitHandler.requestCompleted(channel, item.sourceFrame);
+                    item.sourceFrame.release();
+                }
+                flushed.clear();
+
+                if (!channel.isWritable())
+                    ReadSuspension.suspend(channel, ReadSuspension.UNWRITABLE);
+            }
+        }
+
         private static final ConcurrentMap<EventLoop, Flusher> flusherLookup = new ConcurrentHashMap<>();
+        private static final AttributeKey<ChannelFlusher> CHANNEL_FLUSHER_KEY = AttributeKey.valueOf("CHANNEL_FLUSHER");
 
         public Dispatcher()
         {
@@ -526,8 +593,31 @@ public abstract class Message
             flush(new FlushItem(ctx, response, request.getSourceFrame()));
         }
 
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
+        {
+            if (ctx.channel().isWritable())
+                ReadSuspension.resume(ctx.channel(), ReadSuspension.UNWRITABLE);
+            ctx.fireChannelWritabilityChanged();
+        }
+
         private void flush(FlushItem item)
         {
+            if (!DatabaseDescriptor.getNativeTransportFlushInBatchesLegacy())
+            {
+                Channel channel = item.ctx.channel();
+                Attribute<ChannelFlusher> attribute = channel.attr(CHANNEL_FLUSHER_KEY);
+                ChannelFlusher flusher = attribute.get();
+                if (flusher == null)
+                {
+                    ChannelFlusher alt = attribute.setIfAbsent(flusher = new ChannelFlusher(channel));
+                    if (alt != null)
+                        flusher = alt;
+                }
+                flusher.enqueue(item);
+                return;
+            }
+
             EventLoop loop = item.ctx.channel().eventLoop();
             Flusher flusher = flusherLookup.get(loop);
             if (flusher == null)
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.transport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+/**
+ * Keeps track of the reasons for which reading from a client channel is suspended, so that they can be lifted
+ * independently: the channel is only read again once none of them holds anymore.
+ */
+final class ReadSuspension
+{
+    /** Too many request bytes in flight, see {@link RequestPayloadLimitHandler} */
+    static final int PAYLOAD = 1;
+    /** The outbound buffer of the channel went above its high water mark */
+    static final int UNWRITABLE = 2;
+
+    private static final AttributeKey<AtomicInteger> REASONS_KEY = AttributeKey.valueOf("READ_SUSPENSION_REASONS");
+
+    private ReadSuspension()
+    {
+    }
+
+    static void suspend(Channel channel, int reason)
+    {
+        int previous;
+        AtomicInteger reasons = reasons(channel);
+        do
+        {
+            previous = reasons.get();
+            if ((previous & reason) != 0)
+                return;
+        }
+        while (!reasons.compareAndSet(previous, previous | reason));
+
+        if (previous == 0)
+            updateAutoRead(channel, reasons);
+    }
+
+    static void resume(Channel channel, int reason)
+    {
+        int previous;
+        AtomicInteger reasons = reasons(channel);
+        do
+        {
+            previous = reasons.get();
+            if ((previous & reason) == 0)
+                return;
+        }
+        while (!reasons.compareAndSet(previous, previous & ~reason));
+
+        if (previous == reason)
+            updateAutoRead(channel, reasons);
+    }
+
+    private static AtomicInteger reasons(Channel channel)
+    {
+        Attribute<AtomicInteger> attribute = channel.attr(REASONS_KEY);
+        AtomicInteger reasons = attribute.get();
+        if (reasons == null)
+        {
+            AtomicInteger newReasons = new AtomicInteger(0);
+            reasons = attribute.setIfAbsent(newReasons);
+            if (reasons == null)
+                reasons = newReasons;
+        }
+        return reasons;
+    }
+
+    // Updates are serialized on the event loop and read the reasons when they run, so that concurrent suspensions
+    // and resumptions can't leave the channel in a state that doesn't match them.
+    private static void updateAutoRead(Channel channel, AtomicInteger reasons)
+    {
+        if (channel.eventLoop().inEventLoop())
+            channel.config().setAutoRead(reasons.get() == 0);
+        else
+            channel.eventLoop().execute(() -> channel.config().setAutoRead(reasons.get() == 0));
+    }
+}
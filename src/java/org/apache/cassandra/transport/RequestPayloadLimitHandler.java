@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.transport;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.Meter;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.exceptions.OverloadedException;
+import org.apache.cassandra.metrics.ClientMetrics;
+import org.apache.cassandra.transport.messages.ErrorMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ChannelInboundHandlerAdapter} implementation which limits the size of the requests that are being
+ * processed at the same time, globally and per client ip, so that a burst from a few clients can't exhaust the
+ * heap while requests wait for the {@link RequestThreadPoolExecutor}.
+ *
+ * The size of a request is the size of its frame body. It is accounted for when the request is decoded, and
+ * released by the {@link Message.Dispatcher} once the response has been flushed. A request going over a limit is
+ * either rejected with an {@link OverloadedException}, or processed, but with the connection it came from not
+ * being read anymore until its pending requests have been answered or the limits are honoured again.
+ *
+ * Be aware this <strong>MUST</strong> be shared between all child channels.
+ */
+@ChannelHandler.Sharable
+final class RequestPayloadLimitHandler extends ChannelInboundHandlerAdapter
+{
+    private static final Logger logger = LoggerFactory.getLogger(RequestPayloadLimitHandler.class);
+
+    private static final AttributeKey<ChannelPayload> PAYLOAD_KEY = AttributeKey.valueOf("PAYLOAD");
+
+    static final RequestPayloadLimitHandler instance = new RequestPayloadLimitHandler();
+
+    private final ConcurrentMap<InetAddress, EndpointPayload> payloadPerClient = new ConcurrentHashMap<>();
+    private final AtomicLong inFlightBytes = new AtomicLong(0);
+
+    private final AtomicInteger pausedConnections = new AtomicInteger(0);
+    private final Meter connectionsPaused;
+    private final Meter requestsRejected;
+
+    private RequestPayloadLimitHandler()
+    {
+        ClientMetrics.instance.addCounter("PausedConnections", pausedConnections::get);
+        connectionsPaused = ClientMetrics.instance.addMeter("ConnectionsPaused");
+        requestsRejected = ClientMetrics.instance.addMeter("RequestsRejectedOnOverload");
+    }
+
+    /**
+     * @return whether any of the limits is enabled, in which case this handler should be added to the pipeline
+     */
+    static boolean isEnabled()
+    {
+        return DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsInBytes() > 0
+               || DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsInBytesPerIp() > 0;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception
+    {
+        InetAddress address = ((InetSocketAddress) ctx.channel().remoteAddress()).getAddress();
+        EndpointPayload endpoint = payloadPerClient.compute(address, (a, e) -> {
+            if (e == null)
+                e = new EndpointPayload();
+            e.connections++;
+            return e;
+        });
+        ctx.channel().attr(PAYLOAD_KEY).set(new ChannelPayload(address, endpoint));
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception
+    {
+        ChannelPayload payload = ctx.channel().attr(PAYLOAD_KEY).get();
+        if (payload != null)
+        {
+            payloadPerClient.computeIfPresent(payload.address, (a, e) -> --e.connections == 0 ? null : e);
+            if (payload.paused)
+            {
+                payload.paused = false;
+                pausedConnections.decrementAndGet();
+            }
+        }
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+    {
+        ChannelPayload payload = ctx.channel().attr(PAYLOAD_KEY).get();
+        if (payload == null || !(msg instanceof Message.Request))
+        {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        Message.Request request = (Message.Request) msg;
+        long size = request.getSourceFrame().body.capacity();
+        long globalInFlight = inFlightBytes.addAndGet(size);
+        long endpointInFlight = payload.endpoint.inFlightBytes.addAndGet(size);
+        payload.inFlightRequests.incrementAndGet();
+
+        if (isOverLimit(globalInFlight, endpointInFlight))
+        {
+            if (DatabaseDescriptor.getNativeTransportThrowOnOverload())
+            {
+                release(payload, size);
+                requestsRejected.mark();
+                ErrorMessage error = ErrorMessage.fromException(new OverloadedException(String.format("Too many in flight request bytes: %d (limit %d) for %s (limit %d)",
+                                                                                                   globalInFlight,
+                                                                                                   DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsInBytes(),
+                                                                                                   payload.address,
+                                                                                                   DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsInBytesPerIp())));
+                error.setStreamId(request.getStreamId());
+                error.attach(request.connection());
+                ctx.writeAndFlush(error);
+                request.getSourceFrame().release();
+                return;
+            }
+
+            // the request has been read already, so let it through, but don't read any other one for now
+            if (!payload.paused)
+            {
+                logger.trace("Pausing reads from {}: {} in flight request bytes from that client, {} overall", payload.address, endpointInFlight, globalInFlight);
+                payload.paused = true;
+                ReadSuspension.suspend(ctx.channel(), ReadSuspension.PAYLOAD);
+                pausedConnections.incrementAndGet();
+                connectionsPaused.mark();
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * Called on the event loop of {@code channel} once the response to the request read from {@code sourceFrame}
+     * has been written out, and before the frame is released.
+     */
+    static void requestCompleted(Channel channel, Frame sourceFrame)
+    {
+        ChannelPayload payload = channel.attr(PAYLOAD_KEY).get();
+        if (payload == null)
+            return;
+
+        instance.release(payload, sourceFrame.body.capacity());
+
+        // resume reading once the limits are honoured again, or whatever they are if the connection has nothing
+        // in flight anymore, as there would be nothing left to unpause it later on
+        if (payload.paused
+            && (payload.inFlightRequests.get() == 0 || !isOverLimit(instance.inFlightBytes.get(), payload.endpoint.inFlightBytes.get())))
+        {
+            payload.paused = false;
+            ReadSuspension.resume(channel, ReadSuspension.PAYLOAD);
+            instance.pausedConnections.decrementAndGet();
+        }
+    }
+
+    private void release(ChannelPayload payload, long size)
+    {
+        inFlightBytes.addAndGet(-size);
+        payload.endpoint.inFlightBytes.addAndGet(-size);
+        payload.inFlightRequests.decrementAndGet();
+    }
+
+    private static boolean isOverLimit(long globalInFlight, long endpointInFlight)
+    {
+        long limit = DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsInBytes();
+        long perIpLimit = DatabaseDescriptor.getNativeTransportMaxConcurrentRequestsInBytesPerIp();
+        return (limit > 0 && globalInFlight > limit) || (perIpLimit > 0 && endpointInFlight > perIpLimit);
+    }
+
+    private static final class EndpointPayload
+    {
+        private final AtomicLong inFlightBytes = new AtomicLong(0);
+        // only modified under ConcurrentHashMap.compute
+        private int connections;
+    }
+
+    private static final class ChannelPayload
+    {
+        private final InetAddress address;
+        private final EndpointPayload endpoint;
+        private final AtomicInteger inFlightRequests = new AtomicInteger(0);
+        // only accessed from the event loop of the channel
+        private boolean paused;
+
+        private ChannelPayload(InetAddress address, EndpointPayload endpoint)
+        {
+            this.address = address;
+            this.endpoint = endpoint;
+        }
+    }
+}
@@ -327,6 +327,10 @@ public class Server implements CassandraDaemon.Server
             pipeline.addLast("messageDecoder", messageDecoder);
             pipeline.addLast("messageEncoder", messageEncoder);
 
+            // Account for the requests on the event loop, before they are queued for execution.
+            if (RequestPayloadLimitHandler.isEnabled())
+                pipeline.addLast("requestPayloadLimitHandler", RequestPayloadLimitHandler.instance);
+
             if (server.eventExecutorGroup != null)
                 pipeline.addLast(server.eventExecutorGroup, "executor", dispatcher);
             else
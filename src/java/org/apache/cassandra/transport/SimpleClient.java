@@ -114,19 +114,42 @@ public class SimpleClient implements Closeable
     }
 
     public void connect(boolean useCompression) throws IOException
+    {
+        connect(useCompression ? "snappy" : null);
+    }
+
+    /**
+     * @param compression the frame compression to use (snappy, lz4 or deflate), or null for none
+     */
+    public void connect(String compression) throws IOException
     {
         establishConnection();
 
         Map<String, String> options = new HashMap<>();
         options.put(StartupMessage.CQL_VERSION, "3.0.0");
-        if (useCompression)
+        if (compression != null)
         {
-            options.put(StartupMessage.COMPRESSION, "snappy");
-            connection.setCompressor(FrameCompressor.SnappyCompressor.instance);
+            options.put(StartupMessage.COMPRESSION, compression);
+            connection.setCompressor(newCompressor(compression));
         }
         execute(new StartupMessage(options));
     }
 
+    private static FrameCompressor newCompressor(String compression)
+    {
+        switch (compression)
+        {
+            case "snappy":
+                return FrameCompressor.SnappyCompressor.instance;
+            case "lz4":
+                return FrameCompressor.LZ4Compressor.instance;
+            case "deflate":
+                return new FrameCompressor.DeflateCompressor();
+            default:
+                throw new IllegalArgumentException("Unknown compression algorithm: " + compression);
+        }
+    }
+
     public void setEventHandler(EventHandler eventHandler)
     {
         responseHandler.eventHandler = eventHandler;
@@ -205,6 +228,9 @@ public class SimpleClient implements Closeable
 
         // Shut down all thread pools to exit.
         bootstrap.group().shutdownGracefully();
+
+        if (connection.getCompressor() instanceof FrameCompressor.DeflateCompressor)
+            ((FrameCompressor.DeflateCompressor) connection.getCompressor()).close();
     }
 
     public Message.Response execute(Message.Request request)
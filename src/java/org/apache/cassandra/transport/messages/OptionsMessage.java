@@ -66,6 +66,8 @@ public class OptionsMessage extends Message.Request
             compressions.add("snappy");
         // LZ4 is always available since worst case scenario it default to a pure JAVA implem.
         compressions.add("lz4");
+        // deflate is provided by the JDK
+        compressions.add("deflate");
 
         Map<String, List<String>> supported = new HashMap<String, List<String>>();
         supported.put(StartupMessage.CQL_VERSION, cqlVersions);
@@ -91,6 +91,13 @@ public class StartupMessage extends Message.Request
             {
                 connection.setCompressor(FrameCompressor.LZ4Compressor.instance);
             }
+            else if (compression.equals("deflate"))
+            {
+                // the compression context lives as long as the connection
+                final FrameCompressor.DeflateCompressor compressor = new FrameCompressor.DeflateCompressor();
+                connection.setCompressor(compressor);
+                connection.channel().closeFuture().addListener(future -> compressor.close());
+            }
             else
             {
                 throw new ProtocolException(String.format("Unknown compression algorithm: %s", compression));
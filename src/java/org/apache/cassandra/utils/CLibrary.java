@@ -234,6 +234,56 @@ public final class CLibrary
         }
     }
 
+    /**
+     * Advises the OS that the file is going to be read sequentially, so it reads it ahead more aggressively.
+     * The advice applies to the file descriptor, until reverted by {@link #tryAdviseNormal}.
+     */
+    public static void tryAdviseSequential(int fd, String path)
+    {
+        tryAdvise(fd, POSIX_FADV_SEQUENTIAL, "tryAdviseSequential", path);
+    }
+
+    /**
+     * Reverts the advice of {@link #tryAdviseSequential}, so the file is read ahead with the default size.
+     */
+    public static void tryAdviseNormal(int fd, String path)
+    {
+        tryAdvise(fd, POSIX_FADV_NORMAL, "tryAdviseNormal", path);
+    }
+
+    private static void tryAdvise(int fd, int advice, String operation, String path)
+    {
+        if (fd < 0)
+            return;
+
+        try
+        {
+            if (System.getProperty("os.name").toLowerCase().contains("linux"))
+            {
+                int result = posix_fadvise(fd, 0, 0, advice);
+                if (result != 0)
+                    NoSpamLogger.log(
+                            logger,
+                            NoSpamLogger.Level.WARN,
+                            10,
+                            TimeUnit.MINUTES,
+                            "Failed " + operation + " on file: {} Error: " + strerror(result).getString(0),
+                            path);
+            }
+        }
+        catch (UnsatisfiedLinkError e)
+        {
+            // if JNA is unavailable the file is just read with the default read-ahead
+        }
+        catch (RuntimeException e)
+        {
+            if (!(e instanceof LastErrorException))
+                throw e;
+
+            logger.warn(String.format("posix_fadvise(%d) failed, errno (%d).", fd, errno(e)));
+        }
+    }
+
     public static int tryFcntl(int fd, int command, int flags)
     {
         // fcntl return value may or may not be useful, depending on the command
@@ -42,6 +42,9 @@ public class IntervalTree<C extends Comparable<? super C>, D, I extends Interval
     @SuppressWarnings("unchecked")
     private static final IntervalTree EMPTY_TREE = new IntervalTree(null);
 
+    // the size under which unbalanced subtrees are left as is by updates
+    private static final int REBUILD_MIN_SIZE = 8;
+
     private final IntervalNode head;
     private final int count;
 
@@ -51,6 +54,20 @@ public class IntervalTree<C extends Comparable<? super C>, D, I extends Interval
         this.count = intervals == null ? 0 : intervals.size();
     }
 
+    /**
+     * Creates the tree of the intervals of {@code tree}, minus {@code removals} (that must all be in {@code tree}),
+     * plus {@code additions}.
+     * <p>
+     * Rather than being built from scratch, the new tree reuses the nodes of {@code tree} that the change doesn't
+     * touch, so that a small change costs about the depth of the tree. Subtrees that the change leaves too
+     * unbalanced are rebuilt.
+     */
+    protected IntervalTree(IntervalTree<C, D, I> tree, Collection<I> removals, Collection<I> additions)
+    {
+        this.head = update(tree.head, removals, additions);
+        this.count = tree.count - removals.size() + additions.size();
+    }
+
     public static <C extends Comparable<? super C>, D, I extends Interval<C, D>> IntervalTree<C, D, I> build(Collection<I> intervals)
     {
         if (intervals == null || intervals.isEmpty())
@@ -59,6 +76,17 @@ public class IntervalTree<C extends Comparable<? super C>, D, I extends Interval
         return new IntervalTree<C, D, I>(intervals);
     }
 
+    public static <C extends Comparable<? super C>, D, I extends Interval<C, D>> IntervalTree<C, D, I> update(IntervalTree<C, D, I> tree, Collection<I> removals, Collection<I> additions)
+    {
+        if (removals.isEmpty() && additions.isEmpty())
+            return tree;
+
+        if (tree.count == removals.size() && additions.isEmpty())
+            return emptyTree();
+
+        return new IntervalTree<C, D, I>(tree, removals, additions);
+    }
+
     public static <C extends Comparable<? super C>, D, I extends Interval<C, D>> Serializer<C, D, I> serializer(ISerializer<C> pointSerializer, ISerializer<D> dataSerializer, Constructor<I> constructor)
     {
         return new Serializer<>(pointSerializer, dataSerializer, constructor);
@@ -143,6 +171,73 @@ public class IntervalTree<C extends Comparable<? super C>, D, I extends Interval
         return result;
     }
 
+    private IntervalNode update(IntervalNode node, Collection<I> removals, Collection<I> additions)
+    {
+        if (removals.isEmpty() && additions.isEmpty())
+            return node;
+
+        if (node == null)
+        {
+            assert removals.isEmpty() : "intervals " + removals + " are not in the tree";
+            return new IntervalNode(additions);
+        }
+
+        // Separate the changes the same way the node separates its intervals
+        List<I> leftRemovals = new ArrayList<>(), rightRemovals = new ArrayList<>(), removed = new ArrayList<>();
+        for (I interval : removals)
+            node.select(interval, leftRemovals, removed, rightRemovals);
+        List<I> leftAdditions = new ArrayList<>(), rightAdditions = new ArrayList<>(), added = new ArrayList<>();
+        for (I interval : additions)
+            node.select(interval, leftAdditions, added, rightAdditions);
+
+        List<I> intersectsLeft = node.intersectsLeft;
+        List<I> intersectsRight = node.intersectsRight;
+        if (!removed.isEmpty() || !added.isEmpty())
+        {
+            intersectsLeft = update(intersectsLeft, removed, added, Interval.<C, D>minOrdering());
+            intersectsRight = update(intersectsRight, removed, added, Interval.<C, D>maxOrdering());
+        }
+
+        IntervalNode left = update(node.left, leftRemovals, leftAdditions);
+        IntervalNode right = update(node.right, rightRemovals, rightAdditions);
+        int size = node.size - removals.size() + additions.size();
+        if (size == 0)
+            return null;
+
+        // Built nodes have less than half of their intervals on each side: rebuild the ones that drifted too far from that
+        int leftSize = left == null ? 0 : left.size;
+        int rightSize = right == null ? 0 : right.size;
+        if (size > REBUILD_MIN_SIZE && Math.max(leftSize, rightSize) > size * 3 / 4)
+        {
+            List<I> intervals = new ArrayList<>(size);
+            intervals.addAll(intersectsLeft);
+            if (left != null)
+                Iterators.addAll(intervals, new TreeIterator(left));
+            if (right != null)
+                Iterators.addAll(intervals, new TreeIterator(right));
+            return new IntervalNode(intervals);
+        }
+
+        return new IntervalNode(node.center, intersectsLeft, intersectsRight, left, right, size);
+    }
+
+    private static <I> List<I> update(List<I> sorted, Collection<I> removals, Collection<I> additions, Comparator<? super I> comparator)
+    {
+        List<I> updated = new ArrayList<>(sorted.size() - removals.size() + additions.size());
+        Set<I> toRemove = removals.isEmpty() ? Collections.emptySet() : new HashSet<>(removals);
+        for (I interval : sorted)
+        {
+            if (!toRemove.contains(interval))
+                updated.add(interval);
+        }
+        assert updated.size() == sorted.size() - removals.size() : "intervals " + removals + " are not all in the tree";
+
+        updated.addAll(additions);
+        if (!additions.isEmpty())
+            updated.sort(comparator);
+        return updated;
+    }
+
     private class IntervalNode
     {
         final C center;
@@ -155,10 +250,34 @@ public class IntervalTree<C extends Comparable<? super C>, D, I extends Interval
         final IntervalNode left;
         final IntervalNode right;
 
+        // the number of intervals in this node and its children
+        final int size;
+
+        IntervalNode(C center, List<I> intersectsLeft, List<I> intersectsRight, IntervalNode left, IntervalNode right, int size)
+        {
+            this.center = center;
+            this.intersectsLeft = intersectsLeft;
+            this.intersectsRight = intersectsRight;
+            this.left = left;
+            this.right = right;
+            this.size = size;
+
+            C low = left == null ? null : left.low;
+            if (!intersectsLeft.isEmpty() && (low == null || intersectsLeft.get(0).min.compareTo(low) < 0))
+                low = intersectsLeft.get(0).min;
+            this.low = low == null ? right.low : low;
+
+            C high = right == null ? null : right.high;
+            if (!intersectsRight.isEmpty() && (high == null || intersectsRight.get(intersectsRight.size() - 1).max.compareTo(high) > 0))
+                high = intersectsRight.get(intersectsRight.size() - 1).max;
+            this.high = high == null ? left.high : high;
+        }
+
         public IntervalNode(Collection<I> toBisect)
         {
             assert !toBisect.isEmpty();
             logger.trace("Creating IntervalNode from {}", toBisect);
+            size = toBisect.size();
 
             // Building IntervalTree with one interval will be a reasonably
             // common case for range tombstones, so it's worth optimizing
@@ -196,14 +315,7 @@ public class IntervalTree<C extends Comparable<? super C>, D, I extends Interval
                 List<I> rightSegment = new ArrayList<I>();
 
                 for (I candidate : toBisect)
-                {
-                    if (candidate.max.compareTo(center) < 0)
-                        leftSegment.add(candidate);
-                    else if (candidate.min.compareTo(center) > 0)
-                        rightSegment.add(candidate);
-                    else
-                        intersects.add(candidate);
-                }
+                    select(candidate, leftSegment, intersects, rightSegment);
 
                 intersectsLeft = Interval.<C, D>minOrdering().sortedCopy(intersects);
                 intersectsRight = Interval.<C, D>maxOrdering().sortedCopy(intersects);
@@ -218,6 +330,19 @@ public class IntervalTree<C extends Comparable<? super C>, D, I extends Interval
             }
         }
 
+        /**
+         * Adds the interval to the list matching its position relative to the center of this node.
+         */
+        void select(I interval, List<I> leftSegment, List<I> intersects, List<I> rightSegment)
+        {
+            if (interval.max.compareTo(center) < 0)
+                leftSegment.add(interval);
+            else if (interval.min.compareTo(center) > 0)
+                rightSegment.add(interval);
+            else
+                intersects.add(interval);
+        }
+
         void searchInternal(Interval<C, D> searchInterval, List<D> results)
         {
             if (center.compareTo(searchInterval.min) < 0)
@@ -75,272 +75,271 @@ public abstract class MergeIterator<In,Out> extends AbstractIterator<Out> implem
      * {@code poll} and {@code add} in all cases require at least {@code log(size)} comparisons (usually more than
      * {@code 2*log(size)}) per consumed item, even if the input is suitable for fast iteration.
      *
-     * The implementation below makes use of the fact that replacing the top element in a binary heap can be done much
-     * more efficiently than separately removing it and placing it back, especially in the cases where the top iterator
-     * is to be used again very soon (e.g. when there are large sections of the output where only a limited number of
-     * input iterators overlap, which is normally the case in many practically useful situations, e.g. levelled
-     * compaction). To further improve this particular scenario, we also use a short sorted section at the start of the
-     * queue.
-     *
-     * The heap is laid out as this (for {@code SORTED_SECTION_SIZE == 2}):
-     *                 0
-     *                 |
+     * The implementation below uses a tournament tree of losers instead: the iterators are the leaves of a complete
+     * binary tree, and each internal node holds the loser of the match between the winners of its two subtrees, i.e.
+     * the greater of their current items, the overall winner being kept aside. The tree is laid out in arrays like a
+     * binary heap, the root being at position 1 and the leaf of iterator {@code i} at position {@code size + i}:
      *                 1
-     *                 |
-     *                 2
      *               /   \
-     *              3     4
+     *              2     3
      *             / \   / \
-     *             5 6   7 8
-     *            .. .. .. ..
-     * Where each line is a <= relationship.
-     *
-     * In the sorted section we can advance with a single comparison per level, while advancing a level within the heap
-     * requires two (so that we can find the lighter element to pop up).
-     * The sorted section adds a constant overhead when data is uniformly distributed among the iterators, but may up
-     * to halve the iteration time when one iterator is dominant over sections of the merged data (as is the case with
-     * non-overlapping iterators).
+     *            4   5 6   7
+     *           / \
+     *          8   9
+     * Once the winner is advanced, it only has to replay the matches on the path from its leaf to the root, against
+     * the losers stored there, which takes exactly one comparison per level, where a heap needs two to sink an item.
      *
      * The iterator is further complicated by the need to avoid advancing the input iterators until an output is
-     * actually requested. To achieve this {@code consume} walks the heap to find equal items without advancing the
-     * iterators, and {@code advance} moves them and restores the heap structure before any items can be consumed.
-     * 
-     * To avoid having to do additional comparisons in consume to identify the equal items, we keep track of equality
-     * between children and their parents in the heap. More precisely, the lines in the diagram above define the
-     * following relationship:
-     *   parent <= child && (parent == child) == child.equalParent
-     * We can track, make use of and update the equalParent field without any additional comparisons.
+     * actually requested. To achieve this {@code consume} walks the tree to find equal items without advancing the
+     * iterators, and {@code advance} moves them and replays their matches before any items can be consumed.
+     *
+     * To avoid having to do additional comparisons in consume to identify the equal items, we keep track of the
+     * matches that ended in a tie: as the items equal to the winner are those which only lost to one of them, by a
+     * tie, they are found by walking up the paths of the winner and, recursively, of the tied losers found on the way.
+     * When several items are consumed, all the nodes above them are marked as needing a replay, and since the winner
+     * of any such subtree is a consumed item, a marked node must replay the match between the new winners of its two subtrees if both are
+     * marked, or between the new winner of its marked subtree and its stored loser otherwise.
      *
-     * For more formal definitions and proof of correctness, see CASSANDRA-8915.
+     * Finally, when one iterator wins over a section of the merged data (as is the case with non-overlapping iterators,
+     * e.g. in levelled compaction), we remember the smallest of the losers on its path: as long as its next items
+     * are smaller than this runner-up, the tree doesn't change and each item only costs a single comparison.
      */
     static final class ManyToOne<In,Out> extends MergeIterator<In,Out>
     {
-        protected final Candidate<In>[] heap;
+        /** The candidate of each iterator, null once exhausted. */
+        protected final Candidate<In>[] candidates;
 
-        /** Number of non-exhausted iterators. */
-        int size;
+        /** The iterator which lost the match of each internal node. */
+        private final int[] losers;
 
-        /**
-         * Position of the deepest, right-most child that needs advancing before we can start consuming.
-         * Because advancing changes the values of the items of each iterator, the parent-chain from any position
-         * in this range that needs advancing is not in correct order. The trees rooted at any position that does
-         * not need advancing, however, retain their prior-held binary heap property.
-         */
-        int needingAdvance;
+        /** Whether the match of each internal node ended in a tie. */
+        private final boolean[] tied;
 
-        /**
-         * The number of elements to keep in order before the binary heap starts, exclusive of the top heap element.
-         */
-        static final int SORTED_SECTION_SIZE = 4;
+        /** Whether each node is above one of several consumed items, and so needs to replay its match before consuming again. */
+        private final boolean[] needingReplay;
+
+        /** The iterator holding the smallest item. */
+        int winner;
+
+        /** The number of items consumed at the previous step. */
+        int consumed;
+
+        /** The smallest of the losers on the path of the winner, if it won twice in a row, or -1 if unknown. */
+        int runnerUp = -1;
 
         public ManyToOne(List<? extends Iterator<In>> iters, Comparator<? super In> comp, Reducer<In, Out> reducer)
         {
             super(iters, reducer);
 
+            int size = iters.size();
             @SuppressWarnings("unchecked")
-            Candidate<In>[] heap = new Candidate[iters.size()];
-            this.heap = heap;
-            size = 0;
-
-            for (int i = 0; i < iters.size(); i++)
-            {
-                Candidate<In> candidate = new Candidate<>(i, iters.get(i), comp);
-                heap[size++] = candidate;
-            }
-            needingAdvance = size;
+            Candidate<In>[] candidates = new Candidate[size];
+            this.candidates = candidates;
+            for (int i = 0; i < size; i++)
+                candidates[i] = new Candidate<>(i, iters.get(i), comp);
+
+            losers = new int[size];
+            tied = new boolean[size];
+            needingReplay = new boolean[2 * size];
+            // nothing has been played yet
+            Arrays.fill(needingReplay, true);
         }
 
         protected final Out computeNext()
         {
+            if (candidates.length == 0)
+                return endOfData();
+
             advance();
             return consume();
         }
 
         /**
-         * Advance all iterators that need to be advanced and place them into suitable positions in the heap.
+         * Advance all iterators whose items were consumed and replay their matches.
          *
-         * By walking the iterators backwards we know that everything after the point being processed already forms
-         * correctly ordered subheaps, thus we can build a subheap rooted at the current position by only sinking down
-         * the newly advanced iterator. Because all parents of a consumed iterator are also consumed there is no way
-         * that we can process one consumed iterator but skip over its parent.
-         *
-         * The procedure is the same as the one used for the initial building of a heap in the heapsort algorithm and
-         * has a maximum number of comparisons {@code (2 * log(size) + SORTED_SECTION_SIZE / 2)} multiplied by the
-         * number of iterators whose items were consumed at the previous step, but is also at most linear in the size of
-         * the heap if the number of consumed elements is high (as it is in the initial heap construction). With non- or
-         * lightly-overlapping iterators the procedure finishes after just one (resp. a couple of) comparisons.
+         * If only the previous winner was consumed, its new item is first compared to the runner-up, if known: if it is
+         * smaller, it remains the winner without changing anything else in the tree. Otherwise its matches are replayed
+         * from its leaf up to the root, which costs one comparison per level of the tree. If several items were
+         * consumed, the marked nodes are replayed from the root, which costs one comparison per marked node.
          */
         private void advance()
         {
-            // Turn the set of candidates into a heap.
-            for (int i = needingAdvance - 1; i >= 0; --i)
+            int previousWinner = winner;
+            if (consumed == 1)
+            {
+                Candidate<In> candidate = advance(winner);
+                if (runnerUp >= 0 && candidate != null && (candidates[runnerUp] == null || candidate.compareTo(candidates[runnerUp]) < 0))
+                    return;
+
+                winner = replayWinner();
+            }
+            else
             {
-                Candidate<In> candidate = heap[i];
-                /**
-                 *  needingAdvance runs to the maximum index (and deepest-right node) that may need advancing;
-                 *  since the equal items that were consumed at-once may occur in sub-heap "veins" of equality,
-                 *  not all items above this deepest-right position may have been consumed; these already form
-                 *  valid sub-heaps and can be skipped-over entirely
-                 */
-                if (candidate.needsAdvance())
-                    replaceAndSink(candidate.advance(), i);
+                winner = replay(1);
             }
+
+            // look for the runner-up once the same iterator won twice in a row, so that it isn't done for every item of
+            // overlapping iterators
+            runnerUp = winner == previousWinner && candidates[winner] != null ? findRunnerUp() : -1;
         }
 
         /**
-         * Consume all items that sort like the current top of the heap. As we cannot advance the iterators to let
-         * equivalent items pop up, we walk the heap to find them and mark them as needing advance.
+         * Replay the matches on the path of the winner, whose item was the only one consumed.
          *
-         * This relies on the equalParent flag to avoid doing any comparisons.
+         * @return the new winner.
          */
-        private Out consume()
+        private int replayWinner()
         {
-            if (size == 0)
-                return endOfData();
-
-            reducer.onKeyChange();
-            assert !heap[0].equalParent;
-            heap[0].consume(reducer);
-            final int size = this.size;
-            final int sortedSectionSize = Math.min(size, SORTED_SECTION_SIZE);
-            int i;
-            consume: {
-                for (i = 1; i < sortedSectionSize; ++i)
+            int winner = this.winner;
+            for (int node = leaf(winner) >> 1; node > 0; node >>= 1)
+            {
+                int cmp = compare(winner, losers[node]);
+                if (cmp > 0)
                 {
-                    if (!heap[i].equalParent)
-                        break consume;
-                    heap[i].consume(reducer);
+                    int loser = winner;
+                    winner = losers[node];
+                    losers[node] = loser;
                 }
-                i = Math.max(i, consumeHeap(i) + 1);
+                tied[node] = cmp == 0;
             }
-            needingAdvance = i;
-            return reducer.getReduced();
+            return winner;
         }
 
         /**
-         * Recursively consume all items equal to equalItem in the binary subheap rooted at position idx.
+         * Replay the match of the given node, which needs it, and of the nodes below it which need it too.
          *
-         * @return the largest equal index found in this search.
+         * @return the new winner of the subtree rooted at the given node.
          */
-        private int consumeHeap(int idx)
+        private int replay(int node)
         {
-            if (idx >= size || !heap[idx].equalParent)
-                return -1;
+            needingReplay[node] = false;
+            if (node >= candidates.length)
+            {
+                int idx = node - candidates.length;
+                advance(idx);
+                return idx;
+            }
+
+            int left = node << 1;
+            int right = left + 1;
+            int first, second;
+            if (needingReplay[left] && needingReplay[right])
+            {
+                first = replay(left);
+                second = replay(right);
+            }
+            else
+            {
+                // the winner of the subtree which doesn't need a replay was not consumed, so it lost the match here
+                first = replay(needingReplay[left] ? left : right);
+                second = losers[node];
+            }
 
-            heap[idx].consume(reducer);
-            int nextIdx = (idx << 1) - (SORTED_SECTION_SIZE - 1);
-            return Math.max(idx, Math.max(consumeHeap(nextIdx), consumeHeap(nextIdx + 1)));
+            int cmp = compare(first, second);
+            if (cmp <= 0)
+            {
+                losers[node] = second;
+                tied[node] = cmp == 0;
+                return first;
+            }
+            losers[node] = first;
+            tied[node] = false;
+            return second;
         }
 
         /**
-         * Replace an iterator in the heap with the given position and move it down the heap until it finds its proper
-         * position, pulling lighter elements up the heap.
-         *
-         * Whenever an equality is found between two elements that form a new parent-child relationship, the child's
-         * equalParent flag is set to true if the elements are equal.
+         * @return the smallest of the losers on the path of the winner, or -1 if one of them is tied with the winner.
          */
-        private void replaceAndSink(Candidate<In> candidate, int currIdx)
+        private int findRunnerUp()
         {
-            if (candidate == null)
+            int runnerUp = -1;
+            for (int node = leaf(winner) >> 1; node > 0; node >>= 1)
             {
-                // Drop iterator by replacing it with the last one in the heap.
-                candidate = heap[--size];
-                heap[size] = null; // not necessary but helpful for debugging
+                if (tied[node])
+                    return -1;
+                if (runnerUp < 0 || compare(losers[node], runnerUp) < 0)
+                    runnerUp = losers[node];
             }
-            // The new element will be top of its heap, at this point there is no parent to be equal to.
-            candidate.equalParent = false;
-
-            final int size = this.size;
-            final int sortedSectionSize = Math.min(size - 1, SORTED_SECTION_SIZE);
+            return runnerUp;
+        }
 
-            int nextIdx;
+        /**
+         * Consume all items that sort like the current winner. As we cannot advance the iterators to let the equal
+         * items win, we walk the tree to find them and mark their paths as needing replay.
+         *
+         * This relies on the tied flags to avoid doing any comparisons.
+         */
+        private Out consume()
+        {
+            if (candidates[winner] == null)
+                return endOfData();
 
-            // Advance within the sorted section, pulling up items lighter than candidate.
-            while ((nextIdx = currIdx + 1) <= sortedSectionSize)
+            reducer.onKeyChange();
+            // if the winner is smaller than the runner-up it can't be tied with anything, and if it is the only item
+            // consumed its path doesn't need to be marked, as replayWinner will go through it anyway
+            if (runnerUp < 0 && isTied(winner))
             {
-                if (!heap[nextIdx].equalParent) // if we were greater then an (or were the) equal parent, we are >= the child
-                {
-                    int cmp = candidate.compareTo(heap[nextIdx]);
-                    if (cmp <= 0)
-                    {
-                        heap[nextIdx].equalParent = cmp == 0;
-                        heap[currIdx] = candidate;
-                        return;
-                    }
-                }
-
-                heap[currIdx] = heap[nextIdx];
-                currIdx = nextIdx;
+                consumed = 0;
+                consume(winner, 0);
             }
-            // If size <= SORTED_SECTION_SIZE, nextIdx below will be no less than size,
-            // because currIdx == sortedSectionSize == size - 1 and nextIdx becomes
-            // (size - 1) * 2) - (size - 1 - 1) == size.
-
-            // Advance in the binary heap, pulling up the lighter element from the two at each level.
-            while ((nextIdx = (currIdx * 2) - (sortedSectionSize - 1)) + 1 < size)
+            else
             {
-                if (!heap[nextIdx].equalParent)
-                {
-                    if (!heap[nextIdx + 1].equalParent)
-                    {
-                        // pick the smallest of the two children
-                        int siblingCmp = heap[nextIdx + 1].compareTo(heap[nextIdx]);
-                        if (siblingCmp < 0)
-                            ++nextIdx;
-
-                        // if we're smaller than this, we are done, and must only restore the heap and equalParent properties
-                        int cmp = candidate.compareTo(heap[nextIdx]);
-                        if (cmp <= 0)
-                        {
-                            if (cmp == 0)
-                            {
-                                heap[nextIdx].equalParent = true;
-                                if (siblingCmp == 0) // siblingCmp == 0 => nextIdx is the left child
-                                    heap[nextIdx + 1].equalParent = true;
-                            }
-
-                            heap[currIdx] = candidate;
-                            return;
-                        }
-
-                        if (siblingCmp == 0)
-                        {
-                            // siblingCmp == 0 => nextIdx is still the left child
-                            // if the two siblings were equal, and we are inserting something greater, we will
-                            // pull up the left one; this means the right gets an equalParent
-                            heap[nextIdx + 1].equalParent = true;
-                        }
-                    }
-                    else
-                        ++nextIdx;  // descend down the path where we found the equal child
-                }
-
-                heap[currIdx] = heap[nextIdx];
-                currIdx = nextIdx;
+                candidates[winner].consume(reducer);
+                consumed = 1;
             }
+            return reducer.getReduced();
+        }
 
-            // our loop guard ensures there are always two siblings to process; typically when we exit the loop we will
-            // be well past the end of the heap and this next condition will match...
-            if (nextIdx >= size)
+        private boolean isTied(int idx)
+        {
+            for (int node = leaf(idx) >> 1; node > 0; node >>= 1)
             {
-                heap[currIdx] = candidate;
-                return;
+                if (tied[node])
+                    return true;
             }
+            return false;
+        }
 
-            // ... but sometimes we will have one last child to compare against, that has no siblings
-            if (!heap[nextIdx].equalParent)
+        /**
+         * Consume the item of the given iterator, and recursively those it tied with below the node it lost at.
+         */
+        private void consume(int idx, int lostAt)
+        {
+            candidates[idx].consume(reducer);
+            consumed++;
+            for (int node = leaf(idx); node != lostAt; node >>= 1)
             {
-                int cmp = candidate.compareTo(heap[nextIdx]);
-                if (cmp <= 0)
-                {
-                    heap[nextIdx].equalParent = cmp == 0;
-                    heap[currIdx] = candidate;
-                    return;
-                }
+                needingReplay[node] = true;
+                if (node < candidates.length && tied[node])
+                    consume(losers[node], node);
             }
+        }
 
-            heap[currIdx] = heap[nextIdx];
-            heap[nextIdx] = candidate;
+        private Candidate<In> advance(int idx)
+        {
+            Candidate<In> candidate = candidates[idx];
+            if (candidate != null && candidate.needsAdvance() && candidate.advance() == null)
+                candidates[idx] = candidate = null;
+            return candidate;
+        }
+
+        /**
+         * Compares the items of two iterators, exhausted iterators being greater than any item (and never tied).
+         */
+        private int compare(int idx1, int idx2)
+        {
+            Candidate<In> candidate1 = candidates[idx1];
+            Candidate<In> candidate2 = candidates[idx2];
+            if (candidate1 == null)
+                return 1;
+            if (candidate2 == null)
+                return -1;
+            return candidate1.compareTo(candidate2);
+        }
+
+        private int leaf(int idx)
+        {
+            return candidates.length + idx;
         }
     }
 
@@ -352,7 +351,6 @@ public abstract class MergeIterator<In,Out> extends AbstractIterator<Out> implem
         private final int idx;
         private In item;
         private In lowerBound;
-        boolean equalParent;
 
         public Candidate(int idx, Iterator<? extends In> iter, Comparator<? super In> comp)
         {
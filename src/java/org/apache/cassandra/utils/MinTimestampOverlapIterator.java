@@ -0,0 +1,115 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.cassandra.utils;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Like {@link OverlapIterator}, iterates sequentially through an ordered collection of points to find the intervals
+ * overlapping each of them, but is meant to find the smallest timestamp of the overlapping intervals satisfying a
+ * (costly) condition, such as the min timestamp of the sstables which may contain a partition.
+ *
+ * The intervals are numbered in ascending timestamp order, and kept in two arrays sorted by min and by max, which
+ * are walked forwards each time we visit a new point, setting and clearing the bits of the overlapping ones. The
+ * overlapping intervals can thus be tested in ascending timestamp order, stopping at the first one satisfying the
+ * condition or whose timestamp isn't lower than the smallest one found elsewhere.
+ */
+public class MinTimestampOverlapIterator<I extends Comparable<? super I>, V>
+{
+    // all indexed by interval number, i.e. in ascending timestamp order
+    private final List<V> values;
+    private final long[] timestamps;
+    private final List<I> mins;
+    private final List<I> maxs;
+
+    // interval numbers sorted by min and max, and the next interval of each to include and exclude
+    private final int[] sortedByMin;
+    private final int[] sortedByMax;
+    private int nextToInclude;
+    private int nextToExclude;
+
+    private final BitSet overlaps;
+
+    public MinTimestampOverlapIterator(Collection<Interval<I, V>> intervals, ToLongFunction<? super V> timestamp)
+    {
+        List<Interval<I, V>> sorted = new ArrayList<>(intervals);
+        Collections.sort(sorted, (i1, i2) -> Long.compare(timestamp.applyAsLong(i1.data), timestamp.applyAsLong(i2.data)));
+
+        int size = sorted.size();
+        values = new ArrayList<>(size);
+        timestamps = new long[size];
+        mins = new ArrayList<>(size);
+        maxs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            Interval<I, V> interval = sorted.get(i);
+            values.add(interval.data);
+            timestamps[i] = timestamp.applyAsLong(interval.data);
+            mins.add(interval.min);
+            maxs.add(interval.max);
+        }
+
+        sortedByMin = sort(mins);
+        sortedByMax = sort(maxs);
+        overlaps = new BitSet(size);
+    }
+
+    private static <I extends Comparable<? super I>> int[] sort(List<I> bounds)
+    {
+        Integer[] sorted = new Integer[bounds.size()];
+        for (int i = 0; i < sorted.length; i++)
+            sorted[i] = i;
+        Arrays.sort(sorted, (i1, i2) -> bounds.get(i1).compareTo(bounds.get(i2)));
+
+        int[] result = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++)
+            result[i] = sorted[i];
+        return result;
+    }
+
+    // move the iterator forwards to the overlaps matching point
+    public void update(I point)
+    {
+        // add those we are now after the start of
+        while (nextToInclude < sortedByMin.length && mins.get(sortedByMin[nextToInclude]).compareTo(point) <= 0)
+            overlaps.set(sortedByMin[nextToInclude++]);
+        // remove those we are now after the end of
+        while (nextToExclude < sortedByMax.length && maxs.get(sortedByMax[nextToExclude]).compareTo(point) < 0)
+            overlaps.clear(sortedByMax[nextToExclude++]);
+    }
+
+    /**
+     * @return the smallest timestamp, lower than {@code bound}, of the intervals overlapping the current point whose
+     * value satisfies {@code condition}, or {@code bound} if there is none. The condition is only tested on the
+     * intervals with a timestamp lower than {@code bound}, in ascending timestamp order, until it is satisfied.
+     */
+    public <P> long minTimestamp(P point, BiPredicate<? super V, P> condition, long bound)
+    {
+        for (int i = overlaps.nextSetBit(0); i >= 0 && timestamps[i] < bound; i = overlaps.nextSetBit(i + 1))
+        {
+            if (condition.test(values.get(i), point))
+                return timestamps[i];
+        }
+        return bound;
+    }
+}
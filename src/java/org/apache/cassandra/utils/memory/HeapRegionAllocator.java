@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils.memory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A bump-the-pointer allocator handing out slices of (64KB) heap regions, so that reading many small values, like the
+ * cells of the partitions scanned by a compaction, doesn't allocate an array for each of them.
+ * <p></p>
+ * Unlike the SlabAllocator, regions are never reused nor accounted for: a region is reclaimed by the GC once none of its
+ * slices is referenced anymore. This is thus only meant for values that don't outlive the reading of the next ones
+ * much, since a single slice kept around keeps its whole region alive.
+ * <p></p>
+ * This class is not thread safe.
+ */
+public final class HeapRegionAllocator extends AbstractAllocator
+{
+    private final static int REGION_SIZE = 64 * 1024;
+    private final static int MAX_CLONED_SIZE = 8 * 1024; // bigger than this don't go in the region
+
+    private byte[] region;
+    private int nextFreeOffset;
+
+    public ByteBuffer allocate(int size)
+    {
+        if (size > MAX_CLONED_SIZE)
+            return ByteBuffer.allocate(size);
+
+        if (region == null || nextFreeOffset + size > REGION_SIZE)
+        {
+            region = new byte[REGION_SIZE];
+            nextFreeOffset = 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(region, nextFreeOffset, size);
+        nextFreeOffset += size;
+        return buffer;
+    }
+}
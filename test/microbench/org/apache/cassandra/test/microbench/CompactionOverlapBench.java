@@ -0,0 +1,130 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.utils.Interval;
+import org.apache.cassandra.utils.MinTimestampOverlapIterator;
+import org.apache.cassandra.utils.MurmurHash;
+import org.apache.cassandra.utils.OverlapIterator;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Computes the max purgeable timestamp of the partitions of a compaction against a synthetic view of many sstables,
+ * the way CompactionController does, with the sstables either spanning the whole ring (like the time windows of
+ * TWCS) or small disjoint ranges of it (like the levels of LCS). Each sstable "contains" a given partition with a
+ * 1% probability, the bloom filter being simulated by a hash of the partition and the sstable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512M")
+@Threads(1)
+@State(Scope.Benchmark)
+public class CompactionOverlapBench
+{
+    private static final int RANGE = 1 << 30;
+    private static final int PARTITIONS = 1000;
+
+    @Param({ "1000", "10000" })
+    private int sstableCount;
+
+    @Param({ "WHOLE_RING", "DISJOINT" })
+    private String layout;
+
+    private List<Interval<Long, FakeSSTable>> intervals;
+    private long[] partitions;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        intervals = new ArrayList<>(sstableCount);
+        for (int i = 0; i < sstableCount; i++)
+        {
+            FakeSSTable sstable = new FakeSSTable(i, i * 1000L);
+            if (layout.equals("WHOLE_RING"))
+                intervals.add(Interval.create(0L, (long) RANGE, sstable));
+            else
+                intervals.add(Interval.create((long) i * (RANGE / sstableCount), (long) (i + 1) * (RANGE / sstableCount) - 1, sstable));
+        }
+
+        partitions = new long[PARTITIONS];
+        for (int i = 0; i < PARTITIONS; i++)
+            partitions[i] = (long) i * (RANGE / PARTITIONS) + ThreadLocalRandom.current().nextInt(RANGE / PARTITIONS);
+    }
+
+    @Benchmark
+    public long overlapIterator()
+    {
+        long sum = 0;
+        OverlapIterator<Long, FakeSSTable> iterator = new OverlapIterator<>(intervals);
+        for (long partition : partitions)
+        {
+            long min = Long.MAX_VALUE;
+            iterator.update(partition);
+            for (FakeSSTable sstable : iterator.overlaps())
+            {
+                if (sstable.mayContain(partition))
+                    min = Math.min(min, sstable.minTimestamp);
+            }
+            sum += min;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long minTimestampOverlapIterator()
+    {
+        long sum = 0;
+        MinTimestampOverlapIterator<Long, FakeSSTable> iterator = new MinTimestampOverlapIterator<>(intervals, sstable -> sstable.minTimestamp);
+        for (long partition : partitions)
+        {
+            iterator.update(partition);
+            sum += iterator.minTimestamp(partition, FakeSSTable::mayContain, Long.MAX_VALUE);
+        }
+        return sum;
+    }
+
+    private static final class FakeSSTable
+    {
+        final long id;
+        final long minTimestamp;
+
+        FakeSSTable(long id, long minTimestamp)
+        {
+            this.id = id;
+            this.minTimestamp = minTimestamp;
+        }
+
+        boolean mayContain(long partition)
+        {
+            long[] hash = new long[2];
+            MurmurHash.hash3_x64_128(ByteBuffer.allocate(16).putLong(0, partition).putLong(8, id), 0, 16, 0, hash);
+            return Math.floorMod(hash[0], 100) == 0;
+        }
+    }
+}
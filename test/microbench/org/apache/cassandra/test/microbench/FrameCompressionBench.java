@@ -0,0 +1,171 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.cassandra.cql3.ColumnIdentifier;
+import org.apache.cassandra.cql3.ColumnSpecification;
+import org.apache.cassandra.cql3.ResultSet;
+import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.TimestampType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.db.marshal.UUIDType;
+import org.apache.cassandra.transport.CBUtil;
+import org.apache.cassandra.transport.Frame;
+import org.apache.cassandra.transport.FrameCompressor;
+import org.apache.cassandra.transport.Message;
+import org.apache.cassandra.transport.Server;
+import org.apache.cassandra.transport.messages.ResultMessage;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compresses (and decompresses, as a client would) the frames of typical small CQL responses: a few rows of a
+ * user-like table, all coming from the same query and so with the same metadata.
+ *
+ * The average time per frame gives the CPU cost of the given compression, while the uncompressed and compressed
+ * bytes counters, whose ratio is the compression ratio (hence the bytes on wire), are reported as secondary results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512M")
+@Threads(1)
+@State(Scope.Thread)
+public class FrameCompressionBench
+{
+    private static final int FRAMES = 1024;
+
+    @Param({"lz4", "deflate", "snappy"})
+    String compression;
+
+    @Param({"1", "10"})
+    int rowsPerFrame;
+
+    FrameCompressor sender;
+    FrameCompressor receiver;
+    List<ByteBuf> bodies;
+    int next;
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Bytes
+    {
+        public long uncompressed;
+        public long compressed;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            uncompressed = 0;
+            compressed = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        sender = newCompressor();
+        receiver = newCompressor();
+
+        List<ColumnSpecification> columns = Arrays.asList(column("id", UUIDType.instance),
+                                                          column("name", UTF8Type.instance),
+                                                          column("email", UTF8Type.instance),
+                                                          column("age", Int32Type.instance),
+                                                          column("created", TimestampType.instance));
+        Random random = new Random(0);
+        bodies = new ArrayList<>(FRAMES);
+        for (int i = 0; i < FRAMES; i++)
+        {
+            ResultSet rs = new ResultSet(new ResultSet.ResultMetadata(columns), new ArrayList<>());
+            for (int j = 0; j < rowsPerFrame; j++)
+            {
+                int user = random.nextInt(100000);
+                rs.addRow(Arrays.asList(UUIDType.instance.decompose(UUID.randomUUID()),
+                                        UTF8Type.instance.decompose("user" + user),
+                                        UTF8Type.instance.decompose("user" + user + "@example.com"),
+                                        Int32Type.instance.decompose(18 + random.nextInt(60)),
+                                        ByteBuffer.allocate(8).putLong(0, 1480000000000L + random.nextInt(1000000000))));
+            }
+            ResultMessage message = new ResultMessage.Rows(rs);
+            ByteBuf body = CBUtil.allocator.directBuffer(ResultMessage.codec.encodedSize(message, Server.CURRENT_VERSION));
+            ResultMessage.codec.encode(message, body, Server.CURRENT_VERSION);
+            bodies.add(body);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown()
+    {
+        for (ByteBuf body : bodies)
+            body.release();
+        if (sender instanceof FrameCompressor.DeflateCompressor)
+        {
+            ((FrameCompressor.DeflateCompressor) sender).close();
+            ((FrameCompressor.DeflateCompressor) receiver).close();
+        }
+    }
+
+    @Benchmark
+    public Frame compressAndDecompress(Bytes bytes) throws Exception
+    {
+        ByteBuf body = bodies.get(next++ % FRAMES);
+        bytes.uncompressed += body.readableBytes();
+
+        Frame frame = Frame.create(Message.Type.RESULT, 0, Server.CURRENT_VERSION, EnumSet.noneOf(Frame.Header.Flag.class), body.duplicate().retain());
+        Frame compressed = sender.compress(frame);
+        bytes.compressed += compressed.body.readableBytes();
+
+        Frame decompressed = receiver.decompress(compressed);
+        decompressed.release();
+        return decompressed;
+    }
+
+    private FrameCompressor newCompressor()
+    {
+        switch (compression)
+        {
+            case "lz4":
+                return FrameCompressor.LZ4Compressor.instance;
+            case "snappy":
+                return FrameCompressor.SnappyCompressor.instance;
+            case "deflate":
+                return new FrameCompressor.DeflateCompressor();
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private static ColumnSpecification column(String name, AbstractType<?> type)
+    {
+        return new ColumnSpecification("ks", "users", new ColumnIdentifier(name, true), type);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.MergeIterator;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Merges a fixed number of items spread over 2 to 32 sorted sources, the way partitions are merged by compaction and
+ * rows by reads. The items are byte buffers compared as unsigned bytes, like partition keys and most clusterings, and
+ * are either randomly interleaved between the sources (like the partitions of overlapping sstables), in runs of
+ * consecutive items with occasional items from the next source, or split into disjoint ranges (like the rows of a
+ * time series partition written over several sstables). A fraction of the items are present in several sources.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512M")
+@Threads(1)
+@State(Scope.Benchmark)
+public class MergeIteratorBench
+{
+    private static final int ITEMS = 100000;
+    private static final int RUN_LENGTH = 100;
+
+    @Param({ "2", "8", "32" })
+    private int sources;
+
+    @Param({ "INTERLEAVED", "RUNS", "DISJOINT" })
+    private String layout;
+
+    @Param({ "0", "10" })
+    private int duplicatePercent;
+
+    private ByteBuffer[][] items;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(42);
+        List<List<ByteBuffer>> lists = new ArrayList<>(sources);
+        for (int i = 0; i < sources; i++)
+            lists.add(new ArrayList<>());
+
+        for (int i = 0; i < ITEMS; i++)
+        {
+            ByteBuffer item = ByteBufferUtil.bytes((long) i);
+            int source;
+            switch (layout)
+            {
+                case "INTERLEAVED":
+                    source = random.nextInt(sources);
+                    break;
+                case "RUNS":
+                    source = (i / RUN_LENGTH + (random.nextInt(10) == 0 ? 1 : 0)) % sources;
+                    break;
+                default:
+                    source = (int) ((long) i * sources / ITEMS);
+            }
+            lists.get(source).add(item);
+
+            if (random.nextInt(100) < duplicatePercent)
+            {
+                int other = (source + 1 + random.nextInt(sources - 1)) % sources;
+                lists.get(other).add(item.duplicate());
+            }
+        }
+
+        items = new ByteBuffer[sources][];
+        for (int i = 0; i < sources; i++)
+            items[i] = lists.get(i).toArray(new ByteBuffer[0]);
+    }
+
+    @Benchmark
+    public long merge()
+    {
+        List<Iterator<ByteBuffer>> iterators = new ArrayList<>(sources);
+        for (ByteBuffer[] source : items)
+            iterators.add(Arrays.asList(source).iterator());
+
+        long count = 0;
+        try (MergeIterator<ByteBuffer, Integer> merged = MergeIterator.get(iterators, ByteBufferUtil::compareUnsigned, new CountingReducer()))
+        {
+            while (merged.hasNext())
+                count += merged.next();
+        }
+        return count;
+    }
+
+    private static final class CountingReducer extends MergeIterator.Reducer<ByteBuffer, Integer>
+    {
+        private int count;
+
+        public void reduce(int idx, ByteBuffer current)
+        {
+            count++;
+        }
+
+        protected Integer getReduced()
+        {
+            int reduced = count;
+            count = 0;
+            return reduced;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.db.SystemKeyspace;
+import org.apache.cassandra.service.NativeTransportService;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.transport.Message;
+import org.apache.cassandra.transport.Server;
+import org.apache.cassandra.transport.SimpleClient;
+import org.apache.cassandra.transport.messages.QueryMessage;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Throughput of small requests sent by concurrent {@link SimpleClient}s (one connection per benchmark thread) to
+ * an in-process native transport server, comparing the per-channel flushing to the legacy per-event loop one.
+ *
+ * Run with a growing number of threads (-t) to see how the throughput scales with the number of connections.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1G")
+@Threads(16)
+@State(Scope.Benchmark)
+public class NativeTransportFlushBench extends CQLTester
+{
+    @Param({"false", "true"})
+    boolean legacyFlush;
+
+    String query;
+
+    // the server doesn't shut its event loops down when stopped, so use daemon threads to let the fork exit
+    EventLoopGroup eventLoopGroup;
+    Server nativeServer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable
+    {
+        DatabaseDescriptor.setNativeTransportFlushInBatchesLegacy(legacyFlush);
+        CQLTester.setUpClass();
+        SystemKeyspace.finishStartup();
+        StorageService.instance.initServer();
+        beforeTest();
+
+        String table = createTable("CREATE TABLE %s (pk int PRIMARY KEY, v int)");
+        execute("INSERT INTO %s (pk, v) VALUES (1, 1)");
+        query = String.format("SELECT v FROM %s.%s WHERE pk = 1", KEYSPACE, table);
+
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory("NativeTransportFlushBench", true);
+        eventLoopGroup = NativeTransportService.useEpoll()
+                         ? new EpollEventLoopGroup(0, threadFactory)
+                         : new NioEventLoopGroup(0, threadFactory);
+        nativeServer = new Server.Builder().withEventLoopGroup(eventLoopGroup).withHost(nativeAddr).withPort(nativePort).build();
+        nativeServer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Throwable
+    {
+        nativeServer.stop();
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    @State(Scope.Thread)
+    public static class Client
+    {
+        SimpleClient client;
+        QueryMessage query;
+
+        @Setup(Level.Trial)
+        public void connect(NativeTransportFlushBench bench) throws Throwable
+        {
+            client = new SimpleClient(nativeAddr.getHostAddress(), nativePort, Server.VERSION_4);
+            client.connect(false);
+            query = new QueryMessage(bench.query, QueryOptions.DEFAULT);
+        }
+
+        @TearDown(Level.Trial)
+        public void close()
+        {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    public Message.Response smallQuery(Client client)
+    {
+        return client.client.execute(client.query);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.cql3.Operator;
+import org.apache.cassandra.db.BufferDecoratedKey;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.index.sasi.disk.NumericBlockIndex;
+import org.apache.cassandra.index.sasi.disk.NumericBlockIndexBuilder;
+import org.apache.cassandra.index.sasi.disk.OnDiskIndex;
+import org.apache.cassandra.index.sasi.disk.OnDiskIndexBuilder;
+import org.apache.cassandra.index.sasi.disk.Token;
+import org.apache.cassandra.index.sasi.plan.Expression;
+import org.apache.cassandra.index.sasi.utils.RangeIterator;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.utils.MurmurHash;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Searches a SASI on-disk index of a bigint column (one distinct value per partition, like a timestamp), with equality
+ * and range expressions of various widths, and counts the matching tokens without fetching the keys.
+ *
+ * The BLOCK mode searches the ranges with the {@link NumericBlockIndex} written next to the SPARSE term index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512M")
+@Threads(1)
+@State(Scope.Benchmark)
+public class SASINumericIndexBench
+{
+    private static final int TERMS = 100000;
+
+    @Param({ "SPARSE", "PREFIX", "BLOCK" })
+    private String mode;
+
+    @Param({ "10", "10000" })
+    private int rangeWidth;
+
+    private File file;
+    private OnDiskIndex index;
+
+    private File blockFile;
+    private NumericBlockIndex blockIndex;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        boolean isBlock = mode.equals("BLOCK");
+        OnDiskIndexBuilder builder = new OnDiskIndexBuilder(UTF8Type.instance, LongType.instance, isBlock ? OnDiskIndexBuilder.Mode.SPARSE : OnDiskIndexBuilder.Mode.valueOf(mode));
+        NumericBlockIndexBuilder blockBuilder = new NumericBlockIndexBuilder(LongType.instance, TERMS);
+        for (long i = 0; i < TERMS; i++)
+        {
+            builder.add(LongType.instance.decompose(i), keyAt(i), i);
+            blockBuilder.add(LongType.instance.decompose(i), keyAt(i), i);
+        }
+
+        file = File.createTempFile("sasi-numeric-bench", "db");
+        builder.finish(file);
+        index = new OnDiskIndex(file, LongType.instance, SASINumericIndexBench::keyAt);
+
+        if (isBlock)
+        {
+            blockFile = File.createTempFile("sasi-numeric-bench-blocks", "db");
+            blockBuilder.finish(blockFile);
+            blockIndex = new NumericBlockIndex(blockFile, LongType.instance, SASINumericIndexBench::keyAt);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown()
+    {
+        FileUtils.closeQuietly(index);
+        file.delete();
+
+        if (blockIndex != null)
+        {
+            FileUtils.closeQuietly(blockIndex);
+            blockFile.delete();
+        }
+    }
+
+    @Benchmark
+    public long eq() throws Exception
+    {
+        Expression expression = new Expression("", LongType.instance);
+        expression.add(Operator.EQ, LongType.instance.decompose(ThreadLocalRandom.current().nextLong(TERMS)));
+        return count(index.search(expression));
+    }
+
+    @Benchmark
+    public long range() throws Exception
+    {
+        long lower = ThreadLocalRandom.current().nextLong(TERMS - rangeWidth);
+        Expression expression = new Expression("", LongType.instance);
+        expression.add(Operator.GTE, LongType.instance.decompose(lower));
+        expression.add(Operator.LT, LongType.instance.decompose(lower + rangeWidth));
+        return count(blockIndex != null ? blockIndex.search(expression) : index.search(expression));
+    }
+
+    private static long count(RangeIterator<Long, Token> tokens) throws Exception
+    {
+        if (tokens == null)
+            return 0;
+
+        long count = 0;
+        try (RangeIterator<Long, Token> iterator = tokens)
+        {
+            while (iterator.hasNext())
+            {
+                iterator.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static DecoratedKey keyAt(long rawKey)
+    {
+        ByteBuffer key = ByteBuffer.wrap(("key" + rawKey).getBytes());
+        return new BufferDecoratedKey(new Murmur3Partitioner.LongToken(MurmurHash.hash2_64(key, key.position(), key.remaining(), 0)), key);
+    }
+}
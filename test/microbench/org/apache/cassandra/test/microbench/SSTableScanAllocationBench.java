@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.rows.BTreeRow;
+import org.apache.cassandra.db.rows.Cell;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.Unfiltered;
+import org.apache.cassandra.io.sstable.SSTableIdentityIterator;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.memory.AbstractAllocator;
+import org.apache.cassandra.utils.memory.HeapRegionAllocator;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Deserializes all the partitions of an sstable the way full scans (compaction, validation...) do, either with a new
+ * row builder for each partition and an array for each cell value, or with the row builder and the region allocator
+ * shared by the partitions of the scan.
+ *
+ * Run with the GC profiler (-prof gc) to compare the allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1G")
+@Threads(1)
+@State(Scope.Benchmark)
+public class SSTableScanAllocationBench extends CQLTester
+{
+    private static final int PARTITIONS = 10000;
+
+    @Param({ "false", "true" })
+    boolean shared;
+
+    @Param({ "1", "10" })
+    int rowsPerPartition;
+
+    SSTableReader sstable;
+    DecoratedKey[] keys;
+    long[] positions;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable
+    {
+        CQLTester.setUpClass();
+        beforeTest();
+
+        createTable("CREATE TABLE %s (k int, c int, v1 text, v2 bigint, v3 int, PRIMARY KEY (k, c))");
+        for (int k = 0; k < PARTITIONS; k++)
+        {
+            for (int c = 0; c < rowsPerPartition; c++)
+                execute("INSERT INTO %s (k, c, v1, v2, v3) VALUES (?, ?, ?, ?, ?)", k, c, "value" + c, (long) k * c, c);
+        }
+        flush();
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        sstable = cfs.getLiveSSTables().iterator().next();
+        keys = new DecoratedKey[PARTITIONS];
+        positions = new long[PARTITIONS];
+        for (int k = 0; k < PARTITIONS; k++)
+        {
+            keys[k] = cfs.decorateKey(Int32Type.instance.decompose(k));
+            positions[k] = sstable.getPosition(keys[k], SSTableReader.Operator.EQ).position;
+        }
+    }
+
+    @Benchmark
+    public long scan() throws IOException
+    {
+        long bytes = 0;
+        Row.Builder builder = BTreeRow.sortedBuilder();
+        AbstractAllocator valueAllocator = new HeapRegionAllocator();
+        try (RandomAccessReader dfile = sstable.openDataReader())
+        {
+            for (int i = 0; i < PARTITIONS; i++)
+            {
+                dfile.seek(positions[i]);
+                ByteBufferUtil.skipShortLength(dfile);
+                try (SSTableIdentityIterator partition = shared
+                                                         ? new SSTableIdentityIterator(sstable, dfile, keys[i], builder, valueAllocator)
+                                                         : new SSTableIdentityIterator(sstable, dfile, keys[i]))
+                {
+                    while (partition.hasNext())
+                    {
+                        Unfiltered unfiltered = partition.next();
+                        if (unfiltered.isRow())
+                        {
+                            for (Cell cell : ((Row) unfiltered).cells())
+                                bytes += cell.value().remaining();
+                        }
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DataRange;
+import org.apache.cassandra.db.filter.ColumnFilter;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.sstable.ISSTableScanner;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Scans a whole sstable, either through the regular (chunk cache backed) readers or through the sequential ones used
+ * by compaction and large range reads, which read ahead large blocks of the files and bypass the chunk cache.
+ *
+ * Run with a chunk cache and a data set larger than the page cache to see the effect of the read-ahead on the disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1G")
+@Threads(1)
+@State(Scope.Benchmark)
+public class SequentialScanBench extends CQLTester
+{
+    private static final int PARTITIONS = 100000;
+
+    @Param({ "false", "true" })
+    boolean sequential;
+
+    @Param({ "true", "false" })
+    boolean compressed;
+
+    ColumnFamilyStore cfs;
+    SSTableReader sstable;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable
+    {
+        CQLTester.setUpClass();
+        beforeTest();
+
+        createTable("CREATE TABLE %s (k int, c int, v text, PRIMARY KEY (k, c))"
+                    + (compressed ? "" : " WITH compression = { 'enabled' : false }"));
+        for (int k = 0; k < PARTITIONS; k++)
+            execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", k, k % 10, "value" + k);
+        flush();
+
+        cfs = getCurrentColumnFamilyStore();
+        sstable = cfs.getLiveSSTables().iterator().next();
+    }
+
+    @Benchmark
+    public long scan()
+    {
+        long rows = 0;
+        try (ISSTableScanner scanner = sstable.getScanner(ColumnFilter.all(cfs.metadata), DataRange.allData(cfs.getPartitioner()), false, sequential))
+        {
+            while (scanner.hasNext())
+            {
+                try (UnfilteredRowIterator partition = scanner.next())
+                {
+                    while (partition.hasNext())
+                    {
+                        partition.next();
+                        rows++;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+}
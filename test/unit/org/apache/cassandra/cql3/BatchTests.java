@@ -30,6 +30,8 @@ import org.junit.Test;
 
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
+
 public class BatchTests
 {
     private static EmbeddedCassandraService cassandra;
@@ -101,6 +103,21 @@ public class BatchTests
         sendBatch(BatchStatement.Type.UNLOGGED, false, true);
     }
 
+    @Test
+    public void testNonCounterInUnLoggedBatchWithWriteCoalescing()
+    {
+        DatabaseDescriptor.setUnloggedBatchWriteCoalescingEnabled(true);
+        try
+        {
+            sendBatch(BatchStatement.Type.UNLOGGED, false, true);
+            assertEquals(10, session.execute("select * from junit.noncounter").all().size());
+        }
+        finally
+        {
+            DatabaseDescriptor.setUnloggedBatchWriteCoalescingEnabled(false);
+        }
+    }
+
     @Test
     public void testCounterInCounterBatch()
     {
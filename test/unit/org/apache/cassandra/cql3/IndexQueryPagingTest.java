@@ -91,7 +91,32 @@ public class IndexQueryPagingTest extends CQLTester
         executePagingQuery("SELECT * FROM %s WHERE k1=0 AND c1>=0 AND c1<=3 AND v1=0", rowCount);
     }
 
+    @Test
+    public void pagingOnWidePartition() throws Throwable
+    {
+        createTable("CREATE TABLE %s (" +
+                    " k1 int," +
+                    " c1 int," +
+                    " v1 int," +
+                    "PRIMARY KEY (k1, c1))");
+        createIndex("CREATE INDEX ON %s(v1)");
+
+        // enough hits in a single partition for them to be read in several batches
+        int rowCount = 2500;
+        for (int i=0; i<rowCount; i++)
+            execute("INSERT INTO %s (k1, c1, v1) VALUES (?, ?, ?)", 0, i, 0);
+
+        executePagingQuery("SELECT * FROM %s WHERE v1=0", rowCount);
+        executePagingQuery("SELECT * FROM %s WHERE v1=0", rowCount, 10);
+        executePagingQuery("SELECT * FROM %s WHERE v1=0", rowCount, 1001);
+    }
+
     private void executePagingQuery(String cql, int rowCount)
+    {
+        executePagingQuery(cql, rowCount, rowCount - 1);
+    }
+
+    private void executePagingQuery(String cql, int rowCount, int fetchSize)
     {
         // Execute an index query which should return all rows,
         // setting the fetch size < than the row count. Assert
@@ -99,7 +124,7 @@ public class IndexQueryPagingTest extends CQLTester
         // of the results was involved.
         Session session = sessionNet();
         Statement stmt = new SimpleStatement(String.format(cql, KEYSPACE + '.' + currentTable()));
-        stmt.setFetchSize(rowCount - 1);
+        stmt.setFetchSize(fetchSize);
         assertEquals(rowCount, session.execute(stmt).all().size());
     }
 }
@@ -1046,6 +1046,31 @@ public class SecondaryIndexTest extends CQLTester
         assertEmpty(execute("SELECT * FROM %s WHERE d = 3"));
     }
 
+    @Test
+    public void testWidePartitionWithManyHitsAndLimits() throws Throwable
+    {
+        createTable("CREATE TABLE %s (a int, b int, c int, PRIMARY KEY (a, b))");
+        createIndex("CREATE INDEX ON %s(c)");
+
+        // enough hits in a single partition for them to be read in several batches
+        int rows = 2500;
+        for (int i = 0; i < rows; i++)
+            execute("INSERT INTO %s (a, b, c) VALUES (?, ?, ?)", i % 2, i, 0);
+        execute("INSERT INTO %s (a, b, c) VALUES (?, ?, ?)", 2, 0, 0);
+        flush();
+
+        // make some of the hits of the first batch stale
+        for (int i = 0; i < 100; i += 2)
+            execute("UPDATE %s SET c = 1 WHERE a = 0 AND b = ?", i);
+
+        assertEquals(rows - 50 + 1, execute("SELECT * FROM %s WHERE c = 0").size());
+        assertEquals(rows / 2 - 50, execute("SELECT * FROM %s WHERE a = 0 AND c = 0").size());
+        assertRows(execute("SELECT * FROM %s WHERE a = 0 AND c = 0 LIMIT 2"), row(0, 100, 0), row(0, 102, 0));
+        assertEquals(10, execute("SELECT * FROM %s WHERE c = 0 LIMIT 10").size());
+        assertEquals(3 + 3 + 1, execute("SELECT * FROM %s WHERE c = 0 PER PARTITION LIMIT 3").size());
+        assertEquals(50, execute("SELECT * FROM %s WHERE c = 1").size());
+    }
+
     private ResultMessage.Prepared prepareStatement(String cql, boolean forThrift)
     {
         return QueryProcessor.prepare(String.format(cql, KEYSPACE, currentTable()),
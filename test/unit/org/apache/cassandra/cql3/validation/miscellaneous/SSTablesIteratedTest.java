@@ -23,10 +23,14 @@ package org.apache.cassandra.cql3.validation.miscellaneous;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import org.apache.cassandra.Util;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.CQLTester;
 import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.marshal.Int32Type;
 import org.apache.cassandra.metrics.ClearableHistogram;
+import org.apache.cassandra.service.CacheService;
 
 /**
  * Tests for checking how many sstables we access during cql queries with LIMIT specified,
@@ -472,4 +476,53 @@ public class SSTablesIteratedTest extends CQLTester
             executeAndCheck(base + String.format("WHERE id=%d AND col < 40 LIMIT 1", i), 1, row(i, 30, "30"));
         }
     }
+
+    @Test
+    public void testSSTablesNotContainingPartitionSkipped() throws Throwable
+    {
+        createTable("CREATE TABLE %s (id int, col int, val text, PRIMARY KEY (id, col)) WITH bloom_filter_fp_chance = 0.0001");
+
+        // disjoint sets of partitions spread over the whole ring, so that all the sstables cover every partition read
+        for (int i = 1; i <= 3; i++)
+        {
+            for (int j = 0; j < 100; j++)
+                execute("INSERT INTO %s (id, col, val) VALUES (?, ?, ?)", i * 1000 + j, 10, "10");
+            flush();
+        }
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        for (int i = 1; i <= 3; i++)
+        {
+            int id = i * 1000 + 50;
+            DecoratedKey key = Util.dk(Int32Type.instance.decompose(id));
+            long covering = cfs.getLiveSSTables().stream().filter(s -> s.first.compareTo(key) <= 0 && s.last.compareTo(key) >= 0).count();
+
+            ((ClearableHistogram) cfs.metric.sstablesSkippedPerReadHistogram.cf).clear();
+            executeAndCheck(String.format("SELECT * FROM %%s WHERE id=%d", id), 1, row(id, 10, "10"));
+            assertEquals(covering - 1, cfs.metric.sstablesSkippedPerReadHistogram.cf.getSnapshot().getMax());
+        }
+    }
+
+    @Test
+    public void testPartitionDeletionWithColdAndWarmKeyCache() throws Throwable
+    {
+        createTable("CREATE TABLE %s (id int, col int, val text, PRIMARY KEY (id, col))");
+
+        // large enough partitions to be indexed, so that their key cache entries hold their partition deletion
+        String val = new String(new char[100]).replace('\0', 'x');
+        for (int i = 0; i < 100; i++)
+            execute("INSERT INTO %s (id, col, val) VALUES (?, ?, ?) USING TIMESTAMP 1", 1, i, val);
+        flush();
+
+        // the newer sstable only holds rows outside of the range read, but deletes the rows of the older one
+        execute("DELETE FROM %s USING TIMESTAMP 10 WHERE id=1");
+        for (int i = 200; i < 300; i++)
+            execute("INSERT INTO %s (id, col, val) VALUES (?, ?, ?) USING TIMESTAMP 20", 1, i, val);
+        flush();
+
+        // the read gets the same result whether the partition deletion comes from the key cache or the data file
+        CacheService.instance.invalidateKeyCache();
+        executeAndCheck("SELECT * FROM %s WHERE id=1 AND col IN (10, 20)", 1);
+        executeAndCheck("SELECT * FROM %s WHERE id=1 AND col IN (10, 20)", 1);
+    }
 }
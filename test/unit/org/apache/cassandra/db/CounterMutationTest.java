@@ -17,20 +17,32 @@
  */
 package org.apache.cassandra.db;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import org.apache.cassandra.Util;
+import org.apache.cassandra.cache.CounterCacheKey;
 import org.apache.cassandra.config.ColumnDefinition;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.SchemaLoader;
 import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.db.context.CounterContext;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.exceptions.WriteTimeoutException;
 import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.utils.ByteBufferUtil;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class CounterMutationTest
 {
@@ -108,6 +120,157 @@ public class CounterMutationTest
         assertEquals(expectedTwo, CounterContext.instance().total(row.getCell(cDefTwo).value()));
     }
 
+    @Test
+    public void testAccumulated() throws Exception
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF1);
+        cfs.truncateBlocking();
+        DatabaseDescriptor.setCounterWriteAccumulatorEnabled(true);
+        try
+        {
+            addTwoAndCheck(cfs, 1L, 1L, -1L, -1L);
+            addTwoAndCheck(cfs, 2L, 3L, -2L, -3L);
+            assertEquals(2, CounterAccumulator.instance.size());
+
+            // the counters are dropped from the accumulator on flush, and then read back from the cache
+            cfs.forceBlockingFlush();
+            assertEquals(0, CounterAccumulator.instance.size());
+            addTwoAndCheck(cfs, 3L, 6L, -3L, -6L);
+
+            // and from the table
+            cfs.forceBlockingFlush();
+            CacheService.instance.invalidateCounterCache();
+            addTwoAndCheck(cfs, 4L, 10L, -4L, -10L);
+
+            // concurrent increments, some of them missing the accumulator after the flushes
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++)
+            {
+                futures.add(executor.submit(() -> {
+                    Mutation m = new RowUpdateBuilder(cfs.metadata, 5, "key1").clustering("cc").add("val", 1L).build();
+                    new CounterMutation(m, ConsistencyLevel.ONE).apply();
+                }));
+                if (i % 250 == 0)
+                    futures.add(executor.submit(() -> cfs.forceBlockingFlush()));
+            }
+            for (Future<?> future : futures)
+                future.get();
+            executor.shutdown();
+
+            addTwoAndCheck(cfs, 0L, 1010L, 0L, -10L);
+
+            cfs.truncateBlocking();
+            assertEquals(0, CounterAccumulator.instance.size());
+        }
+        finally
+        {
+            DatabaseDescriptor.setCounterWriteAccumulatorEnabled(false);
+        }
+    }
+
+    @Test
+    public void testAccumulatedLockTimeout() throws Exception
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF1);
+        cfs.truncateBlocking();
+        DatabaseDescriptor.setCounterWriteAccumulatorEnabled(true);
+        long timeout = DatabaseDescriptor.getCounterWriteRpcTimeout();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch unlock = new CountDownLatch(1);
+        try
+        {
+            addAndCheck(cfs, 1L, 1L);
+            assertEquals(1, CounterAccumulator.instance.size());
+
+            // another writer holds the lock of a counter which isn't in the accumulator yet
+            ColumnDefinition cDef = cfs.metadata.getColumnDefinition(ByteBufferUtil.bytes("val"));
+            CounterCacheKey key = CounterCacheKey.create(cfs.metadata.ksAndCFName, ByteBufferUtil.bytes("key1"), cfs.metadata.comparator.make("cc2"), cDef, null);
+            Future<?> holder = executor.submit(() -> {
+                Lock lock = CounterMutation.LOCKS.get(key);
+                lock.lock();
+                try
+                {
+                    locked.countDown();
+                    unlock.await();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new AssertionError(e);
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            });
+            locked.await();
+
+            // the mutation times out waiting for it, which must not leave its delta in the accumulated counter
+            DatabaseDescriptor.setCounterWriteRpcTimeout(100L);
+            Mutation m = new RowUpdateBuilder(cfs.metadata, 5, "key1").clustering("cc").add("val", 10L).build();
+            new RowUpdateBuilder(cfs.metadata, 5, m).clustering("cc2").add("val", 10L).build();
+            try
+            {
+                new CounterMutation(m, ConsistencyLevel.ONE).apply();
+                fail("Expected the counter lock to time out");
+            }
+            catch (WriteTimeoutException e)
+            {
+                // expected
+            }
+            DatabaseDescriptor.setCounterWriteRpcTimeout(timeout);
+            unlock.countDown();
+            holder.get();
+
+            addAndCheck(cfs, 1L, 2L);
+        }
+        finally
+        {
+            unlock.countDown();
+            executor.shutdown();
+            DatabaseDescriptor.setCounterWriteRpcTimeout(timeout);
+            DatabaseDescriptor.setCounterWriteAccumulatorEnabled(false);
+        }
+    }
+
+    @Test
+    public void testAccumulatedApplyFailure() throws Exception
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF1);
+        cfs.truncateBlocking();
+        DatabaseDescriptor.setCounterWriteAccumulatorEnabled(true);
+        try
+        {
+            addAndCheck(cfs, 1L, 1L);
+            assertEquals(1, CounterAccumulator.instance.size());
+
+            // a mutation too large for the commit log, whose write fails once all its deltas have been accumulated
+            Mutation m = new RowUpdateBuilder(cfs.metadata, 5, "key1").clustering("cc").add("val", 10L).build();
+            StringBuilder name = new StringBuilder();
+            while (name.length() < 60000)
+                name.append("name");
+            for (int i = 0; i < (int) (DatabaseDescriptor.getMaxMutationSize() / name.length()) + 1; i++)
+                new RowUpdateBuilder(cfs.metadata, 5, m).clustering(name.toString() + i).add("val", 1L).build();
+            try
+            {
+                new CounterMutation(m, ConsistencyLevel.ONE).apply();
+                fail("Expected the mutation to be rejected by the commit log");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+
+            // the delta of the failed mutation has been taken back from the accumulated counter
+            addAndCheck(cfs, 1L, 2L);
+        }
+        finally
+        {
+            DatabaseDescriptor.setCounterWriteAccumulatorEnabled(false);
+        }
+    }
+
     @Test
     public void testBatch() throws WriteTimeoutException
     {
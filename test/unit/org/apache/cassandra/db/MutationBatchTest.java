@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.db.marshal.BytesType;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.apache.cassandra.utils.ByteBufferUtil.bytes;
+import static org.junit.Assert.assertEquals;
+
+public class MutationBatchTest
+{
+    private static final String KEYSPACE = "MutationBatchTest";
+    private static final String CF_STANDARD = "Standard";
+
+    @BeforeClass
+    public static void defineSchema() throws ConfigurationException
+    {
+        SchemaLoader.prepareServer();
+        SchemaLoader.createKeyspace(KEYSPACE,
+                                    KeyspaceParams.simple(1),
+                                    SchemaLoader.standardCFMD(KEYSPACE, CF_STANDARD, 1, BytesType.instance));
+    }
+
+    @Test
+    public void testSerialization() throws IOException
+    {
+        CFMetaData cfm = Keyspace.open(KEYSPACE).getColumnFamilyStore(CF_STANDARD).metadata;
+        int version = MessagingService.current_version;
+
+        List<Mutation> mutations = new ArrayList<>(10);
+        for (int i = 0; i < 10; i++)
+        {
+            mutations.add(new RowUpdateBuilder(cfm, FBUtilities.timestampMicros(), bytes(i))
+                          .clustering("name" + i)
+                          .add("val", "val" + i)
+                          .build());
+        }
+
+        MutationBatch batch1 = new MutationBatch(mutations);
+        DataOutputBuffer out = new DataOutputBuffer();
+        MutationBatch.serializer.serialize(batch1, out, version);
+        assertEquals(out.getLength(), MutationBatch.serializer.serializedSize(batch1, version));
+
+        MutationBatch batch2 = MutationBatch.serializer.deserialize(new DataInputBuffer(out.getData()), version);
+        assertEquals(batch1.mutations.size(), batch2.mutations.size());
+        for (int i = 0; i < batch1.mutations.size(); i++)
+            assertEquals(batch1.mutations.get(i).toString(), batch2.mutations.get(i).toString());
+    }
+
+    @Test
+    public void testResponseSerialization() throws IOException
+    {
+        int version = MessagingService.current_version;
+        List<Boolean> applied = Arrays.asList(true, false, true);
+
+        DataOutputBuffer out = new DataOutputBuffer();
+        MutationBatch.responseSerializer.serialize(applied, out, version);
+        assertEquals(out.getLength(), MutationBatch.responseSerializer.serializedSize(applied, version));
+
+        assertEquals(applied, MutationBatch.responseSerializer.deserialize(new DataInputBuffer(out.getData()), version));
+    }
+}
@@ -21,22 +21,28 @@ package org.apache.cassandra.db;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.cassandra.*;
 import org.apache.cassandra.config.ColumnDefinition;
+import org.apache.cassandra.db.lifecycle.View;
 import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.db.marshal.IntegerType;
 import org.apache.cassandra.db.partitions.*;
+import org.apache.cassandra.dht.AbstractBounds;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.Pair;
 
 public class PartitionRangeReadTest
 {
@@ -44,6 +50,7 @@ public class PartitionRangeReadTest
     public static final String KEYSPACE2 = "PartitionRangeReadTest2";
     public static final String CF_STANDARD1 = "Standard1";
     public static final String CF_STANDARDINT = "StandardInteger1";
+    public static final String CF_STANDARDLOWINDEXINTERVAL = "StandardLowIndexInterval";
 
     @BeforeClass
     public static void defineSchema() throws ConfigurationException
@@ -52,7 +59,8 @@ public class PartitionRangeReadTest
         SchemaLoader.createKeyspace(KEYSPACE1,
                                     KeyspaceParams.simple(1),
                                     SchemaLoader.standardCFMD(KEYSPACE1, CF_STANDARD1),
-                                    SchemaLoader.denseCFMD(KEYSPACE1, CF_STANDARDINT, IntegerType.instance));
+                                    SchemaLoader.denseCFMD(KEYSPACE1, CF_STANDARDINT, IntegerType.instance),
+                                    SchemaLoader.standardCFMD(KEYSPACE1, CF_STANDARDLOWINDEXINTERVAL).minIndexInterval(8));
         SchemaLoader.createKeyspace(KEYSPACE2,
                                     KeyspaceParams.simple(1),
                                     SchemaLoader.standardCFMD(KEYSPACE2, CF_STANDARD1));
@@ -156,6 +164,91 @@ public class PartitionRangeReadTest
         assertTrue(partitions.get(partitions.size() - 1).iterator().next().getCell(cDef).value().equals(ByteBufferUtil.bytes("6")));
     }
 
+    @Test
+    public void testParallelScan() throws Throwable
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARDLOWINDEXINTERVAL);
+        cfs.clearUnsafe();
+
+        // two sstables and a memtable, with deletions shadowing data of the sstables
+        for (int i = 0; i < 1000; i++)
+        {
+            for (int j = 0; j < 3; j++)
+            {
+                new RowUpdateBuilder(cfs.metadata, 10, String.format("key%04d", i))
+                        .clustering("c" + j)
+                        .add("val", "val" + i)
+                        .build().applyUnsafe();
+            }
+            if (i == 499)
+                cfs.forceBlockingFlush();
+        }
+        cfs.forceBlockingFlush();
+        for (int i = 0; i < 1000; i += 7)
+            RowUpdateBuilder.deleteRow(cfs.metadata, 20, String.format("key%04d", i), "c1").applyUnsafe();
+
+        ColumnFamilyStore.ViewFragment view = cfs.select(View.selectLive(DataRange.allData(cfs.getPartitioner()).keyRange()));
+        PartitionRangeReadCommand command = (PartitionRangeReadCommand) Util.cmd(cfs).withLimit(1000).build();
+        assertEquals(1, command.splitForParallelScan(view, 1).left.size());
+        assertNull(command.splitForParallelScan(view, 1).right);
+
+        // a small limit isn't worth splitting the range
+        PartitionRangeReadCommand small = (PartitionRangeReadCommand) Util.cmd(cfs).withLimit(10).build();
+        assertEquals(1, small.splitForParallelScan(view, 4).left.size());
+
+        // only the part of the range expected to hold the rows of the limit is split, each sub-range being read up to the
+        // limit, so the sub-ranges hold about as many rows as the limit between them
+        Pair<List<AbstractBounds<PartitionPosition>>, AbstractBounds<PartitionPosition>> split = command.splitForParallelScan(view, 4);
+        assertEquals(4, split.left.size());
+        assertNotNull(split.right);
+        int rows = 0;
+        for (AbstractBounds<PartitionPosition> subRange : split.left)
+        {
+            for (FilteredPartition partition : Util.getAll(((PartitionRangeReadCommand) Util.cmd(cfs).build()).forSubRange(subRange)))
+                rows += partition.rowCount();
+        }
+        assertTrue(String.valueOf(rows), rows >= 900 && rows <= 1200);
+
+        List<ReadCommand> commands = Arrays.asList(Util.cmd(cfs).build(),
+                                                   Util.cmd(cfs).withLimit(10).build(),
+                                                   Util.cmd(cfs).withLimit(1000).build(),
+                                                   Util.cmd(cfs).withPagingLimit(500).build(),
+                                                   Util.cmd(cfs).withLimit(2000).build(),
+                                                   Util.cmd(cfs).withLimit(5000).build(),
+                                                   Util.cmd(cfs).withPagingLimit(1000).build(),
+                                                   Util.cmd(cfs).withLimit(2000).reverse().build(),
+                                                   Util.cmd(cfs).withLimit(2000).fromIncl("c1").build(),
+                                                   Util.cmd(cfs).fromKeyExcl("key0100").toKeyIncl("key0900").withLimit(2000).build(),
+                                                   Util.cmd(cfs).fromKeyIncl("key0100").toKeyExcl("key0900").withLimit(2000).build());
+        try
+        {
+            for (ReadCommand cmd : commands)
+            {
+                cfs.setRangeReadParallelism(1);
+                String expected = toString(cfs, Util.getAll(cmd));
+                cfs.setRangeReadParallelism(4);
+                assertEquals(cmd.toCQLString(), expected, toString(cfs, Util.getAll(cmd)));
+            }
+        }
+        finally
+        {
+            cfs.setRangeReadParallelism(ColumnFamilyStore.DEFAULT_RANGE_READ_PARALLELISM);
+        }
+    }
+
+    private static String toString(ColumnFamilyStore cfs, List<FilteredPartition> partitions)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (FilteredPartition partition : partitions)
+        {
+            sb.append(cfs.metadata.getKeyValidator().getString(partition.partitionKey().getKey())).append(':');
+            for (Row row : partition)
+                sb.append(' ').append(row.toString(cfs.metadata, true));
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
         // TODO: Port or remove, depending on what DataLimits.thriftLimits (per cell) looks like
 //    @Test
 //    public void testRangeSliceColumnsLimit() throws Throwable
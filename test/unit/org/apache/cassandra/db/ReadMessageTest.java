@@ -21,6 +21,7 @@ package org.apache.cassandra.db;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.util.Arrays;
 
 import com.google.common.base.Predicate;
 
@@ -144,6 +145,32 @@ public class ReadMessageTest
         assertEquals(rm.toString(), rm2.toString());
     }
 
+    @Test
+    public void testMakeReadBatchMessage() throws IOException
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_FOR_READ_TEST);
+
+        ReadCommand data = Util.cmd(cfs, Util.dk("key1"))
+                               .includeRow("col1", "col2")
+                               .build();
+        ReadCommand digest = Util.cmd(cfs, Util.dk("key2"))
+                                 .columns("a")
+                                 .build()
+                                 .copy()
+                                 .setIsDigestQuery(true);
+
+        ReadCommandBatch batch = new ReadCommandBatch(Arrays.asList(data, digest));
+        DataOutputBuffer out = new DataOutputBuffer();
+        ReadCommandBatch.serializer.serialize(batch, out, MessagingService.current_version);
+
+        ReadCommandBatch batch2 = ReadCommandBatch.serializer.deserialize(new DataInputBuffer(out.getData()), MessagingService.current_version);
+        assertEquals(2, batch2.commands.size());
+        assertEquals(data.toString(), batch2.commands.get(0).toString());
+        assertFalse(batch2.commands.get(0).isDigestQuery());
+        assertEquals(digest.toString(), batch2.commands.get(1).toString());
+        assertTrue(batch2.commands.get(1).isDigestQuery());
+    }
+
     private ReadCommand serializeAndDeserializeReadMessage(ReadCommand rm) throws IOException
     {
         IVersionedSerializer<ReadCommand> rms = ReadCommand.serializer;
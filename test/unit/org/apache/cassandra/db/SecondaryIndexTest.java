@@ -21,10 +21,12 @@ package org.apache.cassandra.db;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.collect.Iterators;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -36,8 +38,10 @@ import org.apache.cassandra.cql3.statements.IndexTarget;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.db.partitions.*;
 import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.RowIterator;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.index.Index;
+import org.apache.cassandra.index.internal.CassandraIndex;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.utils.ByteBufferUtil;
@@ -308,6 +312,7 @@ public class SecondaryIndexTest
         // first check for the old value
         assertIndexedNone(cfs, col, 1L);
         assertIndexedNone(cfs, col, 2L);
+        CassandraIndex.awaitStaleEntriesDeletion();
 
         // now, reset back to the original value, still skipping the index update, to
         // make sure the value was expunged from the index when it was discovered to be inconsistent
@@ -315,6 +320,7 @@ public class SecondaryIndexTest
                        true,
                        false);
         assertIndexedNone(cfs, col, 1L);
+        CassandraIndex.awaitStaleEntriesDeletion();
         ColumnFamilyStore indexCfs = cfs.indexManager.getAllIndexColumnFamilyStores().iterator().next();
         assertIndexCfsIsEmpty(indexCfs);
     }
@@ -367,6 +373,7 @@ public class SecondaryIndexTest
         // first check for the old value
         assertIndexedNone(cfs, col, 10l);
         assertIndexedNone(cfs, col, 20l);
+        CassandraIndex.awaitStaleEntriesDeletion();
 
         // now, reset back to the original value, still skipping the index update, to
         // make sure the value was expunged from the index when it was discovered to be inconsistent
@@ -377,11 +384,87 @@ public class SecondaryIndexTest
         builder.add(colName, 10L);
         keyspace.apply(builder.build(), true, false);
         assertIndexedNone(cfs, col, 20l);
+        CassandraIndex.awaitStaleEntriesDeletion();
 
         ColumnFamilyStore indexCfs = cfs.indexManager.getAllIndexColumnFamilyStores().iterator().next();
         assertIndexCfsIsEmpty(indexCfs);
     }
 
+    @Test
+    public void testDeleteOfInconsistentValuesFromMemtableInKeysIndex() throws Exception
+    {
+        runDeleteOfInconsistentValuesFromMemtableTest(WITH_KEYS_INDEX, false);
+    }
+
+    @Test
+    public void testDeleteOfInconsistentValuesFromMemtableInCompositeIndex() throws Exception
+    {
+        runDeleteOfInconsistentValuesFromMemtableTest(WITH_COMPOSITE_INDEX, true);
+    }
+
+    /*
+     * The stale entries are found in the memtables, whose memory (off heap with offheap_objects) is reclaimed when
+     * they are flushed, before the entries get deleted in the background.
+     */
+    private void runDeleteOfInconsistentValuesFromMemtableTest(String cfName, boolean isComposite) throws Exception
+    {
+        Keyspace keyspace = Keyspace.open(KEYSPACE1);
+        ColumnFamilyStore cfs = keyspace.getColumnFamilyStore(cfName);
+        ByteBuffer col = ByteBufferUtil.bytes("birthdate");
+
+        for (int i = 0; i < 10; i++)
+        {
+            RowUpdateBuilder builder = new RowUpdateBuilder(cfs.metadata, 1, "k" + i).noRowMarker();
+            if (isComposite)
+                builder = builder.clustering("c");
+            builder.add("birthdate", 1L).build().applyUnsafe();
+
+            // now apply another update, but force the index update to be skipped
+            builder = new RowUpdateBuilder(cfs.metadata, 2, "k" + i).noRowMarker();
+            if (isComposite)
+                builder = builder.clustering("c");
+            keyspace.apply(builder.add("birthdate", 2L).build(), true, false);
+        }
+
+        CountDownLatch resume = new CountDownLatch(1);
+        CassandraIndex.pauseStaleEntriesDeletion(resume);
+        try
+        {
+            assertIndexedNone(cfs, col, 1L);
+            cfs.forceBlockingFlush();
+
+            // reuse the memory of the flushed memtables
+            for (int i = 0; i < 10; i++)
+            {
+                RowUpdateBuilder builder = new RowUpdateBuilder(cfs.metadata, 3, "other" + i).noRowMarker();
+                if (isComposite)
+                    builder = builder.clustering("c");
+                builder.add("birthdate", 3L).build().applyUnsafe();
+            }
+        }
+        finally
+        {
+            resume.countDown();
+        }
+        CassandraIndex.awaitStaleEntriesDeletion();
+
+        // only the stale entries have been deleted
+        ColumnFamilyStore indexCfs = cfs.indexManager.getAllIndexColumnFamilyStores().iterator().next();
+        PartitionRangeReadCommand command = (PartitionRangeReadCommand)Util.cmd(indexCfs).build();
+        try (ReadExecutionController controller = command.executionController();
+             PartitionIterator iter = UnfilteredPartitionIterators.filter(Util.executeLocally(command, indexCfs, controller),
+                                                                          FBUtilities.nowInSeconds()))
+        {
+            assertTrue(iter.hasNext());
+            try (RowIterator partition = iter.next())
+            {
+                assertEquals(10, Iterators.size(partition));
+            }
+            assertFalse(iter.hasNext());
+        }
+        assertIndexedCount(cfs, col, 3L, 10);
+    }
+
     // See CASSANDRA-6098
     @Test
     public void testDeleteCompositeIndex() throws Exception
@@ -20,12 +20,21 @@ package org.apache.cassandra.db.compaction;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 
 import org.apache.cassandra.cql3.CQLTester;
 import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.sstable.CopyablePartition;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.UUIDGen;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -215,6 +224,56 @@ public class CompactionsCQLTest extends CQLTester
         getCurrentColumnFamilyStore().setCompactionParameters(localOptions);
     }
 
+    @Test
+    public void testUnmergedPartitionsAreCopied() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v text, PRIMARY KEY (k, c))");
+        disableCompaction();
+
+        for (int k = 0; k < 20; k++)
+            for (int c = 0; c < 3; c++)
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, 'a') USING TIMESTAMP 1", k, c);
+        flush();
+        for (int k = 10; k < 30; k++)
+            for (int c = 0; c < 3; c++)
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, 'b') USING TIMESTAMP 2", k, c);
+        execute("INSERT INTO %s (k, c, v) VALUES (100, 0, 'b') USING TIMESTAMP 1");
+        flush();
+        // an sstable with a tombstone, whose partitions can't be copied
+        execute("DELETE FROM %s WHERE k = 30");
+        execute("INSERT INTO %s (k, c, v) VALUES (31, 0, 'c')");
+        flush();
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        Set<SSTableReader> sstables = cfs.getLiveSSTables();
+        try (AbstractCompactionStrategy.ScannerList scanners = cfs.getCompactionStrategyManager().getScanners(sstables);
+             CompactionController controller = new CompactionController(cfs, sstables, Integer.MIN_VALUE);
+             CompactionIterator ci = new CompactionIterator(OperationType.COMPACTION, scanners.scanners, controller, FBUtilities.nowInSeconds(), UUIDGen.getTimeUUID()))
+        {
+            int partitions = 0;
+            while (ci.hasNext())
+            {
+                try (UnfilteredRowIterator partition = ci.next())
+                {
+                    int k = Int32Type.instance.compose(partition.partitionKey().getKey());
+                    assertEquals("partition " + k, k < 10 || (k >= 20 && k < 30) || k == 100, partition instanceof CopyablePartition);
+                    partitions++;
+                }
+            }
+            assertEquals(33, partitions);
+        }
+
+        compact();
+        assertEquals(1, cfs.getLiveSSTables().size());
+        assertRowCount(execute("SELECT * FROM %s"), 92);
+        assertRows(execute("SELECT v FROM %s WHERE k = 5"), row("a"), row("a"), row("a"));
+        assertRows(execute("SELECT v FROM %s WHERE k = 15"), row("b"), row("b"), row("b"));
+        assertRows(execute("SELECT v FROM %s WHERE k = 25"), row("b"), row("b"), row("b"));
+        assertRows(execute("SELECT v FROM %s WHERE k = 100"), row("b"));
+        assertEmpty(execute("SELECT v FROM %s WHERE k = 30"));
+        assertRows(execute("SELECT v FROM %s WHERE k = 31"), row("c"));
+    }
+
     public boolean verifyStrategies(CompactionStrategyManager manager, Class<? extends AbstractCompactionStrategy> expected)
     {
         boolean found = false;
@@ -235,15 +235,13 @@ public class TrackerTest
             Assert.assertNull(tracker.dropSSTables(reader -> reader != readers.get(0), OperationType.UNKNOWN, null));
 
             Assert.assertEquals(1, tracker.getView().sstables.size());
-            Assert.assertEquals(3, listener.received.size());
+            Assert.assertEquals(2, listener.received.size());
             Assert.assertEquals(tracker, listener.senders.get(0));
             Assert.assertTrue(listener.received.get(0) instanceof SSTableDeletingNotification);
-            Assert.assertTrue(listener.received.get(1) instanceof  SSTableDeletingNotification);
-            Assert.assertTrue(listener.received.get(2) instanceof SSTableListChangedNotification);
-            Assert.assertEquals(readers.get(1), ((SSTableDeletingNotification) listener.received.get(0)).deleting);
-            Assert.assertEquals(readers.get(2), ((SSTableDeletingNotification)listener.received.get(1)).deleting);
-            Assert.assertEquals(2, ((SSTableListChangedNotification) listener.received.get(2)).removed.size());
-            Assert.assertEquals(0, ((SSTableListChangedNotification) listener.received.get(2)).added.size());
+            Assert.assertTrue(listener.received.get(1) instanceof SSTableListChangedNotification);
+            Assert.assertEquals(copyOf(readers.subList(1, 3)), copyOf(((SSTableDeletingNotification) listener.received.get(0)).deleting));
+            Assert.assertEquals(2, ((SSTableListChangedNotification) listener.received.get(1)).removed.size());
+            Assert.assertEquals(0, ((SSTableListChangedNotification) listener.received.get(1)).added.size());
             Assert.assertEquals(9, cfs.metric.liveDiskSpaceUsed.getCount());
             readers.get(0).selfRef().release();
         }
@@ -345,8 +343,8 @@ public class TrackerTest
         tracker.notifyAdded(singleton(r1));
         Assert.assertEquals(singleton(r1), ((SSTableAddedNotification) listener.received.get(0)).added);
         listener.received.clear();
-        tracker.notifyDeleting(r1);
-        Assert.assertEquals(r1, ((SSTableDeletingNotification) listener.received.get(0)).deleting);
+        tracker.notifyDeleting(singleton(r1));
+        Assert.assertEquals(singleton(r1), ((SSTableDeletingNotification) listener.received.get(0)).deleting);
         listener.received.clear();
         Assert.assertNull(tracker.notifySSTablesChanged(singleton(r1), singleton(r2), OperationType.COMPACTION, null));
         Assert.assertEquals(singleton(r1), ((SSTableListChangedNotification) listener.received.get(0)).removed);
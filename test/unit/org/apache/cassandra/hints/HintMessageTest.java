@@ -18,8 +18,11 @@
 package org.apache.cassandra.hints;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import org.junit.BeforeClass;
 import org.junit.Test;
 
 import org.apache.cassandra.SchemaLoader;
@@ -44,12 +47,16 @@ public class HintMessageTest
     private static final String KEYSPACE = "hint_message_test";
     private static final String TABLE = "table";
 
-    @Test
-    public void testSerializer() throws IOException
+    @BeforeClass
+    public static void defineSchema()
     {
         SchemaLoader.prepareServer();
         SchemaLoader.createKeyspace(KEYSPACE, KeyspaceParams.simple(1), SchemaLoader.standardCFMD(KEYSPACE, TABLE));
+    }
 
+    @Test
+    public void testSerializer() throws IOException
+    {
         UUID hostId = UUID.randomUUID();
         long now = FBUtilities.timestampMicros();
 
@@ -76,4 +83,43 @@ public class HintMessageTest
         assertEquals(hostId, deserializedMessage.hostId);
         assertHintsEqual(message.hint, deserializedMessage.hint);
     }
+
+    @Test
+    public void testBatchSerializer() throws IOException
+    {
+        UUID hostId = UUID.randomUUID();
+        long now = FBUtilities.timestampMicros();
+
+        CFMetaData table = Schema.instance.getCFMetaData(KEYSPACE, TABLE);
+        List<Hint> hints = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            Mutation mutation =
+                new RowUpdateBuilder(table, now, bytes("key" + i))
+                    .clustering("column")
+                    .add("val", "val" + i)
+                    .build();
+            hints.add(Hint.create(mutation, now / 1000));
+        }
+        HintBatchMessage message = HintBatchMessage.create(hostId, hints);
+
+        // serialize
+        int serializedSize = (int) HintBatchMessage.serializer.serializedSize(message, MessagingService.current_version);
+        DataOutputBuffer dob = new DataOutputBuffer();
+        HintBatchMessage.serializer.serialize(message, dob, MessagingService.current_version);
+        assertEquals(serializedSize, dob.getLength());
+
+        // deserialize
+        DataInputPlus di = new DataInputBuffer(dob.buffer(), true);
+        HintBatchMessage deserializedMessage = HintBatchMessage.serializer.deserialize(di, MessagingService.current_version);
+
+        // compare before/after
+        assertEquals(hostId, deserializedMessage.hostId);
+        assertEquals(hints.size(), deserializedMessage.hints.size());
+        for (int i = 0; i < hints.size(); i++)
+        {
+            assertEquals(hostId, deserializedMessage.hints.get(i).hostId);
+            assertHintsEqual(hints.get(i), deserializedMessage.hints.get(i).hint);
+        }
+    }
 }
@@ -20,6 +20,7 @@ package org.apache.cassandra.hints;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 import com.google.common.collect.ImmutableList;
@@ -203,6 +204,39 @@ public class HintTest
         assertNoPartitions(key, TABLE2);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testMerge()
+    {
+        long now = FBUtilities.timestampMicros();
+        String key = "testMerge";
+        Mutation first = createMutation(key, now);
+        Mutation second = new Mutation(KEYSPACE, dk(key));
+        new RowUpdateBuilder(Schema.instance.getCFMetaData(KEYSPACE, TABLE0), now + 10, second)
+            .clustering("column3")
+            .add("val", "value3")
+            .build();
+        Mutation other = createMutation("testMergeOther", now);
+
+        List<Hint> merged = HintsDispatcher.mergeSamePartition(ImmutableList.of(Hint.create(first, now / 1000),
+                                                                                Hint.create(other, now / 1000),
+                                                                                Hint.create(second, now / 1000 + 1)));
+        assertEquals(2, merged.size());
+        assertEquals(now / 1000, merged.get(0).creationTime);
+        assertEquals(dk("testMergeOther"), merged.get(1).mutation.key());
+
+        merged.get(0).apply();
+        assertEquals(2, readPartition(key, TABLE0).rowCount());
+        assertEquals(1, readPartition(key, TABLE1).rowCount());
+
+        // hints created on both sides of a truncation must not be merged
+        Keyspace.open(KEYSPACE).getColumnFamilyStore(TABLE0).truncateBlocking();
+        long truncatedAt = SystemKeyspace.getTruncatedAt(Schema.instance.getId(KEYSPACE, TABLE0));
+        merged = HintsDispatcher.mergeSamePartition(ImmutableList.of(Hint.create(first, now / 1000),
+                                                                     Hint.create(second, truncatedAt + 1)));
+        assertEquals(2, merged.size());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testChangedTopology() throws Exception
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.apache.cassandra.hints.HintsDispatchThrottle.ADJUSTMENT_INTERVAL_NANOS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HintsDispatchThrottleTest
+{
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(2);
+
+    @Test
+    public void testFixedRate()
+    {
+        HintsDispatchThrottle throttle = HintsDispatchThrottle.create(1024, 0);
+        assertFalse(throttle.isAdaptive());
+        assertEquals(1024 * 1024, throttle.rateLimiter().getRate(), 0.1);
+
+        throttle.onFailure();
+        assertEquals(1024 * 1024, throttle.rateLimiter().getRate(), 0.1);
+
+        // unthrottled
+        assertFalse(HintsDispatchThrottle.create(0, 4096).isAdaptive());
+    }
+
+    @Test
+    public void testIncreasesWhileTargetKeepsUp()
+    {
+        long now = 0;
+        HintsDispatchThrottle throttle = HintsDispatchThrottle.create(1000, 2000, now);
+        assertTrue(throttle.isAdaptive());
+
+        // nothing changes within an interval
+        throttle.onResponse(LATENCY, now += ADJUSTMENT_INTERVAL_NANOS / 2);
+        assertEquals(1000, throttle.rateLimiter().getRate(), 0.1);
+
+        throttle.onResponse(LATENCY, now += ADJUSTMENT_INTERVAL_NANOS);
+        assertEquals(1250, throttle.rateLimiter().getRate(), 0.1);
+
+        for (int i = 0; i < 10; i++)
+            throttle.onResponse(LATENCY, now += ADJUSTMENT_INTERVAL_NANOS);
+        assertEquals(2000, throttle.rateLimiter().getRate(), 0.1);
+    }
+
+    @Test
+    public void testBacksOff()
+    {
+        long now = 0;
+        HintsDispatchThrottle throttle = HintsDispatchThrottle.create(1000, 2000, now);
+        throttle.onResponse(LATENCY, now += ADJUSTMENT_INTERVAL_NANOS);
+        assertEquals(1250, throttle.rateLimiter().getRate(), 0.1);
+
+        // the target is getting slower
+        throttle.onResponse(3 * LATENCY, now += ADJUSTMENT_INTERVAL_NANOS);
+        assertEquals(1250 * 0.75, throttle.rateLimiter().getRate(), 0.1);
+
+        // failures (including timeouts) halve the rate, whatever the latency of the successful deliveries
+        throttle.onResponse(LATENCY, now += ADJUSTMENT_INTERVAL_NANOS / 2);
+        throttle.onFailure(now += ADJUSTMENT_INTERVAL_NANOS);
+        assertEquals(1250 * 0.75 / 2, throttle.rateLimiter().getRate(), 0.1);
+
+        // but never below an eighth of the configured rate
+        for (int i = 0; i < 10; i++)
+            throttle.onFailure(now += ADJUSTMENT_INTERVAL_NANOS);
+        assertEquals(125, throttle.rateLimiter().getRate(), 0.1);
+    }
+}
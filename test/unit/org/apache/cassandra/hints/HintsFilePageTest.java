@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.hints;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.IMessageSink;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+
+import static org.junit.Assert.*;
+
+public class HintsFilePageTest
+{
+    private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+
+    @BeforeClass
+    public static void defineSchema()
+    {
+        SchemaLoader.prepareServer();
+    }
+
+    @After
+    public void cleanup()
+    {
+        MessagingService.instance().clearMessageSinks();
+    }
+
+    @Test
+    public void testTransfer() throws IOException
+    {
+        File source = Files.createTempDirectory(null).toFile();
+        File target = Files.createTempDirectory(null).toFile();
+
+        HintsDescriptor descriptor = new HintsDescriptor(UUID.randomUUID(), System.currentTimeMillis());
+        writeHintsFile(source, descriptor, 3 * HintsFileSender.PAGE_SIZE);
+        byte[] content = Files.readAllBytes(new File(source, descriptor.fileName()).toPath());
+        byte[] checksum = Files.readAllBytes(new File(source, descriptor.checksumFileName()).toPath());
+
+        HintsCatalog catalog = HintsCatalog.load(target, ImmutableMap.of());
+        for (HintsFilePage page : pages(descriptor, content, checksum))
+            HintsFilePageVerbHandler.receive(target, catalog, roundTrip(page));
+
+        assertArrayEquals(content, Files.readAllBytes(new File(target, descriptor.fileName()).toPath()));
+        assertArrayEquals(checksum, Files.readAllBytes(new File(target, descriptor.checksumFileName()).toPath()));
+        assertEquals(2, target.list().length); // the hints file, its checksum, and no leftover temporary file
+
+        HintsStore store = catalog.get(descriptor.hostId);
+        assertEquals(descriptor, store.poll());
+        assertNull(store.poll());
+
+        // receiving the same file again must fail rather than overwrite it
+        try
+        {
+            HintsFilePageVerbHandler.receive(target, catalog, pages(descriptor, content, checksum)[0]);
+            fail();
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMissingPage() throws IOException
+    {
+        File source = Files.createTempDirectory(null).toFile();
+        File target = Files.createTempDirectory(null).toFile();
+
+        HintsDescriptor descriptor = new HintsDescriptor(UUID.randomUUID(), System.currentTimeMillis());
+        writeHintsFile(source, descriptor, 2 * HintsFileSender.PAGE_SIZE);
+        byte[] content = Files.readAllBytes(new File(source, descriptor.fileName()).toPath());
+
+        HintsCatalog catalog = HintsCatalog.load(target, ImmutableMap.of());
+        HintsFilePage[] pages = pages(descriptor, content, new byte[0]);
+        HintsFilePageVerbHandler.receive(target, catalog, pages[0]);
+        try
+        {
+            HintsFilePageVerbHandler.receive(target, catalog, pages[2]);
+            fail();
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        assertFalse(new File(target, descriptor.fileName()).exists());
+        assertNull(catalog.get(descriptor.hostId).poll());
+
+        // the partially received file is cleaned up on restart
+        assertEquals(1, target.list().length);
+        HintsCatalog.load(target, ImmutableMap.of());
+        assertEquals(0, target.list().length);
+    }
+
+    @Test
+    public void testSend() throws Exception
+    {
+        File source = Files.createTempDirectory(null).toFile();
+        File target = Files.createTempDirectory(null).toFile();
+        InetAddress address = InetAddress.getByName("127.0.0.2");
+
+        HintsDescriptor descriptor = new HintsDescriptor(UUID.randomUUID(), System.currentTimeMillis());
+        writeHintsFile(source, descriptor, 2 * HintsFileSender.MAX_PAGES_IN_FLIGHT * HintsFileSender.PAGE_SIZE);
+        byte[] content = Files.readAllBytes(new File(source, descriptor.fileName()).toPath());
+        byte[] checksum = Files.readAllBytes(new File(source, descriptor.checksumFileName()).toPath());
+        int pageCount = content.length / HintsFileSender.PAGE_SIZE + 1;
+
+        interceptMessages();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> result = executor.submit(() -> HintsFileSender.send(source, descriptor, address, () -> false));
+
+        // serve the pages as the receiving node would, holding back the acknowledgements to check the pipelining
+        HintsCatalog catalog = HintsCatalog.load(target, ImmutableMap.of());
+        List<Sent> unacknowledged = new ArrayList<>();
+        long offset = 0;
+        for (int i = 0; i < pageCount; i++)
+        {
+            Sent s = poll();
+            assertEquals(MessagingService.Verb.HINTS_FILE_PAGE, s.message.verb);
+            assertEquals(address, s.to);
+
+            HintsFilePage page = roundTrip((HintsFilePage) s.message.payload);
+            assertEquals(offset, page.offset);
+            assertEquals(i == pageCount - 1, page.isLast);
+            // the last page is only sent once all the others have been acknowledged
+            if (page.isLast)
+                assertTrue(unacknowledged.isEmpty());
+            offset += page.bytes.remaining();
+
+            HintsFilePageVerbHandler.receive(target, catalog, page);
+            unacknowledged.add(s);
+
+            if (unacknowledged.size() == HintsFileSender.MAX_PAGES_IN_FLIGHT || i >= pageCount - 2)
+            {
+                // no more pages than allowed are awaiting a response
+                if (i < pageCount - 1)
+                    assertNull(sent.poll(100, TimeUnit.MILLISECONDS));
+                unacknowledged.forEach(HintsFilePageTest::acknowledge);
+                unacknowledged.clear();
+            }
+        }
+
+        assertTrue(result.get(10, TimeUnit.SECONDS));
+        assertNull(sent.poll());
+        executor.shutdown();
+
+        assertArrayEquals(content, Files.readAllBytes(new File(target, descriptor.fileName()).toPath()));
+        assertArrayEquals(checksum, Files.readAllBytes(new File(target, descriptor.checksumFileName()).toPath()));
+        assertEquals(descriptor, catalog.get(descriptor.hostId).poll());
+    }
+
+    @Test
+    public void testSendFailure() throws Exception
+    {
+        File source = Files.createTempDirectory(null).toFile();
+        InetAddress address = InetAddress.getByName("127.0.0.2");
+
+        HintsDescriptor descriptor = new HintsDescriptor(UUID.randomUUID(), System.currentTimeMillis());
+        writeHintsFile(source, descriptor, 2 * HintsFileSender.PAGE_SIZE);
+
+        interceptMessages();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> result = executor.submit(() -> HintsFileSender.send(source, descriptor, address, () -> false));
+
+        // the first page fails on the receiving node: the last page is never sent, and the transfer fails
+        Sent first = poll();
+        poll();
+        MessagingService.instance().receive(MessageIn.create(first.to,
+                                                             null,
+                                                             Collections.singletonMap(MessagingService.FAILURE_RESPONSE_PARAM, MessagingService.ONE_BYTE),
+                                                             MessagingService.Verb.REQUEST_RESPONSE,
+                                                             MessagingService.current_version,
+                                                             MessageIn.createTimestamp()),
+                                            first.id);
+
+        assertFalse(result.get(10, TimeUnit.SECONDS));
+        assertNull(sent.poll());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSendAborted() throws Exception
+    {
+        File source = Files.createTempDirectory(null).toFile();
+
+        HintsDescriptor descriptor = new HintsDescriptor(UUID.randomUUID(), System.currentTimeMillis());
+        writeHintsFile(source, descriptor, HintsFileSender.PAGE_SIZE);
+
+        interceptMessages();
+        assertFalse(HintsFileSender.send(source, descriptor, InetAddress.getByName("127.0.0.2"), () -> true));
+        assertNull(sent.poll());
+    }
+
+    private void interceptMessages()
+    {
+        MessagingService.instance().addMessageSink(new IMessageSink()
+        {
+            public boolean allowOutgoingMessage(MessageOut message, int id, InetAddress to)
+            {
+                sent.add(new Sent(message, id, to));
+                return false;
+            }
+
+            public boolean allowIncomingMessage(MessageIn message, int id)
+            {
+                return true;
+            }
+        });
+    }
+
+    private Sent poll() throws InterruptedException
+    {
+        Sent s = sent.poll(10, TimeUnit.SECONDS);
+        if (s == null)
+            throw new AssertionError("Nothing sent");
+        return s;
+    }
+
+    private static void acknowledge(Sent s)
+    {
+        MessagingService.instance().receive(MessageIn.create(s.to,
+                                                             HintResponse.instance,
+                                                             Collections.emptyMap(),
+                                                             MessagingService.Verb.REQUEST_RESPONSE,
+                                                             MessagingService.current_version,
+                                                             MessageIn.createTimestamp()),
+                                            s.id);
+    }
+
+    private static void writeHintsFile(File directory, HintsDescriptor descriptor, int minSize) throws IOException
+    {
+        Random random = new Random();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+        try (HintsWriter writer = HintsWriter.create(directory, descriptor);
+             HintsWriter.Session session = writer.newSession(buffer))
+        {
+            byte[] hint = new byte[1024];
+            while (session.position() < minSize)
+            {
+                random.nextBytes(hint);
+                session.append(ByteBuffer.wrap(hint));
+            }
+        }
+    }
+
+    private static HintsFilePage[] pages(HintsDescriptor descriptor, byte[] content, byte[] checksum)
+    {
+        int count = content.length / HintsFileSender.PAGE_SIZE + 1;
+        HintsFilePage[] pages = new HintsFilePage[count];
+        for (int i = 0; i < count; i++)
+        {
+            int offset = i * HintsFileSender.PAGE_SIZE;
+            ByteBuffer bytes = ByteBuffer.wrap(Arrays.copyOfRange(content, offset, Math.min(content.length, offset + HintsFileSender.PAGE_SIZE)));
+            pages[i] = i == count - 1
+                     ? HintsFilePage.createLast(descriptor, offset, bytes, ByteBuffer.wrap(checksum))
+                     : HintsFilePage.create(descriptor, offset, bytes);
+        }
+        return pages;
+    }
+
+    private static HintsFilePage roundTrip(HintsFilePage page) throws IOException
+    {
+        int version = MessagingService.current_version;
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            HintsFilePage.serializer.serialize(page, out, version);
+            assertEquals(out.getLength(), HintsFilePage.serializer.serializedSize(page, version));
+            try (DataInputBuffer in = new DataInputBuffer(out.buffer(), false))
+            {
+                return HintsFilePage.serializer.deserialize(in, version);
+            }
+        }
+    }
+
+    private static class Sent
+    {
+        private final MessageOut<?> message;
+        private final int id;
+        private final InetAddress to;
+
+        private Sent(MessageOut<?> message, int id, InetAddress to)
+        {
+            this.message = message;
+            this.id = id;
+            this.to = to;
+        }
+    }
+}
@@ -17,6 +17,7 @@
  */
 package org.apache.cassandra.index.sasi;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
@@ -52,6 +53,7 @@ import org.apache.cassandra.index.sasi.exceptions.TimeQuotaExceededException;
 import org.apache.cassandra.index.sasi.memory.IndexMemtable;
 import org.apache.cassandra.index.sasi.plan.QueryController;
 import org.apache.cassandra.index.sasi.plan.QueryPlan;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.schema.KeyspaceMetadata;
 import org.apache.cassandra.schema.KeyspaceParams;
@@ -66,7 +68,9 @@ import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.Pair;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Uninterruptibles;
 
 import junit.framework.Assert;
@@ -1106,6 +1110,56 @@ public class SASIIndexTest
         Assert.assertEquals(0, rows.size());
     }
 
+    @Test
+    public void testSparseNumericRangeWithBlockIndex()
+    {
+        ColumnFamilyStore store = Keyspace.open(KS_NAME).getColumnFamilyStore(CF_NAME);
+
+        final ByteBuffer timestamp = UTF8Type.instance.decompose("timestamp");
+
+        // three sstables and the memtable, every value shared by two keys
+        for (int i = 0; i < 4000; i++)
+        {
+            Mutation rm = new Mutation(KS_NAME, decoratedKey("key" + i));
+            update(rm, timestamp, LongType.instance.decompose((long) (i / 2) * 10), System.currentTimeMillis());
+            rm.apply();
+
+            if (i % 1000 == 999 && i < 3000)
+                store.forceBlockingFlush();
+        }
+
+        ColumnIndex index = ((SASIIndex) store.indexManager.getIndexByName("timestamp")).getIndex();
+        Assert.assertTrue(index.hasBlockIndex());
+        for (SSTableReader sstable : store.getLiveSSTables())
+            Assert.assertTrue(new File(sstable.descriptor.filenameFor(index.getBlockIndexComponent())).exists());
+
+        Assert.assertEquals(keys(1000, 3000), getIndexed(store, 10000, buildExpression(timestamp, Operator.GTE, LongType.instance.decompose(5000L)),
+                                                                      buildExpression(timestamp, Operator.LT, LongType.instance.decompose(15000L))));
+
+        Assert.assertEquals(keys(1002, 3000), getIndexed(store, 10000, buildExpression(timestamp, Operator.GT, LongType.instance.decompose(5000L)),
+                                                                      buildExpression(timestamp, Operator.LTE, LongType.instance.decompose(14990L))));
+
+        Assert.assertEquals(keys(3990, 4000), getIndexed(store, 10000, buildExpression(timestamp, Operator.GTE, LongType.instance.decompose(19950L))));
+
+        Assert.assertEquals(Collections.<String>emptySet(), getIndexed(store, 10000, buildExpression(timestamp, Operator.GT, LongType.instance.decompose(5000L)),
+                                                                                     buildExpression(timestamp, Operator.LT, LongType.instance.decompose(5010L))));
+
+        // exclusions are still served by the term index
+        Set<String> expected = keys(1000, 1010);
+        expected.removeAll(Arrays.asList("key1004", "key1005"));
+        Assert.assertEquals(expected, getIndexed(store, 10000, buildExpression(timestamp, Operator.GTE, LongType.instance.decompose(5000L)),
+                                                               buildExpression(timestamp, Operator.LT, LongType.instance.decompose(5050L)),
+                                                               buildExpression(timestamp, Operator.NEQ, LongType.instance.decompose(5020L))));
+    }
+
+    private static Set<String> keys(int from, int to)
+    {
+        Set<String> keys = new HashSet<>();
+        for (int i = from; i < to; i++)
+            keys.add("key" + i);
+        return keys;
+    }
+
 
     @Test
     public void testUnicodeSupport()
@@ -1761,6 +1815,43 @@ public class SASIIndexTest
         Assert.assertEquals("Tony", results.one().getString("name"));
     }
 
+    @Test
+    public void testPrimaryExpressionAndLimits() throws Exception
+    {
+        cleanupData();
+        ColumnFamilyStore store = Keyspace.open(KS_NAME).getColumnFamilyStore(CLUSTERING_CF_NAME_1);
+
+        // a wide partition
+        for (int i = 0; i < 100; i++)
+            executeCQL(CLUSTERING_CF_NAME_1, "INSERT INTO %s.%s (name, location, age, height, score) VALUES (?, ?, ?, ?, ?)", "Pavel", "US", i, 180, 1.0);
+        store.forceBlockingFlush();
+
+        // a few narrower partitions, the only ones with that height
+        executeCQL(CLUSTERING_CF_NAME_1, "INSERT INTO %s.%s (name, location, age, height, score) VALUES (?, ?, ?, ?, ?)", "Jordan", "US", 27, 190, 2.0);
+        executeCQL(CLUSTERING_CF_NAME_1, "INSERT INTO %s.%s (name, location, age, height, score) VALUES (?, ?, ?, ?, ?)", "Jason", "BY", 31, 190, 2.0);
+        store.forceBlockingFlush();
+
+        // that height in the memtable, for the wide partition
+        executeCQL(CLUSTERING_CF_NAME_1, "INSERT INTO %s.%s (name, location, age, height, score) VALUES (?, ?, ?, ?, ?)", "Pavel", "US", 100, 190, 3.0);
+
+        for (int i = 0; i < 2; i++)
+        {
+            UntypedResultSet results = executeCQL(CLUSTERING_CF_NAME_1, "SELECT * FROM %s.%s WHERE location = ? LIMIT 5 ALLOW FILTERING", "US");
+            Assert.assertEquals(5, results.size());
+
+            results = executeCQL(CLUSTERING_CF_NAME_1, "SELECT * FROM %s.%s WHERE location = ? AND age >= ? LIMIT 10 ALLOW FILTERING", "US", 50);
+            Assert.assertEquals(10, results.size());
+
+            results = executeCQL(CLUSTERING_CF_NAME_1, "SELECT * FROM %s.%s WHERE location = ? AND height = ? ALLOW FILTERING", "US", 190);
+            Assert.assertEquals(Sets.newHashSet(27, 100), Sets.newHashSet(Iterables.transform(results, row -> row.getInt("age"))));
+
+            // the height now only matches sstables, which restrict the ones searched for the location
+            store.forceBlockingFlush();
+        }
+
+        cleanupData();
+    }
+
     @Test
     public void testStaticIndex() throws Exception
     {
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.index.sasi.disk;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+
+import org.apache.cassandra.cql3.Operator;
+import org.apache.cassandra.db.BufferDecoratedKey;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.FloatType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.index.sasi.plan.Expression;
+import org.apache.cassandra.index.sasi.utils.RangeIterator;
+import org.apache.cassandra.utils.MurmurHash;
+
+import com.google.common.base.Function;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+public class NumericBlockIndexTest
+{
+    // spread the key offsets, as they would be in a real sstable
+    private static final long OFFSET_STEP = 7919;
+
+    @Test
+    public void testRangeSearch() throws Exception
+    {
+        testRangeSearch(Int32Type.instance, i -> Int32Type.instance.decompose((int) i));
+        testRangeSearch(LongType.instance, i -> LongType.instance.decompose(i * 1000000000L));
+        testRangeSearch(FloatType.instance, i -> FloatType.instance.decompose(i / 3f));
+        testRangeSearch(DoubleType.instance, i -> DoubleType.instance.decompose(i / 3d));
+    }
+
+    private static void testRangeSearch(AbstractType<?> validator, LongFunction<ByteBuffer> term) throws Exception
+    {
+        // every value is shared by two keys, and the blocks have to be found on both sides of zero
+        NumericBlockIndexBuilder blockBuilder = new NumericBlockIndexBuilder(validator, Long.MAX_VALUE);
+        OnDiskIndexBuilder termBuilder = new OnDiskIndexBuilder(UTF8Type.instance, validator, OnDiskIndexBuilder.Mode.SPARSE);
+        for (long i = 0; i < 10000; i++)
+        {
+            ByteBuffer value = term.apply(i / 2 - 2500);
+            blockBuilder.add(value, keyAt(i * OFFSET_STEP), i * OFFSET_STEP);
+            termBuilder.add(value, keyAt(i * OFFSET_STEP), i * OFFSET_STEP);
+        }
+
+        File blockFile = File.createTempFile("numeric-block-index", "db");
+        blockFile.deleteOnExit();
+        Assert.assertTrue(blockBuilder.finish(blockFile));
+
+        File termFile = File.createTempFile("numeric-block-index-terms", "db");
+        termFile.deleteOnExit();
+        termBuilder.finish(termFile);
+
+        NumericBlockIndex blockIndex = new NumericBlockIndex(blockFile, validator, new KeyConverter());
+        OnDiskIndex termIndex = new OnDiskIndex(termFile, validator, new KeyConverter());
+        Assert.assertEquals(10000, blockIndex.entryCount());
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 50; i++)
+        {
+            long lower = random.nextLong(-2600, 2600);
+            long upper = random.nextLong(lower, 2600);
+
+            Expression expression = new Expression("", validator);
+            expression.add(random.nextBoolean() ? Operator.GTE : Operator.GT, term.apply(lower));
+            expression.add(random.nextBoolean() ? Operator.LTE : Operator.LT, term.apply(upper));
+
+            Assert.assertTrue(blockIndex.canSearch(expression));
+            Assert.assertEquals(expression.toString(), convert(termIndex.search(expression)), convert(blockIndex.search(expression)));
+        }
+
+        // open ended ranges, and one matching a single value
+        for (Operator op : new Operator[]{ Operator.GT, Operator.GTE, Operator.LT, Operator.LTE })
+        {
+            Expression expression = new Expression("", validator);
+            expression.add(op, term.apply(-42));
+            Assert.assertEquals(convert(termIndex.search(expression)), convert(blockIndex.search(expression)));
+        }
+
+        Expression expression = new Expression("", validator);
+        expression.add(Operator.GTE, term.apply(42));
+        expression.add(Operator.LTE, term.apply(42));
+        Assert.assertEquals(2, convert(blockIndex.search(expression)).size());
+
+        // nothing within the range
+        expression = new Expression("", validator);
+        expression.add(Operator.GT, term.apply(42));
+        expression.add(Operator.LT, term.apply(42));
+        Assert.assertEquals(Collections.<DecoratedKey>emptySet(), convert(blockIndex.search(expression)));
+
+        blockIndex.close();
+        termIndex.close();
+    }
+
+    @Test
+    public void testCanSearch() throws Exception
+    {
+        NumericBlockIndexBuilder builder = new NumericBlockIndexBuilder(LongType.instance, Long.MAX_VALUE);
+        builder.add(LongType.instance.decompose(1L), keyAt(1), 1);
+
+        File file = File.createTempFile("numeric-block-index-ops", "db");
+        file.deleteOnExit();
+        Assert.assertTrue(builder.finish(file));
+
+        NumericBlockIndex index = new NumericBlockIndex(file, LongType.instance, new KeyConverter());
+
+        Expression expression = new Expression("", LongType.instance);
+        expression.add(Operator.EQ, LongType.instance.decompose(1L));
+        Assert.assertFalse(index.canSearch(expression));
+
+        expression = new Expression("", LongType.instance);
+        expression.add(Operator.GTE, LongType.instance.decompose(0L));
+        expression.add(Operator.NEQ, LongType.instance.decompose(1L));
+        Assert.assertFalse(index.canSearch(expression));
+
+        // a bound of another size than the values, as for an Int32Type value on a LongType column
+        expression = new Expression("", LongType.instance);
+        expression.add(Operator.GTE, Int32Type.instance.decompose(0));
+        Assert.assertFalse(index.canSearch(expression));
+
+        index.close();
+    }
+
+    @Test
+    public void testAbandonedOverMaxEntries() throws Exception
+    {
+        NumericBlockIndexBuilder builder = new NumericBlockIndexBuilder(LongType.instance, 10);
+        for (long i = 0; i < 10; i++)
+            builder.add(LongType.instance.decompose(i), keyAt(i), i);
+        Assert.assertFalse(builder.isEmpty());
+
+        builder.add(LongType.instance.decompose(10L), keyAt(10), 10);
+        Assert.assertTrue(builder.isEmpty());
+
+        File file = File.createTempFile("numeric-block-index-abandoned", "db");
+        file.deleteOnExit();
+        Assert.assertFalse(builder.finish(file));
+        Assert.assertEquals(0, file.length());
+    }
+
+    private static DecoratedKey keyAt(long rawKey)
+    {
+        ByteBuffer key = ByteBuffer.wrap(("key" + rawKey).getBytes());
+        return new BufferDecoratedKey(new Murmur3Partitioner.LongToken(MurmurHash.hash2_64(key, key.position(), key.remaining(), 0)), key);
+    }
+
+    private static Set<DecoratedKey> convert(RangeIterator<Long, Token> results)
+    {
+        if (results == null)
+            return Collections.emptySet();
+
+        Set<DecoratedKey> keys = new TreeSet<>(DecoratedKey.comparator);
+
+        while (results.hasNext())
+        {
+            for (DecoratedKey key : results.next())
+                keys.add(key);
+        }
+
+        return keys;
+    }
+
+    private static class KeyConverter implements Function<Long, DecoratedKey>
+    {
+        @Override
+        public DecoratedKey apply(Long offset)
+        {
+            return keyAt(offset);
+        }
+    }
+}
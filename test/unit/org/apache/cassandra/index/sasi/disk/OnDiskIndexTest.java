@@ -21,6 +21,7 @@ import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 
 import org.apache.cassandra.cql3.Operator;
@@ -33,6 +34,8 @@ import org.apache.cassandra.index.sasi.utils.CombinedTermIterator;
 import org.apache.cassandra.index.sasi.utils.OnDiskIndexIterator;
 import org.apache.cassandra.index.sasi.utils.RangeIterator;
 import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.FloatType;
 import org.apache.cassandra.db.marshal.Int32Type;
 import org.apache.cassandra.db.marshal.LongType;
 import org.apache.cassandra.db.marshal.UTF8Type;
@@ -348,6 +351,51 @@ public class OnDiskIndexTest
         Assert.assertEquals(numIterations, actual.size());
     }
 
+    @Test
+    public void testSignedNumericTerms() throws Exception
+    {
+        testSignedNumericTerms(Int32Type.instance, i -> Int32Type.instance.decompose((int) i));
+        testSignedNumericTerms(LongType.instance, i -> LongType.instance.decompose(i * 1000000000L));
+        testSignedNumericTerms(FloatType.instance, i -> FloatType.instance.decompose(i / 3f));
+        testSignedNumericTerms(DoubleType.instance, i -> DoubleType.instance.decompose(i / 3d));
+    }
+
+    private static void testSignedNumericTerms(AbstractType<?> validator, LongFunction<ByteBuffer> term) throws Exception
+    {
+        for (OnDiskIndexBuilder.Mode mode : new OnDiskIndexBuilder.Mode[]{ OnDiskIndexBuilder.Mode.PREFIX, OnDiskIndexBuilder.Mode.SPARSE })
+        {
+            OnDiskIndexBuilder builder = new OnDiskIndexBuilder(UTF8Type.instance, validator, mode);
+            for (long i = -5000; i < 5000; i++)
+                builder.add(term.apply(i), keyAt(i + 5000), i + 5000);
+
+            File index = File.createTempFile("on-disk-sa-signed", "db");
+            index.deleteOnExit();
+            builder.finish(index);
+
+            OnDiskIndex onDisk = new OnDiskIndex(index, validator, new KeyConverter());
+
+            Assert.assertEquals(convert(2500), convert(onDisk.search(expressionFor(Operator.EQ, validator, term.apply(-2500)))));
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20; i++)
+            {
+                long lower = random.nextLong(-5000, 5000);
+                long upper = random.nextLong(lower, 5000);
+
+                Expression expression = new Expression("", validator);
+                expression.add(Operator.GTE, term.apply(lower));
+                expression.add(Operator.LT, term.apply(upper));
+
+                Set<DecoratedKey> actual = convert(onDisk.search(expression));
+                Assert.assertEquals(upper - lower, actual.size());
+                for (long key = lower; key < upper; key++)
+                    Assert.assertTrue(actual.contains(keyAt(key + 5000)));
+            }
+
+            onDisk.close();
+        }
+    }
+
     @Test
     public void testNotEqualsQueryForStrings() throws Exception
     {
@@ -608,6 +656,44 @@ public class OnDiskIndexTest
         }
     }
 
+    @Test
+    public void testEstimateTokenCount() throws Exception
+    {
+        // terms with either a few keys, held in the term itself, or more, held in a token tree
+        OnDiskIndexBuilder builder = new OnDiskIndexBuilder(UTF8Type.instance, LongType.instance, OnDiskIndexBuilder.Mode.PREFIX);
+        long key = 0;
+        for (long i = 0; i < 10000; i++)
+        {
+            for (int j = 0; j < (i % 2 == 0 ? 2 : 8); j++, key++)
+                builder.add(LongType.instance.decompose(i), keyAt(key), key);
+        }
+
+        File index = File.createTempFile("on-disk-sa-estimate", ".db");
+        index.deleteOnExit();
+
+        builder.finish(index);
+
+        OnDiskIndex onDisk = new OnDiskIndex(index, LongType.instance, new KeyConverter());
+
+        // exact for a single term
+        Assert.assertEquals(2, onDisk.estimateTokenCount(expressionFor(Operator.EQ, LongType.instance, LongType.instance.decompose(42L))));
+        Assert.assertEquals(8, onDisk.estimateTokenCount(expressionFor(Operator.EQ, LongType.instance, LongType.instance.decompose(43L))));
+        Assert.assertEquals(0, onDisk.estimateTokenCount(expressionFor(Operator.EQ, LongType.instance, LongType.instance.decompose(10000L))));
+
+        // for ranges, at least the actual count, and at most two data blocks more
+        long blockCount = onDisk.dataLevel.getBlock(0).getTokenCount();
+        for (long[] range : new long[][]{ { 10, 20 }, { 100, 9000 }, { 0, 9999 } })
+        {
+            Expression expression = expressionFor(range[0], true, range[1], true);
+            long actual = onDisk.search(expression).getCount();
+            long estimate = onDisk.estimateTokenCount(expression);
+            Assert.assertTrue(String.format("%d < %d", estimate, actual), estimate >= actual);
+            Assert.assertTrue(String.format("%d > %d + 2 * %d", estimate, actual, blockCount), estimate <= actual + 2 * blockCount);
+        }
+
+        onDisk.close();
+    }
+
     public void putAll(SortedMap<Long, LongSet> offsets, TokenTreeBuilder ttb)
     {
         for (Pair<Long, LongSet> entry : ttb)
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.index.sasi.memory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.cassandra.db.BufferDecoratedKey;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+
+public class NativeKeySetTest
+{
+    @Test
+    public void testAddAndIterate()
+    {
+        Random random = new Random();
+        NativeIndexAllocator allocator = new NativeIndexAllocator(new OpOrder());
+        try
+        {
+            NativeKeySet keys = new NativeKeySet(allocator);
+            TreeSet<DecoratedKey> expected = new TreeSet<>(DecoratedKey.comparator);
+
+            for (int i = 0; i < 2000; i++)
+            {
+                // few distinct tokens so that some keys share their token, and some keys are added several times
+                DecoratedKey key = key(random.nextInt(100), random.nextInt(1000));
+                keys.add(NativeKeySet.token(key), NativeKeySet.writeKey(allocator, key));
+                expected.add(key);
+
+                if (i % 97 == 0)
+                    assertKeys(expected, keys.cursor());
+            }
+            assertKeys(expected, keys.cursor());
+            Assert.assertTrue(allocator.allocated() > 0);
+        }
+        finally
+        {
+            allocator.release();
+        }
+    }
+
+    @Test
+    public void testCursorIsStable()
+    {
+        OpOrder readOrdering = new OpOrder();
+        NativeIndexAllocator allocator = new NativeIndexAllocator(readOrdering);
+        try (OpOrder.Group read = readOrdering.start())
+        {
+            NativeKeySet keys = new NativeKeySet(allocator);
+            TreeSet<DecoratedKey> expected = new TreeSet<>(DecoratedKey.comparator);
+            for (int i = 0; i < 10; i++)
+            {
+                DecoratedKey key = key(10 - i, i);
+                keys.add(NativeKeySet.token(key), NativeKeySet.writeKey(allocator, key));
+                expected.add(key);
+            }
+
+            NativeKeySet.Cursor cursor = keys.cursor();
+            for (int i = 10; i < 1000; i++)
+            {
+                DecoratedKey key = key(-i, i);
+                keys.add(NativeKeySet.token(key), NativeKeySet.writeKey(allocator, key));
+            }
+
+            assertKeys(expected, cursor);
+        }
+        finally
+        {
+            allocator.release();
+        }
+    }
+
+    @Test
+    public void testFreedOnceNotRead()
+    {
+        OpOrder readOrdering = new OpOrder();
+        NativeIndexAllocator allocator = new NativeIndexAllocator(readOrdering);
+        try
+        {
+            long small = allocator.allocate(64);
+            long big = allocator.allocate(256 * 1024);
+            long allocated = allocator.allocated();
+            allocator.takeUnaccounted();
+
+            OpOrder.Group read = readOrdering.start();
+            allocator.free(small, 64);
+            allocator.free(big, 256 * 1024);
+
+            // a read started before may still be using them
+            Assert.assertTrue(allocator.allocate(64) != small);
+            Assert.assertEquals(allocated, allocator.allocated());
+
+            read.close();
+
+            // then the small one is reused
+            Assert.assertEquals(small, allocator.allocate(64));
+
+            // and the big one, freed after the reclaim of the small one started, is given back once that is done
+            allocator.allocate(64);
+            Assert.assertEquals(allocated - 256 * 1024, allocator.allocated());
+            Assert.assertEquals(-256 * 1024, allocator.takeUnaccounted());
+        }
+        finally
+        {
+            allocator.release();
+        }
+    }
+
+    @Test
+    public void testSkipTo()
+    {
+        NativeIndexAllocator allocator = new NativeIndexAllocator(new OpOrder());
+        try
+        {
+            NativeKeySet keys = new NativeKeySet(allocator);
+            // even tokens end up in the sorted run, odd ones in the tail
+            for (int i = 0; i < 64; i += 2)
+                add(allocator, keys, key(i, i));
+            for (int i = 63; i > 0; i -= 2)
+                add(allocator, keys, key(i, i));
+
+            NativeKeySet.Cursor cursor = keys.cursor();
+            Assert.assertEquals(64, cursor.size());
+            Assert.assertEquals(0, cursor.minToken());
+            Assert.assertEquals(63, cursor.maxToken());
+
+            cursor.skipTo(10);
+            Assert.assertEquals(10, cursor.peekToken());
+            Assert.assertEquals(key(10, 10), cursor.next());
+            Assert.assertEquals(key(11, 11), cursor.next());
+
+            cursor.skipTo(30);
+            Assert.assertEquals(key(30, 30), cursor.next());
+
+            cursor.skipTo(64);
+            Assert.assertFalse(cursor.hasNext());
+        }
+        finally
+        {
+            allocator.release();
+        }
+    }
+
+    private static void add(NativeIndexAllocator allocator, NativeKeySet keys, DecoratedKey key)
+    {
+        keys.add(NativeKeySet.token(key), NativeKeySet.writeKey(allocator, key));
+    }
+
+    private static void assertKeys(SortedSet<DecoratedKey> expected, NativeKeySet.Cursor cursor)
+    {
+        // keys added several times can be returned more than once, and DecoratedKey.equals() ignores the token
+        SortedSet<DecoratedKey> actual = new TreeSet<>(DecoratedKey.comparator);
+        long previous = Long.MIN_VALUE;
+        while (cursor.hasNext())
+        {
+            long token = cursor.peekToken();
+            Assert.assertTrue(token >= previous);
+            previous = token;
+            actual.add(cursor.next());
+        }
+        Assert.assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+    }
+
+    private static DecoratedKey key(long token, int key)
+    {
+        ByteBuffer bytes = ByteBufferUtil.bytes(key);
+        return new BufferDecoratedKey(new Murmur3Partitioner.LongToken(token), bytes);
+    }
+}
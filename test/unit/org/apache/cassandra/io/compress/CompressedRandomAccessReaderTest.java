@@ -21,6 +21,8 @@ package org.apache.cassandra.io.compress;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import org.junit.Test;
@@ -34,8 +36,10 @@ import org.apache.cassandra.schema.CompressionParams;
 import org.apache.cassandra.utils.ChecksumType;
 import org.apache.cassandra.utils.SyncUtil;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -65,6 +69,68 @@ public class CompressedRandomAccessReaderTest
         testResetAndTruncate(File.createTempFile("compressed_mmap", "2"), true, true, CompressionParams.DEFAULT_CHUNK_LENGTH);
     }
 
+    @Test
+    public void testSequentialReader() throws IOException
+    {
+        // a few read-ahead buffers worth of data, not a multiple of the chunk length
+        int length = FileHandle.SEQUENTIAL_READ_AHEAD_SIZE * 4 + 12345;
+        testSequentialReader(File.createTempFile("sequential", "1"), false, false, length);
+        testSequentialReader(File.createTempFile("sequential", "2"), false, true, length);
+        testSequentialReader(File.createTempFile("sequential_compressed", "1"), true, false, length);
+        testSequentialReader(File.createTempFile("sequential_compressed_mmap", "1"), true, true, length);
+
+        // files smaller than the read-ahead buffers, which are read ahead less
+        testSequentialReader(File.createTempFile("sequential_small", "1"), false, false, 100000);
+        testSequentialReader(File.createTempFile("sequential_small_compressed", "1"), true, false, 100000);
+    }
+
+    @Test
+    public void testSequentialReadersBound() throws IOException
+    {
+        File f = File.createTempFile("sequential_bound", "1");
+        byte[] data = new byte[FileHandle.SEQUENTIAL_READ_AHEAD_SIZE * 2];
+        new Random().nextBytes(data);
+        try (SequentialWriter writer = new SequentialWriter(f))
+        {
+            writer.write(data);
+            writer.finish();
+        }
+
+        List<RandomAccessReader> readers = new ArrayList<>();
+        try (FileHandle.Builder builder = new FileHandle.Builder(f.getAbsolutePath());
+             FileHandle fh = builder.complete())
+        {
+            for (int i = 0; i < FileHandle.MAX_READ_AHEAD_BUFFERS; i++)
+                readers.add(fh.createSequentialReader(null));
+            for (RandomAccessReader reader : readers)
+                assertNotSame(RandomAccessReader.class, reader.getClass());
+
+            // past the bound, the readers don't read ahead
+            try (RandomAccessReader reader = fh.createSequentialReader(null))
+            {
+                assertSame(RandomAccessReader.class, reader.getClass());
+                byte[] b = new byte[data.length];
+                reader.readFully(b);
+                assertArrayEquals(data, b);
+            }
+
+            // until a reader reading ahead is closed
+            readers.remove(0).close();
+            readers.add(fh.createSequentialReader(null));
+            assertNotSame(RandomAccessReader.class, readers.get(readers.size() - 1).getClass());
+
+            for (RandomAccessReader reader : readers)
+                reader.close();
+            readers.clear();
+        }
+        finally
+        {
+            for (RandomAccessReader reader : readers)
+                reader.close();
+            assertTrue(f.delete());
+        }
+    }
+
     @Test
     public void test6791() throws IOException, ConfigurationException
     {
@@ -160,6 +226,61 @@ public class CompressedRandomAccessReaderTest
         }
     }
 
+    private static void testSequentialReader(File f, boolean compressed, boolean usemmap, int length) throws IOException
+    {
+        final String filename = f.getAbsolutePath();
+        // somewhat compressible data
+        Random random = new Random();
+        byte[] data = new byte[length];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) random.nextInt(16);
+
+        MetadataCollector sstableMetadataCollector = new MetadataCollector(new ClusteringComparator(BytesType.instance));
+        try (SequentialWriter writer = compressed
+                                       ? new CompressedSequentialWriter(f, filename + ".metadata",
+                                                                        null, SequentialWriterOption.DEFAULT,
+                                                                        CompressionParams.lz4(), sstableMetadataCollector)
+                                       : new SequentialWriter(f))
+        {
+            writer.write(data);
+            writer.finish();
+        }
+
+        CompressionMetadata compressionMetadata = compressed ? new CompressionMetadata(filename + ".metadata", f.length(), ChecksumType.CRC32) : null;
+        try (FileHandle.Builder builder = new FileHandle.Builder(filename).mmapped(usemmap).withCompressionMetadata(compressionMetadata);
+             FileHandle fh = builder.complete();
+             RandomAccessReader reader = fh.createSequentialReader(null))
+        {
+            assertEquals(data.length, reader.length());
+
+            byte[] b = new byte[data.length];
+            reader.readFully(b);
+            assertArrayEquals(data, b);
+            assertTrue(reader.isEOF());
+
+            // seeking backward and forward, within and outside of the read-ahead buffer
+            for (long position : new long[]{ 0, 100, FileHandle.SEQUENTIAL_READ_AHEAD_SIZE * 3 + 7, 5000, data.length - 10 })
+            {
+                if (position >= data.length)
+                    continue;
+
+                reader.seek(position);
+                b = new byte[(int) Math.min(100000, data.length - position)];
+                reader.readFully(b);
+                for (int i = 0; i < b.length; i++)
+                    assertEquals(data[(int) position + i], b[i]);
+            }
+        }
+        finally
+        {
+            if (f.exists())
+                assertTrue(f.delete());
+            File metadata = new File(filename + ".metadata");
+            if (compressed && metadata.exists())
+                metadata.delete();
+        }
+    }
+
     @Test
     public void testDataCorruptionDetection() throws IOException
     {
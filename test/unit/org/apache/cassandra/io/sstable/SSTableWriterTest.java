@@ -19,8 +19,10 @@
 package org.apache.cassandra.io.sstable;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
+import com.google.common.collect.Lists;
 import org.junit.Test;
 
 import org.apache.cassandra.*;
@@ -31,10 +33,13 @@ import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.format.SSTableWriter;
+import org.apache.cassandra.io.sstable.format.Version;
+import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.utils.FBUtilities;
 
 import static junit.framework.Assert.fail;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class SSTableWriterTest extends SSTableWriterTestBase
@@ -240,4 +245,112 @@ public class SSTableWriterTest extends SSTableWriterTestBase
         }
     }
 
+    @Test
+    public void testCopyPartitions() throws InterruptedException
+    {
+        Keyspace keyspace = Keyspace.open(KEYSPACE);
+        ColumnFamilyStore cfs = keyspace.getColumnFamilyStore(CF);
+        truncate(cfs);
+
+        File dir = cfs.getDirectories().getDirectoryForNewSSTables();
+        LifecycleTransaction txn = LifecycleTransaction.offline(OperationType.COMPACTION);
+        SSTableReader source;
+        try (SSTableWriter writer = getWriter(cfs, dir, txn))
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                UpdateBuilder builder = UpdateBuilder.create(cfs.metadata, random(i, 10)).withTimestamp(i);
+                for (int j = 0; j < 3; j++)
+                    builder.newRow("" + j).add("val", random(j, 10));
+                writer.append(builder.build().unfilteredIterator());
+            }
+            source = writer.finish(true);
+            txn.update(source, false);
+        }
+
+        SerializationHeader otherHeader = new SerializationHeader(true, cfs.metadata, cfs.metadata.partitionColumns(), new EncodingStats(1, Cell.NO_DELETION_TIME, Cell.NO_TTL));
+        try (SSTableWriter writer = getWriter(cfs, dir, txn);
+             ISSTableScanner scanner = source.getScanner())
+        {
+            while (scanner.hasNext())
+            {
+                UnfilteredRowIterator partition = scanner.next();
+                assertTrue(partition instanceof CopyablePartition);
+                assertFalse(((CopyablePartition) partition).isCopyableTo(source.descriptor.version, otherHeader));
+                // fails if the writer reads the partition instead of copying it
+                writer.append(new UnreadablePartition((CopyablePartition) partition));
+            }
+            SSTableReader copy = writer.finish(true);
+            txn.update(copy, false);
+
+            try (ISSTableScanner sourceScanner = source.getScanner();
+                 ISSTableScanner copyScanner = copy.getScanner())
+            {
+                while (sourceScanner.hasNext())
+                {
+                    assertTrue(copyScanner.hasNext());
+                    try (UnfilteredRowIterator expected = sourceScanner.next();
+                         UnfilteredRowIterator actual = copyScanner.next())
+                    {
+                        assertEquals(expected.partitionKey(), actual.partitionKey());
+                        assertEquals(Lists.newArrayList(expected), Lists.newArrayList(actual));
+                    }
+                }
+                assertFalse(copyScanner.hasNext());
+            }
+            assertEquals(source.getMinTimestamp(), copy.getMinTimestamp());
+            assertEquals(source.getMaxTimestamp(), copy.getMaxTimestamp());
+            assertEquals(source.getTotalRows(), copy.getTotalRows());
+            assertEquals(source.getEstimatedPartitionSize().count(), copy.getEstimatedPartitionSize().count());
+        }
+
+        txn.abort();
+        LifecycleTransaction.waitForDeletions();
+    }
+
+    private static class UnreadablePartition extends WrappingUnfilteredRowIterator implements CopyablePartition
+    {
+        private UnreadablePartition(CopyablePartition wrapped)
+        {
+            super(wrapped);
+        }
+
+        public SSTableReader sstable()
+        {
+            return ((CopyablePartition) wrapped).sstable();
+        }
+
+        public long serializedSize()
+        {
+            return ((CopyablePartition) wrapped).serializedSize();
+        }
+
+        public boolean isCopyableTo(Version version, SerializationHeader header)
+        {
+            return ((CopyablePartition) wrapped).isCopyableTo(version, header);
+        }
+
+        public void copyTo(DataOutputPlus out) throws IOException
+        {
+            ((CopyablePartition) wrapped).copyTo(out);
+        }
+
+        @Override
+        public DeletionTime partitionLevelDeletion()
+        {
+            throw new AssertionError();
+        }
+
+        @Override
+        public Row staticRow()
+        {
+            throw new AssertionError();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            throw new AssertionError();
+        }
+    }
 }
@@ -32,10 +32,13 @@ import org.apache.cassandra.SchemaLoader;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.Schema;
 import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.service.EmbeddedCassandraService;
+import org.apache.cassandra.utils.MD5Digest;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
 
 @RunWith(OrderedJUnit4ClassRunner.class)
 public class CQLMetricsTest extends SchemaLoader
@@ -117,11 +120,35 @@ public class CQLMetricsTest extends SchemaLoader
         assertEquals(0.5, QueryProcessor.metrics.preparedStatementsRatio.getValue());
     }
 
+    @Test
+    public void testPreparedStatementsLookups()
+    {
+        clearMetrics();
+        KeyspaceMetrics keyspaceMetrics = Keyspace.open("junit").metric;
+        long hits = keyspaceMetrics.preparedStatementsHits.getCount();
+
+        PreparedStatement metricsStatement = session.prepare("SELECT val FROM junit.metricstest WHERE id = ?");
+        for (int i = 0; i < 10; i++)
+            session.execute(metricsStatement.bind(i));
+        assertEquals(hits + 10, keyspaceMetrics.preparedStatementsHits.getCount());
+
+        long reprepared = keyspaceMetrics.preparedStatementsReprepared.getCount();
+        long globalReprepared = QueryProcessor.metrics.preparedStatementsReprepared.getCount();
+        session.prepare("SELECT val FROM junit.metricstest WHERE id = ?");
+        assertEquals(reprepared + 1, keyspaceMetrics.preparedStatementsReprepared.getCount());
+        assertEquals(globalReprepared + 1, QueryProcessor.metrics.preparedStatementsReprepared.getCount());
+
+        assertNull(QueryProcessor.instance.getPrepared(MD5Digest.compute("SELECT * FROM junit.unknown")));
+        assertEquals(1, QueryProcessor.metrics.preparedStatementsMissed.getCount());
+    }
+
     private void clearMetrics()
     {
         QueryProcessor.metrics.preparedStatementsExecuted.dec(QueryProcessor.metrics.preparedStatementsExecuted.getCount());
         QueryProcessor.metrics.regularStatementsExecuted.dec(QueryProcessor.metrics.regularStatementsExecuted.getCount());
         QueryProcessor.metrics.preparedStatementsEvicted.dec(QueryProcessor.metrics.preparedStatementsEvicted.getCount());
+        QueryProcessor.metrics.preparedStatementsMissed.dec(QueryProcessor.metrics.preparedStatementsMissed.getCount());
+        QueryProcessor.metrics.preparedStatementsReprepared.dec(QueryProcessor.metrics.preparedStatementsReprepared.getCount());
     }
 }
 
@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.Util;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.ReadCommandVerbHandler;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.db.SinglePartitionReadCommand;
+import org.apache.cassandra.db.partitions.PartitionIterator;
+import org.apache.cassandra.db.rows.RowIterator;
+import org.apache.cassandra.dht.ByteOrderedPartitioner.BytesToken;
+import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.locator.ReplicaLatencyTracker;
+import org.apache.cassandra.locator.SimpleSnitch;
+import org.apache.cassandra.locator.TokenMetadata;
+import org.apache.cassandra.net.IMessageSink;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.schema.SpeculativeRetryParam;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveSpeculativeRetryTest
+{
+    private static final String KEYSPACE = "AdaptiveSpeculativeRetryTest";
+    private static final String CF = "Standard1";
+    private static final String KEY = "key0";
+
+    private static final long SLOW_REPLICA_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // the latencies reported to the snitch, by replica
+    private static final Map<InetAddress, Long> latencies = new ConcurrentHashMap<>();
+
+    private static List<InetAddress> replicas;
+
+    private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+
+    @BeforeClass
+    public static void defineSchema() throws Exception
+    {
+        SchemaLoader.prepareServer();
+        SchemaLoader.createKeyspace(KEYSPACE,
+                                    KeyspaceParams.simple(3),
+                                    SchemaLoader.standardCFMD(KEYSPACE, CF)
+                                                .readRepairChance(0)
+                                                .dcLocalReadRepairChance(0)
+                                                .speculativeRetry(SpeculativeRetryParam.fromString("99ADAPTIVE")));
+
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(CF);
+        new RowUpdateBuilder(cfs.metadata, 0, KEY).clustering("c").add("val", "value").build().applyUnsafe();
+
+        // three live remote replicas, kept in ring order whatever latencies the dynamic snitch sees
+        TokenMetadata tmd = StorageService.instance.getTokenMetadata();
+        tmd.clearUnsafe();
+        for (int i = 0; i < 3; i++)
+        {
+            InetAddress replica = InetAddress.getByName("127.0.0." + (i + 2));
+            tmd.updateNormalToken(new BytesToken(ByteBufferUtil.bytes("token" + i)), replica);
+            Gossiper.instance.initializeNodeUnsafe(replica, UUID.randomUUID(), 1);
+        }
+        DatabaseDescriptor.setEndpointSnitch(new SimpleSnitch());
+        replicas = StorageProxy.getLiveSortedEndpoints(Keyspace.open(KEYSPACE), ByteBufferUtil.bytes(KEY));
+        assertEquals(3, replicas.size());
+
+        MessagingService.instance().register((address, latency) -> latencies.put(address, latency));
+    }
+
+    @Before
+    public void setup()
+    {
+        ReplicaLatencyTracker.instance.reset();
+        latencies.clear();
+        // enough budget for a couple of speculative retries
+        for (int i = 0; i < 20; i++)
+            SpeculativeRetryBudget.instance.deposit();
+    }
+
+    @After
+    public void cleanup()
+    {
+        MessagingService.instance().clearMessageSinks();
+        DatabaseDescriptor.setSpeculativeRetryMaxReplicas(1);
+    }
+
+    @Test
+    public void testSpeculateOnExtraReplica() throws Throwable
+    {
+        interceptMessages();
+        trackLatency(replicas.get(0));
+
+        AbstractReadExecutor executor = AbstractReadExecutor.getReadExecutor(read(), ConsistencyLevel.ONE);
+        executor.executeAsync();
+        Sent initial = poll(replicas.get(0));
+
+        // the first replica does not answer in its usual time, so the read is retried on the second one
+        executor.maybeTryAdditionalReplicas();
+        Sent speculated = poll(replicas.get(1));
+        assertEquals(MessagingService.Verb.READ, speculated.message.verb);
+        assertFalse(((ReadCommand) speculated.message.payload).isDigestQuery());
+        assertNull(sent.poll());
+
+        answer(speculated);
+        assertPartition(executor);
+        assertEquals(replicas.subList(0, 2), new ArrayList<>(executor.getContactedReplicas()));
+
+        // the latency of the replica that answered is tracked, both for the snitch and for later retries
+        assertTrue(latencies.containsKey(replicas.get(1)));
+        assertFalse(latencies.containsKey(replicas.get(0)));
+        awaitTrackedLatency(replicas.get(1));
+
+        // don't leave the request of the slow replica to time out during the next test
+        answer(initial);
+        awaitLatency(replicas.get(0));
+    }
+
+    @Test
+    public void testSpeculateOnSecondExtraReplica() throws Throwable
+    {
+        DatabaseDescriptor.setSpeculativeRetryMaxReplicas(2);
+        interceptMessages();
+        trackLatency(replicas.get(0));
+        trackLatency(replicas.get(1));
+
+        AbstractReadExecutor executor = AbstractReadExecutor.getReadExecutor(read(), ConsistencyLevel.ONE);
+        executor.executeAsync();
+        Sent initial = poll(replicas.get(0));
+
+        // neither the first replica nor the one we speculated on answers, so the read goes on to the third one
+        executor.maybeTryAdditionalReplicas();
+        Sent firstSpeculated = poll(replicas.get(1));
+        Sent secondSpeculated = poll(replicas.get(2));
+        assertEquals(MessagingService.Verb.READ, secondSpeculated.message.verb);
+        assertFalse(((ReadCommand) secondSpeculated.message.payload).isDigestQuery());
+        assertNull(sent.poll());
+
+        answer(secondSpeculated);
+        assertPartition(executor);
+        assertEquals(replicas, new ArrayList<>(executor.getContactedReplicas()));
+
+        assertTrue(latencies.containsKey(replicas.get(2)));
+        assertFalse(latencies.containsKey(replicas.get(0)));
+        assertFalse(latencies.containsKey(replicas.get(1)));
+        awaitTrackedLatency(replicas.get(2));
+
+        answer(initial);
+        answer(firstSpeculated);
+        awaitLatency(replicas.get(0));
+        awaitLatency(replicas.get(1));
+    }
+
+    @Test
+    public void testNoSpeculationOnceAnswered() throws Throwable
+    {
+        DatabaseDescriptor.setSpeculativeRetryMaxReplicas(2);
+        interceptMessages();
+        trackLatency(replicas.get(0));
+
+        AbstractReadExecutor executor = AbstractReadExecutor.getReadExecutor(read(), ConsistencyLevel.ONE);
+        executor.executeAsync();
+        answer(poll(replicas.get(0)));
+
+        executor.maybeTryAdditionalReplicas();
+        assertNull(sent.poll());
+        assertPartition(executor);
+        assertEquals(replicas.subList(0, 1), new ArrayList<>(executor.getContactedReplicas()));
+    }
+
+    private void interceptMessages()
+    {
+        MessagingService.instance().addMessageSink(new IMessageSink()
+        {
+            public boolean allowOutgoingMessage(MessageOut message, int id, InetAddress to)
+            {
+                sent.add(new Sent(message, id, to));
+                return false;
+            }
+
+            public boolean allowIncomingMessage(MessageIn message, int id)
+            {
+                return true;
+            }
+        });
+    }
+
+    private Sent poll(InetAddress to) throws InterruptedException
+    {
+        Sent s = sent.poll(10, TimeUnit.SECONDS);
+        if (s == null)
+            throw new AssertionError("Nothing sent to " + to);
+        assertEquals(to, s.to);
+        return s;
+    }
+
+    /**
+     * Serve {@code request} as its replica would, and hand the reply back to the coordinator.
+     */
+    @SuppressWarnings("unchecked")
+    private void answer(Sent request) throws InterruptedException
+    {
+        MessageIn<ReadCommand> message = MessageIn.create(request.to,
+                                                          (ReadCommand) request.message.payload,
+                                                          Collections.emptyMap(),
+                                                          MessagingService.Verb.READ,
+                                                          MessagingService.current_version,
+                                                          MessageIn.createTimestamp());
+        new ReadCommandVerbHandler().doVerb(message, request.id);
+
+        Sent reply = poll(request.to);
+        assertEquals(MessagingService.Verb.REQUEST_RESPONSE, reply.message.verb);
+        MessagingService.instance().receive(MessageIn.create(request.to,
+                                                             reply.message.payload,
+                                                             Collections.emptyMap(),
+                                                             MessagingService.Verb.REQUEST_RESPONSE,
+                                                             MessagingService.current_version,
+                                                             MessageIn.createTimestamp()),
+                                            reply.id);
+    }
+
+    /**
+     * Make {@code replica} look like it usually answers within {@link #SLOW_REPLICA_LATENCY_NANOS}.
+     */
+    private static void trackLatency(InetAddress replica)
+    {
+        ReplicaLatencyTracker.instance.update(replica, SLOW_REPLICA_LATENCY_NANOS);
+        awaitTrackedLatency(replica);
+    }
+
+    private static void awaitLatency(InetAddress replica)
+    {
+        Util.spinAssertEquals(true, () -> latencies.containsKey(replica), 10);
+    }
+
+    private static void awaitTrackedLatency(InetAddress replica)
+    {
+        Util.spinAssertEquals(true, () -> ReplicaLatencyTracker.instance.percentileNanos(replica, 0.99) >= 0, 10);
+    }
+
+    private static SinglePartitionReadCommand read()
+    {
+        return (SinglePartitionReadCommand) Util.cmd(Keyspace.open(KEYSPACE).getColumnFamilyStore(CF), KEY).build();
+    }
+
+    private static void assertPartition(AbstractReadExecutor executor) throws Throwable
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(CF);
+        try (PartitionIterator partitions = executor.get())
+        {
+            assertTrue(partitions.hasNext());
+            try (RowIterator partition = partitions.next())
+            {
+                assertEquals(ByteBufferUtil.bytes(KEY), partition.partitionKey().getKey());
+                assertEquals(ByteBufferUtil.bytes("value"), partition.next().getCell(cfs.metadata.getColumnDefinition(ByteBufferUtil.bytes("val"))).value());
+                assertFalse(partition.hasNext());
+            }
+            assertFalse(partitions.hasNext());
+        }
+    }
+
+    private static class Sent
+    {
+        private final MessageOut<?> message;
+        private final int id;
+        private final InetAddress to;
+
+        private Sent(MessageOut<?> message, int id, InetAddress to)
+        {
+            this.message = message;
+            this.id = id;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.SimpleStatement;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+
+import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PaxosFastPathTest extends CQLTester
+{
+    @BeforeClass
+    public static void enableFastPath()
+    {
+        DatabaseDescriptor.setPaxosFastPathEnabled(true);
+    }
+
+    @AfterClass
+    public static void disableFastPath()
+    {
+        DatabaseDescriptor.setPaxosFastPathEnabled(false);
+    }
+
+    @Test
+    public void testConditionalUpdates() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck))");
+
+        long fastPathReads = counter("FastPathReads", "CASWrite");
+        long uncontended = timerCount("UncontendedLatency", "CASWrite");
+
+        assertTrue(executeNet(protocolVersion(), "INSERT INTO %s (pk, ck, v) VALUES (0, 0, 0) IF NOT EXISTS").wasApplied());
+        assertFalse(executeNet(protocolVersion(), "INSERT INTO %s (pk, ck, v) VALUES (0, 0, 1) IF NOT EXISTS").wasApplied());
+        assertFalse(executeNet(protocolVersion(), "UPDATE %s SET v = 2 WHERE pk = 0 AND ck = 0 IF v = 1").wasApplied());
+        assertTrue(executeNet(protocolVersion(), "UPDATE %s SET v = 2 WHERE pk = 0 AND ck = 0 IF v = 0").wasApplied());
+
+        ResultSet rs = executeNet(protocolVersion(), "UPDATE %s SET v = 3 WHERE pk = 0 AND ck = 0 IF v = 0");
+        Row row = rs.one();
+        assertFalse(row.getBool("[applied]"));
+        assertEquals(2, row.getInt("v"));
+
+        // every precondition was read as part of the prepare round
+        assertEquals(5, counter("FastPathReads", "CASWrite") - fastPathReads);
+        assertEquals(5, timerCount("UncontendedLatency", "CASWrite") - uncontended);
+        assertRows(execute("SELECT v FROM %s WHERE pk = 0 AND ck = 0"), row(2));
+    }
+
+    @Test
+    public void testSerialRead() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck))");
+        executeNet(protocolVersion(), "INSERT INTO %s (pk, ck, v) VALUES (0, 0, 0) IF NOT EXISTS");
+        executeNet(protocolVersion(), "INSERT INTO %s (pk, ck, v) VALUES (0, 1, 1) IF NOT EXISTS");
+
+        long fastPathReads = counter("FastPathReads", "CASRead");
+        SimpleStatement select = new SimpleStatement(String.format("SELECT ck, v FROM %s.%s WHERE pk = 0", KEYSPACE, currentTable()));
+        select.setConsistencyLevel(ConsistencyLevel.SERIAL);
+        ResultSet rs = sessionNet(protocolVersion()).execute(select);
+        assertEquals(0, rs.one().getInt("v"));
+        assertEquals(1, rs.one().getInt("v"));
+        assertTrue(rs.isExhausted());
+        assertEquals(1, counter("FastPathReads", "CASRead") - fastPathReads);
+    }
+
+    private static int protocolVersion()
+    {
+        return PROTOCOL_VERSIONS.get(PROTOCOL_VERSIONS.size() - 1);
+    }
+
+    // the metrics are only registered once StorageProxy has been used
+    private static long counter(String name, String scope)
+    {
+        Counter counter = Metrics.getCounters().get(metricName(name, scope));
+        return counter == null ? 0 : counter.getCount();
+    }
+
+    private static long timerCount(String name, String scope)
+    {
+        Timer timer = Metrics.getTimers().get(metricName(name, scope));
+        return timer == null ? 0 : timer.getCount();
+    }
+
+    private static String metricName(String name, String scope)
+    {
+        return "org.apache.cassandra.metrics.ClientRequest." + name + '.' + scope;
+    }
+}
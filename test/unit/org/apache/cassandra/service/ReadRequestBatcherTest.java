@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.Util;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.ReadCommandBatch;
+import org.apache.cassandra.db.ReadCommandBatchVerbHandler;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.db.partitions.PartitionIterator;
+import org.apache.cassandra.db.rows.RowIterator;
+import org.apache.cassandra.exceptions.ReadFailureException;
+import org.apache.cassandra.net.IMessageSink;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReadRequestBatcherTest
+{
+    private static final String KEYSPACE = "ReadRequestBatcherTest";
+    private static final String CF = "Standard1";
+
+    private static InetAddress replica1;
+    private static InetAddress replica2;
+
+    // the latencies reported to the snitch, by replica
+    private static final Map<InetAddress, Long> latencies = new ConcurrentHashMap<>();
+
+    private final List<Sent> sent = new CopyOnWriteArrayList<>();
+
+    @BeforeClass
+    public static void defineSchema() throws Exception
+    {
+        SchemaLoader.prepareServer();
+        SchemaLoader.createKeyspace(KEYSPACE,
+                                    KeyspaceParams.simple(1),
+                                    SchemaLoader.standardCFMD(KEYSPACE, CF));
+
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(CF);
+        for (int i = 0; i < 3; i++)
+            new RowUpdateBuilder(cfs.metadata, 0, "key" + i).clustering("c").add("val", "value" + i).build().applyUnsafe();
+
+        replica1 = InetAddress.getByName("127.0.0.2");
+        replica2 = InetAddress.getByName("127.0.0.3");
+        MessagingService.instance().register((address, latency) -> latencies.put(address, latency));
+    }
+
+    @After
+    public void cleanup()
+    {
+        MessagingService.instance().clearMessageSinks();
+        latencies.clear();
+    }
+
+    @Test
+    public void testBatchPerReplica() throws Throwable
+    {
+        interceptMessages();
+
+        ReadCommand read0 = read("key0"), read1 = read("key1"), read2 = read("key2");
+        ReadCallback handler0 = handler(read0, replica1);
+        ReadCallback handler1 = handler(read1, replica1);
+        ReadCallback handler2 = handler(read2, replica2);
+
+        ReadRequestBatcher batcher = new ReadRequestBatcher();
+        batcher.add(replica1, read0, handler0);
+        batcher.add(replica2, read2, handler2);
+        batcher.add(replica1, read1, handler1);
+        assertTrue(sent.isEmpty());
+
+        batcher.send();
+        assertEquals(2, sent.size());
+
+        // the reads of the same replica go as one batch, in the order they were added
+        Sent batch = sentTo(replica1);
+        assertEquals(MessagingService.Verb.READ_BATCH, batch.message.verb);
+        List<ReadCommand> commands = ((ReadCommandBatch) batch.message.payload).commands;
+        assertEquals(2, commands.size());
+        assertEquals(read0.toString(), commands.get(0).toString());
+        assertEquals(read1.toString(), commands.get(1).toString());
+
+        // a lone read goes as a plain read
+        Sent single = sentTo(replica2);
+        assertEquals(MessagingService.Verb.READ, single.message.verb);
+        assertEquals(read2.toString(), single.message.payload.toString());
+
+        // serve the batch as replica1 would, and hand its reply back to the coordinator
+        sent.clear();
+        MessageIn<ReadCommandBatch> request = MessageIn.create(replica1,
+                                                               (ReadCommandBatch) batch.message.payload,
+                                                               Collections.emptyMap(),
+                                                               MessagingService.Verb.READ_BATCH,
+                                                               MessagingService.current_version,
+                                                               MessageIn.createTimestamp());
+        new ReadCommandBatchVerbHandler().doVerb(request, batch.id);
+        Sent reply = sentTo(replica1);
+        assertEquals(MessagingService.Verb.REQUEST_RESPONSE, reply.message.verb);
+        assertEquals(batch.id, reply.id);
+        MessagingService.instance().receive(MessageIn.create(replica1,
+                                                             reply.message.payload,
+                                                             Collections.emptyMap(),
+                                                             MessagingService.Verb.REQUEST_RESPONSE,
+                                                             MessagingService.current_version,
+                                                             MessageIn.createTimestamp()),
+                                            reply.id);
+
+        // each read gets its own partition
+        assertPartition(handler0, "key0", "value0");
+        assertPartition(handler1, "key1", "value1");
+        assertFalse(handler2.await(0, TimeUnit.MILLISECONDS));
+
+        // the replica served the reads one after the other, which says nothing of its latency for one of them
+        assertFalse(latencies.containsKey(replica1));
+    }
+
+    @Test
+    public void testBatchFailure() throws Throwable
+    {
+        interceptMessages();
+
+        ReadCommand read0 = read("key0"), read1 = read("key1");
+        ReadCallback handler0 = handler(read0, replica1);
+        ReadCallback handler1 = handler(read1, replica1);
+
+        ReadRequestBatcher batcher = new ReadRequestBatcher();
+        batcher.add(replica1, read0, handler0);
+        batcher.add(replica1, read1, handler1);
+        batcher.send();
+
+        Sent batch = sentTo(replica1);
+        MessageIn<?> failure = MessageIn.create(replica1,
+                                                null,
+                                                Collections.singletonMap(MessagingService.FAILURE_RESPONSE_PARAM, MessagingService.ONE_BYTE),
+                                                MessagingService.Verb.REQUEST_RESPONSE,
+                                                MessagingService.current_version,
+                                                MessageIn.createTimestamp());
+        MessagingService.instance().receive(failure, batch.id);
+
+        // every read of the batch fails with it
+        assertFailure(handler0);
+        assertFailure(handler1);
+    }
+
+    @Test
+    public void testLocalReadsDelayedUntilSend() throws Throwable
+    {
+        interceptMessages();
+
+        CountDownLatch localRead = new CountDownLatch(1);
+        ReadRequestBatcher batcher = new ReadRequestBatcher();
+        batcher.addLocal(localRead::countDown);
+        ReadCommand read0 = read("key0");
+        batcher.add(replica1, read0, handler(read0, replica1));
+        assertEquals(1, localRead.getCount());
+
+        batcher.send();
+        assertTrue(localRead.await(10, TimeUnit.SECONDS));
+        assertEquals(1, sent.size());
+    }
+
+    private void interceptMessages()
+    {
+        MessagingService.instance().addMessageSink(new IMessageSink()
+        {
+            public boolean allowOutgoingMessage(MessageOut message, int id, InetAddress to)
+            {
+                sent.add(new Sent(message, id, to));
+                return false;
+            }
+
+            public boolean allowIncomingMessage(MessageIn message, int id)
+            {
+                return true;
+            }
+        });
+    }
+
+    private Sent sentTo(InetAddress to)
+    {
+        for (Sent s : sent)
+            if (s.to.equals(to))
+                return s;
+        throw new AssertionError("Nothing sent to " + to);
+    }
+
+    private static ReadCommand read(String key)
+    {
+        return Util.cmd(Keyspace.open(KEYSPACE).getColumnFamilyStore(CF), key).build();
+    }
+
+    private static ReadCallback handler(ReadCommand command, InetAddress replica)
+    {
+        Keyspace keyspace = Keyspace.open(KEYSPACE);
+        DigestResolver resolver = new DigestResolver(keyspace, command, ConsistencyLevel.ONE, 1);
+        return new ReadCallback(resolver, ConsistencyLevel.ONE, command, Collections.singletonList(replica));
+    }
+
+    private static void assertPartition(ReadCallback handler, String key, String value) throws Throwable
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(CF);
+        try (PartitionIterator partitions = handler.get())
+        {
+            assertTrue(partitions.hasNext());
+            try (RowIterator partition = partitions.next())
+            {
+                assertEquals(ByteBufferUtil.bytes(key), partition.partitionKey().getKey());
+                assertEquals(ByteBufferUtil.bytes(value), partition.next().getCell(cfs.metadata.getColumnDefinition(ByteBufferUtil.bytes("val"))).value());
+                assertFalse(partition.hasNext());
+            }
+            assertFalse(partitions.hasNext());
+        }
+    }
+
+    private static void assertFailure(ReadCallback handler) throws Throwable
+    {
+        try
+        {
+            handler.get().close();
+            fail("Expected the read to fail");
+        }
+        catch (ReadFailureException e)
+        {
+            assertEquals(1, e.failures);
+        }
+    }
+
+    private static class Sent
+    {
+        private final MessageOut<?> message;
+        private final int id;
+        private final InetAddress to;
+
+        private Sent(MessageOut<?> message, int id, InetAddress to)
+        {
+            this.message = message;
+            this.id = id;
+            this.to = to;
+        }
+    }
+}
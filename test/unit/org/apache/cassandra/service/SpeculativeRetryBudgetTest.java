@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import org.junit.Test;
+
+import org.apache.cassandra.schema.SpeculativeRetryParam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpeculativeRetryBudgetTest
+{
+    @Test
+    public void testBudgetIsProportionalToReads()
+    {
+        SpeculativeRetryBudget budget = new SpeculativeRetryBudget(0.1);
+        assertFalse(budget.tryAcquire());
+
+        for (int i = 0; i < 9; i++)
+            budget.deposit();
+        assertFalse(budget.tryAcquire());
+
+        budget.deposit();
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    public void testBudgetIsBounded()
+    {
+        SpeculativeRetryBudget budget = new SpeculativeRetryBudget(1);
+        for (int i = 0; i < 10000; i++)
+            budget.deposit();
+
+        int acquired = 0;
+        while (budget.tryAcquire())
+            acquired++;
+        assertEquals(100, acquired);
+    }
+
+    @Test
+    public void testZeroRatioDisablesSpeculation()
+    {
+        SpeculativeRetryBudget budget = new SpeculativeRetryBudget(0);
+        for (int i = 0; i < 1000; i++)
+            budget.deposit();
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    public void testAdaptiveRetryParam()
+    {
+        SpeculativeRetryParam param = SpeculativeRetryParam.fromString("95ADAPTIVE");
+        assertEquals(SpeculativeRetryParam.Kind.ADAPTIVE, param.kind());
+        assertEquals(0.95, param.threshold(), 0.0);
+        assertEquals("95ADAPTIVE", param.toString());
+        assertEquals(param, SpeculativeRetryParam.fromString(param.toString()));
+        assertEquals(SpeculativeRetryParam.percentile(95), SpeculativeRetryParam.fromString("95PERCENTILE"));
+    }
+}
@@ -235,4 +235,25 @@ public class StorageProxyTest
         testGRRKeys(exBounds(rp(""), rp("")), range(rp(""), endOf("1")), range(endOf("1"), endOf("6")), exBounds(endOf("6"), rp("")));
         testGRRKeys(incExBounds(rp(""), rp("")), bounds(rp(""), endOf("1")), range(endOf("1"), endOf("6")), exBounds(endOf("6"), rp("")));
     }
+
+    @Test
+    public void testRangeConcurrencyFactor()
+    {
+        // no rows so far: query all the remaining ranges at once
+        assertEquals(100, StorageProxy.rangeConcurrencyFactor(1000, 0, 0, 10, 100));
+        // 10 rows per range and 900 rows missing
+        assertEquals(90, StorageProxy.rangeConcurrencyFactor(1000, 100, 0, 10, 100));
+        // never more than the remaining ranges
+        assertEquals(50, StorageProxy.rangeConcurrencyFactor(1000, 100, 0, 10, 50));
+        // the limit is reached (or exceeded), so one range at a time
+        assertEquals(1, StorageProxy.rangeConcurrencyFactor(1000, 1000, 0, 10, 50));
+        assertEquals(1, StorageProxy.rangeConcurrencyFactor(1000, 5000, 0, 10, 50));
+        // no limit
+        assertEquals(50, StorageProxy.rangeConcurrencyFactor(Integer.MAX_VALUE, 100, 0, 10, 50));
+
+        // no more responses in flight than the maximum size, 64MB by default
+        assertEquals(4, StorageProxy.rangeConcurrencyFactor(Integer.MAX_VALUE, 100, 10 * (16 << 20), 10, 50));
+        assertEquals(4, StorageProxy.rangeConcurrencyFactor(1000, 0, 10 * (16 << 20), 10, 50));
+        assertEquals(1, StorageProxy.rangeConcurrencyFactor(1000, 100, 10 * (128 << 20), 10, 50));
+    }
 }
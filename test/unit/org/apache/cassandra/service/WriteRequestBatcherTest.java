@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.Util;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.IMutation;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.MutationBatch;
+import org.apache.cassandra.db.MutationBatchVerbHandler;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.db.WriteType;
+import org.apache.cassandra.exceptions.WriteFailureException;
+import org.apache.cassandra.metrics.StorageMetrics;
+import org.apache.cassandra.net.IMessageSink;
+import org.apache.cassandra.net.MessageIn;
+import org.apache.cassandra.net.MessageOut;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.KeyspaceParams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class WriteRequestBatcherTest
+{
+    private static final String KEYSPACE = "WriteRequestBatcherTest";
+    private static final String CF = "Standard1";
+
+    private static InetAddress replica;
+
+    private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+
+    @BeforeClass
+    public static void defineSchema() throws Exception
+    {
+        SchemaLoader.prepareServer();
+        SchemaLoader.createKeyspace(KEYSPACE,
+                                    KeyspaceParams.simple(1),
+                                    SchemaLoader.standardCFMD(KEYSPACE, CF));
+
+        // the replica must be part of the ring to be hinted
+        replica = InetAddress.getByName("127.0.0.2");
+        StorageService.instance.getTokenMetadata().updateHostId(UUID.randomUUID(), replica);
+    }
+
+    @After
+    public void cleanup()
+    {
+        MessagingService.instance().clearMessageSinks();
+    }
+
+    @Test
+    public void testBatchApplied() throws Throwable
+    {
+        interceptMessages();
+
+        Mutation mutation0 = mutation("applied0"), mutation1 = mutation("applied1");
+        AbstractWriteResponseHandler<IMutation> handler0 = handler(), handler1 = handler();
+
+        WriteRequestBatcher batcher = new WriteRequestBatcher();
+        batcher.add(replica, mutation0, handler0);
+        batcher.add(replica, mutation1, handler1);
+        assertNull(sent.poll());
+        batcher.send();
+
+        Sent batch = poll();
+        assertEquals(MessagingService.Verb.MUTATION_BATCH, batch.message.verb);
+        assertEquals(Arrays.asList(mutation0, mutation1), ((MutationBatch) batch.message.payload).mutations);
+        assertNull(sent.poll());
+
+        // serve the batch as the replica would: both mutations are applied and acknowledged in a single reply
+        Sent reply = serve(batch);
+        assertEquals(Arrays.asList(true, true), reply.message.payload);
+        assertPartition("applied0");
+        assertPartition("applied1");
+
+        long hints = StorageMetrics.totalHints.getCount();
+        receive(reply);
+
+        // each write gets its own acknowledgement, and nothing is hinted
+        handler0.get();
+        handler1.get();
+        assertEquals(hints, StorageMetrics.totalHints.getCount());
+    }
+
+    @Test
+    public void testBatchPartiallyApplied() throws Throwable
+    {
+        interceptMessages();
+
+        Mutation mutation0 = mutation("partial0"), mutation1 = mutation("partial1");
+        AbstractWriteResponseHandler<IMutation> handler0 = handler(), handler1 = handler();
+
+        WriteRequestBatcher batcher = new WriteRequestBatcher();
+        batcher.add(replica, mutation0, handler0);
+        batcher.add(replica, mutation1, handler1);
+        batcher.send();
+
+        // the replica only managed to apply the first mutation
+        Sent batch = poll();
+        long hints = StorageMetrics.totalHints.getCount();
+        receive(new Sent(new MessageOut<>(MessagingService.Verb.REQUEST_RESPONSE, Arrays.asList(true, false), MutationBatch.responseSerializer),
+                         batch.id,
+                         replica));
+
+        // only the second write fails, and gets hinted
+        handler0.get();
+        assertFailure(handler1);
+        Util.spinAssertEquals(hints + 1, StorageMetrics.totalHints::getCount, 10);
+    }
+
+    @Test
+    public void testBatchFailure() throws Throwable
+    {
+        interceptMessages();
+
+        Mutation mutation0 = mutation("failed0"), mutation1 = mutation("failed1");
+        AbstractWriteResponseHandler<IMutation> handler0 = handler(), handler1 = handler();
+
+        WriteRequestBatcher batcher = new WriteRequestBatcher();
+        batcher.add(replica, mutation0, handler0);
+        batcher.add(replica, mutation1, handler1);
+        batcher.send();
+
+        Sent batch = poll();
+        long hints = StorageMetrics.totalHints.getCount();
+        MessagingService.instance().receive(MessageIn.create(replica,
+                                                             null,
+                                                             Collections.singletonMap(MessagingService.FAILURE_RESPONSE_PARAM, MessagingService.ONE_BYTE),
+                                                             MessagingService.Verb.REQUEST_RESPONSE,
+                                                             MessagingService.current_version,
+                                                             MessageIn.createTimestamp()),
+                                            batch.id);
+
+        // every write of the batch fails, and gets hinted
+        assertFailure(handler0);
+        assertFailure(handler1);
+        Util.spinAssertEquals(hints + 2, StorageMetrics.totalHints::getCount, 10);
+    }
+
+    private void interceptMessages()
+    {
+        MessagingService.instance().addMessageSink(new IMessageSink()
+        {
+            public boolean allowOutgoingMessage(MessageOut message, int id, InetAddress to)
+            {
+                sent.add(new Sent(message, id, to));
+                return false;
+            }
+
+            public boolean allowIncomingMessage(MessageIn message, int id)
+            {
+                return true;
+            }
+        });
+    }
+
+    private Sent poll() throws InterruptedException
+    {
+        Sent s = sent.poll(10, TimeUnit.SECONDS);
+        if (s == null)
+            throw new AssertionError("Nothing sent");
+        assertEquals(replica, s.to);
+        return s;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Sent serve(Sent batch) throws InterruptedException
+    {
+        MessageIn<MutationBatch> request = MessageIn.create(replica,
+                                                            (MutationBatch) batch.message.payload,
+                                                            Collections.emptyMap(),
+                                                            MessagingService.Verb.MUTATION_BATCH,
+                                                            MessagingService.current_version,
+                                                            MessageIn.createTimestamp());
+        new MutationBatchVerbHandler().doVerb(request, batch.id);
+
+        Sent reply = poll();
+        assertEquals(MessagingService.Verb.REQUEST_RESPONSE, reply.message.verb);
+        assertEquals(batch.id, reply.id);
+        return reply;
+    }
+
+    private static void receive(Sent reply)
+    {
+        MessagingService.instance().receive(MessageIn.create(replica,
+                                                             reply.message.payload,
+                                                             Collections.emptyMap(),
+                                                             MessagingService.Verb.REQUEST_RESPONSE,
+                                                             MessagingService.current_version,
+                                                             MessageIn.createTimestamp()),
+                                            reply.id);
+    }
+
+    private static Mutation mutation(String key)
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(CF);
+        return new RowUpdateBuilder(cfs.metadata, 0, key).clustering("c").add("val", "value").build();
+    }
+
+    private static AbstractWriteResponseHandler<IMutation> handler()
+    {
+        return new WriteResponseHandler<>(replica, WriteType.UNLOGGED_BATCH);
+    }
+
+    private static void assertPartition(String key)
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(CF);
+        Util.getOnlyRow(Util.cmd(cfs, key).build());
+    }
+
+    private static void assertFailure(AbstractWriteResponseHandler<IMutation> handler)
+    {
+        try
+        {
+            handler.get();
+            fail("Expected the write to fail");
+        }
+        catch (WriteFailureException e)
+        {
+            assertEquals(1, e.failures);
+        }
+    }
+
+    private static class Sent
+    {
+        private final MessageOut<?> message;
+        private final int id;
+        private final InetAddress to;
+
+        private Sent(MessageOut<?> message, int id, InetAddress to)
+        {
+            this.message = message;
+            this.id = id;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service.paxos;
+
+import com.google.common.collect.Iterables;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.Util;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.db.*;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.metrics.CacheMetrics;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.UUIDGen;
+
+import static org.junit.Assert.*;
+
+public class PaxosStateCacheTest
+{
+    private static PaxosStateCache cache;
+
+    @BeforeClass
+    public static void setUpClass() throws Throwable
+    {
+        SchemaLoader.loadSchema();
+        SchemaLoader.schemaDefinition("PaxosStateCacheTest");
+        cache = new PaxosStateCache(1024 * 1024);
+    }
+
+    @AfterClass
+    public static void stopGossiper()
+    {
+        Gossiper.instance.stop();
+    }
+
+    @Test
+    public void testFollowsSystemPaxos()
+    {
+        CFMetaData metadata = cfs().metadata;
+        DecoratedKey key = Util.dk("key" + System.nanoTime());
+        int nowInSec = FBUtilities.nowInSeconds();
+
+        // populates the cache
+        assertSameState(key, metadata, nowInSec);
+
+        Commit promise = Commit.newPrepare(key, metadata, UUIDGen.getTimeUUID(1000));
+        SystemKeyspace.savePaxosPromise(promise);
+        cache.promised(promise);
+        assertSameState(key, metadata, nowInSec);
+
+        Commit proposal = Commit.newProposal(promise.ballot, update(key, 1));
+        SystemKeyspace.savePaxosProposal(proposal);
+        cache.accepted(proposal);
+        assertSameState(key, metadata, nowInSec);
+
+        // a newer commit than the proposal deletes it...
+        Commit commit = Commit.newProposal(UUIDGen.getTimeUUID(2000), update(key, 2));
+        SystemKeyspace.savePaxosCommit(commit);
+        cache.committed(commit);
+        assertSameState(key, metadata, nowInSec);
+
+        // ... and shadows older proposals received late, while older commits don't replace it
+        Commit lateProposal = Commit.newProposal(UUIDGen.getTimeUUID(1500), update(key, 3));
+        SystemKeyspace.savePaxosProposal(lateProposal);
+        cache.accepted(lateProposal);
+        Commit lateCommit = Commit.newProposal(UUIDGen.getTimeUUID(1200), update(key, 4));
+        SystemKeyspace.savePaxosCommit(lateCommit);
+        cache.committed(lateCommit);
+        assertSameState(key, metadata, nowInSec);
+
+        // older promises are ignored
+        Commit olderPromise = Commit.newPrepare(key, metadata, UUIDGen.getTimeUUID(500));
+        SystemKeyspace.savePaxosPromise(olderPromise);
+        cache.promised(olderPromise);
+        assertSameState(key, metadata, nowInSec);
+
+        // everything expires at the same time as on disk
+        int expired = nowInSec + SystemKeyspace.paxosTtlSec(metadata) + 1;
+        assertSameState(key, metadata, expired);
+        assertEquals(Commit.emptyCommit(key, metadata).ballot, cache.load(key, metadata, expired).mostRecentCommit.ballot);
+    }
+
+    @Test
+    public void testHitsAndInvalidation()
+    {
+        CFMetaData metadata = cfs().metadata;
+        DecoratedKey key = Util.dk("key" + System.nanoTime());
+        int nowInSec = FBUtilities.nowInSeconds();
+        CacheMetrics metrics = cache.getMetrics();
+
+        long hits = metrics.hits.getCount();
+        long requests = metrics.requests.getCount();
+        cache.load(key, metadata, nowInSec);
+        cache.load(key, metadata, nowInSec);
+        assertEquals(hits + 1, metrics.hits.getCount());
+        assertEquals(requests + 2, metrics.requests.getCount());
+
+        // updates made while the partition isn't cached don't create partial entries
+        cfs().truncateBlocking();
+        cache.invalidate(metadata);
+        Commit promise = Commit.newPrepare(key, metadata, UUIDGen.getTimeUUID());
+        SystemKeyspace.savePaxosPromise(promise);
+        cache.promised(promise);
+        assertEquals(promise.ballot, cache.load(key, metadata, nowInSec).promised.ballot);
+        assertEquals(hits + 1, metrics.hits.getCount());
+
+        // truncating system.paxos drops everything
+        cache.load(key, metadata, nowInSec);
+        assertEquals(hits + 2, metrics.hits.getCount());
+        Keyspace.open(SystemKeyspace.NAME).getColumnFamilyStore(SystemKeyspace.PAXOS).truncateBlocking();
+        cache.invalidate(Keyspace.open(SystemKeyspace.NAME).getColumnFamilyStore(SystemKeyspace.PAXOS).metadata);
+        assertEquals(Commit.emptyCommit(key, metadata).ballot, cache.load(key, metadata, nowInSec).promised.ballot);
+        assertEquals(hits + 2, metrics.hits.getCount());
+    }
+
+    private void assertSameState(DecoratedKey key, CFMetaData metadata, int nowInSec)
+    {
+        PaxosState expected = SystemKeyspace.loadPaxosState(key, metadata, nowInSec);
+        PaxosState actual = cache.load(key, metadata, nowInSec);
+        assertEquals(expected.promised.ballot, actual.promised.ballot);
+        assertSameCommit(expected.accepted, actual.accepted);
+        assertSameCommit(expected.mostRecentCommit, actual.mostRecentCommit);
+    }
+
+    private void assertSameCommit(Commit expected, Commit actual)
+    {
+        assertEquals(expected.ballot, actual.ballot);
+        assertEquals(PartitionUpdate.toBytes(expected.update, MessagingService.current_version),
+                     PartitionUpdate.toBytes(actual.update, MessagingService.current_version));
+    }
+
+    private static ColumnFamilyStore cfs()
+    {
+        return Keyspace.open("PaxosStateCacheTestKeyspace1").getColumnFamilyStore("Standard1");
+    }
+
+    private static PartitionUpdate update(DecoratedKey key, int value)
+    {
+        RowUpdateBuilder builder = new RowUpdateBuilder(cfs().metadata, 0, key.getKey());
+        builder.clustering("a").add("val", ByteBufferUtil.bytes(value));
+        return Iterables.getOnlyElement(builder.build().getPartitionUpdates());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.transport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Random;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.transport.messages.QueryMessage;
+import org.apache.cassandra.transport.messages.ResultMessage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrameCompressorTest extends CQLTester
+{
+    @BeforeClass
+    public static void setUp()
+    {
+        requireNetwork();
+    }
+
+    @Test
+    public void testDeflateKeepsContextAcrossFrames() throws Throwable
+    {
+        FrameCompressor.DeflateCompressor sender = new FrameCompressor.DeflateCompressor();
+        FrameCompressor.DeflateCompressor receiver = new FrameCompressor.DeflateCompressor();
+        try
+        {
+            String body = "{\"id\": 42, \"name\": \"some name\", \"tags\": [\"a\", \"b\"], \"value\": 3.14}";
+            int firstSize = -1;
+            for (int i = 0; i < 10; i++)
+            {
+                Frame compressed = sender.compress(frame(body + i));
+                int size = compressed.body.readableBytes();
+                if (i == 0)
+                    firstSize = size;
+                else
+                    assertTrue(size < firstSize / 2);
+
+                Frame decompressed = receiver.decompress(compressed);
+                assertEquals(body + i, decompressed.body.toString(StandardCharsets.UTF_8));
+                decompressed.release();
+            }
+
+            // empty and incompressible bodies
+            Frame decompressed = receiver.decompress(sender.compress(frame("")));
+            assertEquals(0, decompressed.body.readableBytes());
+            decompressed.release();
+
+            byte[] random = new byte[100000];
+            new Random(0).nextBytes(random);
+            decompressed = receiver.decompress(sender.compress(frame(Unpooled.wrappedBuffer(random))));
+            assertEquals(Unpooled.wrappedBuffer(random), decompressed.body);
+            decompressed.release();
+        }
+        finally
+        {
+            sender.close();
+            receiver.close();
+        }
+    }
+
+    @Test
+    public void testLZ4DirectBuffers() throws Throwable
+    {
+        String body = "some text that compresses some text that compresses some text that compresses";
+        ByteBuf direct = CBUtil.allocator.directBuffer();
+        direct.writeBytes(body.getBytes(StandardCharsets.UTF_8));
+
+        Frame compressed = FrameCompressor.LZ4Compressor.instance.compress(frame(direct));
+        assertTrue(compressed.body.readableBytes() < body.length());
+
+        Frame decompressed = FrameCompressor.LZ4Compressor.instance.decompress(compressed);
+        assertEquals(body, decompressed.body.toString(StandardCharsets.UTF_8));
+        decompressed.release();
+    }
+
+    @Test
+    public void testCompressedQueries() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v text, PRIMARY KEY (pk, ck))");
+        for (int i = 0; i < 50; i++)
+            execute("INSERT INTO %s (pk, ck, v) VALUES (0, ?, ?)", i, "value " + i);
+
+        for (String compression : new String[]{ "lz4", "deflate" })
+        {
+            try (SimpleClient client = new SimpleClient(nativeAddr.getHostAddress(), nativePort, Server.VERSION_4))
+            {
+                client.connect(compression);
+                for (int i = 0; i < 20; i++)
+                {
+                    QueryMessage query = new QueryMessage(String.format("SELECT * FROM %s.%s WHERE pk = 0", KEYSPACE, currentTable()), QueryOptions.DEFAULT);
+                    ResultMessage.Rows rows = (ResultMessage.Rows) client.execute(query);
+                    assertEquals(50, rows.result.size());
+                }
+            }
+        }
+    }
+
+    private static Frame frame(String body)
+    {
+        return frame(Unpooled.wrappedBuffer(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Frame frame(ByteBuf body)
+    {
+        return Frame.create(Message.Type.RESULT, 0, Server.VERSION_4, EnumSet.noneOf(Frame.Header.Flag.class), body);
+    }
+}
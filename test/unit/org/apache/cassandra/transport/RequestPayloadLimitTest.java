@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.transport;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.exceptions.OverloadedException;
+import org.apache.cassandra.transport.messages.QueryMessage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestPayloadLimitTest extends CQLTester
+{
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    @BeforeClass
+    public static void setUp()
+    {
+        // the limits need to be enabled when the connections are created for the handler to be installed
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytes(UNLIMITED);
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytesPerIp(UNLIMITED);
+        requireNetwork();
+    }
+
+    @After
+    public void resetLimits()
+    {
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytes(UNLIMITED);
+        DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytesPerIp(UNLIMITED);
+        DatabaseDescriptor.setNativeTransportThrowOnOverload(false);
+    }
+
+    @Test
+    public void testThrowOnOverload() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int PRIMARY KEY, v text)");
+
+        try (SimpleClient client = new SimpleClient(nativeAddr.getHostAddress(), nativePort, Server.VERSION_4))
+        {
+            client.connect(false);
+
+            DatabaseDescriptor.setNativeTransportThrowOnOverload(true);
+            DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytesPerIp(1);
+            try
+            {
+                client.execute(insert(1));
+                fail("The request should have been rejected");
+            }
+            catch (RuntimeException e)
+            {
+                assertTrue(e.getCause() instanceof OverloadedException);
+            }
+
+            DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytesPerIp(UNLIMITED);
+            client.execute(insert(2));
+        }
+        assertRows(execute("SELECT pk FROM %s"), row(2));
+    }
+
+    @Test
+    public void testPauseOnOverload() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int PRIMARY KEY, v text)");
+
+        try (SimpleClient client = new SimpleClient(nativeAddr.getHostAddress(), nativePort, Server.VERSION_4))
+        {
+            client.connect(false);
+
+            // every request goes over the limit, but is still processed: the connection is only read again once it is answered
+            DatabaseDescriptor.setNativeTransportMaxConcurrentRequestsInBytes(1);
+            for (int i = 0; i < 10; i++)
+                client.execute(insert(i));
+        }
+        assertEquals(10, execute("SELECT pk FROM %s").size());
+    }
+
+    private QueryMessage insert(int pk)
+    {
+        return new QueryMessage(String.format("INSERT INTO %s.%s (pk, v) VALUES (%d, 'value')", KEYSPACE, currentTable(), pk), QueryOptions.DEFAULT);
+    }
+}
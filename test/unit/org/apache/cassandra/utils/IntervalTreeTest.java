@@ -26,6 +26,7 @@ import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 import org.apache.cassandra.io.ISerializer;
@@ -124,6 +125,51 @@ public class IntervalTreeTest
         assertEquals(intervals, l);
     }
 
+    @Test
+    public void testUpdate()
+    {
+        Random random = new Random(42);
+        List<Interval<Integer, Integer>> intervals = new ArrayList<>();
+        IntervalTree<Integer, Integer, Interval<Integer, Integer>> it = IntervalTree.emptyTree();
+        int next = 0;
+        for (int round = 0; round < 500; round++)
+        {
+            // mostly add, like flushes, or replace a few intervals by a few others, like compactions
+            List<Interval<Integer, Integer>> removals = new ArrayList<>();
+            if (round % 3 == 0)
+            {
+                for (int i = random.nextInt(Math.min(4, intervals.size()) + 1); i > 0; i--)
+                    removals.add(intervals.remove(random.nextInt(intervals.size())));
+            }
+            List<Interval<Integer, Integer>> additions = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--)
+            {
+                int min = random.nextInt(10000);
+                additions.add(Interval.create(min, min + random.nextInt(round % 2 == 0 ? 100 : 10000), next++));
+            }
+            intervals.addAll(additions);
+            it = IntervalTree.update(it, removals, additions);
+
+            assertEquals(intervals.size(), it.intervalCount());
+            assertEquals(intervals.isEmpty(), it.isEmpty());
+            for (int i = 0; i < 10; i++)
+            {
+                int min = random.nextInt(11000);
+                Interval<Integer, Integer> search = Interval.create(min, min + random.nextInt(500));
+                List<Integer> expected = new ArrayList<>();
+                for (Interval<Integer, Integer> interval : intervals)
+                {
+                    if (interval.min <= search.max && interval.max >= search.min)
+                        expected.add(interval.data);
+                }
+                List<Integer> found = it.search(search);
+                Collections.sort(expected);
+                Collections.sort(found);
+                assertEquals(expected, found);
+            }
+        }
+    }
+
     @Test
     public void testSerialization() throws Exception
     {
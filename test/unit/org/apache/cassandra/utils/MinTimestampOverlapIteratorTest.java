@@ -0,0 +1,82 @@
+package org.apache.cassandra.utils;
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MinTimestampOverlapIteratorTest
+{
+    private static List<Interval<Integer, Integer>> randomIntervals(int range, int count)
+    {
+        List<Interval<Integer, Integer>> r = new ArrayList<>();
+        for (int i = 0 ; i < count ; i++)
+        {
+            int a = ThreadLocalRandom.current().nextInt(range);
+            int b = ThreadLocalRandom.current().nextInt(range);
+            // the value is the timestamp of the interval, with some duplicates
+            r.add(Interval.create(Math.min(a, b), Math.max(a, b), ThreadLocalRandom.current().nextInt(count / 2)));
+        }
+        return r;
+    }
+
+    @Test
+    public void test()
+    {
+        for (int i = 0 ; i < 10 ; i++)
+        {
+            compare(randomIntervals(1000, 1000), 1000, 1000);
+            compare(randomIntervals(100000, 1000), 100000, 1000);
+            compare(randomIntervals(1000000, 100), 1000000, 1000);
+        }
+    }
+
+    private void compare(List<Interval<Integer, Integer>> intervals, int range, int pointCount)
+    {
+        List<Integer> points = new ArrayList<>();
+        for (int i = 0 ; i < pointCount ; i++)
+            points.add(ThreadLocalRandom.current().nextInt(range));
+        Collections.sort(points);
+
+        MinTimestampOverlapIterator<Integer, Integer> iter = new MinTimestampOverlapIterator<>(intervals, Integer::longValue);
+        for (Integer point : points)
+        {
+            // intervals "contain" the points with the same parity as their timestamp
+            long bound = ThreadLocalRandom.current().nextBoolean() ? Long.MAX_VALUE : ThreadLocalRandom.current().nextInt(intervals.size());
+            long expected = bound;
+            for (Interval<Integer, Integer> interval : intervals)
+            {
+                if (interval.min <= point && point <= interval.max && (interval.data + point) % 2 == 0)
+                    expected = Math.min(expected, interval.data);
+            }
+
+            iter.update(point);
+            assertEquals(expected, iter.minTimestamp(point, (timestamp, p) -> (timestamp + p) % 2 == 0, bound));
+        }
+    }
+}
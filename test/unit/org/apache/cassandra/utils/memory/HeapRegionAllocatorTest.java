@@ -0,0 +1,73 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.utils.memory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class HeapRegionAllocatorTest
+{
+    @Test
+    public void testSlicesAreIndependent()
+    {
+        HeapRegionAllocator allocator = new HeapRegionAllocator();
+        List<ByteBuffer> buffers = new ArrayList<>();
+        // enough values to span several regions
+        for (int i = 0; i < 100000; i++)
+        {
+            ByteBuffer buffer = allocator.allocate(1 + i % 10);
+            assertEquals(1 + i % 10, buffer.remaining());
+            for (int j = buffer.position(); j < buffer.limit(); j++)
+                buffer.put(j, (byte) i);
+            buffers.add(buffer);
+        }
+
+        for (int i = 0; i < buffers.size(); i++)
+        {
+            ByteBuffer buffer = buffers.get(i);
+            assertEquals(1 + i % 10, buffer.remaining());
+            for (int j = buffer.position(); j < buffer.limit(); j++)
+                assertEquals((byte) i, buffer.get(j));
+        }
+    }
+
+    @Test
+    public void testSharedAndUnsharedRegions()
+    {
+        HeapRegionAllocator allocator = new HeapRegionAllocator();
+        ByteBuffer small1 = allocator.allocate(100);
+        ByteBuffer small2 = allocator.allocate(100);
+        assertSame(small1.array(), small2.array());
+        assertEquals(small1.position() + 100, small2.position());
+
+        ByteBuffer large = allocator.allocate(1024 * 1024);
+        assertNotSame(small1.array(), large.array());
+        assertEquals(1024 * 1024, large.array().length);
+
+        // the large buffer doesn't change the current region
+        assertSame(small1.array(), allocator.allocate(100).array());
+    }
+}